@@ -1,26 +1,186 @@
 package com.techyourchance.unittesting.common;
 
-import java.util.Collections;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 public abstract class BaseObservable<LISTENER_CLASS> {
 
-    // thread-safe set of listeners
-    private final Set<LISTENER_CLASS> mListeners = Collections.newSetFromMap(
-            new ConcurrentHashMap<LISTENER_CLASS, Boolean>(1));
+    private final Object mLock = new Object();
+    private final boolean mWeakListeners;
 
+    // copy-on-write snapshot in registration order, so notifications neither lock nor copy
+    private volatile Listeners<LISTENER_CLASS> mListeners;
+
+    protected BaseObservable() {
+        this(false);
+    }
+
+    /**
+     * @param weakListeners if true, listeners are referenced weakly, and listeners which were
+     *                      garbage collected without being unregistered are dropped
+     */
+    protected BaseObservable(boolean weakListeners) {
+        mWeakListeners = weakListeners;
+        mListeners = new Listeners<>(new Object[0], weakListeners);
+    }
 
     public final void registerListener(LISTENER_CLASS listener) {
-        mListeners.add(listener);
+        synchronized (mLock) {
+            Object[] entries = getLiveEntries();
+            if (indexOf(entries, listener) >= 0) {
+                return;
+            }
+            Object[] newEntries = Arrays.copyOf(entries, entries.length + 1);
+            newEntries[entries.length] = mWeakListeners ? new WeakReference<>(listener) : listener;
+            mListeners = new Listeners<>(newEntries, mWeakListeners);
+        }
     }
 
     public final void unregisterListener(LISTENER_CLASS listener) {
-        mListeners.remove(listener);
+        boolean lastListenerUnregistered = false;
+        synchronized (mLock) {
+            Object[] entries = getLiveEntries();
+            int index = indexOf(entries, listener);
+            if (index >= 0) {
+                Object[] newEntries = new Object[entries.length - 1];
+                System.arraycopy(entries, 0, newEntries, 0, index);
+                System.arraycopy(entries, index + 1, newEntries, index, entries.length - index - 1);
+                entries = newEntries;
+                lastListenerUnregistered = entries.length == 0;
+            }
+            if (entries != mListeners.mEntries) {
+                mListeners = new Listeners<>(entries, mWeakListeners);
+            }
+        }
+        if (lastListenerUnregistered) {
+            onLastListenerUnregistered();
+        }
+    }
+
+    /**
+     * Called on the thread that unregistered the last registered listener. Subclasses can override
+     * this method in order to stop work that nobody is interested in anymore.
+     */
+    protected void onLastListenerUnregistered() {}
+
+    /**
+     * @return the listeners in registration order. The returned snapshot doesn't reflect changes
+     *         made after this call, so listeners can unregister while being notified. Notifications
+     *         should iterate it by index, which doesn't allocate
+     */
+    protected final Listeners<LISTENER_CLASS> getListeners() {
+        return mListeners;
+    }
+
+    /**
+     * @return the current entries without the ones whose listeners were garbage collected
+     */
+    private Object[] getLiveEntries() {
+        Object[] entries = mListeners.mEntries;
+        if (!mWeakListeners) {
+            return entries;
+        }
+        int liveCount = 0;
+        for (Object entry : entries) {
+            if (((WeakReference<?>) entry).get() != null) {
+                liveCount++;
+            }
+        }
+        if (liveCount == entries.length) {
+            return entries;
+        }
+        Object[] liveEntries = new Object[liveCount];
+        int index = 0;
+        for (Object entry : entries) {
+            if (((WeakReference<?>) entry).get() != null) {
+                liveEntries[index++] = entry;
+            }
+        }
+        return liveEntries;
     }
 
-    protected final Set<LISTENER_CLASS> getListeners() {
-        return Collections.unmodifiableSet(mListeners);
+    private int indexOf(Object[] entries, LISTENER_CLASS listener) {
+        for (int i = 0; i < entries.length; i++) {
+            Object candidate = mWeakListeners ? ((WeakReference<?>) entries[i]).get() : entries[i];
+            if (listener.equals(candidate)) {
+                return i;
+            }
+        }
+        return -1;
     }
 
+    protected static final class Listeners<LISTENER_CLASS> implements Iterable<LISTENER_CLASS> {
+
+        private final Object[] mEntries;
+        private final boolean mWeak;
+
+        private Listeners(Object[] entries, boolean weak) {
+            mEntries = entries;
+            mWeak = weak;
+        }
+
+        public int size() {
+            return mEntries.length;
+        }
+
+        /**
+         * @return the listener at the given index, or null if listeners are referenced weakly and
+         *         this one was garbage collected
+         */
+        @SuppressWarnings("unchecked")
+        public LISTENER_CLASS get(int index) {
+            Object entry = mEntries[index];
+            return (LISTENER_CLASS) (mWeak ? ((WeakReference<?>) entry).get() : entry);
+        }
+
+        @Override
+        public Iterator<LISTENER_CLASS> iterator() {
+            return new ListenersIterator<>(mEntries, mWeak);
+        }
+    }
+
+    private static class ListenersIterator<LISTENER_CLASS> implements Iterator<LISTENER_CLASS> {
+
+        private final Object[] mEntries;
+        private final boolean mWeak;
+        private int mIndex;
+        private LISTENER_CLASS mNext;
+
+        private ListenersIterator(Object[] entries, boolean weak) {
+            mEntries = entries;
+            mWeak = weak;
+            advance();
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            mNext = null;
+            while (mNext == null && mIndex < mEntries.length) {
+                Object entry = mEntries[mIndex++];
+                mNext = (LISTENER_CLASS) (mWeak ? ((WeakReference<?>) entry).get() : entry);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return mNext != null;
+        }
+
+        @Override
+        public LISTENER_CLASS next() {
+            if (mNext == null) {
+                throw new NoSuchElementException();
+            }
+            LISTENER_CLASS next = mNext;
+            advance();
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("listeners can't be removed while iterating");
+        }
+    }
 }
@@ -11,7 +11,8 @@ public class CustomApplication extends Application {
     @Override
     public void onCreate() {
         super.onCreate();
-        mCompositionRoot = new CompositionRoot();
+        mCompositionRoot = new CompositionRoot(this);
+        mCompositionRoot.getQuestionsSyncWorker().start();
     }
 
     public CompositionRoot getCompositionRoot() {
@@ -0,0 +1,245 @@
+package com.techyourchance.unittesting.common.cache;
+
+import com.techyourchance.unittesting.common.time.TimeProvider;
+
+/**
+ * Thread-safe cache bounded by total weight (number of entries by default), which evicts the least
+ * recently used entries when over budget and drops entries older than the configured time-to-live.
+ * Subclasses index the entries by key and expose the keyed operations.
+ *
+ * Entries are linked in two lists: by recency of use, for eviction, and by the time of caching, for
+ * expiration. The time-to-live is the same for all the entries, so the entries expire in the order
+ * of caching, and dropping the expired entries on put stops at the first entry which didn't expire.
+ */
+public abstract class BaseExpiringLruCache<VALUE> {
+
+    public interface Weigher<VALUE> {
+        /**
+         * @return the cost of keeping the given value in the cache; must not be negative
+         */
+        int weigh(VALUE value);
+    }
+
+    protected static final Weigher<Object> UNIT_WEIGHER = new Weigher<Object>() {
+        @Override
+        public int weigh(Object value) {
+            return 1;
+        }
+    };
+
+    private final long mMaxWeight;
+    private final long mTimeToLiveMs;
+    private final Weigher<? super VALUE> mWeigher;
+    private final TimeProvider mTimeProvider;
+
+    // sentinels of the circular lists; the entry after the sentinel is the least recently used one
+    // and the earliest cached one, respectively
+    private final CacheEntry<VALUE> mRecencyList = new CacheEntry<>(null);
+    private final CacheEntry<VALUE> mCachingOrderList = new CacheEntry<>(null);
+
+    private long mCurrentWeight;
+
+    private long mHitCount;
+    private long mMissCount;
+    private long mEvictionCount;
+    private long mExpirationCount;
+
+    protected BaseExpiringLruCache(long maxWeight,
+                                   long timeToLiveMs,
+                                   Weigher<? super VALUE> weigher,
+                                   TimeProvider timeProvider) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("max weight must be positive: " + maxWeight);
+        }
+        if (timeToLiveMs <= 0) {
+            throw new IllegalArgumentException("time to live must be positive: " + timeToLiveMs);
+        }
+        mMaxWeight = maxWeight;
+        mTimeToLiveMs = timeToLiveMs;
+        mWeigher = weigher;
+        mTimeProvider = timeProvider;
+        clearLists();
+    }
+
+    protected abstract void addToIndex(CacheEntry<VALUE> entry);
+
+    protected abstract void removeFromIndex(CacheEntry<VALUE> entry);
+
+    protected abstract void clearIndex();
+
+    protected abstract int getIndexSize();
+
+    /**
+     * Must be called while holding the lock of this cache.
+     * @param entry the indexed entry of the requested key, or null if there is none
+     * @return the cached value, or null if there is no entry or the entry expired
+     */
+    protected final VALUE getValue(CacheEntry<VALUE> entry) {
+        if (entry == null) {
+            mMissCount++;
+            return null;
+        }
+        if (isExpired(entry, mTimeProvider.getMonotonicTimestamp())) {
+            removeEntry(entry);
+            mExpirationCount++;
+            mMissCount++;
+            return null;
+        }
+        unlinkFromRecencyList(entry);
+        linkToRecencyList(entry);
+        mHitCount++;
+        return entry.mValue;
+    }
+
+    /**
+     * Must be called while holding the lock of this cache.
+     * @param previousEntry the indexed entry of the same key, or null if there is none
+     * @param entry the new entry; it's indexed unless its value is heavier than the whole cache
+     */
+    protected final void putEntry(CacheEntry<VALUE> previousEntry, CacheEntry<VALUE> entry) {
+        if (entry.mValue == null) {
+            throw new NullPointerException("null values are not supported");
+        }
+
+        if (previousEntry != null) {
+            removeEntry(previousEntry);
+        }
+
+        int weight = mWeigher.weigh(entry.mValue);
+        if (weight < 0) {
+            throw new IllegalStateException("negative weight " + weight + " for value " + entry.mValue);
+        }
+        if (weight > mMaxWeight) {
+            // caching this value would flush everything else out of the cache
+            mEvictionCount++;
+            return;
+        }
+
+        long now = mTimeProvider.getMonotonicTimestamp();
+        entry.mWeight = weight;
+        entry.mCachedTimestamp = now;
+        addToIndex(entry);
+        linkToRecencyList(entry);
+        linkToCachingOrderList(entry);
+        mCurrentWeight += weight;
+
+        removeExpiredEntries(now);
+        trimToMaxWeight();
+    }
+
+    /**
+     * Must be called while holding the lock of this cache.
+     */
+    protected final void removeEntry(CacheEntry<VALUE> entry) {
+        removeFromIndex(entry);
+        unlinkFromRecencyList(entry);
+        unlinkFromCachingOrderList(entry);
+        mCurrentWeight -= entry.mWeight;
+    }
+
+    public synchronized void evictExpired() {
+        removeExpiredEntries(mTimeProvider.getMonotonicTimestamp());
+    }
+
+    public synchronized void clear() {
+        clearIndex();
+        clearLists();
+        mCurrentWeight = 0;
+    }
+
+    public synchronized int size() {
+        return getIndexSize();
+    }
+
+    public synchronized long getCurrentWeight() {
+        return mCurrentWeight;
+    }
+
+    public long getMaxWeight() {
+        return mMaxWeight;
+    }
+
+    public synchronized long getHitCount() {
+        return mHitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return mMissCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return mEvictionCount;
+    }
+
+    public synchronized long getExpirationCount() {
+        return mExpirationCount;
+    }
+
+    private boolean isExpired(CacheEntry<VALUE> entry, long now) {
+        return now >= entry.mCachedTimestamp + mTimeToLiveMs;
+    }
+
+    private void removeExpiredEntries(long now) {
+        CacheEntry<VALUE> earliestCached = mCachingOrderList.mNextCached;
+        while (earliestCached != mCachingOrderList && isExpired(earliestCached, now)) {
+            removeEntry(earliestCached);
+            mExpirationCount++;
+            earliestCached = mCachingOrderList.mNextCached;
+        }
+    }
+
+    private void trimToMaxWeight() {
+        while (mCurrentWeight > mMaxWeight) {
+            removeEntry(mRecencyList.mNextUsed);
+            mEvictionCount++;
+        }
+    }
+
+    private void clearLists() {
+        mRecencyList.mPreviousUsed = mRecencyList;
+        mRecencyList.mNextUsed = mRecencyList;
+        mCachingOrderList.mPreviousCached = mCachingOrderList;
+        mCachingOrderList.mNextCached = mCachingOrderList;
+    }
+
+    private void linkToRecencyList(CacheEntry<VALUE> entry) {
+        entry.mPreviousUsed = mRecencyList.mPreviousUsed;
+        entry.mNextUsed = mRecencyList;
+        mRecencyList.mPreviousUsed.mNextUsed = entry;
+        mRecencyList.mPreviousUsed = entry;
+    }
+
+    private void unlinkFromRecencyList(CacheEntry<VALUE> entry) {
+        entry.mPreviousUsed.mNextUsed = entry.mNextUsed;
+        entry.mNextUsed.mPreviousUsed = entry.mPreviousUsed;
+    }
+
+    private void linkToCachingOrderList(CacheEntry<VALUE> entry) {
+        entry.mPreviousCached = mCachingOrderList.mPreviousCached;
+        entry.mNextCached = mCachingOrderList;
+        mCachingOrderList.mPreviousCached.mNextCached = entry;
+        mCachingOrderList.mPreviousCached = entry;
+    }
+
+    private void unlinkFromCachingOrderList(CacheEntry<VALUE> entry) {
+        entry.mPreviousCached.mNextCached = entry.mNextCached;
+        entry.mNextCached.mPreviousCached = entry.mPreviousCached;
+    }
+
+    /**
+     * Subclasses extend the entry with the key, so that evicted entries can be removed from the index
+     */
+    protected static class CacheEntry<VALUE> {
+        protected final VALUE mValue;
+        private int mWeight;
+        private long mCachedTimestamp;
+        private CacheEntry<VALUE> mPreviousUsed;
+        private CacheEntry<VALUE> mNextUsed;
+        private CacheEntry<VALUE> mPreviousCached;
+        private CacheEntry<VALUE> mNextCached;
+
+        protected CacheEntry(VALUE value) {
+            mValue = value;
+        }
+    }
+}
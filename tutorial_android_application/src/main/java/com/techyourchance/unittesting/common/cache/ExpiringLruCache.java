@@ -0,0 +1,80 @@
+package com.techyourchance.unittesting.common.cache;
+
+import com.techyourchance.unittesting.common.time.TimeProvider;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link BaseExpiringLruCache} keyed by objects
+ */
+public class ExpiringLruCache<KEY, VALUE> extends BaseExpiringLruCache<VALUE> {
+
+    private final Map<KEY, KeyedEntry<KEY, VALUE>> mEntries = new HashMap<>();
+
+    public ExpiringLruCache(int maxEntries, long timeToLiveMs, TimeProvider timeProvider) {
+        this(maxEntries, timeToLiveMs, UNIT_WEIGHER, timeProvider);
+    }
+
+    public ExpiringLruCache(long maxWeight,
+                            long timeToLiveMs,
+                            Weigher<? super VALUE> weigher,
+                            TimeProvider timeProvider) {
+        super(maxWeight, timeToLiveMs, weigher, timeProvider);
+    }
+
+    /**
+     * @return the cached value, or null if there is no value for this key or the value expired
+     */
+    public synchronized VALUE get(KEY key) {
+        return getValue(mEntries.get(key));
+    }
+
+    public synchronized void put(KEY key, VALUE value) {
+        if (key == null || value == null) {
+            throw new NullPointerException("null keys and values are not supported");
+        }
+        putEntry(mEntries.get(key), new KeyedEntry<>(key, value));
+    }
+
+    public synchronized VALUE remove(KEY key) {
+        KeyedEntry<KEY, VALUE> entry = mEntries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        removeEntry(entry);
+        return entry.mValue;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected void addToIndex(CacheEntry<VALUE> entry) {
+        KeyedEntry<KEY, VALUE> keyedEntry = (KeyedEntry<KEY, VALUE>) entry;
+        mEntries.put(keyedEntry.mKey, keyedEntry);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected void removeFromIndex(CacheEntry<VALUE> entry) {
+        mEntries.remove(((KeyedEntry<KEY, VALUE>) entry).mKey);
+    }
+
+    @Override
+    protected void clearIndex() {
+        mEntries.clear();
+    }
+
+    @Override
+    protected int getIndexSize() {
+        return mEntries.size();
+    }
+
+    private static class KeyedEntry<KEY, VALUE> extends CacheEntry<VALUE> {
+        private final KEY mKey;
+
+        private KeyedEntry(KEY key, VALUE value) {
+            super(value);
+            mKey = key;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.techyourchance.unittesting.common.cache;
+
+import com.techyourchance.unittesting.common.collections.LongHashMap;
+import com.techyourchance.unittesting.common.time.TimeProvider;
+
+/**
+ * {@link BaseExpiringLruCache} keyed by primitive longs (e.g. numeric ids). The entries are indexed
+ * in a {@link LongHashMap}, so the keys aren't boxed and the index doesn't allocate per entry.
+ */
+public class LongExpiringLruCache<VALUE> extends BaseExpiringLruCache<VALUE> {
+
+    private final LongHashMap<LongKeyedEntry<VALUE>> mEntries = new LongHashMap<>();
+
+    public LongExpiringLruCache(int maxEntries, long timeToLiveMs, TimeProvider timeProvider) {
+        this(maxEntries, timeToLiveMs, UNIT_WEIGHER, timeProvider);
+    }
+
+    public LongExpiringLruCache(long maxWeight,
+                                long timeToLiveMs,
+                                Weigher<? super VALUE> weigher,
+                                TimeProvider timeProvider) {
+        super(maxWeight, timeToLiveMs, weigher, timeProvider);
+    }
+
+    /**
+     * @return the cached value, or null if there is no value for this key or the value expired
+     */
+    public synchronized VALUE get(long key) {
+        return getValue(mEntries.get(key));
+    }
+
+    public synchronized void put(long key, VALUE value) {
+        if (value == null) {
+            throw new NullPointerException("null values are not supported");
+        }
+        putEntry(mEntries.get(key), new LongKeyedEntry<>(key, value));
+    }
+
+    public synchronized VALUE remove(long key) {
+        LongKeyedEntry<VALUE> entry = mEntries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        removeEntry(entry);
+        return entry.mValue;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected void addToIndex(CacheEntry<VALUE> entry) {
+        LongKeyedEntry<VALUE> longKeyedEntry = (LongKeyedEntry<VALUE>) entry;
+        mEntries.put(longKeyedEntry.mKey, longKeyedEntry);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected void removeFromIndex(CacheEntry<VALUE> entry) {
+        mEntries.remove(((LongKeyedEntry<VALUE>) entry).mKey);
+    }
+
+    @Override
+    protected void clearIndex() {
+        mEntries.clear();
+    }
+
+    @Override
+    protected int getIndexSize() {
+        return mEntries.size();
+    }
+
+    private static class LongKeyedEntry<VALUE> extends CacheEntry<VALUE> {
+        private final long mKey;
+
+        private LongKeyedEntry(long key, VALUE value) {
+            super(value);
+            mKey = key;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.techyourchance.unittesting.common.cache;
+
+/**
+ * Classifies cached data by age: fresh data can be used as is, stale data can be shown while
+ * it's being refreshed in the background, and expired data must not be shown at all.
+ */
+public class StaleWhileRevalidatePolicy {
+
+    public enum Freshness {
+        FRESH,
+        STALE,
+        EXPIRED
+    }
+
+    private final long mFreshWindowMs;
+    private final long mStaleWindowMs;
+
+    /**
+     * @param freshWindowMs for how long after caching the data doesn't need to be refreshed
+     * @param staleWindowMs for how long after the fresh window ends the data can still be shown
+     */
+    public StaleWhileRevalidatePolicy(long freshWindowMs, long staleWindowMs) {
+        if (freshWindowMs < 0 || staleWindowMs < 0) {
+            throw new IllegalArgumentException("windows can't be negative");
+        }
+        mFreshWindowMs = freshWindowMs;
+        mStaleWindowMs = staleWindowMs;
+    }
+
+    public Freshness getFreshness(long cachedTimestamp, long currentTimestamp) {
+        long age = currentTimestamp - cachedTimestamp;
+        if (age < mFreshWindowMs) {
+            return Freshness.FRESH;
+        } else if (age < mFreshWindowMs + mStaleWindowMs) {
+            return Freshness.STALE;
+        } else {
+            return Freshness.EXPIRED;
+        }
+    }
+
+    public long getFreshWindowMs() {
+        return mFreshWindowMs;
+    }
+
+    public long getStaleWindowMs() {
+        return mStaleWindowMs;
+    }
+}
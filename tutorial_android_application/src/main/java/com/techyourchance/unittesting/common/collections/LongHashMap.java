@@ -0,0 +1,154 @@
+package com.techyourchance.unittesting.common.collections;
+
+import java.util.Arrays;
+
+/**
+ * Map from primitive longs to objects, meant for large caches keyed by numeric ids. Unlike
+ * HashMap&lt;Long, V&gt;, it doesn't box the keys and doesn't allocate an entry per mapping: keys and
+ * values are kept in two parallel arrays (open addressing with linear probing).
+ * Null values aren't supported. Not thread-safe.
+ */
+public class LongHashMap<V> {
+
+    private static final int MIN_CAPACITY = 4;
+    private static final float LOAD_FACTOR = 0.7f;
+
+    private long[] mKeys;
+    private Object[] mValues; // null marks a free slot
+    private int mMask;
+    private int mResizeThreshold;
+    private int mSize;
+
+    public LongHashMap() {
+        this(0);
+    }
+
+    /**
+     * @param expectedSize the number of mappings the map will hold without resizing
+     */
+    public LongHashMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity *= 2;
+        }
+        allocate(capacity);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int index = indexOf(key);
+        return index < 0 ? null : (V) mValues[index];
+    }
+
+    public boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * @return the value previously mapped to the key, or null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("null values aren't supported");
+        }
+        int index = getHomeIndex(key);
+        while (mValues[index] != null) {
+            if (mKeys[index] == key) {
+                V previousValue = (V) mValues[index];
+                mValues[index] = value;
+                return previousValue;
+            }
+            index = (index + 1) & mMask;
+        }
+        mKeys[index] = key;
+        mValues[index] = value;
+        if (++mSize > mResizeThreshold) {
+            resize(mKeys.length * 2);
+        }
+        return null;
+    }
+
+    /**
+     * @return the removed value, or null if the key wasn't mapped
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        V removedValue = (V) mValues[index];
+        mValues[index] = null;
+        mSize--;
+
+        // lookups stop at free slots, so the following entries of the same probe sequence are moved
+        // back into the freed slot
+        int freeIndex = index;
+        int nextIndex = (index + 1) & mMask;
+        while (mValues[nextIndex] != null) {
+            int homeIndex = getHomeIndex(mKeys[nextIndex]);
+            if (((nextIndex - homeIndex) & mMask) >= ((nextIndex - freeIndex) & mMask)) {
+                mKeys[freeIndex] = mKeys[nextIndex];
+                mValues[freeIndex] = mValues[nextIndex];
+                mValues[nextIndex] = null;
+                freeIndex = nextIndex;
+            }
+            nextIndex = (nextIndex + 1) & mMask;
+        }
+        return removedValue;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(mValues, null);
+        mSize = 0;
+    }
+
+    private int indexOf(long key) {
+        int index = getHomeIndex(key);
+        while (mValues[index] != null) {
+            if (mKeys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mMask;
+        }
+        return -1;
+    }
+
+    private int getHomeIndex(long key) {
+        // ids are often sequential, so the bits are mixed before they are masked
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mMask;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = mKeys;
+        Object[] oldValues = mValues;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int index = getHomeIndex(oldKeys[i]);
+                while (mValues[index] != null) {
+                    index = (index + 1) & mMask;
+                }
+                mKeys[index] = oldKeys[i];
+                mValues[index] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        mKeys = new long[capacity];
+        mValues = new Object[capacity];
+        mMask = capacity - 1;
+        mResizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+}
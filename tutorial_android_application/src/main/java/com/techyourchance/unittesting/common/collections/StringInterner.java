@@ -0,0 +1,36 @@
+package com.techyourchance.unittesting.common.collections;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/**
+ * Deduplicates equal strings, so that many objects can share a single instance. Unlike
+ * String#intern(), the pool holds the strings weakly, so strings which aren't used anymore are
+ * garbage collected. Thread-safe.
+ */
+public class StringInterner {
+
+    private final WeakHashMap<String, WeakReference<String>> mStrings = new WeakHashMap<>();
+
+    /**
+     * @return the pooled instance equal to the given string; the given string becomes the pooled
+     *         instance if there is none
+     */
+    public synchronized String intern(String string) {
+        if (string == null) {
+            return null;
+        }
+        WeakReference<String> pooledReference = mStrings.get(string);
+        String pooledString = pooledReference == null ? null : pooledReference.get();
+        if (pooledString == null) {
+            // the value must not reference the key strongly, or the entry would never be dropped
+            mStrings.put(string, new WeakReference<>(string));
+            pooledString = string;
+        }
+        return pooledString;
+    }
+
+    public synchronized int size() {
+        return mStrings.size();
+    }
+}
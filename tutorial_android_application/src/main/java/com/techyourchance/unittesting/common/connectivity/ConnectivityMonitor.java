@@ -0,0 +1,37 @@
+package com.techyourchance.unittesting.common.connectivity;
+
+import com.techyourchance.unittesting.common.BaseObservable;
+
+/**
+ * Tracks whether the device has a network connection. The state is reported by the platform (see
+ * {@link ConnectivityReceiver}); until the first report, the device is assumed to be online, so
+ * that requests aren't held back because of a missing report.
+ */
+public class ConnectivityMonitor extends BaseObservable<ConnectivityMonitor.Listener> {
+
+    public interface Listener {
+        void onConnectivityChanged(boolean connected);
+    }
+
+    private volatile boolean mConnected = true;
+
+    public boolean isConnected() {
+        return mConnected;
+    }
+
+    /**
+     * Listeners are notified on the calling thread, and only if the state changed.
+     */
+    public void setConnected(boolean connected) {
+        synchronized (this) {
+            if (mConnected == connected) {
+                return;
+            }
+            mConnected = connected;
+        }
+        Listeners<Listener> listeners = getListeners();
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onConnectivityChanged(connected);
+        }
+    }
+}
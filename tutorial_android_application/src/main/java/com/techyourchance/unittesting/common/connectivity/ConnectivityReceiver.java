@@ -0,0 +1,33 @@
+package com.techyourchance.unittesting.common.connectivity;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+
+/**
+ * Reports the connectivity broadcasts of the platform to {@link ConnectivityMonitor}. The broadcast
+ * is sticky, so the current state is reported as soon as the receiver is registered.
+ */
+public class ConnectivityReceiver extends BroadcastReceiver {
+
+    private final ConnectivityMonitor mConnectivityMonitor;
+
+    public ConnectivityReceiver(ConnectivityMonitor connectivityMonitor) {
+        mConnectivityMonitor = connectivityMonitor;
+    }
+
+    public static IntentFilter getIntentFilter() {
+        return new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION);
+    }
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        ConnectivityManager connectivityManager =
+                (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        NetworkInfo networkInfo = connectivityManager.getActiveNetworkInfo();
+        mConnectivityMonitor.setConnected(networkInfo != null && networkInfo.isConnected());
+    }
+}
@@ -1,45 +1,359 @@
 package com.techyourchance.unittesting.common.dependencyinjection;
 
+import android.app.Application;
+
 import com.techyourchance.unittesting.common.Constants;
+import com.techyourchance.unittesting.common.connectivity.ConnectivityMonitor;
+import com.techyourchance.unittesting.common.connectivity.ConnectivityReceiver;
+import com.techyourchance.unittesting.common.html.SpannableStyledTextConverter;
+import com.techyourchance.unittesting.common.instrumentation.Metrics;
+import com.techyourchance.unittesting.common.sync.SyncQueue;
+import com.techyourchance.unittesting.common.threading.MainThreadExecutor;
+import com.techyourchance.unittesting.common.time.ElapsedRealtimeTimeProvider;
 import com.techyourchance.unittesting.common.time.TimeProvider;
+import com.techyourchance.unittesting.networking.CacheHitCounter;
+import com.techyourchance.unittesting.networking.CallRetrier;
+import com.techyourchance.unittesting.networking.CancelledCallsCounter;
+import com.techyourchance.unittesting.networking.ConnectionReuseCounter;
+import com.techyourchance.unittesting.networking.NetworkUsageCounter;
+import com.techyourchance.unittesting.networking.QuestionsConverterFactory;
+import com.techyourchance.unittesting.networking.RequestScheduler;
+import com.techyourchance.unittesting.networking.RetryPolicy;
 import com.techyourchance.unittesting.networking.StackoverflowApi;
+import com.techyourchance.unittesting.networking.questions.BatchingFetchQuestionDetailsEndpoint;
+import com.techyourchance.unittesting.networking.questions.FetchLastActiveQuestionsEndpoint;
 import com.techyourchance.unittesting.networking.questions.FetchQuestionDetailsEndpoint;
+import com.techyourchance.unittesting.questions.FetchLastActiveQuestionsUseCase;
 import com.techyourchance.unittesting.questions.FetchQuestionDetailsUseCase;
+import com.techyourchance.unittesting.questions.QuestionsDiskCache;
+import com.techyourchance.unittesting.questions.QuestionsSearchIndex;
+import com.techyourchance.unittesting.questions.QuestionsSyncWorker;
+import com.techyourchance.unittesting.questions.SearchQuestionsUseCase;
+import com.techyourchance.unittesting.screens.questiondetails.QuestionDetailsRenderer;
+
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
 
 public class CompositionRoot {
 
+    private static final String QUESTIONS_CACHE_DIRECTORY = "questions";
+    private static final int QUESTIONS_CACHE_MAX_QUESTION_DETAILS_COUNT = 500;
+    private static final String HTTP_CACHE_DIRECTORY = "http";
+    private static final long HTTP_CACHE_MAX_SIZE_BYTES = 10 * 1024 * 1024;
+    private static final int QUESTIONS_SEARCH_INDEX_MAX_SIZE = 5000;
+
+    // all the requests go to a single host
+    private static final int MAX_IDLE_CONNECTIONS = 2;
+    private static final long KEEP_ALIVE_DURATION_MINUTES = 5;
+    private static final long CONNECT_TIMEOUT_SECONDS = 10;
+    private static final long READ_TIMEOUT_SECONDS = 20;
+    private static final long WRITE_TIMEOUT_SECONDS = 20;
+
+    private final Application mApplication;
+
+    private OkHttpClient mOkHttpClient;
     private Retrofit mRetrofit;
+    private StackoverflowApi mStackoverflowApi;
+    private NetworkUsageCounter mNetworkUsageCounter;
+    private CacheHitCounter mCacheHitCounter;
+    private CancelledCallsCounter mCancelledCallsCounter;
+    private ConnectionReuseCounter mConnectionReuseCounter;
+    private RetryPolicy mRetryPolicy;
+    private RequestScheduler mRequestScheduler;
+    private CallRetrier mCallRetrier;
+    private ScheduledExecutorService mScheduledExecutorService;
+    private Executor mBackgroundExecutor;
+    private Executor mRenderingExecutor;
+    private Executor mUiExecutor;
+    private FetchQuestionDetailsEndpoint mFetchQuestionDetailsEndpoint;
     private FetchQuestionDetailsUseCase mFetchQuestionDetailsUseCase;
+    private FetchLastActiveQuestionsUseCase mFetchLastActiveQuestionsUseCase;
+    private QuestionsDiskCache mQuestionsDiskCache;
+    private QuestionsSearchIndex mQuestionsSearchIndex;
+    private SearchQuestionsUseCase mSearchQuestionsUseCase;
+    private ConnectivityMonitor mConnectivityMonitor;
+    private SyncQueue<String> mQuestionsSyncQueue;
+    private QuestionsSyncWorker mQuestionsSyncWorker;
+    private QuestionDetailsRenderer mQuestionDetailsRenderer;
+    private Metrics mMetrics;
+
+    public CompositionRoot(Application application) {
+        mApplication = application;
+    }
 
     private Retrofit getRetrofit() {
         if (mRetrofit == null) {
             mRetrofit = new Retrofit.Builder()
                     .baseUrl(Constants.BASE_URL)
+                    .client(getOkHttpClient())
+                    // the callbacks are handed over to the UI thread by the use cases
+                    .callbackExecutor(getBackgroundExecutor())
+                    // must precede Gson, which would accept any type
+                    .addConverterFactory(QuestionsConverterFactory.create())
                     .addConverterFactory(GsonConverterFactory.create())
                     .build();
         }
         return mRetrofit;
     }
 
+    /**
+     * OkHttp asks for gzip and decompresses the responses transparently, and revalidates cached
+     * responses with their validators (ETag, Last-Modified).
+     */
+    private OkHttpClient getOkHttpClient() {
+        if (mOkHttpClient == null) {
+            mOkHttpClient = new OkHttpClient.Builder()
+                    .connectionPool(new ConnectionPool(
+                            MAX_IDLE_CONNECTIONS, KEEP_ALIVE_DURATION_MINUTES, TimeUnit.MINUTES))
+                    .cache(new Cache(
+                            new File(mApplication.getCacheDir(), HTTP_CACHE_DIRECTORY), HTTP_CACHE_MAX_SIZE_BYTES))
+                    .connectTimeout(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                    .readTimeout(READ_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                    .writeTimeout(WRITE_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                    // must be the first interceptor, it matches the calls by their original requests
+                    .addInterceptor(getCancelledCallsCounter())
+                    .addInterceptor(getNetworkUsageCounter())
+                    .addInterceptor(getCacheHitCounter())
+                    .addNetworkInterceptor(getConnectionReuseCounter())
+                    .build();
+        }
+        return mOkHttpClient;
+    }
+
+    public CacheHitCounter getCacheHitCounter() {
+        if (mCacheHitCounter == null) {
+            mCacheHitCounter = new CacheHitCounter();
+        }
+        return mCacheHitCounter;
+    }
+
+    public CancelledCallsCounter getCancelledCallsCounter() {
+        if (mCancelledCallsCounter == null) {
+            mCancelledCallsCounter = new CancelledCallsCounter();
+        }
+        return mCancelledCallsCounter;
+    }
+
+    public ConnectionReuseCounter getConnectionReuseCounter() {
+        if (mConnectionReuseCounter == null) {
+            mConnectionReuseCounter = new ConnectionReuseCounter();
+        }
+        return mConnectionReuseCounter;
+    }
+
+    public NetworkUsageCounter getNetworkUsageCounter() {
+        if (mNetworkUsageCounter == null) {
+            mNetworkUsageCounter = new NetworkUsageCounter();
+        }
+        return mNetworkUsageCounter;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        if (mRetryPolicy == null) {
+            mRetryPolicy = new RetryPolicy(getTimeProvider(), new Random());
+        }
+        return mRetryPolicy;
+    }
+
+    public RequestScheduler getRequestScheduler() {
+        if (mRequestScheduler == null) {
+            mRequestScheduler = new RequestScheduler(getTimeProvider(), getScheduledExecutorService());
+        }
+        return mRequestScheduler;
+    }
+
+    private CallRetrier getCallRetrier() {
+        if (mCallRetrier == null) {
+            mCallRetrier = new CallRetrier(
+                    getRetryPolicy(),
+                    getRequestScheduler(),
+                    getScheduledExecutorService(),
+                    getCancelledCallsCounter()
+            );
+        }
+        return mCallRetrier;
+    }
+
     public StackoverflowApi getStackoverflowApi() {
-        return getRetrofit().create(StackoverflowApi.class);
+        if (mStackoverflowApi == null) {
+            mStackoverflowApi = getRetrofit().create(StackoverflowApi.class);
+        }
+        return mStackoverflowApi;
     }
 
     public TimeProvider getTimeProvider() {
-        return new TimeProvider();
+        return new ElapsedRealtimeTimeProvider();
+    }
+
+    private ScheduledExecutorService getScheduledExecutorService() {
+        if (mScheduledExecutorService == null) {
+            mScheduledExecutorService = Executors.newSingleThreadScheduledExecutor();
+        }
+        return mScheduledExecutorService;
+    }
+
+    /**
+     * Serial executor for the work that follows network responses (mapping, writes to disk) and for
+     * the diffs of lists.
+     */
+    public Executor getBackgroundExecutor() {
+        if (mBackgroundExecutor == null) {
+            mBackgroundExecutor = Executors.newSingleThreadExecutor();
+        }
+        return mBackgroundExecutor;
+    }
+
+    /**
+     * Serial executor for rendering HTML, which is separate from the background executor so that
+     * rendering a question doesn't wait for the work that follows network responses.
+     */
+    public Executor getRenderingExecutor() {
+        if (mRenderingExecutor == null) {
+            mRenderingExecutor = Executors.newSingleThreadExecutor();
+        }
+        return mRenderingExecutor;
+    }
+
+    public Executor getUiExecutor() {
+        if (mUiExecutor == null) {
+            mUiExecutor = new MainThreadExecutor();
+        }
+        return mUiExecutor;
     }
 
     private FetchQuestionDetailsEndpoint getFetchQuestionDetailsEndpoint() {
-        return new FetchQuestionDetailsEndpoint(getStackoverflowApi());
+        if (mFetchQuestionDetailsEndpoint == null) {
+            mFetchQuestionDetailsEndpoint = new BatchingFetchQuestionDetailsEndpoint(
+                    getStackoverflowApi(),
+                    getScheduledExecutorService(),
+                    getCallRetrier(),
+                    getMetrics()
+            );
+        }
+        return mFetchQuestionDetailsEndpoint;
     }
 
     public FetchQuestionDetailsUseCase getFetchQuestionDetailsUseCase() {
         if (mFetchQuestionDetailsUseCase == null) {
-            mFetchQuestionDetailsUseCase = new FetchQuestionDetailsUseCase(getFetchQuestionDetailsEndpoint(), getTimeProvider());
+            mFetchQuestionDetailsUseCase = new FetchQuestionDetailsUseCase(
+                    getFetchQuestionDetailsEndpoint(),
+                    getTimeProvider(),
+                    getQuestionsDiskCache(),
+                    getQuestionsSearchIndex(),
+                    getConnectivityMonitor(),
+                    getQuestionsSyncQueue(),
+                    getMetrics(),
+                    getBackgroundExecutor(),
+                    getUiExecutor()
+            );
         }
         return mFetchQuestionDetailsUseCase;
     }
+
+    public FetchLastActiveQuestionsUseCase getFetchLastActiveQuestionsUseCase() {
+        if (mFetchLastActiveQuestionsUseCase == null) {
+            mFetchLastActiveQuestionsUseCase = new FetchLastActiveQuestionsUseCase(
+                    new FetchLastActiveQuestionsEndpoint(getStackoverflowApi(), getCallRetrier(), getMetrics()),
+                    getTimeProvider(),
+                    getQuestionsDiskCache(),
+                    getQuestionsSearchIndex(),
+                    getConnectivityMonitor(),
+                    getQuestionsSyncQueue(),
+                    getMetrics(),
+                    getBackgroundExecutor(),
+                    getUiExecutor()
+            );
+        }
+        return mFetchLastActiveQuestionsUseCase;
+    }
+
+    public QuestionsDiskCache getQuestionsDiskCache() {
+        if (mQuestionsDiskCache == null) {
+            mQuestionsDiskCache = new QuestionsDiskCache(
+                    new File(mApplication.getCacheDir(), QUESTIONS_CACHE_DIRECTORY),
+                    QUESTIONS_CACHE_MAX_QUESTION_DETAILS_COUNT);
+        }
+        return mQuestionsDiskCache;
+    }
+
+    public QuestionsSearchIndex getQuestionsSearchIndex() {
+        if (mQuestionsSearchIndex == null) {
+            mQuestionsSearchIndex = new QuestionsSearchIndex(QUESTIONS_SEARCH_INDEX_MAX_SIZE);
+        }
+        return mQuestionsSearchIndex;
+    }
+
+    public SearchQuestionsUseCase getSearchQuestionsUseCase() {
+        if (mSearchQuestionsUseCase == null) {
+            mSearchQuestionsUseCase = new SearchQuestionsUseCase(
+                    getQuestionsSearchIndex(),
+                    getMetrics(),
+                    getBackgroundExecutor(),
+                    getUiExecutor()
+            );
+        }
+        return mSearchQuestionsUseCase;
+    }
+
+    public ConnectivityMonitor getConnectivityMonitor() {
+        if (mConnectivityMonitor == null) {
+            mConnectivityMonitor = new ConnectivityMonitor();
+            mApplication.registerReceiver(
+                    new ConnectivityReceiver(mConnectivityMonitor), ConnectivityReceiver.getIntentFilter());
+        }
+        return mConnectivityMonitor;
+    }
+
+    private SyncQueue<String> getQuestionsSyncQueue() {
+        if (mQuestionsSyncQueue == null) {
+            mQuestionsSyncQueue = new SyncQueue<>();
+        }
+        return mQuestionsSyncQueue;
+    }
+
+    public QuestionsSyncWorker getQuestionsSyncWorker() {
+        if (mQuestionsSyncWorker == null) {
+            mQuestionsSyncWorker = new QuestionsSyncWorker(
+                    getQuestionsSyncQueue(),
+                    getConnectivityMonitor(),
+                    getFetchLastActiveQuestionsUseCase(),
+                    getFetchQuestionDetailsUseCase()
+            );
+        }
+        return mQuestionsSyncWorker;
+    }
+
+    /**
+     * Latency and throughput of the use cases, the endpoints and the screens; {@link Metrics#dump()} or
+     * {@link Metrics#export(Metrics.Exporter)} hand them over to logs or to a reporting backend.
+     */
+    public Metrics getMetrics() {
+        if (mMetrics == null) {
+            mMetrics = new Metrics(getTimeProvider());
+        }
+        return mMetrics;
+    }
+
+    public QuestionDetailsRenderer getQuestionDetailsRenderer() {
+        if (mQuestionDetailsRenderer == null) {
+            mQuestionDetailsRenderer = new QuestionDetailsRenderer(
+                    new SpannableStyledTextConverter(),
+                    getFetchQuestionDetailsUseCase(),
+                    getRenderingExecutor(),
+                    getUiExecutor(),
+                    getMetrics()
+            );
+        }
+        return mQuestionDetailsRenderer;
+    }
 }
@@ -6,11 +6,12 @@ import android.support.v4.app.FragmentManager;
 import android.view.LayoutInflater;
 
 import com.techyourchance.unittesting.common.time.TimeProvider;
-import com.techyourchance.unittesting.networking.StackoverflowApi;
-import com.techyourchance.unittesting.networking.questions.FetchLastActiveQuestionsEndpoint;
 import com.techyourchance.unittesting.networking.questions.FetchQuestionDetailsEndpoint;
 import com.techyourchance.unittesting.questions.FetchLastActiveQuestionsUseCase;
 import com.techyourchance.unittesting.questions.FetchQuestionDetailsUseCase;
+import com.techyourchance.unittesting.questions.QuestionDetailsPrefetchPolicy;
+import com.techyourchance.unittesting.questions.QuestionDetailsPrefetcher;
+import com.techyourchance.unittesting.questions.SearchQuestionsUseCase;
 import com.techyourchance.unittesting.screens.common.ViewMvcFactory;
 import com.techyourchance.unittesting.screens.common.controllers.BackPressDispatcher;
 import com.techyourchance.unittesting.screens.common.fragmentframehelper.FragmentFrameHelper;
@@ -23,6 +24,10 @@ import com.techyourchance.unittesting.screens.questionslist.QuestionsListControl
 
 public class ControllerCompositionRoot {
 
+    private static final int MAX_PREFETCHED_QUESTIONS = 10;
+    // each batch of prefetches is fetched in a single call
+    private static final int MAX_CONCURRENT_PREFETCH_BATCHES = 2;
+
     private final CompositionRoot mCompositionRoot;
     private final FragmentActivity mActivity;
 
@@ -43,20 +48,17 @@ public class ControllerCompositionRoot {
         return getActivity().getSupportFragmentManager();
     }
 
-    private StackoverflowApi getStackoverflowApi() {
-        return mCompositionRoot.getStackoverflowApi();
-    }
-
-    private FetchLastActiveQuestionsEndpoint getFetchLastActiveQuestionsEndpoint() {
-        return new FetchLastActiveQuestionsEndpoint(getStackoverflowApi());
-    }
-
     private LayoutInflater getLayoutInflater() {
         return LayoutInflater.from(getContext());
     }
 
     public ViewMvcFactory getViewMvcFactory() {
-        return new ViewMvcFactory(getLayoutInflater(), getNavDrawerHelper());
+        return new ViewMvcFactory(
+                getLayoutInflater(),
+                getNavDrawerHelper(),
+                mCompositionRoot.getBackgroundExecutor(),
+                mCompositionRoot.getUiExecutor()
+        );
     }
 
     private NavDrawerHelper getNavDrawerHelper() {
@@ -68,7 +70,18 @@ public class ControllerCompositionRoot {
     }
 
     public FetchLastActiveQuestionsUseCase getFetchLastActiveQuestionsUseCase() {
-        return new FetchLastActiveQuestionsUseCase(getFetchLastActiveQuestionsEndpoint());
+        return mCompositionRoot.getFetchLastActiveQuestionsUseCase();
+    }
+
+    public SearchQuestionsUseCase getSearchQuestionsUseCase() {
+        return mCompositionRoot.getSearchQuestionsUseCase();
+    }
+
+    private QuestionDetailsPrefetcher getQuestionDetailsPrefetcher() {
+        return new QuestionDetailsPrefetcher(
+                getFetchQuestionDetailsUseCase(),
+                new QuestionDetailsPrefetchPolicy(MAX_PREFETCHED_QUESTIONS, MAX_CONCURRENT_PREFETCH_BATCHES)
+        );
     }
 
     public TimeProvider getTimeProvider() {
@@ -80,7 +93,8 @@ public class ControllerCompositionRoot {
                 getFetchLastActiveQuestionsUseCase(),
                 getScreensNavigator(),
                 getToastsHelper(),
-                getTimeProvider());
+                getTimeProvider(),
+                getQuestionDetailsPrefetcher());
     }
 
     public ToastsHelper getToastsHelper() {
@@ -104,6 +118,12 @@ public class ControllerCompositionRoot {
     }
 
     public QuestionDetailsController getQuestionDetailsController() {
-        return new QuestionDetailsController(getFetchQuestionDetailsUseCase(), getScreensNavigator(), getToastsHelper());
+        return new QuestionDetailsController(
+                getFetchQuestionDetailsUseCase(),
+                getScreensNavigator(),
+                getToastsHelper(),
+                mCompositionRoot.getQuestionDetailsRenderer(),
+                mCompositionRoot.getMetrics()
+        );
     }
 }
@@ -0,0 +1,332 @@
+package com.techyourchance.unittesting.common.diff;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes the updates that transform one list into another, matching items by their ids.
+ *
+ * The updates are dispatched in this order: removals, moves, insertions and changes. Only the items
+ * outside of the longest run of items which kept their relative order are moved, so the number of
+ * moves is minimal. The computation doesn't touch any UI and can be done on a background thread.
+ */
+public class ListDiffer {
+
+    public interface ItemCallback<ITEM> {
+
+        /**
+         * @return the identity of the item; ids must be unique within a list
+         */
+        Object getItemId(ITEM item);
+
+        /**
+         * Called only for items with equal ids.
+         * @return false if the item should be re-bound
+         */
+        boolean areContentsTheSame(ITEM oldItem, ITEM newItem);
+    }
+
+    public static <ITEM> DiffResult calculateDiff(List<ITEM> oldList,
+                                                  List<ITEM> newList,
+                                                  ItemCallback<ITEM> itemCallback) {
+        Map<Object, Integer> oldPositions = positionsById(oldList, itemCallback);
+        Map<Object, Integer> newPositions = positionsById(newList, itemCallback);
+        if (oldPositions == null || newPositions == null) {
+            return replaceAll(oldList.size(), newList.size());
+        }
+
+        List<Update> updates = new ArrayList<>();
+
+        addRemovals(oldList, newPositions, itemCallback, updates);
+
+        // new positions of the remaining items, in their current order
+        int[] retainedNewPositions = new int[oldPositions.size()];
+        int retainedCount = 0;
+        for (ITEM oldItem : oldList) {
+            Integer newPosition = newPositions.get(itemCallback.getItemId(oldItem));
+            if (newPosition != null) {
+                retainedNewPositions[retainedCount++] = newPosition;
+            }
+        }
+        retainedNewPositions = Arrays.copyOf(retainedNewPositions, retainedCount);
+
+        addMoves(retainedNewPositions, newList.size(), updates);
+
+        addInsertions(newList, oldPositions, itemCallback, updates);
+
+        addChanges(oldList, newList, oldPositions, itemCallback, updates);
+
+        return new DiffResult(updates);
+    }
+
+    private static <ITEM> Map<Object, Integer> positionsById(List<ITEM> list, ItemCallback<ITEM> itemCallback) {
+        Map<Object, Integer> positions = new HashMap<>(list.size() * 2);
+        for (int i = 0; i < list.size(); i++) {
+            if (positions.put(itemCallback.getItemId(list.get(i)), i) != null) {
+                return null;
+            }
+        }
+        return positions;
+    }
+
+    private static DiffResult replaceAll(int oldSize, int newSize) {
+        // ids aren't unique, so items can't be matched
+        List<Update> updates = new ArrayList<>(2);
+        if (oldSize > 0) {
+            updates.add(new Update(Update.REMOVE, 0, oldSize));
+        }
+        if (newSize > 0) {
+            updates.add(new Update(Update.INSERT, 0, newSize));
+        }
+        return new DiffResult(updates);
+    }
+
+    private static <ITEM> void addRemovals(List<ITEM> oldList,
+                                           Map<Object, Integer> newPositions,
+                                           ItemCallback<ITEM> itemCallback,
+                                           List<Update> updates) {
+        // from the end, so that the positions of the preceding items aren't affected
+        int position = oldList.size() - 1;
+        while (position >= 0) {
+            if (newPositions.containsKey(itemCallback.getItemId(oldList.get(position)))) {
+                position--;
+                continue;
+            }
+            int rangeEnd = position;
+            while (position - 1 >= 0
+                    && !newPositions.containsKey(itemCallback.getItemId(oldList.get(position - 1)))) {
+                position--;
+            }
+            updates.add(new Update(Update.REMOVE, position, rangeEnd - position + 1));
+            position--;
+        }
+    }
+
+    private static void addMoves(int[] retainedNewPositions, int newSize, List<Update> updates) {
+        int retainedCount = retainedNewPositions.length;
+        boolean[] staysInPlace = new boolean[newSize];
+        for (int index : longestIncreasingSubsequence(retainedNewPositions)) {
+            staysInPlace[retainedNewPositions[index]] = true;
+        }
+
+        int[] currentIndices = new int[newSize];
+        for (int i = 0; i < retainedCount; i++) {
+            currentIndices[retainedNewPositions[i]] = i;
+        }
+        int[] targetOrder = retainedNewPositions.clone();
+        Arrays.sort(targetOrder);
+
+        // moved items end up in runs right before the items which stay in place, or at the end. Each
+        // run gets slots before the slot of its item, so that the current position of an item is the
+        // number of occupied slots before its slot
+        int[] runLengths = new int[retainedCount + 1];
+        int runLength = 0;
+        for (int newPosition : targetOrder) {
+            if (staysInPlace[newPosition]) {
+                runLengths[currentIndices[newPosition]] = runLength;
+                runLength = 0;
+            } else {
+                runLength++;
+            }
+        }
+        runLengths[retainedCount] = runLength;
+
+        int[] runStarts = new int[retainedCount + 1];
+        for (int i = 1; i <= retainedCount; i++) {
+            runStarts[i] = runStarts[i - 1] + runLengths[i - 1] + 1;
+        }
+        OccupiedSlots occupiedSlots = new OccupiedSlots(runStarts[retainedCount] + runLengths[retainedCount]);
+        for (int i = 0; i < retainedCount; i++) {
+            occupiedSlots.occupy(runStarts[i] + runLengths[i]);
+        }
+
+        // each moved item is placed right before its successor, which is already in its final place
+        int runIndex = retainedCount;
+        int runPosition = runLengths[retainedCount];
+        for (int i = targetOrder.length - 1; i >= 0; i--) {
+            int currentIndex = currentIndices[targetOrder[i]];
+            if (staysInPlace[targetOrder[i]]) {
+                runIndex = currentIndex;
+                runPosition = runLengths[currentIndex];
+                continue;
+            }
+            int fromSlot = runStarts[currentIndex] + runLengths[currentIndex];
+            int toSlot = runStarts[runIndex] + --runPosition;
+            int fromPosition = occupiedSlots.countBefore(fromSlot);
+            occupiedSlots.release(fromSlot);
+            int toPosition = occupiedSlots.countBefore(toSlot);
+            occupiedSlots.occupy(toSlot);
+            if (fromPosition != toPosition) {
+                updates.add(new Update(Update.MOVE, fromPosition, toPosition));
+            }
+        }
+    }
+
+    private static <ITEM> void addInsertions(List<ITEM> newList,
+                                             Map<Object, Integer> oldPositions,
+                                             ItemCallback<ITEM> itemCallback,
+                                             List<Update> updates) {
+        int position = 0;
+        while (position < newList.size()) {
+            if (oldPositions.containsKey(itemCallback.getItemId(newList.get(position)))) {
+                position++;
+                continue;
+            }
+            int rangeStart = position;
+            while (position < newList.size()
+                    && !oldPositions.containsKey(itemCallback.getItemId(newList.get(position)))) {
+                position++;
+            }
+            updates.add(new Update(Update.INSERT, rangeStart, position - rangeStart));
+        }
+    }
+
+    private static <ITEM> void addChanges(List<ITEM> oldList,
+                                          List<ITEM> newList,
+                                          Map<Object, Integer> oldPositions,
+                                          ItemCallback<ITEM> itemCallback,
+                                          List<Update> updates) {
+        int rangeStart = -1;
+        for (int position = 0; position <= newList.size(); position++) {
+            boolean changed = false;
+            if (position < newList.size()) {
+                ITEM newItem = newList.get(position);
+                Integer oldPosition = oldPositions.get(itemCallback.getItemId(newItem));
+                changed = oldPosition != null
+                        && !itemCallback.areContentsTheSame(oldList.get(oldPosition), newItem);
+            }
+            if (changed && rangeStart < 0) {
+                rangeStart = position;
+            } else if (!changed && rangeStart >= 0) {
+                updates.add(new Update(Update.CHANGE, rangeStart, position - rangeStart));
+                rangeStart = -1;
+            }
+        }
+    }
+
+    /**
+     * @return indices of the elements that constitute the longest strictly increasing subsequence
+     */
+    private static List<Integer> longestIncreasingSubsequence(int[] values) {
+        int[] predecessors = new int[values.length];
+        // tailIndices[k] is the index of the smallest tail of all increasing subsequences of length k+1
+        int[] tailIndices = new int[values.length];
+        int length = 0;
+        for (int i = 0; i < values.length; i++) {
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (values[tailIndices[middle]] < values[i]) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            predecessors[i] = low > 0 ? tailIndices[low - 1] : -1;
+            tailIndices[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+
+        List<Integer> result = new ArrayList<>(length);
+        int index = length > 0 ? tailIndices[length - 1] : -1;
+        while (index >= 0) {
+            result.add(index);
+            index = predecessors[index];
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    public static class DiffResult {
+
+        private final List<Update> mUpdates;
+
+        private DiffResult(List<Update> updates) {
+            mUpdates = updates;
+        }
+
+        public void dispatchUpdatesTo(ListUpdateCallback callback) {
+            for (Update update : mUpdates) {
+                switch (update.mType) {
+                    case Update.INSERT:
+                        callback.onInserted(update.mFirst, update.mSecond);
+                        break;
+                    case Update.REMOVE:
+                        callback.onRemoved(update.mFirst, update.mSecond);
+                        break;
+                    case Update.MOVE:
+                        callback.onMoved(update.mFirst, update.mSecond);
+                        break;
+                    case Update.CHANGE:
+                        callback.onChanged(update.mFirst, update.mSecond);
+                        break;
+                    default:
+                        throw new IllegalStateException("unknown update type: " + update.mType);
+                }
+            }
+        }
+
+        public int getUpdatesCount() {
+            return mUpdates.size();
+        }
+    }
+
+    /**
+     * Fenwick tree which counts the occupied slots before a given slot in logarithmic time.
+     */
+    private static class OccupiedSlots {
+
+        private final int[] mTree;
+
+        private OccupiedSlots(int slotsCount) {
+            mTree = new int[slotsCount + 1];
+        }
+
+        private void occupy(int slot) {
+            add(slot, 1);
+        }
+
+        private void release(int slot) {
+            add(slot, -1);
+        }
+
+        private void add(int slot, int delta) {
+            for (int i = slot + 1; i < mTree.length; i += i & -i) {
+                mTree[i] += delta;
+            }
+        }
+
+        private int countBefore(int slot) {
+            int count = 0;
+            for (int i = slot; i > 0; i -= i & -i) {
+                count += mTree[i];
+            }
+            return count;
+        }
+    }
+
+    private static class Update {
+        private static final int INSERT = 0;
+        private static final int REMOVE = 1;
+        private static final int MOVE = 2;
+        private static final int CHANGE = 3;
+
+        private final int mType;
+        // position and count, or "from" and "to" positions for moves
+        private final int mFirst;
+        private final int mSecond;
+
+        private Update(int type, int first, int second) {
+            mType = type;
+            mFirst = first;
+            mSecond = second;
+        }
+    }
+}
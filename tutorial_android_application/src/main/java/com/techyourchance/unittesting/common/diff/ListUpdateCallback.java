@@ -0,0 +1,16 @@
+package com.techyourchance.unittesting.common.diff;
+
+/**
+ * Receives the updates that transform one list into another. Positions refer to the state of the
+ * list after all the previously dispatched updates had been applied.
+ */
+public interface ListUpdateCallback {
+
+    void onInserted(int position, int count);
+
+    void onRemoved(int position, int count);
+
+    void onMoved(int fromPosition, int toPosition);
+
+    void onChanged(int position, int count);
+}
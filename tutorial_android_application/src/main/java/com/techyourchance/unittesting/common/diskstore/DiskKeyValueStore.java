@@ -0,0 +1,509 @@
+package com.techyourchance.unittesting.common.diskstore;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Persistent string-to-bytes store made of an append-only data file and a memory-mapped
+ * open-addressing index.
+ *
+ * Data file record: [int keyLength][key UTF-8 bytes][int valueLength][value bytes], where a value
+ * length of -1 marks the removal of the key. The data file alone is enough to restore the store,
+ * so a missing or damaged index is rebuilt by replaying the data file.
+ *
+ * Index file: [int magic][int capacity][long committed data length] followed by "capacity" slots
+ * of [long record offset + 1][int key hash][int record length]. Offset field 0 marks an empty
+ * slot and -1 marks a removed one.
+ */
+public class DiskKeyValueStore implements Closeable {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int INDEX_MAGIC = 0x51534B56;
+    private static final int INDEX_HEADER_SIZE = 16;
+    private static final int SLOT_SIZE = 16;
+    private static final int MIN_CAPACITY = 64;
+
+    private static final long EMPTY_SLOT = 0;
+    private static final long REMOVED_SLOT = -1;
+
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int REMOVED_VALUE_LENGTH = -1;
+
+    private static final long MIN_COMPACTION_DATA_LENGTH = 64 * 1024;
+
+    private final File mDirectory;
+    private final File mDataFile;
+    private final File mIndexFile;
+
+    private RandomAccessFile mData;
+    private MappedByteBuffer mIndex;
+    private int mCapacity;
+
+    private int mSize;
+    private int mUsedSlots;
+    private long mDataLength;
+    private long mLiveBytes;
+
+    public DiskKeyValueStore(File directory, String name) throws IOException {
+        mDirectory = directory;
+        mDataFile = new File(directory, name + ".data");
+        mIndexFile = new File(directory, name + ".index");
+        open();
+    }
+
+    public synchronized byte[] get(String key) throws IOException {
+        ensureOpen();
+        byte[] keyBytes = key.getBytes(UTF_8);
+        int slot = findSlot(hash(keyBytes), keyBytes);
+        if (slot < 0) {
+            return null;
+        }
+        long offset = getSlotOffset(slot);
+        mData.seek(offset + 4 + keyBytes.length);
+        byte[] value = new byte[mData.readInt()];
+        mData.readFully(value);
+        return value;
+    }
+
+    public synchronized boolean contains(String key) throws IOException {
+        ensureOpen();
+        byte[] keyBytes = key.getBytes(UTF_8);
+        return findSlot(hash(keyBytes), keyBytes) >= 0;
+    }
+
+    public synchronized void put(String key, byte[] value) throws IOException {
+        ensureOpen();
+        byte[] keyBytes = key.getBytes(UTF_8);
+        long offset = appendRecord(keyBytes, value);
+        insertIntoIndex(hash(keyBytes), keyBytes, offset, recordLength(keyBytes.length, value.length));
+        commitDataLength();
+        compactIfNeeded();
+    }
+
+    public synchronized boolean remove(String key) throws IOException {
+        ensureOpen();
+        byte[] keyBytes = key.getBytes(UTF_8);
+        int slot = findSlot(hash(keyBytes), keyBytes);
+        if (slot < 0) {
+            return false;
+        }
+        // the tombstone makes the removal survive an index rebuild
+        appendRecord(keyBytes, null);
+        mLiveBytes -= getSlotRecordLength(slot);
+        setSlot(slot, REMOVED_SLOT, 0, 0);
+        mSize--;
+        commitDataLength();
+        compactIfNeeded();
+        return true;
+    }
+
+    /**
+     * @return the live keys in the order in which their latest values were written
+     */
+    public synchronized List<String> keys() throws IOException {
+        ensureOpen();
+        TreeMap<Long, String> keysByOffset = new TreeMap<>();
+        for (int slot = 0; slot < mCapacity; slot++) {
+            if (isSlotLive(slot)) {
+                long offset = getSlotOffset(slot);
+                mData.seek(offset);
+                byte[] keyBytes = new byte[mData.readInt()];
+                mData.readFully(keyBytes);
+                keysByOffset.put(offset, new String(keyBytes, UTF_8));
+            }
+        }
+        return new ArrayList<>(keysByOffset.values());
+    }
+
+    public synchronized int size() {
+        return mSize;
+    }
+
+    public synchronized long getDataLength() {
+        return mDataLength;
+    }
+
+    public synchronized long getLiveBytes() {
+        return mLiveBytes;
+    }
+
+    /**
+     * Rewrite the data file so that it contains only the latest record of each live key.
+     */
+    public synchronized void compact() throws IOException {
+        ensureOpen();
+
+        File compactedDataFile = new File(mDirectory, mDataFile.getName() + ".compact");
+        File compactedIndexFile = new File(mDirectory, mIndexFile.getName() + ".compact");
+
+        int capacity = capacityFor(mSize);
+        MappedByteBuffer compactedIndex = createIndex(compactedIndexFile, capacity);
+        RandomAccessFile compactedData = new RandomAccessFile(compactedDataFile, "rw");
+        long compactedDataLength = 0;
+        try {
+            compactedData.setLength(0);
+            for (int slot = 0; slot < mCapacity; slot++) {
+                if (!isSlotLive(slot)) {
+                    continue;
+                }
+                long offset = getSlotOffset(slot);
+                int recordLength = getSlotRecordLength(slot);
+                byte[] record = new byte[recordLength];
+                mData.seek(offset);
+                mData.readFully(record);
+                compactedData.write(record);
+                putSlot(compactedIndex, capacity, getSlotHash(slot), compactedDataLength, recordLength);
+                compactedDataLength += recordLength;
+            }
+            compactedData.getFD().sync();
+        } finally {
+            compactedData.close();
+        }
+        compactedIndex.putLong(8, compactedDataLength);
+        compactedIndex.force();
+
+        // without an index the store is restored from whichever data file ends up in place
+        mData.close();
+        mData = null;
+        if (mIndexFile.exists() && !mIndexFile.delete()) {
+            throw new IOException("couldn't delete " + mIndexFile);
+        }
+        if (!compactedDataFile.renameTo(mDataFile)) {
+            throw new IOException("couldn't rename " + compactedDataFile + " to " + mDataFile);
+        }
+        if (!compactedIndexFile.renameTo(mIndexFile)) {
+            throw new IOException("couldn't rename " + compactedIndexFile + " to " + mIndexFile);
+        }
+
+        open();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (mIndex != null) {
+            mIndex.force();
+            mIndex = null;
+        }
+        if (mData != null) {
+            mData.close();
+            mData = null;
+        }
+    }
+
+    private void open() throws IOException {
+        if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+            throw new IOException("couldn't create directory " + mDirectory);
+        }
+        mData = new RandomAccessFile(mDataFile, "rw");
+        if (!loadIndex()) {
+            rebuildIndexFromData();
+        }
+    }
+
+    private boolean loadIndex() throws IOException {
+        if (!mIndexFile.isFile() || mIndexFile.length() < INDEX_HEADER_SIZE) {
+            return false;
+        }
+
+        MappedByteBuffer index = mapIndex(mIndexFile, mIndexFile.length());
+        int capacity = index.getInt(4);
+        long dataLength = index.getLong(8);
+        if (index.getInt(0) != INDEX_MAGIC
+                || capacity < MIN_CAPACITY
+                || Integer.bitCount(capacity) != 1
+                || mIndexFile.length() != INDEX_HEADER_SIZE + (long) capacity * SLOT_SIZE
+                || dataLength < 0
+                || dataLength > mData.length()) {
+            return false;
+        }
+
+        mIndex = index;
+        mCapacity = capacity;
+        mDataLength = dataLength;
+        mSize = 0;
+        mUsedSlots = 0;
+        mLiveBytes = 0;
+        for (int slot = 0; slot < mCapacity; slot++) {
+            long offsetField = getSlotOffsetField(slot);
+            if (offsetField == REMOVED_SLOT) {
+                mUsedSlots++;
+            } else if (offsetField != EMPTY_SLOT) {
+                long offset = offsetField - 1;
+                int recordLength = getSlotRecordLength(slot);
+                if (recordLength < RECORD_HEADER_SIZE || offset + recordLength > mDataLength) {
+                    mIndex = null;
+                    return false;
+                }
+                mUsedSlots++;
+                mSize++;
+                mLiveBytes += recordLength;
+            }
+        }
+
+        // drop whatever was appended after the last committed write
+        if (mData.length() > mDataLength) {
+            mData.setLength(mDataLength);
+        }
+        return true;
+    }
+
+    private void rebuildIndexFromData() throws IOException {
+        mCapacity = MIN_CAPACITY;
+        mIndex = createIndex(mIndexFile, mCapacity);
+        mSize = 0;
+        mUsedSlots = 0;
+        mLiveBytes = 0;
+        mDataLength = 0;
+
+        long fileLength = mData.length();
+        long offset = 0;
+        mData.seek(0);
+        while (offset + RECORD_HEADER_SIZE <= fileLength) {
+            int keyLength = mData.readInt();
+            if (keyLength < 0 || offset + RECORD_HEADER_SIZE + keyLength > fileLength) {
+                break;
+            }
+            byte[] keyBytes = new byte[keyLength];
+            mData.readFully(keyBytes);
+            int valueLength = mData.readInt();
+            long recordLength = recordLength(keyLength, Math.max(valueLength, 0));
+            if (valueLength < REMOVED_VALUE_LENGTH || offset + recordLength > fileLength) {
+                break;
+            }
+
+            if (valueLength == REMOVED_VALUE_LENGTH) {
+                removeFromIndex(hash(keyBytes), keyBytes);
+            } else {
+                insertIntoIndex(hash(keyBytes), keyBytes, offset, (int) recordLength);
+            }
+
+            offset += recordLength;
+            mData.seek(offset);
+        }
+
+        // a partially written record at the tail is discarded
+        mData.setLength(offset);
+        mDataLength = offset;
+        commitDataLength();
+    }
+
+    private long appendRecord(byte[] keyBytes, byte[] value) throws IOException {
+        int valueLength = value == null ? REMOVED_VALUE_LENGTH : value.length;
+        ByteBuffer record = ByteBuffer.allocate(recordLength(keyBytes.length, Math.max(valueLength, 0)));
+        record.putInt(keyBytes.length);
+        record.put(keyBytes);
+        record.putInt(valueLength);
+        if (value != null) {
+            record.put(value);
+        }
+
+        long offset = mDataLength;
+        mData.seek(offset);
+        mData.write(record.array());
+        mDataLength += record.capacity();
+        return offset;
+    }
+
+    private boolean keyEquals(long offset, byte[] keyBytes) throws IOException {
+        mData.seek(offset);
+        if (mData.readInt() != keyBytes.length) {
+            return false;
+        }
+        byte[] storedKeyBytes = new byte[keyBytes.length];
+        mData.readFully(storedKeyBytes);
+        return Arrays.equals(storedKeyBytes, keyBytes);
+    }
+
+    private void commitDataLength() {
+        mIndex.putLong(8, mDataLength);
+    }
+
+    private void compactIfNeeded() throws IOException {
+        if (mDataLength >= MIN_COMPACTION_DATA_LENGTH && mLiveBytes * 2 < mDataLength) {
+            compact();
+        }
+    }
+
+    private static int recordLength(int keyLength, int valueLength) {
+        return RECORD_HEADER_SIZE + keyLength + valueLength;
+    }
+
+    private int findSlot(int hash, byte[] keyBytes) throws IOException {
+        int slot = hash & (mCapacity - 1);
+        while (true) {
+            long offsetField = getSlotOffsetField(slot);
+            if (offsetField == EMPTY_SLOT) {
+                return -1;
+            }
+            if (offsetField != REMOVED_SLOT
+                    && getSlotHash(slot) == hash
+                    && keyEquals(offsetField - 1, keyBytes)) {
+                return slot;
+            }
+            slot = (slot + 1) & (mCapacity - 1);
+        }
+    }
+
+    private void insertIntoIndex(int hash, byte[] keyBytes, long offset, int recordLength) throws IOException {
+        if ((mUsedSlots + 1) * 2 > mCapacity) {
+            resizeIndex(capacityFor(mSize + 1));
+        }
+
+        int slot = hash & (mCapacity - 1);
+        int firstRemovedSlot = -1;
+        while (true) {
+            long offsetField = getSlotOffsetField(slot);
+            if (offsetField == EMPTY_SLOT) {
+                if (firstRemovedSlot >= 0) {
+                    slot = firstRemovedSlot;
+                } else {
+                    mUsedSlots++;
+                }
+                mSize++;
+                break;
+            } else if (offsetField == REMOVED_SLOT) {
+                if (firstRemovedSlot < 0) {
+                    firstRemovedSlot = slot;
+                }
+            } else if (getSlotHash(slot) == hash && keyEquals(offsetField - 1, keyBytes)) {
+                mLiveBytes -= getSlotRecordLength(slot);
+                break;
+            }
+            slot = (slot + 1) & (mCapacity - 1);
+        }
+
+        setSlot(slot, offset + 1, hash, recordLength);
+        mLiveBytes += recordLength;
+    }
+
+    private void removeFromIndex(int hash, byte[] keyBytes) throws IOException {
+        int slot = findSlot(hash, keyBytes);
+        if (slot >= 0) {
+            mLiveBytes -= getSlotRecordLength(slot);
+            setSlot(slot, REMOVED_SLOT, 0, 0);
+            mSize--;
+        }
+    }
+
+    private void resizeIndex(int capacity) throws IOException {
+        File resizedIndexFile = new File(mDirectory, mIndexFile.getName() + ".resize");
+        MappedByteBuffer resizedIndex = createIndex(resizedIndexFile, capacity);
+        int usedSlots = 0;
+        for (int slot = 0; slot < mCapacity; slot++) {
+            if (isSlotLive(slot)) {
+                putSlot(resizedIndex, capacity, getSlotHash(slot), getSlotOffset(slot), getSlotRecordLength(slot));
+                usedSlots++;
+            }
+        }
+        resizedIndex.putLong(8, mDataLength);
+
+        if (!resizedIndexFile.renameTo(mIndexFile)) {
+            throw new IOException("couldn't rename " + resizedIndexFile + " to " + mIndexFile);
+        }
+
+        mIndex = resizedIndex;
+        mCapacity = capacity;
+        mUsedSlots = usedSlots;
+    }
+
+    private static int capacityFor(int size) {
+        int capacity = MIN_CAPACITY;
+        while (size * 2 > capacity) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+
+    private static MappedByteBuffer createIndex(File file, int capacity) throws IOException {
+        long length = INDEX_HEADER_SIZE + (long) capacity * SLOT_SIZE;
+        RandomAccessFile indexFile = new RandomAccessFile(file, "rw");
+        try {
+            // a new file reads as zeros, i.e. all slots are empty
+            indexFile.setLength(0);
+            indexFile.setLength(length);
+        } finally {
+            indexFile.close();
+        }
+        MappedByteBuffer index = mapIndex(file, length);
+        index.putInt(0, INDEX_MAGIC);
+        index.putInt(4, capacity);
+        index.putLong(8, 0);
+        return index;
+    }
+
+    private static MappedByteBuffer mapIndex(File file, long length) throws IOException {
+        RandomAccessFile indexFile = new RandomAccessFile(file, "rw");
+        try {
+            // the mapping stays valid after the file is closed
+            return indexFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+        } finally {
+            indexFile.close();
+        }
+    }
+
+    private static void putSlot(MappedByteBuffer index, int capacity, int hash, long offset, int recordLength) {
+        int slot = hash & (capacity - 1);
+        while (index.getLong(slotPosition(slot)) != EMPTY_SLOT) {
+            slot = (slot + 1) & (capacity - 1);
+        }
+        int position = slotPosition(slot);
+        index.putLong(position, offset + 1);
+        index.putInt(position + 8, hash);
+        index.putInt(position + 12, recordLength);
+    }
+
+    private long getSlotOffsetField(int slot) {
+        return mIndex.getLong(slotPosition(slot));
+    }
+
+    private boolean isSlotLive(int slot) {
+        long offsetField = getSlotOffsetField(slot);
+        return offsetField != EMPTY_SLOT && offsetField != REMOVED_SLOT;
+    }
+
+    private long getSlotOffset(int slot) {
+        return getSlotOffsetField(slot) - 1;
+    }
+
+    private int getSlotHash(int slot) {
+        return mIndex.getInt(slotPosition(slot) + 8);
+    }
+
+    private int getSlotRecordLength(int slot) {
+        return mIndex.getInt(slotPosition(slot) + 12);
+    }
+
+    private void setSlot(int slot, long offsetField, int hash, int recordLength) {
+        int position = slotPosition(slot);
+        mIndex.putLong(position, offsetField);
+        mIndex.putInt(position + 8, hash);
+        mIndex.putInt(position + 12, recordLength);
+    }
+
+    private static int slotPosition(int slot) {
+        return INDEX_HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private static int hash(byte[] keyBytes) {
+        int hash = Arrays.hashCode(keyBytes);
+        // spread the higher bits, because only the lower ones select the slot
+        return hash ^ (hash >>> 16);
+    }
+
+    private void ensureOpen() throws IOException {
+        if (mData == null || mIndex == null) {
+            throw new IOException("store is closed");
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package com.techyourchance.unittesting.common.html;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Incrementally converts HTML into {@link StyledText}. The input is parsed on demand, so the
+ * beginning of a long document can be shown before the rest of it had been parsed.
+ *
+ * Supports the subset of HTML that Stack Overflow emits: paragraphs, headings, preformatted code,
+ * inline code, links, emphasis, lists and block quotes. Whitespace is collapsed outside of
+ * preformatted blocks and unsupported tags contribute only their text.
+ */
+public class HtmlStyledTextParser {
+
+    private static final String BULLET_PREFIX = "\u2022 ";
+
+    private static final Comparator<StyleRun> RUNS_ORDER = new Comparator<StyleRun>() {
+        @Override
+        public int compare(StyleRun first, StyleRun second) {
+            if (first.getStart() != second.getStart()) {
+                return first.getStart() < second.getStart() ? -1 : 1;
+            }
+            // the enclosing run goes first
+            return first.getEnd() == second.getEnd() ? 0 : (first.getEnd() > second.getEnd() ? -1 : 1);
+        }
+    };
+
+    private final HtmlTokenizer mTokenizer;
+    private final StringBuilder mText = new StringBuilder();
+    private final List<StyleRun> mClosedRuns = new ArrayList<>();
+    private final LinkedList<OpenElement> mOpenElements = new LinkedList<>();
+
+    // separators are appended lazily, so that there is no leading or trailing whitespace
+    private boolean mPendingSpace;
+    private int mPendingNewlines;
+
+    private int mPreformattedDepth;
+    private boolean mPreformattedStart;
+    private boolean mFinished;
+
+    public HtmlStyledTextParser(String html) {
+        mTokenizer = new HtmlTokenizer(html);
+    }
+
+    /**
+     * Parses the input until the text is at least of the given length or the input is exhausted.
+     * @return true if the whole input had been parsed
+     */
+    public boolean parseUntil(int textLength) {
+        while (!mFinished && mText.length() < textLength) {
+            parseNextToken();
+        }
+        return mFinished;
+    }
+
+    public void parseAll() {
+        parseUntil(Integer.MAX_VALUE);
+    }
+
+    public boolean isFinished() {
+        return mFinished;
+    }
+
+    /**
+     * @return the styled text parsed so far; elements which are still open are styled up to the end
+     *         of the text
+     */
+    public StyledText getStyledText() {
+        int length = mText.length();
+        while (length > 0 && Character.isWhitespace(mText.charAt(length - 1))) {
+            length--;
+        }
+        List<StyleRun> runs = new ArrayList<>(mClosedRuns.size() + mOpenElements.size());
+        for (StyleRun run : mClosedRuns) {
+            addClipped(runs, run.getStyle(), run.getStart(), run.getEnd(), run.getUrl(), length);
+        }
+        for (OpenElement element : mOpenElements) {
+            if (element.mStyle != null) {
+                addClipped(runs, element.mStyle, element.mStart, length, element.mUrl, length);
+            }
+        }
+        Collections.sort(runs, RUNS_ORDER);
+        return new StyledText(mText.substring(0, length), runs);
+    }
+
+    private static void addClipped(List<StyleRun> runs,
+                                   StyleRun.Style style,
+                                   int start,
+                                   int end,
+                                   String url,
+                                   int length) {
+        end = Math.min(end, length);
+        if (start < end) {
+            runs.add(new StyleRun(style, start, end, url));
+        }
+    }
+
+    private void parseNextToken() {
+        switch (mTokenizer.next()) {
+            case HtmlTokenizer.TEXT:
+                appendText(mTokenizer.getText());
+                break;
+            case HtmlTokenizer.START_TAG:
+                startElement(mTokenizer.getTagName());
+                break;
+            case HtmlTokenizer.END_TAG:
+                endElement(mTokenizer.getTagName());
+                break;
+            case HtmlTokenizer.END_OF_INPUT:
+                mFinished = true;
+                break;
+            default:
+                throw new IllegalStateException("unknown token type: " + mTokenizer.getTokenType());
+        }
+    }
+
+    private void startElement(String tagName) {
+        switch (tagName) {
+            case "br":
+                mPendingSpace = false;
+                mText.append('\n');
+                return;
+            case "hr":
+                requestNewlines(2);
+                return;
+            case "img":
+            case "input":
+            case "meta":
+            case "link":
+            case "wbr":
+            case "col":
+            case "area":
+            case "source":
+                // void elements
+                return;
+            default:
+                break;
+        }
+        if (mTokenizer.isSelfClosing()) {
+            return;
+        }
+
+        StyleRun.Style style = null;
+        String url = null;
+        switch (tagName) {
+            case "p":
+            case "div":
+                requestNewlines(2);
+                break;
+            case "h1":
+            case "h2":
+            case "h3":
+            case "h4":
+            case "h5":
+            case "h6":
+                requestNewlines(2);
+                style = StyleRun.Style.STRONG;
+                break;
+            case "pre":
+                requestNewlines(2);
+                style = StyleRun.Style.CODE_BLOCK;
+                mPreformattedDepth++;
+                mPreformattedStart = true;
+                break;
+            case "blockquote":
+                requestNewlines(2);
+                style = StyleRun.Style.QUOTE;
+                break;
+            case "ul":
+            case "ol":
+                requestNewlines(findEnclosingList() == null ? 2 : 1);
+                break;
+            case "li":
+                closeOpenListItem();
+                requestNewlines(1);
+                style = StyleRun.Style.LIST_ITEM;
+                break;
+            case "strong":
+            case "b":
+                style = StyleRun.Style.STRONG;
+                break;
+            case "em":
+            case "i":
+                style = StyleRun.Style.EMPHASIS;
+                break;
+            case "code":
+            case "kbd":
+                // code blocks are already styled by the enclosing "pre"
+                style = mPreformattedDepth > 0 ? null : StyleRun.Style.CODE;
+                break;
+            case "a":
+                url = mTokenizer.getAttribute("href");
+                style = url == null ? null : StyleRun.Style.LINK;
+                break;
+            default:
+                break;
+        }
+
+        if (style != null) {
+            appendPendingSeparators();
+        }
+        OpenElement element = new OpenElement(tagName, style, mText.length(), url);
+        if (tagName.equals("li")) {
+            appendListItemPrefix();
+        }
+        mOpenElements.push(element);
+    }
+
+    private void endElement(String tagName) {
+        if (!isOpen(tagName)) {
+            return;
+        }
+        // elements which weren't closed explicitly end together with the enclosing element
+        OpenElement element;
+        do {
+            element = mOpenElements.pop();
+            closeElement(element);
+        } while (!element.mTagName.equals(tagName));
+    }
+
+    private boolean isOpen(String tagName) {
+        for (OpenElement element : mOpenElements) {
+            if (element.mTagName.equals(tagName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void closeElement(OpenElement element) {
+        if (element.mStyle != null && element.mStart < mText.length()) {
+            mClosedRuns.add(new StyleRun(element.mStyle, element.mStart, mText.length(), element.mUrl));
+        }
+        switch (element.mTagName) {
+            case "pre":
+                mPreformattedDepth--;
+                requestNewlines(2);
+                break;
+            case "p":
+            case "div":
+            case "blockquote":
+            case "h1":
+            case "h2":
+            case "h3":
+            case "h4":
+            case "h5":
+            case "h6":
+                requestNewlines(2);
+                break;
+            case "ul":
+            case "ol":
+                requestNewlines(findEnclosingList() == null ? 2 : 1);
+                break;
+            case "li":
+                requestNewlines(1);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Stack Overflow always closes list items, but HTML allows omitting the end tag of "li".
+     */
+    private void closeOpenListItem() {
+        for (OpenElement element : mOpenElements) {
+            if (element.mTagName.equals("ul") || element.mTagName.equals("ol")) {
+                return;
+            }
+            if (element.mTagName.equals("li")) {
+                endElement("li");
+                return;
+            }
+        }
+    }
+
+    private OpenElement findEnclosingList() {
+        for (OpenElement element : mOpenElements) {
+            if (element.mTagName.equals("ul") || element.mTagName.equals("ol")) {
+                return element;
+            }
+        }
+        return null;
+    }
+
+    private void appendListItemPrefix() {
+        OpenElement list = findEnclosingList();
+        if (list != null && list.mTagName.equals("ol")) {
+            list.mItemsCount++;
+            mText.append(list.mItemsCount).append(". ");
+        } else {
+            mText.append(BULLET_PREFIX);
+        }
+    }
+
+    private void appendText(String text) {
+        if (mPreformattedDepth > 0) {
+            if (mPreformattedStart && text.startsWith("\n")) {
+                // a newline right after the start tag of "pre" isn't a part of the content
+                text = text.substring(1);
+            }
+            mPreformattedStart = false;
+            if (!text.isEmpty()) {
+                appendPendingSeparators();
+                mText.append(text);
+            }
+            return;
+        }
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ' ' || c == '\n' || c == '\t' || c == '\r' || c == '\f') {
+                mPendingSpace = true;
+            } else {
+                appendPendingSeparators();
+                mText.append(c);
+            }
+        }
+    }
+
+    private void requestNewlines(int count) {
+        mPendingNewlines = Math.max(mPendingNewlines, count);
+    }
+
+    private void appendPendingSeparators() {
+        int length = mText.length();
+        if (length == 0) {
+            // nothing to separate from
+        } else if (mPendingNewlines > 0) {
+            int trailingNewlines = 0;
+            while (trailingNewlines < length && mText.charAt(length - 1 - trailingNewlines) == '\n') {
+                trailingNewlines++;
+            }
+            for (int i = trailingNewlines; i < mPendingNewlines; i++) {
+                mText.append('\n');
+            }
+        } else if (mPendingSpace && !Character.isWhitespace(mText.charAt(length - 1))) {
+            mText.append(' ');
+        }
+        mPendingSpace = false;
+        mPendingNewlines = 0;
+    }
+
+    private static class OpenElement {
+
+        private final String mTagName;
+        private final StyleRun.Style mStyle;
+        private final int mStart;
+        private final String mUrl;
+        private int mItemsCount;
+
+        private OpenElement(String tagName, StyleRun.Style style, int start, String url) {
+            mTagName = tagName;
+            mStyle = style;
+            mStart = start;
+            mUrl = url;
+        }
+    }
+}
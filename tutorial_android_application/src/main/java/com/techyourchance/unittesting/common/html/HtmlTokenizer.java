@@ -0,0 +1,263 @@
+package com.techyourchance.unittesting.common.html;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Pull tokenizer for the HTML that Stack Overflow emits. The input is consumed one token at a time
+ * without building any tree, so the caller can stop at any point and resume later. Comments,
+ * doctypes and processing instructions are skipped. Character references are decoded in text and
+ * in attribute values.
+ */
+public class HtmlTokenizer {
+
+    public static final int END_OF_INPUT = 0;
+    public static final int TEXT = 1;
+    public static final int START_TAG = 2;
+    public static final int END_TAG = 3;
+
+    private static final Map<String, Character> NAMED_ENTITIES = new HashMap<>();
+
+    static {
+        NAMED_ENTITIES.put("amp", '&');
+        NAMED_ENTITIES.put("lt", '<');
+        NAMED_ENTITIES.put("gt", '>');
+        NAMED_ENTITIES.put("quot", '"');
+        NAMED_ENTITIES.put("apos", '\'');
+        NAMED_ENTITIES.put("nbsp", '\u00a0');
+        NAMED_ENTITIES.put("hellip", '\u2026');
+        NAMED_ENTITIES.put("mdash", '\u2014');
+        NAMED_ENTITIES.put("ndash", '\u2013');
+        NAMED_ENTITIES.put("copy", '\u00a9');
+    }
+
+    private final String mHtml;
+    private int mPosition;
+
+    private int mTokenType = END_OF_INPUT;
+    private String mText;
+    private String mTagName;
+    private boolean mSelfClosing;
+    private final Map<String, String> mAttributes = new HashMap<>();
+
+    public HtmlTokenizer(String html) {
+        mHtml = html;
+    }
+
+    /**
+     * Advances to the next token.
+     * @return the type of the token, or {@link #END_OF_INPUT}
+     */
+    public int next() {
+        mText = null;
+        mTagName = null;
+        mSelfClosing = false;
+        mAttributes.clear();
+
+        while (mPosition < mHtml.length()) {
+            if (mHtml.charAt(mPosition) != '<') {
+                readText();
+                return mTokenType = TEXT;
+            }
+            int tokenType = readMarkup();
+            if (tokenType != END_OF_INPUT) {
+                return mTokenType = tokenType;
+            }
+        }
+        return mTokenType = END_OF_INPUT;
+    }
+
+    public int getTokenType() {
+        return mTokenType;
+    }
+
+    /**
+     * @return the decoded text of a {@link #TEXT} token
+     */
+    public String getText() {
+        return mText;
+    }
+
+    /**
+     * @return the lower case name of a {@link #START_TAG} or {@link #END_TAG} token
+     */
+    public String getTagName() {
+        return mTagName;
+    }
+
+    public boolean isSelfClosing() {
+        return mSelfClosing;
+    }
+
+    /**
+     * @return the decoded value of the attribute of a {@link #START_TAG} token, or null
+     */
+    public String getAttribute(String name) {
+        return mAttributes.get(name);
+    }
+
+    /**
+     * @return the number of consumed characters of the input
+     */
+    public int getPosition() {
+        return mPosition;
+    }
+
+    private void readText() {
+        int end = mHtml.indexOf('<', mPosition);
+        if (end < 0) {
+            end = mHtml.length();
+        }
+        mText = decode(mHtml, mPosition, end);
+        mPosition = end;
+    }
+
+    /**
+     * @return the type of the read token, or {@link #END_OF_INPUT} if the markup was skipped
+     */
+    private int readMarkup() {
+        int start = mPosition;
+        if (mHtml.startsWith("<!--", start)) {
+            int end = mHtml.indexOf("-->", start + 4);
+            mPosition = end < 0 ? mHtml.length() : end + 3;
+            return END_OF_INPUT;
+        }
+
+        int nameStart = start + 1;
+        boolean endTag = nameStart < mHtml.length() && mHtml.charAt(nameStart) == '/';
+        if (endTag) {
+            nameStart++;
+        }
+        if (nameStart >= mHtml.length() || !isLetter(mHtml.charAt(nameStart))) {
+            if (nameStart < mHtml.length() && (mHtml.charAt(nameStart) == '!' || mHtml.charAt(nameStart) == '?')) {
+                int end = mHtml.indexOf('>', nameStart);
+                mPosition = end < 0 ? mHtml.length() : end + 1;
+                return END_OF_INPUT;
+            }
+            // a stray "<" is a part of the text
+            mText = "<";
+            mPosition = start + 1;
+            return TEXT;
+        }
+
+        int position = nameStart;
+        while (position < mHtml.length() && isNameChar(mHtml.charAt(position))) {
+            position++;
+        }
+        mTagName = mHtml.substring(nameStart, position).toLowerCase(Locale.US);
+        mPosition = readAttributes(position);
+        return endTag ? END_TAG : START_TAG;
+    }
+
+    /**
+     * @return the position after the closing ">" of the tag
+     */
+    private int readAttributes(int position) {
+        while (position < mHtml.length()) {
+            char c = mHtml.charAt(position);
+            if (c == '>') {
+                return position + 1;
+            } else if (c == '/') {
+                mSelfClosing = true;
+                position++;
+            } else if (isNameChar(c)) {
+                int nameStart = position;
+                while (position < mHtml.length() && isNameChar(mHtml.charAt(position))) {
+                    position++;
+                }
+                String name = mHtml.substring(nameStart, position).toLowerCase(Locale.US);
+                position = skipWhitespace(position);
+                String value = "";
+                if (position < mHtml.length() && mHtml.charAt(position) == '=') {
+                    position = skipWhitespace(position + 1);
+                    int valueStart;
+                    int valueEnd;
+                    if (position < mHtml.length()
+                            && (mHtml.charAt(position) == '"' || mHtml.charAt(position) == '\'')) {
+                        valueStart = position + 1;
+                        valueEnd = mHtml.indexOf(mHtml.charAt(position), valueStart);
+                        if (valueEnd < 0) {
+                            valueEnd = mHtml.length();
+                        }
+                        position = Math.min(valueEnd + 1, mHtml.length());
+                    } else {
+                        valueStart = position;
+                        while (position < mHtml.length()
+                                && mHtml.charAt(position) != '>'
+                                && !Character.isWhitespace(mHtml.charAt(position))) {
+                            position++;
+                        }
+                        valueEnd = position;
+                    }
+                    value = decode(mHtml, valueStart, valueEnd);
+                }
+                mSelfClosing = false;
+                mAttributes.put(name, value);
+            } else {
+                position++;
+            }
+        }
+        return position;
+    }
+
+    private int skipWhitespace(int position) {
+        while (position < mHtml.length() && Character.isWhitespace(mHtml.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isNameChar(char c) {
+        return isLetter(c) || (c >= '0' && c <= '9') || c == '-' || c == '_' || c == ':';
+    }
+
+    /**
+     * Decodes the character references in the given range. Unknown or malformed references are
+     * left as they are.
+     */
+    static String decode(String html, int start, int end) {
+        int ampersand = html.indexOf('&', start);
+        if (ampersand < 0 || ampersand >= end) {
+            return html.substring(start, end);
+        }
+        StringBuilder decoded = new StringBuilder(end - start);
+        int position = start;
+        while (ampersand >= 0 && ampersand < end) {
+            decoded.append(html, position, ampersand);
+            int semicolon = html.indexOf(';', ampersand);
+            int codePoint = semicolon < 0 || semicolon >= end || semicolon - ampersand > 10
+                    ? -1
+                    : decodeReference(html.substring(ampersand + 1, semicolon));
+            if (codePoint < 0) {
+                decoded.append('&');
+                position = ampersand + 1;
+            } else {
+                decoded.appendCodePoint(codePoint);
+                position = semicolon + 1;
+            }
+            ampersand = html.indexOf('&', position);
+        }
+        decoded.append(html, position, end);
+        return decoded.toString();
+    }
+
+    private static int decodeReference(String reference) {
+        if (reference.startsWith("#")) {
+            try {
+                int codePoint = reference.startsWith("#x") || reference.startsWith("#X")
+                        ? Integer.parseInt(reference.substring(2), 16)
+                        : Integer.parseInt(reference.substring(1));
+                return Character.isValidCodePoint(codePoint) ? codePoint : -1;
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        Character character = NAMED_ENTITIES.get(reference);
+        return character == null ? -1 : character;
+    }
+}
@@ -0,0 +1,44 @@
+package com.techyourchance.unittesting.common.html;
+
+import android.graphics.Typeface;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.text.style.LeadingMarginSpan;
+import android.text.style.QuoteSpan;
+import android.text.style.StyleSpan;
+import android.text.style.TypefaceSpan;
+import android.text.style.URLSpan;
+
+public class SpannableStyledTextConverter implements StyledTextConverter {
+
+    private static final int LIST_ITEM_INDENT_PX = 24;
+
+    @Override
+    public CharSequence convert(StyledText styledText) {
+        SpannableStringBuilder spannable = new SpannableStringBuilder(styledText.getText());
+        for (StyleRun run : styledText.getRuns()) {
+            spannable.setSpan(createSpan(run), run.getStart(), run.getEnd(), Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        }
+        return spannable;
+    }
+
+    private Object createSpan(StyleRun run) {
+        switch (run.getStyle()) {
+            case STRONG:
+                return new StyleSpan(Typeface.BOLD);
+            case EMPHASIS:
+                return new StyleSpan(Typeface.ITALIC);
+            case CODE:
+            case CODE_BLOCK:
+                return new TypefaceSpan("monospace");
+            case LINK:
+                return new URLSpan(run.getUrl());
+            case QUOTE:
+                return new QuoteSpan();
+            case LIST_ITEM:
+                return new LeadingMarginSpan.Standard(LIST_ITEM_INDENT_PX);
+            default:
+                throw new IllegalArgumentException("unsupported style: " + run.getStyle());
+        }
+    }
+}
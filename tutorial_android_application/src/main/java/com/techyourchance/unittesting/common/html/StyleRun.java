@@ -0,0 +1,53 @@
+package com.techyourchance.unittesting.common.html;
+
+/**
+ * A style applied to the range [start, end) of {@link StyledText}.
+ */
+public class StyleRun {
+
+    public enum Style {
+        STRONG,
+        EMPHASIS,
+        CODE,
+        CODE_BLOCK,
+        LINK,
+        QUOTE,
+        LIST_ITEM
+    }
+
+    private final Style mStyle;
+    private final int mStart;
+    private final int mEnd;
+    private final String mUrl;
+
+    public StyleRun(Style style, int start, int end, String url) {
+        mStyle = style;
+        mStart = start;
+        mEnd = end;
+        mUrl = url;
+    }
+
+    public Style getStyle() {
+        return mStyle;
+    }
+
+    public int getStart() {
+        return mStart;
+    }
+
+    public int getEnd() {
+        return mEnd;
+    }
+
+    /**
+     * @return the target of a {@link Style#LINK} run, or null
+     */
+    public String getUrl() {
+        return mUrl;
+    }
+
+    @Override
+    public String toString() {
+        return mStyle + "[" + mStart + "," + mEnd + ")" + (mUrl != null ? " " + mUrl : "");
+    }
+}
@@ -0,0 +1,29 @@
+package com.techyourchance.unittesting.common.html;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Plain text with style runs; a framework independent representation of formatted HTML.
+ */
+public class StyledText {
+
+    private final String mText;
+    private final List<StyleRun> mRuns;
+
+    public StyledText(String text, List<StyleRun> runs) {
+        mText = text;
+        mRuns = Collections.unmodifiableList(runs);
+    }
+
+    public String getText() {
+        return mText;
+    }
+
+    /**
+     * @return runs ordered by their start positions; runs can nest but never cross
+     */
+    public List<StyleRun> getRuns() {
+        return mRuns;
+    }
+}
@@ -0,0 +1,10 @@
+package com.techyourchance.unittesting.common.html;
+
+/**
+ * Converts styled text into a representation which can be displayed by the views. Implementations
+ * must be safe to call from background threads.
+ */
+public interface StyledTextConverter {
+
+    CharSequence convert(StyledText styledText);
+}
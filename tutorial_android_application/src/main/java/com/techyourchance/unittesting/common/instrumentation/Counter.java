@@ -0,0 +1,23 @@
+package com.techyourchance.unittesting.common.instrumentation;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic count of events. Safe to use from multiple threads, and doesn't allocate.
+ */
+public class Counter {
+
+    private final AtomicLong mValue = new AtomicLong();
+
+    public void increment() {
+        mValue.incrementAndGet();
+    }
+
+    public void add(long delta) {
+        mValue.addAndGet(delta);
+    }
+
+    public long getValue() {
+        return mValue.get();
+    }
+}
@@ -0,0 +1,9 @@
+package com.techyourchance.unittesting.common.instrumentation;
+
+/**
+ * Current value of some state (e.g. the size of a cache). Gauges are read only when the metrics are
+ * exported, so they cost nothing on the hot path, but they can be read on any thread.
+ */
+public interface Gauge {
+    long getValue();
+}
@@ -0,0 +1,114 @@
+package com.techyourchance.unittesting.common.instrumentation;
+
+import com.techyourchance.unittesting.common.time.TimeProvider;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registry of the named timers, counters and gauges of the app. Components look up their metrics
+ * once (usually in the constructor) and record into them directly, so the registry itself is off
+ * the hot path. Metrics with the same name are shared. Safe to use from multiple threads.
+ */
+public class Metrics {
+
+    public interface Exporter {
+        void exportTimer(String name, Timer timer);
+        void exportCounter(String name, long value);
+        void exportGauge(String name, long value);
+    }
+
+    private final TimeProvider mTimeProvider;
+
+    private final Map<String, Timer> mTimers = new TreeMap<>();
+    private final Map<String, Counter> mCounters = new TreeMap<>();
+    private final Map<String, Gauge> mGauges = new TreeMap<>();
+
+    public Metrics(TimeProvider timeProvider) {
+        mTimeProvider = timeProvider;
+    }
+
+    public synchronized Timer timer(String name) {
+        Timer timer = mTimers.get(name);
+        if (timer == null) {
+            timer = new Timer(mTimeProvider);
+            mTimers.put(name, timer);
+        }
+        return timer;
+    }
+
+    public synchronized Counter counter(String name) {
+        Counter counter = mCounters.get(name);
+        if (counter == null) {
+            counter = new Counter();
+            mCounters.put(name, counter);
+        }
+        return counter;
+    }
+
+    /**
+     * Replaces the gauge registered with the same name, if any.
+     */
+    public synchronized void registerGauge(String name, Gauge gauge) {
+        mGauges.put(name, gauge);
+    }
+
+    /**
+     * Passes all the metrics to the exporter, sorted by name within each kind. Gauges are read on the
+     * calling thread.
+     */
+    public void export(Exporter exporter) {
+        Map<String, Timer> timers;
+        Map<String, Counter> counters;
+        Map<String, Gauge> gauges;
+        synchronized (this) {
+            timers = new TreeMap<>(mTimers);
+            counters = new TreeMap<>(mCounters);
+            gauges = new TreeMap<>(mGauges);
+        }
+        for (Map.Entry<String, Timer> entry : timers.entrySet()) {
+            exporter.exportTimer(entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            exporter.exportCounter(entry.getKey(), entry.getValue().getValue());
+        }
+        for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
+            exporter.exportGauge(entry.getKey(), entry.getValue().getValue());
+        }
+    }
+
+    /**
+     * @return human readable dump of all the metrics, one per line (e.g. for logs)
+     */
+    public String dump() {
+        final StringBuilder sb = new StringBuilder();
+        export(new Exporter() {
+            @Override
+            public void exportTimer(String name, Timer timer) {
+                sb.append(name)
+                        .append(": count=").append(timer.getCount())
+                        .append(" p50=").append(toMicros(timer.getPercentileNanos(50)))
+                        .append("us p90=").append(toMicros(timer.getPercentileNanos(90)))
+                        .append("us p99=").append(toMicros(timer.getPercentileNanos(99)))
+                        .append("us max=").append(toMicros(timer.getMaxNanos()))
+                        .append("us\n");
+            }
+
+            @Override
+            public void exportCounter(String name, long value) {
+                sb.append(name).append(": ").append(value).append('\n');
+            }
+
+            @Override
+            public void exportGauge(String name, long value) {
+                sb.append(name).append(": ").append(value).append('\n');
+            }
+        });
+        return sb.toString();
+    }
+
+    private static long toMicros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
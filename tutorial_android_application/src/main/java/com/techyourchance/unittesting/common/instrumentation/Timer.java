@@ -0,0 +1,107 @@
+package com.techyourchance.unittesting.common.instrumentation;
+
+import com.techyourchance.unittesting.common.time.TimeProvider;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Distribution of the durations of an operation. Durations are counted in a log-linear histogram
+ * (like HdrHistogram): each power of two is split into {@link #SUB_BUCKETS_COUNT} buckets, so the
+ * reported percentiles are within 1/16 of the recorded durations over the whole range of longs, in
+ * a fixed 8KB of memory. Safe to use from multiple threads, and recording doesn't allocate or lock.
+ */
+public class Timer {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS_COUNT;
+
+    private final TimeProvider mTimeProvider;
+
+    private final AtomicLongArray mBucketCounts = new AtomicLongArray(BUCKETS_COUNT);
+    private final AtomicLong mCount = new AtomicLong();
+    private final AtomicLong mTotalNanos = new AtomicLong();
+    private final AtomicLong mMaxNanos = new AtomicLong();
+
+    public Timer(TimeProvider timeProvider) {
+        mTimeProvider = timeProvider;
+    }
+
+    /**
+     * @return the start time to pass to {@link #stop(long)}
+     */
+    public long start() {
+        return mTimeProvider.getMonotonicNanos();
+    }
+
+    public void stop(long startNanos) {
+        record(mTimeProvider.getMonotonicNanos() - startNanos);
+    }
+
+    public void record(long durationNanos) {
+        if (durationNanos < 0) {
+            // the monotonic clock is per boot, so durations recorded across reboots are meaningless
+            durationNanos = 0;
+        }
+        mBucketCounts.incrementAndGet(getBucketIndex(durationNanos));
+        mCount.incrementAndGet();
+        mTotalNanos.addAndGet(durationNanos);
+        long maxNanos = mMaxNanos.get();
+        while (durationNanos > maxNanos && !mMaxNanos.compareAndSet(maxNanos, durationNanos)) {
+            maxNanos = mMaxNanos.get();
+        }
+    }
+
+    public long getCount() {
+        return mCount.get();
+    }
+
+    public long getTotalNanos() {
+        return mTotalNanos.get();
+    }
+
+    public long getMaxNanos() {
+        return mMaxNanos.get();
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the duration which the given percentage of the recorded durations doesn't exceed (up
+     *         to the precision of the histogram), or 0 if nothing was recorded
+     */
+    public long getPercentileNanos(double percentile) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        long targetCount = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long accumulatedCount = 0;
+        for (int i = 0; i < BUCKETS_COUNT; i++) {
+            accumulatedCount += mBucketCounts.get(i);
+            if (accumulatedCount >= targetCount) {
+                return Math.min(getBucketUpperBound(i), getMaxNanos());
+            }
+        }
+        // durations were recorded while iterating
+        return getMaxNanos();
+    }
+
+    private static int getBucketIndex(long value) {
+        if (value < SUB_BUCKETS_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS_COUNT;
+        return (shift + 1) * SUB_BUCKETS_COUNT + subBucket;
+    }
+
+    private static long getBucketUpperBound(int index) {
+        if (index < SUB_BUCKETS_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS_COUNT - 1;
+        long subBucket = index % SUB_BUCKETS_COUNT;
+        return ((SUB_BUCKETS_COUNT + subBucket + 1) << shift) - 1;
+    }
+}
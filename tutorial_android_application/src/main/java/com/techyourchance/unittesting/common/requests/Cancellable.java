@@ -0,0 +1,9 @@
+package com.techyourchance.unittesting.common.requests;
+
+/**
+ * Handle of a request that can be cancelled. Listeners of a cancelled request aren't notified, and
+ * cancelling a request which already completed (or was already cancelled) has no effect.
+ */
+public interface Cancellable {
+    void cancel();
+}
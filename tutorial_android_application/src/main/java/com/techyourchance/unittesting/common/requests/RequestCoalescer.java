@@ -0,0 +1,102 @@
+package com.techyourchance.unittesting.common.requests;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps track of requests that are in flight, so that a request for a key which is already being
+ * fetched can attach to the pending call instead of issuing another one.
+ */
+public class RequestCoalescer<KEY> {
+
+    /**
+     * Handle of a request in flight. Callbacks of the request pass it to {@link #finish}, so that
+     * callbacks of a cancelled request can't finish a newer request for the same key.
+     */
+    public static final class InFlightRequest {
+        private Cancellable mCancellable;
+    }
+
+    private final Map<KEY, InFlightRequest> mInFlightRequests = new HashMap<>();
+
+    private long mCoalescedRequestsCount;
+
+    /**
+     * @return the handle of the request which the caller should issue for this key; null if the
+     *         request is already in flight and the caller should wait for its result
+     */
+    public synchronized InFlightRequest tryStart(KEY key) {
+        if (!mInFlightRequests.containsKey(key)) {
+            InFlightRequest request = new InFlightRequest();
+            mInFlightRequests.put(key, request);
+            return request;
+        } else {
+            mCoalescedRequestsCount++;
+            return null;
+        }
+    }
+
+    /**
+     * Makes the request cancellable by {@link #cancelAll()}. Has no effect if the request already
+     * finished, so it's safe to call after the call had completed synchronously.
+     */
+    public synchronized void setCancellable(InFlightRequest request, Cancellable cancellable) {
+        request.mCancellable = cancellable;
+    }
+
+    /**
+     * @return true if the request was in flight; false if it had been cancelled, in which case its
+     *         result should be dropped
+     */
+    public synchronized boolean finish(KEY key, InFlightRequest request) {
+        if (mInFlightRequests.get(key) == request) {
+            mInFlightRequests.remove(key);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    public synchronized boolean isInFlight(KEY key) {
+        return mInFlightRequests.containsKey(key);
+    }
+
+    /**
+     * @return true if the given request is still in flight; false if it had been cancelled (or
+     *         finished), so its callbacks can skip the work of handling a result that will be dropped
+     */
+    public synchronized boolean isInFlight(KEY key, InFlightRequest request) {
+        return mInFlightRequests.get(key) == request;
+    }
+
+    /**
+     * Cancels and finishes all the cancellable requests. Requests which weren't made cancellable
+     * stay in flight.
+     */
+    public void cancelAll() {
+        List<Cancellable> cancellables = new ArrayList<>();
+        synchronized (this) {
+            Iterator<InFlightRequest> iterator = mInFlightRequests.values().iterator();
+            while (iterator.hasNext()) {
+                InFlightRequest request = iterator.next();
+                if (request.mCancellable != null) {
+                    cancellables.add(request.mCancellable);
+                    iterator.remove();
+                }
+            }
+        }
+        for (Cancellable cancellable : cancellables) {
+            cancellable.cancel();
+        }
+    }
+
+    /**
+     * @return the number of requests that were attached to a pending call (i.e. network calls saved)
+     */
+    public synchronized long getCoalescedRequestsCount() {
+        return mCoalescedRequestsCount;
+    }
+}
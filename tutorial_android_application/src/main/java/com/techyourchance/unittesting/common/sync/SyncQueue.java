@@ -0,0 +1,71 @@
+package com.techyourchance.unittesting.common.sync;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+
+/**
+ * Keys of the data which should be refreshed once it's possible, e.g. when the device is back
+ * online. Each key is queued at most once: adding a queued key again has no effect, except that a
+ * key queued in the background is moved to the user-visible keys. Keys of the same priority are
+ * polled in the order in which they were added.
+ */
+public class SyncQueue<KEY> {
+
+    public enum Priority {
+        USER_VISIBLE,
+        BACKGROUND
+    }
+
+    private final LinkedHashSet<KEY> mUserVisibleKeys = new LinkedHashSet<>();
+    private final LinkedHashSet<KEY> mBackgroundKeys = new LinkedHashSet<>();
+
+    private long mDeduplicatedKeysCount;
+
+    /**
+     * @return true if the key was added; false if it was already queued
+     */
+    public synchronized boolean add(KEY key, Priority priority) {
+        if (mUserVisibleKeys.contains(key)) {
+            mDeduplicatedKeysCount++;
+            return false;
+        }
+        if (mBackgroundKeys.contains(key)) {
+            mDeduplicatedKeysCount++;
+            if (priority == Priority.USER_VISIBLE) {
+                mBackgroundKeys.remove(key);
+                mUserVisibleKeys.add(key);
+            }
+            return false;
+        }
+        getKeys(priority).add(key);
+        return true;
+    }
+
+    /**
+     * @return the oldest key of the given priority, or null if there are no such keys
+     */
+    public synchronized KEY poll(Priority priority) {
+        Iterator<KEY> iterator = getKeys(priority).iterator();
+        if (!iterator.hasNext()) {
+            return null;
+        }
+        KEY key = iterator.next();
+        iterator.remove();
+        return key;
+    }
+
+    public synchronized int size() {
+        return mUserVisibleKeys.size() + mBackgroundKeys.size();
+    }
+
+    /**
+     * @return the number of keys which weren't added because they were already queued
+     */
+    public synchronized long getDeduplicatedKeysCount() {
+        return mDeduplicatedKeysCount;
+    }
+
+    private LinkedHashSet<KEY> getKeys(Priority priority) {
+        return priority == Priority.USER_VISIBLE ? mUserVisibleKeys : mBackgroundKeys;
+    }
+}
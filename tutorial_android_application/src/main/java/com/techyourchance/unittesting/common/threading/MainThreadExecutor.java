@@ -0,0 +1,16 @@
+package com.techyourchance.unittesting.common.threading;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+
+public class MainThreadExecutor implements Executor {
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    @Override
+    public void execute(Runnable runnable) {
+        mMainHandler.post(runnable);
+    }
+}
@@ -0,0 +1,15 @@
+package com.techyourchance.unittesting.common.time;
+
+import android.os.SystemClock;
+
+/**
+ * System.nanoTime() stops while the device is in deep sleep, so caches wouldn't expire over a night
+ * in the pocket. The elapsed realtime clock is monotonic too, but it keeps running in deep sleep.
+ */
+public class ElapsedRealtimeTimeProvider extends TimeProvider {
+
+    @Override
+    public long getMonotonicNanos() {
+        return SystemClock.elapsedRealtimeNanos();
+    }
+}
@@ -1,8 +1,33 @@
 package com.techyourchance.unittesting.common.time;
 
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Intervals (timeouts, backoffs, rate limits, durations) must be measured on the monotonic clock:
+ * the wall clock jumps whenever the user or the network changes the time of the device.
+ */
 public class TimeProvider {
 
+    /**
+     * @return wall clock time in ms since the epoch; only for points in time which are shown to the
+     *         user or sent to the server
+     */
     public long getCurrentTimestamp() {
         return System.currentTimeMillis();
     }
+
+    /**
+     * @return monotonic time in ns, which is meaningful only relative to other values returned by
+     *         this method
+     */
+    public long getMonotonicNanos() {
+        return System.nanoTime();
+    }
+
+    /**
+     * @return {@link #getMonotonicNanos()} in ms
+     */
+    public long getMonotonicTimestamp() {
+        return TimeUnit.NANOSECONDS.toMillis(getMonotonicNanos());
+    }
 }
@@ -0,0 +1,58 @@
+package com.techyourchance.unittesting.networking;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * Body of the responses the API fails with. Throttling is reported this way too: the API responds
+ * with HTTP 400 and {@link #ERROR_ID_THROTTLE_VIOLATION}, and possibly asks to back off.
+ */
+public class ApiErrorSchema implements ThrottlingResponseSchema {
+
+    public static final int ERROR_ID_THROTTLE_VIOLATION = 502;
+
+    @SerializedName("error_id")
+    private final int mErrorId;
+
+    @SerializedName("error_name")
+    private final String mErrorName;
+
+    @SerializedName("backoff")
+    private final int mBackoffSeconds;
+
+    @SerializedName("quota_remaining")
+    private final int mQuotaRemaining;
+
+    private ApiErrorSchema() {
+        // fields absent from the body keep these values
+        this(0, null, 0, QUOTA_UNKNOWN);
+    }
+
+    public ApiErrorSchema(int errorId, String errorName, int backoffSeconds, int quotaRemaining) {
+        mErrorId = errorId;
+        mErrorName = errorName;
+        mBackoffSeconds = backoffSeconds;
+        mQuotaRemaining = quotaRemaining;
+    }
+
+    public int getErrorId() {
+        return mErrorId;
+    }
+
+    public String getErrorName() {
+        return mErrorName;
+    }
+
+    public boolean isThrottleViolation() {
+        return mErrorId == ERROR_ID_THROTTLE_VIOLATION;
+    }
+
+    @Override
+    public int getBackoffSeconds() {
+        return mBackoffSeconds;
+    }
+
+    @Override
+    public int getQuotaRemaining() {
+        return mQuotaRemaining;
+    }
+}
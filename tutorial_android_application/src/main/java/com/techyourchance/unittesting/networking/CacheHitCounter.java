@@ -0,0 +1,56 @@
+package com.techyourchance.unittesting.networking;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * Counts how the responses were obtained: from the HTTP cache without touching the network, by
+ * revalidating a cached response (e.g. with its ETag), or from the network. Must be registered as
+ * an application interceptor, because only these see the final response of the cache.
+ */
+public class CacheHitCounter implements Interceptor {
+
+    private int mCacheHitsCount;
+    private int mConditionalCacheHitsCount;
+    private int mNetworkResponsesCount;
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Response response = chain.proceed(chain.request());
+        onResponse(response.cacheResponse() != null, response.networkResponse() != null);
+        return response;
+    }
+
+    private synchronized void onResponse(boolean fromCache, boolean fromNetwork) {
+        if (fromCache && fromNetwork) {
+            mConditionalCacheHitsCount++;
+        } else if (fromCache) {
+            mCacheHitsCount++;
+        } else if (fromNetwork) {
+            mNetworkResponsesCount++;
+        }
+    }
+
+    /**
+     * @return the number of responses served by the cache without a network request
+     */
+    public synchronized int getCacheHitsCount() {
+        return mCacheHitsCount;
+    }
+
+    /**
+     * @return the number of cached responses which the server confirmed to be up to date
+     */
+    public synchronized int getConditionalCacheHitsCount() {
+        return mConditionalCacheHitsCount;
+    }
+
+    /**
+     * @return the number of responses which weren't served by the cache
+     */
+    public synchronized int getNetworkResponsesCount() {
+        return mNetworkResponsesCount;
+    }
+}
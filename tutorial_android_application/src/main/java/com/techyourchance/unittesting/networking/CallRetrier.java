@@ -0,0 +1,249 @@
+package com.techyourchance.unittesting.networking;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.techyourchance.unittesting.common.requests.Cancellable;
+
+import java.io.IOException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Enqueues calls through {@link RequestScheduler} and retries the ones that fail with transient
+ * errors according to {@link RetryPolicy}. The callback is invoked once, with the outcome of the
+ * last attempt, and it isn't invoked at all if the call is cancelled.
+ *
+ * The throttling state reported by the responses (backoff, remaining quota) is passed on to the
+ * scheduler, including the one reported by the bodies of failed responses ({@link ApiErrorSchema}),
+ * which are read without consuming them, so the callback can still read them. Calls are attributed to the methods of the API by {@link NetworkUsageCounter#ENDPOINT_HEADER}.
+ */
+public class CallRetrier {
+
+    private static final String RETRY_AFTER_HEADER = "Retry-After";
+    private static final long MAX_ERROR_BODY_BYTES = 64 * 1024;
+
+    private final RetryPolicy mRetryPolicy;
+    private final RequestScheduler mRequestScheduler;
+    private final ScheduledExecutorService mScheduledExecutorService;
+    private final CancelledCallsCounter mCancelledCallsCounter;
+    private final Gson mGson = new Gson();
+
+    public CallRetrier(RetryPolicy retryPolicy,
+                       RequestScheduler requestScheduler,
+                       ScheduledExecutorService scheduledExecutorService,
+                       CancelledCallsCounter cancelledCallsCounter) {
+        mRetryPolicy = retryPolicy;
+        mRequestScheduler = requestScheduler;
+        mScheduledExecutorService = scheduledExecutorService;
+        mCancelledCallsCounter = cancelledCallsCounter;
+    }
+
+    /**
+     * @return handle which cancels the call, including the attempts that weren't made yet
+     */
+    public <T> Cancellable enqueue(Call<T> call, RequestScheduler.Priority priority, Callback<T> callback) {
+        RetryingCall<T> retryingCall = new RetryingCall<>(call, priority, callback);
+        retryingCall.scheduleAttempt();
+        return retryingCall;
+    }
+
+    /**
+     * @return the parsed body of the failed response, or null if it's missing or malformed
+     */
+    private ApiErrorSchema readApiError(Response<?> response) {
+        ResponseBody errorBody = response.errorBody();
+        if (errorBody == null) {
+            return null;
+        }
+        try {
+            BufferedSource source = errorBody.source();
+            source.request(MAX_ERROR_BODY_BYTES);
+            // the copy is parsed, so that the body is left unconsumed
+            Buffer copy = source.buffer().clone();
+            return mGson.fromJson(copy.readUtf8(), ApiErrorSchema.class);
+        } catch (IOException | JsonParseException e) {
+            return null;
+        }
+    }
+
+    private static String getMethod(Call<?> call) {
+        Request request = call.request();
+        String endpoint = request.header(NetworkUsageCounter.ENDPOINT_HEADER);
+        return endpoint != null ? endpoint : request.url().encodedPath();
+    }
+
+    private class RetryingCall<T> implements Cancellable, Callback<T>, RequestScheduler.ScheduledRequest {
+
+        private final Call<T> mCall;
+        private final String mMethod;
+        private final RequestScheduler.Priority mPriority;
+        private final Callback<T> mCallback;
+
+        private int mAttemptsCount;
+        private Cancellable mCurrentAttempt;
+        private Cancellable mQueuedAttempt;
+        private ScheduledFuture<?> mDelayedAttempt;
+        private boolean mCancelled;
+
+        private RetryingCall(Call<T> call, RequestScheduler.Priority priority, Callback<T> callback) {
+            mCall = call;
+            mMethod = getMethod(call);
+            mPriority = priority;
+            mCallback = callback;
+        }
+
+        private void scheduleAttempt() {
+            if (isCancelled()) {
+                return;
+            }
+            // the scheduler might run the attempt right away, so it's called outside the lock
+            Cancellable queuedAttempt = mRequestScheduler.schedule(mMethod, mPriority, this);
+            boolean cancelled;
+            synchronized (this) {
+                mDelayedAttempt = null;
+                // cancelling an attempt which was already run has no effect
+                mQueuedAttempt = queuedAttempt;
+                cancelled = mCancelled;
+            }
+            if (cancelled) {
+                queuedAttempt.cancel();
+            }
+        }
+
+        private synchronized void scheduleAttempt(long delayMs) {
+            if (mCancelled) {
+                return;
+            }
+            mDelayedAttempt = mScheduledExecutorService.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    scheduleAttempt();
+                }
+            }, delayMs, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void run() {
+            Call<T> call;
+            synchronized (this) {
+                if (mCancelled) {
+                    return;
+                }
+                // calls can be executed only once
+                call = mAttemptsCount == 0 ? mCall : mCall.clone();
+                mAttemptsCount++;
+                mCurrentAttempt = mCancelledCallsCounter.track(call);
+            }
+            call.enqueue(this);
+        }
+
+        @Override
+        public void onRejected() {
+            if (isCancelled()) {
+                return;
+            }
+            mCallback.onFailure(mCall, new IOException("rejected by the scheduler: the quota is running low"));
+        }
+
+        @Override
+        public void onResponse(Call<T> call, Response<T> response) {
+            if (isCancelled()) {
+                return;
+            }
+            ApiErrorSchema apiError = response.isSuccessful() ? null : readApiError(response);
+            onThrottlingReported(response, apiError);
+            if (!response.isSuccessful()
+                    && (mRetryPolicy.isRetryable(response) || mRetryPolicy.isRetryable(apiError))
+                    && retry()) {
+                return;
+            }
+            mCallback.onResponse(call, response);
+        }
+
+        @Override
+        public void onFailure(Call<T> call, Throwable t) {
+            if (isCancelled()) {
+                return;
+            }
+            if (mRetryPolicy.isRetryable(t) && retry()) {
+                return;
+            }
+            mCallback.onFailure(call, t);
+        }
+
+        @Override
+        public void cancel() {
+            Cancellable queuedAttempt;
+            Cancellable currentAttempt;
+            synchronized (this) {
+                if (mCancelled) {
+                    return;
+                }
+                mCancelled = true;
+                if (mDelayedAttempt != null) {
+                    mDelayedAttempt.cancel(false);
+                    mDelayedAttempt = null;
+                }
+                queuedAttempt = mQueuedAttempt;
+                currentAttempt = mCurrentAttempt;
+            }
+            if (queuedAttempt != null) {
+                queuedAttempt.cancel();
+            }
+            if (currentAttempt != null) {
+                currentAttempt.cancel();
+            }
+        }
+
+        /**
+         * @return true if the next attempt was scheduled
+         */
+        private boolean retry() {
+            int attemptsCount;
+            synchronized (this) {
+                attemptsCount = mAttemptsCount;
+            }
+            long delayMs = mRetryPolicy.getRetryDelayMs(attemptsCount);
+            if (delayMs == RetryPolicy.NO_RETRY) {
+                return false;
+            }
+            scheduleAttempt(delayMs);
+            return true;
+        }
+
+        private void onThrottlingReported(Response<T> response, ApiErrorSchema apiError) {
+            long backoffSeconds = 0;
+            ThrottlingResponseSchema body = response.body() instanceof ThrottlingResponseSchema
+                    ? (ThrottlingResponseSchema) response.body() : apiError;
+            if (body != null) {
+                backoffSeconds = body.getBackoffSeconds();
+                if (body.getQuotaRemaining() != ThrottlingResponseSchema.QUOTA_UNKNOWN) {
+                    mRequestScheduler.onQuotaRemaining(body.getQuotaRemaining());
+                }
+            }
+            if (backoffSeconds == 0 && response.headers().get(RETRY_AFTER_HEADER) != null) {
+                try {
+                    backoffSeconds = Long.parseLong(response.headers().get(RETRY_AFTER_HEADER).trim());
+                } catch (NumberFormatException e) {
+                    // HTTP dates aren't used by the API
+                }
+            }
+            if (backoffSeconds > 0) {
+                mRequestScheduler.onBackoffRequested(mMethod, TimeUnit.SECONDS.toMillis(backoffSeconds));
+            }
+        }
+
+        private synchronized boolean isCancelled() {
+            return mCancelled;
+        }
+    }
+}
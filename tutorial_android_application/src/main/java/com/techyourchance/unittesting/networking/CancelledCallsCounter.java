@@ -0,0 +1,154 @@
+package com.techyourchance.unittesting.networking;
+
+import com.techyourchance.unittesting.common.requests.Cancellable;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+import retrofit2.Call;
+
+/**
+ * Counts the calls which were cancelled through the handles returned by {@link #track(Call)}, and
+ * the bytes of the response bodies they had received - bandwidth spent on results that nobody used.
+ * Calls which were cancelled after their response bodies had been consumed (and closed) aren't
+ * counted.
+ *
+ * Calls are matched by their original requests, so this must be the first application interceptor.
+ */
+public class CancelledCallsCounter implements Interceptor {
+
+    private final Map<Request, CallState> mCallStates = new WeakHashMap<>();
+
+    private long mCancelledCallsCount;
+    private long mCancelledBytes;
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Response response = chain.proceed(request);
+        if (response.body() == null) {
+            return response;
+        }
+        return response.newBuilder()
+                .body(new CountingResponseBody(request, response.body()))
+                .build();
+    }
+
+    /**
+     * @return handle which cancels the given call and counts it as cancelled
+     */
+    public Cancellable track(final Call<?> call) {
+        return new Cancellable() {
+            @Override
+            public void cancel() {
+                if (call.isCanceled()) {
+                    return;
+                }
+                // before the call is cancelled, which closes its response body as if it completed
+                onCallCancelled(call.request());
+                call.cancel();
+            }
+        };
+    }
+
+    public synchronized long getCancelledCallsCount() {
+        return mCancelledCallsCount;
+    }
+
+    public synchronized long getCancelledBytes() {
+        return mCancelledBytes;
+    }
+
+    private synchronized void onCallCancelled(Request request) {
+        CallState callState = getCallState(request);
+        if (callState.mComplete || callState.mCancelled) {
+            return;
+        }
+        callState.mCancelled = true;
+        mCancelledCallsCount++;
+        mCancelledBytes += callState.mReceivedBytes;
+    }
+
+    private synchronized void onBytesReceived(Request request, long bytes) {
+        CallState callState = getCallState(request);
+        callState.mReceivedBytes += bytes;
+        if (callState.mCancelled) {
+            // bytes which were already in flight when the call was cancelled
+            mCancelledBytes += bytes;
+        }
+    }
+
+    private synchronized void onResponseBodyClosed(Request request) {
+        getCallState(request).mComplete = true;
+    }
+
+    private CallState getCallState(Request request) {
+        CallState callState = mCallStates.get(request);
+        if (callState == null) {
+            callState = new CallState();
+            mCallStates.put(request, callState);
+        }
+        return callState;
+    }
+
+    private static class CallState {
+        private long mReceivedBytes;
+        private boolean mComplete;
+        private boolean mCancelled;
+    }
+
+    private class CountingResponseBody extends ResponseBody {
+
+        private final Request mRequest;
+        private final ResponseBody mResponseBody;
+        private BufferedSource mSource;
+
+        private CountingResponseBody(Request request, ResponseBody responseBody) {
+            mRequest = request;
+            mResponseBody = responseBody;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return mResponseBody.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return mResponseBody.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            if (mSource == null) {
+                mSource = Okio.buffer(new ForwardingSource(mResponseBody.source()) {
+                    @Override
+                    public long read(Buffer sink, long byteCount) throws IOException {
+                        long bytesRead = super.read(sink, byteCount);
+                        if (bytesRead != -1) {
+                            onBytesReceived(mRequest, bytesRead);
+                        }
+                        return bytesRead;
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        onResponseBodyClosed(mRequest);
+                        super.close();
+                    }
+                });
+            }
+            return mSource;
+        }
+    }
+}
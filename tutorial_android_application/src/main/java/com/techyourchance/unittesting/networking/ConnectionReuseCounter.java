@@ -0,0 +1,64 @@
+package com.techyourchance.unittesting.networking;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import okhttp3.Connection;
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * Counts the requests sent to the network and the connections they used, so that it can be
+ * verified that requests reuse pooled connections instead of paying for new TCP and TLS handshakes.
+ * Must be registered as a network interceptor, because only these have access to the connection.
+ */
+public class ConnectionReuseCounter implements Interceptor {
+
+    // connections are pooled by OkHttp; the ones which were evicted from the pool can be collected
+    private final Set<Connection> mSeenConnections =
+            Collections.newSetFromMap(new WeakHashMap<Connection, Boolean>());
+
+    private int mRequestsCount;
+    private int mConnectionsCount;
+    private int mTlsHandshakesCount;
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        onRequest(chain.connection());
+        return chain.proceed(chain.request());
+    }
+
+    private synchronized void onRequest(Connection connection) {
+        mRequestsCount++;
+        if (connection != null && mSeenConnections.add(connection)) {
+            mConnectionsCount++;
+            if (connection.handshake() != null) {
+                mTlsHandshakesCount++;
+            }
+        }
+    }
+
+    public synchronized int getRequestsCount() {
+        return mRequestsCount;
+    }
+
+    /**
+     * @return the number of distinct connections which were used by the requests
+     */
+    public synchronized int getConnectionsCount() {
+        return mConnectionsCount;
+    }
+
+    public synchronized int getTlsHandshakesCount() {
+        return mTlsHandshakesCount;
+    }
+
+    /**
+     * @return the number of requests which were sent over a connection used by an earlier request
+     */
+    public synchronized int getReusedConnectionRequestsCount() {
+        return mRequestsCount - mConnectionsCount;
+    }
+}
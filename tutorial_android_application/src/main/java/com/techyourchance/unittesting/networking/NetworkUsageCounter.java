@@ -0,0 +1,109 @@
+package com.techyourchance.unittesting.networking;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * Counts the bytes of the response bodies received by each endpoint. Requests are attributed to
+ * endpoints by the {@link #ENDPOINT_HEADER} header, which is removed before the request is sent.
+ * The bytes are counted as they are read, so the counts reflect the payloads after decompression.
+ * Responses served by the HTTP cache don't use the network, so only the responses which reached the
+ * server are counted, and only the bodies which came from it (not the cached bodies confirmed by
+ * revalidation).
+ */
+public class NetworkUsageCounter implements Interceptor {
+
+    public static final String ENDPOINT_HEADER = "X-Endpoint-Name";
+
+    private final Map<String, Long> mReceivedBytes = new HashMap<>();
+    private final Map<String, Integer> mResponsesCount = new HashMap<>();
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String endpointName = request.header(ENDPOINT_HEADER);
+        if (endpointName == null) {
+            return chain.proceed(request);
+        }
+
+        Response response = chain.proceed(request.newBuilder().removeHeader(ENDPOINT_HEADER).build());
+        if (response.networkResponse() == null) {
+            return response;
+        }
+        onResponse(endpointName);
+        if (response.body() == null || response.cacheResponse() != null) {
+            return response;
+        }
+        return response.newBuilder()
+                .body(new CountingResponseBody(endpointName, response.body()))
+                .build();
+    }
+
+    public synchronized long getReceivedBytes(String endpointName) {
+        Long receivedBytes = mReceivedBytes.get(endpointName);
+        return receivedBytes == null ? 0 : receivedBytes;
+    }
+
+    public synchronized int getResponsesCount(String endpointName) {
+        Integer responsesCount = mResponsesCount.get(endpointName);
+        return responsesCount == null ? 0 : responsesCount;
+    }
+
+    private synchronized void onResponse(String endpointName) {
+        mResponsesCount.put(endpointName, getResponsesCount(endpointName) + 1);
+    }
+
+    private synchronized void onBytesReceived(String endpointName, long bytes) {
+        mReceivedBytes.put(endpointName, getReceivedBytes(endpointName) + bytes);
+    }
+
+    private class CountingResponseBody extends ResponseBody {
+
+        private final String mEndpointName;
+        private final ResponseBody mResponseBody;
+        private BufferedSource mSource;
+
+        private CountingResponseBody(String endpointName, ResponseBody responseBody) {
+            mEndpointName = endpointName;
+            mResponseBody = responseBody;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return mResponseBody.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return mResponseBody.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            if (mSource == null) {
+                mSource = Okio.buffer(new ForwardingSource(mResponseBody.source()) {
+                    @Override
+                    public long read(Buffer sink, long byteCount) throws IOException {
+                        long bytesRead = super.read(sink, byteCount);
+                        if (bytesRead != -1) {
+                            onBytesReceived(mEndpointName, bytesRead);
+                        }
+                        return bytesRead;
+                    }
+                });
+            }
+            return mSource;
+        }
+    }
+}
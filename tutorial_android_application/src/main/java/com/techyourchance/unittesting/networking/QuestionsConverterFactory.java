@@ -0,0 +1,48 @@
+package com.techyourchance.unittesting.networking;
+
+import com.techyourchance.unittesting.common.collections.StringInterner;
+import com.techyourchance.unittesting.networking.questions.QuestionsListResponseConverter;
+import com.techyourchance.unittesting.networking.questions.QuestionsListResponseSchema;
+import com.techyourchance.unittesting.networking.questions.WithoutQuestionBodies;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+/**
+ * Provides streaming converters for the responses that contain lists of questions. Other responses
+ * are left to the converters added after this factory.
+ */
+public class QuestionsConverterFactory extends Converter.Factory {
+
+    public static QuestionsConverterFactory create() {
+        return new QuestionsConverterFactory();
+    }
+
+    // shared by the converters of all the endpoints, which return the same questions
+    private final StringInterner mTitleInterner = new StringInterner();
+
+    private QuestionsConverterFactory() {}
+
+    @Override
+    public Converter<ResponseBody, ?> responseBodyConverter(Type type,
+                                                            Annotation[] annotations,
+                                                            Retrofit retrofit) {
+        if (type != QuestionsListResponseSchema.class) {
+            return null;
+        }
+        return new QuestionsListResponseConverter(!isAnnotatedWithoutBodies(annotations), mTitleInterner);
+    }
+
+    private boolean isAnnotatedWithoutBodies(Annotation[] annotations) {
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof WithoutQuestionBodies) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,216 @@
+package com.techyourchance.unittesting.networking;
+
+import com.techyourchance.unittesting.common.requests.Cancellable;
+import com.techyourchance.unittesting.common.time.TimeProvider;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides when requests to the API are made, so that the client stays within the limits of the API
+ * instead of running into throttling errors:
+ * - requests are rate limited by a token bucket, which allows short bursts
+ * - requests to a method are held back while the API asks to back off from that method; requests
+ *   to other methods aren't affected
+ * - user-visible requests are dispatched first, and prefetches are dispatched only if they leave
+ *   some tokens for the user-visible requests which might follow
+ * - prefetches are rejected when the daily quota runs low, so that it's left for the user
+ */
+public class RequestScheduler {
+
+    public enum Priority {
+        USER_VISIBLE,
+        PREFETCH
+    }
+
+    public interface ScheduledRequest {
+        void run();
+        void onRejected();
+    }
+
+    public static final int MAX_BURST = 10;
+    public static final long TOKEN_REFILL_PERIOD_MS = 100; // the API allows up to 30 requests per second
+    public static final int PREFETCH_TOKENS_RESERVE = 3;
+    public static final int PREFETCH_QUOTA_RESERVE = 1000;
+
+    private final TimeProvider mTimeProvider;
+    private final ScheduledExecutorService mScheduledExecutorService;
+
+    private final LinkedList<Entry> mUserVisibleRequests = new LinkedList<>();
+    private final LinkedList<Entry> mPrefetchRequests = new LinkedList<>();
+    private final Map<String, Long> mBackoffUntilTimestamps = new HashMap<>();
+
+    private double mTokens = MAX_BURST;
+    private long mTokensTimestamp;
+    private int mQuotaRemaining = ThrottlingResponseSchema.QUOTA_UNKNOWN;
+    private ScheduledFuture<?> mScheduledDispatch;
+
+    private long mRejectedRequestsCount;
+
+    public RequestScheduler(TimeProvider timeProvider, ScheduledExecutorService scheduledExecutorService) {
+        mTimeProvider = timeProvider;
+        mScheduledExecutorService = scheduledExecutorService;
+        mTokensTimestamp = timeProvider.getMonotonicTimestamp();
+    }
+
+    /**
+     * Runs the request right away if the limits allow it, or later otherwise. Rejected requests are
+     * notified on the calling thread or on the thread of the executor.
+     * @param method the method of the API, the backoff of which applies to this request
+     * @return handle which removes the request from the queue if it wasn't run yet
+     */
+    public Cancellable schedule(String method, Priority priority, ScheduledRequest request) {
+        Entry entry = new Entry(method, priority, request);
+        synchronized (this) {
+            getQueue(priority).add(entry);
+        }
+        dispatch();
+        return entry;
+    }
+
+    /**
+     * Called when the API asks not to call the given method for the given time.
+     */
+    public synchronized void onBackoffRequested(String method, long backoffMs) {
+        long backoffUntilTimestamp = mTimeProvider.getMonotonicTimestamp() + backoffMs;
+        mBackoffUntilTimestamps.put(method, Math.max(backoffUntilTimestamp, getBackoffUntilTimestamp(method)));
+    }
+
+    /**
+     * Called when the API reports the remaining daily quota.
+     */
+    public synchronized void onQuotaRemaining(int quotaRemaining) {
+        mQuotaRemaining = quotaRemaining;
+    }
+
+    public synchronized int getQuotaRemaining() {
+        return mQuotaRemaining;
+    }
+
+    /**
+     * @return the number of prefetches rejected because of low quota
+     */
+    public synchronized long getRejectedRequestsCount() {
+        return mRejectedRequestsCount;
+    }
+
+    private void dispatch() {
+        List<Entry> admittedRequests = new ArrayList<>();
+        List<Entry> rejectedRequests = new ArrayList<>();
+        synchronized (this) {
+            long now = mTimeProvider.getMonotonicTimestamp();
+            refillTokens(now);
+            admit(mUserVisibleRequests, 1, now, admittedRequests);
+            if (isQuotaRunningLow()) {
+                rejectedRequests.addAll(mPrefetchRequests);
+                mPrefetchRequests.clear();
+                mRejectedRequestsCount += rejectedRequests.size();
+            } else {
+                admit(mPrefetchRequests, 1 + PREFETCH_TOKENS_RESERVE, now, admittedRequests);
+            }
+            scheduleNextDispatch(now);
+        }
+        for (Entry entry : rejectedRequests) {
+            entry.mRequest.onRejected();
+        }
+        for (Entry entry : admittedRequests) {
+            entry.mRequest.run();
+        }
+    }
+
+    private void admit(LinkedList<Entry> queue, int requiredTokens, long now, List<Entry> admittedRequests) {
+        Iterator<Entry> iterator = queue.iterator();
+        while (iterator.hasNext() && mTokens >= requiredTokens) {
+            Entry entry = iterator.next();
+            if (getBackoffUntilTimestamp(entry.mMethod) > now) {
+                continue;
+            }
+            iterator.remove();
+            mTokens--;
+            admittedRequests.add(entry);
+        }
+    }
+
+    private void scheduleNextDispatch(long now) {
+        if (mScheduledDispatch != null) {
+            mScheduledDispatch.cancel(false);
+            mScheduledDispatch = null;
+        }
+        long nextDispatchTimestamp = Math.min(
+                getNextDispatchTimestamp(mUserVisibleRequests, 1, now),
+                getNextDispatchTimestamp(mPrefetchRequests, 1 + PREFETCH_TOKENS_RESERVE, now)
+        );
+        if (nextDispatchTimestamp == Long.MAX_VALUE) {
+            return;
+        }
+        mScheduledDispatch = mScheduledExecutorService.schedule(new Runnable() {
+            @Override
+            public void run() {
+                dispatch();
+            }
+        }, Math.max(0, nextDispatchTimestamp - now), TimeUnit.MILLISECONDS);
+    }
+
+    private long getNextDispatchTimestamp(LinkedList<Entry> queue, int requiredTokens, long now) {
+        if (queue.isEmpty()) {
+            return Long.MAX_VALUE;
+        }
+        long tokensAvailableTimestamp =
+                now + (long) Math.ceil((requiredTokens - mTokens) * TOKEN_REFILL_PERIOD_MS);
+        long nextDispatchTimestamp = Long.MAX_VALUE;
+        for (Entry entry : queue) {
+            nextDispatchTimestamp = Math.min(
+                    nextDispatchTimestamp,
+                    Math.max(tokensAvailableTimestamp, getBackoffUntilTimestamp(entry.mMethod))
+            );
+        }
+        return nextDispatchTimestamp;
+    }
+
+    private void refillTokens(long now) {
+        long elapsedMs = Math.max(0, now - mTokensTimestamp);
+        mTokens = Math.min(MAX_BURST, mTokens + (double) elapsedMs / TOKEN_REFILL_PERIOD_MS);
+        mTokensTimestamp = now;
+    }
+
+    private boolean isQuotaRunningLow() {
+        return mQuotaRemaining != ThrottlingResponseSchema.QUOTA_UNKNOWN
+                && mQuotaRemaining < PREFETCH_QUOTA_RESERVE;
+    }
+
+    private long getBackoffUntilTimestamp(String method) {
+        Long backoffUntilTimestamp = mBackoffUntilTimestamps.get(method);
+        return backoffUntilTimestamp == null ? 0 : backoffUntilTimestamp;
+    }
+
+    private LinkedList<Entry> getQueue(Priority priority) {
+        return priority == Priority.USER_VISIBLE ? mUserVisibleRequests : mPrefetchRequests;
+    }
+
+    private class Entry implements Cancellable {
+
+        private final String mMethod;
+        private final Priority mPriority;
+        private final ScheduledRequest mRequest;
+
+        private Entry(String method, Priority priority, ScheduledRequest request) {
+            mMethod = method;
+            mPriority = priority;
+            mRequest = request;
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (RequestScheduler.this) {
+                getQueue(mPriority).remove(this);
+            }
+        }
+    }
+}
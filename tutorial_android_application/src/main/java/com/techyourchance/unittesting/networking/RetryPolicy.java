@@ -0,0 +1,111 @@
+package com.techyourchance.unittesting.networking;
+
+import com.techyourchance.unittesting.common.time.TimeProvider;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import retrofit2.Response;
+
+/**
+ * Decides whether and when failed calls should be retried.
+ *
+ * Only transient errors are retried: I/O errors (e.g. timeouts, dropped connections), server errors
+ * and throttling, unless the API asked to back off for longer than {@link #MAX_THROTTLE_BACKOFF_MS}.
+ * Delays grow exponentially with the number of failed attempts, and half of each delay is
+ * random, so that clients which failed together don't retry together. Retries are limited by a
+ * budget shared by all the calls, which refills over time, so that an outage doesn't multiply the
+ * load on the server.
+ */
+public class RetryPolicy {
+
+    public static final long NO_RETRY = -1;
+
+    public static final int MAX_ATTEMPTS = 4;
+    public static final long BASE_DELAY_MS = 500;
+    public static final long MAX_DELAY_MS = 8000;
+    public static final int RETRY_BUDGET = 10;
+    public static final long RETRY_BUDGET_REFILL_PERIOD_MS = 6000; // one retry per period
+    public static final long MAX_THROTTLE_BACKOFF_MS = 30000;
+
+    private static final int HTTP_REQUEST_TIMEOUT = 408;
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final int HTTP_SERVER_ERROR = 500;
+
+    private final TimeProvider mTimeProvider;
+    private final Random mRandom;
+
+    private double mRetryBudget = RETRY_BUDGET;
+    private long mRetryBudgetTimestamp;
+
+    private long mRetriesCount;
+    private long mRetriesDeniedByBudgetCount;
+
+    public RetryPolicy(TimeProvider timeProvider, Random random) {
+        mTimeProvider = timeProvider;
+        mRandom = random;
+        mRetryBudgetTimestamp = timeProvider.getMonotonicTimestamp();
+    }
+
+    public boolean isRetryable(Throwable throwable) {
+        // other throwables (e.g. malformed responses) won't go away by themselves
+        return throwable instanceof IOException;
+    }
+
+    public boolean isRetryable(Response<?> response) {
+        int code = response.code();
+        return code >= HTTP_SERVER_ERROR
+                || code == HTTP_REQUEST_TIMEOUT
+                || code == HTTP_TOO_MANY_REQUESTS;
+    }
+
+    /**
+     * The backoff itself isn't part of the retry delay: it's enforced by {@link RequestScheduler},
+     * which holds the retry until the backoff passes.
+     * @param apiError the body of the failed response, or null if it couldn't be parsed
+     */
+    public boolean isRetryable(ApiErrorSchema apiError) {
+        return apiError != null
+                && apiError.isThrottleViolation()
+                && TimeUnit.SECONDS.toMillis(apiError.getBackoffSeconds()) <= MAX_THROTTLE_BACKOFF_MS;
+    }
+
+    /**
+     * @param failedAttempts the number of attempts made so far, all of which failed with retryable
+     *                       errors
+     * @return the delay before the next attempt, or {@link #NO_RETRY} if the call shouldn't be
+     *         retried anymore
+     */
+    public synchronized long getRetryDelayMs(int failedAttempts) {
+        if (failedAttempts >= MAX_ATTEMPTS) {
+            return NO_RETRY;
+        }
+        refillRetryBudget();
+        if (mRetryBudget < 1) {
+            mRetriesDeniedByBudgetCount++;
+            return NO_RETRY;
+        }
+        mRetryBudget--;
+        mRetriesCount++;
+
+        long exponentialDelayMs = Math.min(MAX_DELAY_MS, BASE_DELAY_MS << (failedAttempts - 1));
+        long halfDelayMs = exponentialDelayMs / 2;
+        return halfDelayMs + (long) (mRandom.nextDouble() * (exponentialDelayMs - halfDelayMs));
+    }
+
+    public synchronized long getRetriesCount() {
+        return mRetriesCount;
+    }
+
+    public synchronized long getRetriesDeniedByBudgetCount() {
+        return mRetriesDeniedByBudgetCount;
+    }
+
+    private void refillRetryBudget() {
+        long now = mTimeProvider.getMonotonicTimestamp();
+        long elapsedMs = Math.max(0, now - mRetryBudgetTimestamp);
+        mRetryBudget = Math.min(RETRY_BUDGET, mRetryBudget + (double) elapsedMs / RETRY_BUDGET_REFILL_PERIOD_MS);
+        mRetryBudgetTimestamp = now;
+    }
+}
@@ -3,17 +3,47 @@ package com.techyourchance.unittesting.networking;
 import com.techyourchance.unittesting.common.Constants;
 import com.techyourchance.unittesting.networking.questions.QuestionDetailsResponseSchema;
 import com.techyourchance.unittesting.networking.questions.QuestionsListResponseSchema;
+import com.techyourchance.unittesting.networking.questions.WithoutQuestionBodies;
 
 import retrofit2.Call;
 import retrofit2.http.GET;
+import retrofit2.http.Headers;
 import retrofit2.http.Path;
 import retrofit2.http.Query;
 
+/**
+ * The fields of the returned questions are selected by the filter param; see
+ * {@link com.techyourchance.unittesting.networking.questions.QuestionFilters}.
+ */
 public interface StackoverflowApi {
 
-    @GET("/questions?key=" + Constants.STACKOVERFLOW_API_KEY + "&sort=activity&order=desc&site=stackoverflow&filter=withbody")
-    Call<QuestionsListResponseSchema> fetchLastActiveQuestions(@Query("pagesize") Integer pageSize);
+    String LAST_ACTIVE_QUESTIONS_ENDPOINT = "last_active_questions";
+    String QUESTION_DETAILS_ENDPOINT = "question_details";
+    String QUESTIONS_DETAILS_ENDPOINT = "questions_details";
 
-    @GET("/questions/{questionId}?key=" + Constants.STACKOVERFLOW_API_KEY + "&site=stackoverflow&filter=withbody")
-    Call<QuestionDetailsResponseSchema> fetchQuestionDetails(@Path("questionId") String questionId);
+    /**
+     * @param minLastActivityDate if not null, only questions active since this Unix time (in
+     *                            seconds, inclusive) are returned
+     */
+    @WithoutQuestionBodies
+    @Headers(NetworkUsageCounter.ENDPOINT_HEADER + ": " + LAST_ACTIVE_QUESTIONS_ENDPOINT)
+    @GET("/questions?key=" + Constants.STACKOVERFLOW_API_KEY + "&sort=activity&order=desc&site=stackoverflow")
+    Call<QuestionsListResponseSchema> fetchLastActiveQuestions(@Query("pagesize") Integer pageSize,
+                                                               @Query("page") Integer page,
+                                                               @Query("min") Long minLastActivityDate,
+                                                               @Query("filter") String filter);
+
+    @Headers(NetworkUsageCounter.ENDPOINT_HEADER + ": " + QUESTION_DETAILS_ENDPOINT)
+    @GET("/questions/{questionId}?key=" + Constants.STACKOVERFLOW_API_KEY + "&site=stackoverflow")
+    Call<QuestionDetailsResponseSchema> fetchQuestionDetails(@Path("questionId") String questionId,
+                                                             @Query("filter") String filter);
+
+    /**
+     * @param questionIds up to 100 ids separated by semicolons
+     */
+    @Headers(NetworkUsageCounter.ENDPOINT_HEADER + ": " + QUESTIONS_DETAILS_ENDPOINT)
+    @GET("/questions/{questionIds}?key=" + Constants.STACKOVERFLOW_API_KEY + "&site=stackoverflow")
+    Call<QuestionsListResponseSchema> fetchQuestionsDetails(@Path(value = "questionIds", encoded = true) String questionIds,
+                                                            @Query("pagesize") Integer pageSize,
+                                                            @Query("filter") String filter);
 }
@@ -0,0 +1,20 @@
+package com.techyourchance.unittesting.networking;
+
+/**
+ * Response of the API which reports how much the client is allowed to request.
+ */
+public interface ThrottlingResponseSchema {
+
+    int QUOTA_UNKNOWN = -1;
+
+    /**
+     * @return the number of seconds the client should wait before calling the same method again,
+     *         or 0
+     */
+    int getBackoffSeconds();
+
+    /**
+     * @return the number of requests left in the daily quota, or {@link #QUOTA_UNKNOWN}
+     */
+    int getQuotaRemaining();
+}
@@ -0,0 +1,273 @@
+package com.techyourchance.unittesting.networking.questions;
+
+import com.techyourchance.unittesting.common.instrumentation.Counter;
+import com.techyourchance.unittesting.common.instrumentation.Metrics;
+import com.techyourchance.unittesting.common.instrumentation.Timer;
+import com.techyourchance.unittesting.common.requests.Cancellable;
+import com.techyourchance.unittesting.networking.CallRetrier;
+import com.techyourchance.unittesting.networking.RequestScheduler;
+import com.techyourchance.unittesting.networking.StackoverflowApi;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Collects question details prefetches for a short window (or until the maximal batch size is
+ * reached) and fetches all of them in a single call. Requests made on behalf of the user don't wait
+ * for the window: they are sent right away, together with the prefetches collected so far, and with
+ * the priority of user requests. Results are delivered to the listeners of the individual requests.
+ * Cancelled requests are dropped from their batch, and the call is cancelled once all the requests
+ * it was made for are cancelled.
+ */
+public class BatchingFetchQuestionDetailsEndpoint extends FetchQuestionDetailsEndpoint {
+
+    public static final int MAX_BATCH_SIZE = 100; // the limit of the API
+    public static final long BATCH_WINDOW_MS = 50;
+
+    public static final String BATCH_NETWORK_TIMER = "question_details_batch_network";
+    public static final String BATCHED_REQUESTS_COUNTER = "question_details_batched_requests";
+
+    private static final String IDS_SEPARATOR = ";";
+
+    private final ScheduledExecutorService mScheduledExecutorService;
+
+    private final Timer mBatchNetworkTimer;
+    private final Counter mBatchedRequestsCounter;
+
+    private final Object mLock = new Object();
+
+    private Map<String, List<BatchedRequest>> mPendingRequests = new LinkedHashMap<>();
+    private ScheduledFuture<?> mScheduledFlush;
+    private long mBatchesCount;
+
+    public BatchingFetchQuestionDetailsEndpoint(StackoverflowApi stackoverflowApi,
+                                                ScheduledExecutorService scheduledExecutorService,
+                                                CallRetrier callRetrier,
+                                                Metrics metrics) {
+        super(stackoverflowApi, callRetrier, metrics);
+        mScheduledExecutorService = scheduledExecutorService;
+        mBatchNetworkTimer = metrics.timer(BATCH_NETWORK_TIMER);
+        mBatchedRequestsCounter = metrics.counter(BATCHED_REQUESTS_COUNTER);
+    }
+
+    @Override
+    protected Cancellable fetchQuestionDetails(String questionId,
+                                               RequestScheduler.Priority priority,
+                                               Listener listener) {
+        BatchedRequest request = new BatchedRequest(questionId, priority, listener);
+        boolean flushNow;
+        synchronized (mLock) {
+            List<BatchedRequest> requests = mPendingRequests.get(questionId);
+            if (requests == null) {
+                requests = new ArrayList<>(1);
+                mPendingRequests.put(questionId, requests);
+            }
+            requests.add(request);
+
+            flushNow = priority == RequestScheduler.Priority.USER_VISIBLE
+                    || mPendingRequests.size() >= MAX_BATCH_SIZE;
+            if (!flushNow && mScheduledFlush == null) {
+                mScheduledFlush = mScheduledExecutorService.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        flush();
+                    }
+                }, BATCH_WINDOW_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (flushNow) {
+            flush();
+        }
+        return request;
+    }
+
+    /**
+     * Fetches all the pending requests right away.
+     */
+    public void flush() {
+        final Batch batch;
+        synchronized (mLock) {
+            cancelScheduledFlush();
+            if (mPendingRequests.isEmpty()) {
+                return;
+            }
+            batch = new Batch(mPendingRequests);
+            mPendingRequests = new LinkedHashMap<>();
+            mBatchesCount++;
+        }
+        mBatchedRequestsCounter.add(batch.mRequests.size());
+
+        Call<QuestionsListResponseSchema> call = getStackoverflowApi().fetchQuestionsDetails(
+                joinIds(batch.mRequests.keySet()), batch.mRequests.size(), QuestionFilters.WITH_BODY);
+        final long startNanos = mBatchNetworkTimer.start();
+        Cancellable cancellableCall = getCallRetrier().enqueue(call, batch.mPriority, new Callback<QuestionsListResponseSchema>() {
+            @Override
+            public void onResponse(Call<QuestionsListResponseSchema> call, Response<QuestionsListResponseSchema> response) {
+                mBatchNetworkTimer.stop(startNanos);
+                if (response.isSuccessful()) {
+                    notifyFetched(batch, response.body().getQuestions());
+                } else {
+                    notifyFailed(batch);
+                }
+            }
+
+            @Override
+            public void onFailure(Call<QuestionsListResponseSchema> call, Throwable t) {
+                mBatchNetworkTimer.stop(startNanos);
+                notifyFailed(batch);
+            }
+        });
+
+        boolean allRequestsCancelled;
+        synchronized (mLock) {
+            batch.mCall = cancellableCall;
+            allRequestsCancelled = batch.mActiveRequestsCount == 0;
+        }
+        if (allRequestsCancelled) {
+            cancellableCall.cancel();
+        }
+    }
+
+    /**
+     * @return the number of calls made so far
+     */
+    public long getBatchesCount() {
+        synchronized (mLock) {
+            return mBatchesCount;
+        }
+    }
+
+    private void cancelScheduledFlush() {
+        if (mScheduledFlush != null) {
+            mScheduledFlush.cancel(false);
+            mScheduledFlush = null;
+        }
+    }
+
+    private String joinIds(Iterable<String> ids) {
+        StringBuilder sb = new StringBuilder();
+        for (String id : ids) {
+            if (sb.length() > 0) {
+                sb.append(IDS_SEPARATOR);
+            }
+            sb.append(id);
+        }
+        return sb.toString();
+    }
+
+    private void notifyFetched(Batch batch, List<QuestionSchema> questions) {
+        Map<String, QuestionSchema> questionsById = new HashMap<>(questions.size() * 2);
+        for (QuestionSchema question : questions) {
+            questionsById.put(question.getId(), question);
+        }
+        for (Map.Entry<String, List<BatchedRequest>> entry : batch.mRequests.entrySet()) {
+            // deleted questions are silently omitted from the response
+            QuestionSchema question = questionsById.get(entry.getKey());
+            for (BatchedRequest request : entry.getValue()) {
+                if (request.isCancelled()) {
+                    continue;
+                }
+                if (question != null) {
+                    request.mListener.onQuestionDetailsFetched(question);
+                } else {
+                    getFailuresCounter().increment();
+                    request.mListener.onQuestionDetailsFetchFailed();
+                }
+            }
+        }
+    }
+
+    private void notifyFailed(Batch batch) {
+        for (List<BatchedRequest> requests : batch.mRequests.values()) {
+            for (BatchedRequest request : requests) {
+                if (!request.isCancelled()) {
+                    getFailuresCounter().increment();
+                    request.mListener.onQuestionDetailsFetchFailed();
+                }
+            }
+        }
+    }
+
+    private static class Batch {
+
+        private final Map<String, List<BatchedRequest>> mRequests;
+        private RequestScheduler.Priority mPriority = RequestScheduler.Priority.PREFETCH;
+        private int mActiveRequestsCount;
+        private Cancellable mCall;
+
+        private Batch(Map<String, List<BatchedRequest>> requests) {
+            mRequests = requests;
+            for (List<BatchedRequest> requestsForId : requests.values()) {
+                for (BatchedRequest request : requestsForId) {
+                    request.mBatch = this;
+                    mActiveRequestsCount++;
+                    if (request.mPriority == RequestScheduler.Priority.USER_VISIBLE) {
+                        mPriority = RequestScheduler.Priority.USER_VISIBLE;
+                    }
+                }
+            }
+        }
+    }
+
+    private class BatchedRequest implements Cancellable {
+
+        private final String mQuestionId;
+        private final RequestScheduler.Priority mPriority;
+        private final Listener mListener;
+        private Batch mBatch;
+        private boolean mCancelled;
+
+        private BatchedRequest(String questionId, RequestScheduler.Priority priority, Listener listener) {
+            mQuestionId = questionId;
+            mPriority = priority;
+            mListener = listener;
+        }
+
+        @Override
+        public void cancel() {
+            Cancellable callToCancel = null;
+            synchronized (mLock) {
+                if (mCancelled) {
+                    return;
+                }
+                mCancelled = true;
+                if (mBatch == null) {
+                    removeFromPendingRequests();
+                } else if (--mBatch.mActiveRequestsCount == 0) {
+                    // null if the call hasn't been made yet; it will be cancelled right after that
+                    callToCancel = mBatch.mCall;
+                }
+            }
+            if (callToCancel != null) {
+                callToCancel.cancel();
+            }
+        }
+
+        private void removeFromPendingRequests() {
+            List<BatchedRequest> requests = mPendingRequests.get(mQuestionId);
+            requests.remove(this);
+            if (requests.isEmpty()) {
+                mPendingRequests.remove(mQuestionId);
+            }
+            if (mPendingRequests.isEmpty()) {
+                cancelScheduledFlush();
+            }
+        }
+
+        private boolean isCancelled() {
+            synchronized (mLock) {
+                return mCancelled;
+            }
+        }
+    }
+}
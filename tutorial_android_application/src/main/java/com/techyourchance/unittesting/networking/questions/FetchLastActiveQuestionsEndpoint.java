@@ -1,14 +1,29 @@
 package com.techyourchance.unittesting.networking.questions;
 
 import com.techyourchance.unittesting.common.Constants;
+import com.techyourchance.unittesting.common.instrumentation.Counter;
+import com.techyourchance.unittesting.common.instrumentation.Metrics;
+import com.techyourchance.unittesting.common.instrumentation.Timer;
+import com.techyourchance.unittesting.common.requests.Cancellable;
+import com.techyourchance.unittesting.networking.CallRetrier;
+import com.techyourchance.unittesting.networking.RequestScheduler;
 import com.techyourchance.unittesting.networking.StackoverflowApi;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
 
+/**
+ * The first page of the last active questions is refreshed incrementally: once it was fetched, only
+ * the questions which were active since the most recent activity on that page are requested, and
+ * they are merged into it. Refreshes are full from time to time anyway, so that questions which
+ * were deleted (and therefore won't show up as active again) eventually drop off the page.
+ */
 public class FetchLastActiveQuestionsEndpoint {
 
     public interface Listener {
@@ -16,29 +31,140 @@ public class FetchLastActiveQuestionsEndpoint {
         void onQuestionsFetchFailed();
     }
 
+    public interface PageListener {
+        void onQuestionsPageFetched(int page, List<QuestionSchema> questions, boolean hasMore);
+        void onQuestionsPageFetchFailed(int page);
+    }
+
+    public static final int FIRST_PAGE = 1;
+    public static final int MAX_CONSECUTIVE_DELTA_REFRESHES = 10;
+
+    public static final String NETWORK_TIMER = "last_active_questions_network";
+    public static final String FAILURES_COUNTER = "last_active_questions_failures";
+    public static final String DELTA_REFRESHES_COUNTER = "last_active_questions_delta_refreshes";
+
     private  final StackoverflowApi mStackoverflowApi;
+    private final CallRetrier mCallRetrier;
 
-    public FetchLastActiveQuestionsEndpoint(StackoverflowApi stackoverflowApi) {
+    private final Timer mNetworkTimer;
+    private final Counter mFailuresCounter;
+    private final Counter mDeltaRefreshesCounter;
+
+    // the first page as of the last refresh, most recently active first
+    private List<QuestionSchema> mFirstPageQuestions;
+    private int mConsecutiveDeltaRefreshesCount;
+
+    public FetchLastActiveQuestionsEndpoint(StackoverflowApi stackoverflowApi,
+                                            CallRetrier callRetrier,
+                                            Metrics metrics) {
         mStackoverflowApi = stackoverflowApi;
+        mCallRetrier = callRetrier;
+        mNetworkTimer = metrics.timer(NETWORK_TIMER);
+        mFailuresCounter = metrics.counter(FAILURES_COUNTER);
+        mDeltaRefreshesCounter = metrics.counter(DELTA_REFRESHES_COUNTER);
+    }
+
+    /**
+     * Fetches the first page of the last active questions, refreshing it incrementally if it was
+     * fetched before.
+     * @return handle which cancels the call; the listener isn't notified once the call is cancelled.
+     *         Transient errors are retried before the listener is notified of failure
+     */
+    public Cancellable fetchLastActiveQuestions(final Listener listener) {
+        final Long minLastActivityDate = getDeltaRefreshMinLastActivityDate();
+        Call<QuestionsListResponseSchema> call = mStackoverflowApi.fetchLastActiveQuestions(
+                Constants.QUESTIONS_LIST_PAGE_SIZE, FIRST_PAGE, minLastActivityDate, QuestionFilters.WITHOUT_BODY);
+        return enqueue(call, FIRST_PAGE, new PageListener() {
+            @Override
+            public void onQuestionsPageFetched(int page, List<QuestionSchema> questions, boolean hasMore) {
+                listener.onQuestionsFetched(updateFirstPageQuestions(minLastActivityDate, questions, hasMore));
+            }
+
+            @Override
+            public void onQuestionsPageFetchFailed(int page) {
+                listener.onQuestionsFetchFailed();
+            }
+        });
+    }
+
+    /**
+     * @param page 1-based page number; pages are {@link Constants#QUESTIONS_LIST_PAGE_SIZE} long
+     * @return handle which cancels the call; the listener isn't notified once the call is cancelled.
+     *         Transient errors are retried before the listener is notified of failure
+     */
+    public Cancellable fetchLastActiveQuestionsPage(final int page, final PageListener listener) {
+        Call<QuestionsListResponseSchema> call = mStackoverflowApi.fetchLastActiveQuestions(
+                Constants.QUESTIONS_LIST_PAGE_SIZE, page, null, QuestionFilters.WITHOUT_BODY);
+        return enqueue(call, page, listener);
+    }
+
+    private Cancellable enqueue(Call<QuestionsListResponseSchema> call, final int page, final PageListener listener) {
+        // includes the time spent waiting for the scheduler and retrying
+        final long startNanos = mNetworkTimer.start();
+        return mCallRetrier.enqueue(call, RequestScheduler.Priority.USER_VISIBLE, new Callback<QuestionsListResponseSchema>() {
+            @Override
+            public void onResponse(Call<QuestionsListResponseSchema> call, Response<QuestionsListResponseSchema> response) {
+                mNetworkTimer.stop(startNanos);
+                if (response.isSuccessful()) {
+                    QuestionsListResponseSchema body = response.body();
+                    listener.onQuestionsPageFetched(page, body.getQuestions(), body.hasMore());
+                } else {
+                    mFailuresCounter.increment();
+                    listener.onQuestionsPageFetchFailed(page);
+                }
+            }
+
+            @Override
+            public void onFailure(Call<QuestionsListResponseSchema> call, Throwable t) {
+                mNetworkTimer.stop(startNanos);
+                mFailuresCounter.increment();
+                listener.onQuestionsPageFetchFailed(page);
+            }
+        });
+    }
+
+    /**
+     * @return the most recent activity on the first page, or null if the next refresh should be full
+     */
+    private synchronized Long getDeltaRefreshMinLastActivityDate() {
+        if (mFirstPageQuestions == null || mConsecutiveDeltaRefreshesCount >= MAX_CONSECUTIVE_DELTA_REFRESHES) {
+            return null;
+        }
+        long maxLastActivityDate = 0;
+        for (QuestionSchema question : mFirstPageQuestions) {
+            maxLastActivityDate = Math.max(maxLastActivityDate, question.getLastActivityDate());
+        }
+        // zero if the page is empty or the activity isn't known
+        return maxLastActivityDate == 0 ? null : maxLastActivityDate;
     }
 
-    public void fetchLastActiveQuestions(final Listener listener) {
-        mStackoverflowApi.fetchLastActiveQuestions(Constants.QUESTIONS_LIST_PAGE_SIZE)
-                .enqueue(new Callback<QuestionsListResponseSchema>() {
-                             @Override
-                             public void onResponse(Call<QuestionsListResponseSchema> call, Response<QuestionsListResponseSchema> response) {
-                                 if (response.isSuccessful()) {
-                                     listener.onQuestionsFetched(response.body().getQuestions());
-                                 } else {
-                                     listener.onQuestionsFetchFailed();
-                                 }
-                             }
-
-                             @Override
-                             public void onFailure(Call<QuestionsListResponseSchema> call, Throwable t) {
-                                 listener.onQuestionsFetchFailed();
-                             }
-                         }
-                );
+    private synchronized List<QuestionSchema> updateFirstPageQuestions(Long minLastActivityDate,
+                                                                       List<QuestionSchema> questions,
+                                                                       boolean hasMore) {
+        if (minLastActivityDate == null || hasMore || mFirstPageQuestions == null) {
+            // if more than a page of questions was active, the response is a full first page
+            mFirstPageQuestions = questions;
+            mConsecutiveDeltaRefreshesCount = 0;
+            return questions;
+        }
+        // the active questions are more recent than all the others, so they go on top
+        List<QuestionSchema> mergedQuestions = new ArrayList<>(Constants.QUESTIONS_LIST_PAGE_SIZE);
+        Set<String> activeQuestionIds = new HashSet<>();
+        for (QuestionSchema question : questions) {
+            mergedQuestions.add(question);
+            activeQuestionIds.add(question.getId());
+        }
+        for (QuestionSchema question : mFirstPageQuestions) {
+            if (mergedQuestions.size() == Constants.QUESTIONS_LIST_PAGE_SIZE) {
+                break;
+            }
+            if (!activeQuestionIds.contains(question.getId())) {
+                mergedQuestions.add(question);
+            }
+        }
+        mFirstPageQuestions = mergedQuestions;
+        mConsecutiveDeltaRefreshesCount++;
+        mDeltaRefreshesCounter.increment();
+        return mergedQuestions;
     }
 }
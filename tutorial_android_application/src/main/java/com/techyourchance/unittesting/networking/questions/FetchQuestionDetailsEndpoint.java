@@ -1,5 +1,11 @@
 package com.techyourchance.unittesting.networking.questions;
 
+import com.techyourchance.unittesting.common.instrumentation.Counter;
+import com.techyourchance.unittesting.common.instrumentation.Metrics;
+import com.techyourchance.unittesting.common.instrumentation.Timer;
+import com.techyourchance.unittesting.common.requests.Cancellable;
+import com.techyourchance.unittesting.networking.CallRetrier;
+import com.techyourchance.unittesting.networking.RequestScheduler;
 import com.techyourchance.unittesting.networking.StackoverflowApi;
 
 import retrofit2.Call;
@@ -13,29 +19,80 @@ public class FetchQuestionDetailsEndpoint {
         void onQuestionDetailsFetchFailed();
     }
 
-    private  final StackoverflowApi mStackoverflowApi;
+    public static final String NETWORK_TIMER = "question_details_network";
+    public static final String FAILURES_COUNTER = "question_details_failures";
 
-    public FetchQuestionDetailsEndpoint(StackoverflowApi stackoverflowApi) {
+    private final StackoverflowApi mStackoverflowApi;
+    private final CallRetrier mCallRetrier;
+
+    private final Timer mNetworkTimer;
+    private final Counter mFailuresCounter;
+
+    public FetchQuestionDetailsEndpoint(StackoverflowApi stackoverflowApi,
+                                        CallRetrier callRetrier,
+                                        Metrics metrics) {
         mStackoverflowApi = stackoverflowApi;
+        mCallRetrier = callRetrier;
+        mNetworkTimer = metrics.timer(NETWORK_TIMER);
+        mFailuresCounter = metrics.counter(FAILURES_COUNTER);
+    }
+
+    /**
+     * @return handle which cancels the call; the listener isn't notified once the call is cancelled.
+     *         Transient errors are retried before the listener is notified of failure
+     */
+    public Cancellable fetchQuestionDetails(String questionId, Listener listener) {
+        return fetchQuestionDetails(questionId, RequestScheduler.Priority.USER_VISIBLE, listener);
+    }
+
+    /**
+     * Same as {@link #fetchQuestionDetails(String, Listener)}, but the call yields to the calls made
+     * on behalf of the user, and it fails right away if the quota of the API is running low.
+     */
+    public Cancellable prefetchQuestionDetails(String questionId, Listener listener) {
+        return fetchQuestionDetails(questionId, RequestScheduler.Priority.PREFETCH, listener);
+    }
+
+    protected Cancellable fetchQuestionDetails(String questionId,
+                                               RequestScheduler.Priority priority,
+                                               final Listener listener) {
+        Call<QuestionDetailsResponseSchema> call =
+                mStackoverflowApi.fetchQuestionDetails(questionId, QuestionFilters.WITH_BODY);
+        // includes the time spent waiting for the scheduler and retrying
+        final long startNanos = mNetworkTimer.start();
+        return mCallRetrier.enqueue(call, priority, new Callback<QuestionDetailsResponseSchema>() {
+            @Override
+            public void onResponse(Call<QuestionDetailsResponseSchema> call, Response<QuestionDetailsResponseSchema> response) {
+                mNetworkTimer.stop(startNanos);
+                if (response.isSuccessful()) {
+                    listener.onQuestionDetailsFetched(response.body().getQuestion());
+                } else {
+                    mFailuresCounter.increment();
+                    listener.onQuestionDetailsFetchFailed();
+                }
+            }
+
+            @Override
+            public void onFailure(Call<QuestionDetailsResponseSchema> call, Throwable t) {
+                mNetworkTimer.stop(startNanos);
+                mFailuresCounter.increment();
+                listener.onQuestionDetailsFetchFailed();
+            }
+        });
+    }
+
+    protected StackoverflowApi getStackoverflowApi() {
+        return mStackoverflowApi;
+    }
+
+    protected CallRetrier getCallRetrier() {
+        return mCallRetrier;
     }
 
-    public void fetchQuestionDetails(String questionId, final Listener listener) {
-        mStackoverflowApi.fetchQuestionDetails(questionId)
-                .enqueue(new Callback<QuestionDetailsResponseSchema>() {
-                             @Override
-                             public void onResponse(Call<QuestionDetailsResponseSchema> call, Response<QuestionDetailsResponseSchema> response) {
-                                 if (response.isSuccessful()) {
-                                     listener.onQuestionDetailsFetched(response.body().getQuestion());
-                                 } else {
-                                     listener.onQuestionDetailsFetchFailed();
-                                 }
-                             }
-
-                             @Override
-                             public void onFailure(Call<QuestionDetailsResponseSchema> call, Throwable t) {
-                                 listener.onQuestionDetailsFetchFailed();
-                             }
-                         }
-                );
+    /**
+     * Failures are counted per request, so subclasses which combine requests count each of them
+     */
+    protected Counter getFailuresCounter() {
+        return mFailuresCounter;
     }
 }
@@ -1,20 +1,40 @@
 package com.techyourchance.unittesting.networking.questions;
 
 import com.google.gson.annotations.SerializedName;
+import com.techyourchance.unittesting.networking.ThrottlingResponseSchema;
 
 import java.util.Collections;
 import java.util.List;
 
-public class QuestionDetailsResponseSchema {
+public class QuestionDetailsResponseSchema implements ThrottlingResponseSchema {
 
     @SerializedName("items")
     private final List<QuestionSchema> mQuestions;
 
+    @SerializedName("backoff")
+    private final int mBackoffSeconds;
+
+    // boxed, so that a missing field isn't mistaken for an exhausted quota
+    @SerializedName("quota_remaining")
+    private final Integer mQuotaRemaining;
+
     public QuestionDetailsResponseSchema(QuestionSchema question) {
         mQuestions = Collections.singletonList(question);
+        mBackoffSeconds = 0;
+        mQuotaRemaining = null;
     }
 
     public QuestionSchema getQuestion() {
         return mQuestions.get(0);
     }
+
+    @Override
+    public int getBackoffSeconds() {
+        return mBackoffSeconds;
+    }
+
+    @Override
+    public int getQuotaRemaining() {
+        return mQuotaRemaining == null ? QUOTA_UNKNOWN : mQuotaRemaining;
+    }
 }
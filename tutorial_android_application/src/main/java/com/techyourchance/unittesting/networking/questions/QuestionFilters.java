@@ -0,0 +1,19 @@
+package com.techyourchance.unittesting.networking.questions;
+
+/**
+ * Stack Exchange API filters, which select the fields of the returned questions. Each call should
+ * use the smallest filter that contains the fields its use case consumes.
+ */
+public final class QuestionFilters {
+    private QuestionFilters() {}
+
+    /**
+     * Built-in filter with the common fields (id, title, etc.), but without the HTML body.
+     */
+    public static final String WITHOUT_BODY = "default";
+
+    /**
+     * Built-in filter with the common fields and the HTML body.
+     */
+    public static final String WITH_BODY = "withbody";
+}
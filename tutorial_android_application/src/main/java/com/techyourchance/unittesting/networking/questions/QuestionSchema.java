@@ -13,10 +13,19 @@ public class QuestionSchema {
     @SerializedName("body")
     private final String mBody;
 
+    // Unix time in seconds
+    @SerializedName("last_activity_date")
+    private final long mLastActivityDate;
+
     public QuestionSchema(String title, String id, String body) {
+        this(title, id, body, 0);
+    }
+
+    public QuestionSchema(String title, String id, String body, long lastActivityDate) {
         mTitle = title;
         mId = id;
         mBody = body;
+        mLastActivityDate = lastActivityDate;
     }
 
     public String getTitle() {
@@ -31,4 +40,8 @@ public class QuestionSchema {
         return mBody;
     }
 
+    public long getLastActivityDate() {
+        return mLastActivityDate;
+    }
+
 }
@@ -0,0 +1,114 @@
+package com.techyourchance.unittesting.networking.questions;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.techyourchance.unittesting.common.collections.StringInterner;
+import com.techyourchance.unittesting.networking.ThrottlingResponseSchema;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+
+/**
+ * Parses {@link QuestionsListResponseSchema} straight from the response stream. Unlike reflective
+ * deserialization, it reads only the fields the schema declares, and it can skip the bodies of the
+ * questions, which are by far the largest part of the response, without allocating them. Titles are
+ * interned, so that questions fetched repeatedly (e.g. by refreshes and pages) share their titles.
+ */
+public class QuestionsListResponseConverter implements Converter<ResponseBody, QuestionsListResponseSchema> {
+
+    private final boolean mReadBodies;
+
+    private final StringInterner mTitleInterner;
+
+    public QuestionsListResponseConverter(boolean readBodies, StringInterner titleInterner) {
+        mReadBodies = readBodies;
+        mTitleInterner = titleInterner;
+    }
+
+    @Override
+    public QuestionsListResponseSchema convert(ResponseBody value) throws IOException {
+        JsonReader reader = new JsonReader(value.charStream());
+        try {
+            return readResponse(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private QuestionsListResponseSchema readResponse(JsonReader reader) throws IOException {
+        List<QuestionSchema> questions = new ArrayList<>();
+        boolean hasMore = false;
+        int backoffSeconds = 0;
+        int quotaRemaining = ThrottlingResponseSchema.QUOTA_UNKNOWN;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "items":
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        questions.add(readQuestion(reader));
+                    }
+                    reader.endArray();
+                    break;
+                case "has_more":
+                    hasMore = reader.nextBoolean();
+                    break;
+                case "backoff":
+                    backoffSeconds = reader.nextInt();
+                    break;
+                case "quota_remaining":
+                    quotaRemaining = reader.nextInt();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new QuestionsListResponseSchema(questions, hasMore, backoffSeconds, quotaRemaining);
+    }
+
+    private QuestionSchema readQuestion(JsonReader reader) throws IOException {
+        String id = null;
+        String title = null;
+        String body = null;
+        long lastActivityDate = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "question_id":
+                    id = readNullableString(reader);
+                    break;
+                case "title":
+                    title = mTitleInterner.intern(readNullableString(reader));
+                    break;
+                case "body":
+                    if (mReadBodies) {
+                        body = readNullableString(reader);
+                    } else {
+                        reader.skipValue();
+                    }
+                    break;
+                case "last_activity_date":
+                    lastActivityDate = reader.nextLong();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new QuestionSchema(title, id, body, lastActivityDate);
+    }
+
+    private String readNullableString(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        // numbers (e.g. ids) are returned as strings too
+        return reader.nextString();
+    }
+}
@@ -1,19 +1,57 @@
 package com.techyourchance.unittesting.networking.questions;
 
 import com.google.gson.annotations.SerializedName;
+import com.techyourchance.unittesting.networking.ThrottlingResponseSchema;
 
 import java.util.List;
 
-public class QuestionsListResponseSchema {
+public class QuestionsListResponseSchema implements ThrottlingResponseSchema {
 
     @SerializedName("items")
     private final List<QuestionSchema> mQuestions;
 
+    @SerializedName("has_more")
+    private final boolean mHasMore;
+
+    @SerializedName("backoff")
+    private final int mBackoffSeconds;
+
+    @SerializedName("quota_remaining")
+    private final int mQuotaRemaining;
+
     public QuestionsListResponseSchema(List<QuestionSchema> questions) {
+        this(questions, false);
+    }
+
+    public QuestionsListResponseSchema(List<QuestionSchema> questions, boolean hasMore) {
+        this(questions, hasMore, 0, QUOTA_UNKNOWN);
+    }
+
+    public QuestionsListResponseSchema(List<QuestionSchema> questions,
+                                       boolean hasMore,
+                                       int backoffSeconds,
+                                       int quotaRemaining) {
         mQuestions = questions;
+        mHasMore = hasMore;
+        mBackoffSeconds = backoffSeconds;
+        mQuotaRemaining = quotaRemaining;
     }
 
     public List<QuestionSchema> getQuestions() {
         return mQuestions;
     }
+
+    public boolean hasMore() {
+        return mHasMore;
+    }
+
+    @Override
+    public int getBackoffSeconds() {
+        return mBackoffSeconds;
+    }
+
+    @Override
+    public int getQuotaRemaining() {
+        return mQuotaRemaining;
+    }
 }
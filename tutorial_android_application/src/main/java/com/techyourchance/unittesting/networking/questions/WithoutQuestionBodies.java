@@ -0,0 +1,15 @@
+package com.techyourchance.unittesting.networking.questions;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks API methods whose callers don't need the bodies of the questions, so that the bodies can be
+ * skipped while the response is parsed.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface WithoutQuestionBodies {
+}
@@ -0,0 +1,59 @@
+package com.techyourchance.unittesting.questions;
+
+import com.techyourchance.unittesting.common.collections.StringInterner;
+
+/**
+ * Memory-efficient counterpart of {@link Question} for keeping large numbers of questions in
+ * memory: the id is stored as a primitive (ids of Stack Overflow are numeric), the hash code is
+ * computed once, and titles are deduplicated, so that the same question fetched repeatedly doesn't
+ * retain copies of its title. Can be keyed by id in a
+ * {@link com.techyourchance.unittesting.common.collections.LongHashMap}.
+ */
+public class CompactQuestion {
+
+    private final long mId;
+
+    private final String mTitle;
+
+    private final int mHashCode;
+
+    public CompactQuestion(long id, String title) {
+        mId = id;
+        mTitle = title;
+        mHashCode = 31 * (int) (id ^ (id >>> 32)) + (title == null ? 0 : title.hashCode());
+    }
+
+    /**
+     * @throws NumberFormatException if the id of the question isn't numeric
+     */
+    public static CompactQuestion fromQuestion(Question question, StringInterner titleInterner) {
+        return new CompactQuestion(Long.parseLong(question.getId()), titleInterner.intern(question.getTitle()));
+    }
+
+    public Question toQuestion() {
+        return new Question(String.valueOf(mId), mTitle);
+    }
+
+    public long getId() {
+        return mId;
+    }
+
+    public String getTitle() {
+        return mTitle;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CompactQuestion that = (CompactQuestion) o;
+        return mId == that.mId &&
+                mHashCode == that.mHashCode &&
+                (mTitle == null ? that.mTitle == null : mTitle.equals(that.mTitle));
+    }
+
+    @Override
+    public int hashCode() {
+        return mHashCode;
+    }
+}
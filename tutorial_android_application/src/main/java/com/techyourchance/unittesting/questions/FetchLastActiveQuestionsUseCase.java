@@ -1,52 +1,408 @@
 package com.techyourchance.unittesting.questions;
 
 import com.techyourchance.unittesting.common.BaseObservable;
+import com.techyourchance.unittesting.common.connectivity.ConnectivityMonitor;
+import com.techyourchance.unittesting.common.instrumentation.Counter;
+import com.techyourchance.unittesting.common.instrumentation.Metrics;
+import com.techyourchance.unittesting.common.instrumentation.Timer;
+import com.techyourchance.unittesting.common.requests.Cancellable;
+import com.techyourchance.unittesting.common.requests.RequestCoalescer;
+import com.techyourchance.unittesting.common.sync.SyncQueue;
+import com.techyourchance.unittesting.common.time.TimeProvider;
 import com.techyourchance.unittesting.networking.questions.FetchLastActiveQuestionsEndpoint;
 import com.techyourchance.unittesting.networking.questions.QuestionSchema;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
+/**
+ * Application scoped source of the last active questions. The latest fetched questions are memoized,
+ * so all the screens share a single network request per memoization timeout, and the questions
+ * survive recreation of the screens.
+ *
+ * The state of this use case is confined to the UI thread: it must be called on the UI thread, and
+ * it handles the results of the endpoint on the UI executor. Reads from disk, mapping of the results,
+ * writes to disk and indexing for search are done on the background executor. It must be serial, so
+ * that results of the network are handled after the questions which were being read from disk.
+ *
+ * Requests in flight are cancelled when the last listener unregisters, and their results which were
+ * already on the way are dropped without being mapped, stored or indexed.
+ *
+ * While the device is offline, questions are served from memory or disk only, and the refresh is
+ * left to {@link QuestionsSyncWorker} (listeners are notified of failure only if there was nothing
+ * to serve). Pages aren't stored, so page fetches just fail while offline.
+ */
 public class FetchLastActiveQuestionsUseCase extends BaseObservable<FetchLastActiveQuestionsUseCase.Listener> {
 
     public interface Listener {
         void onLastActiveQuestionsFetched(List<Question> questions);
         void onLastActiveQuestionsFetchFailed();
+        void onLastActiveQuestionsPageFetched(int page, List<Question> questions, boolean hasMore);
+        void onLastActiveQuestionsPageFetchFailed(int page);
     }
 
+    private interface StoredQuestionsCallback {
+        void onStoredQuestionsServed(boolean served);
+    }
+
+    public static final long MEMOIZATION_TIMEOUT_MS = 10000;
+
+    public static final long FETCH_TIMESTAMP_UNKNOWN = Long.MIN_VALUE;
+
+    /**
+     * The key of the last active questions in the sync queue (other keys are ids of questions)
+     */
+    public static final String SYNC_KEY = "last_active_questions";
+
+    public static final String MEMOIZATION_HITS_COUNTER = "last_active_questions_memoization_hits";
+    public static final String MEMOIZATION_MISSES_COUNTER = "last_active_questions_memoization_misses";
+    public static final String DISK_READ_TIMER = "last_active_questions_disk_read";
+    public static final String MAPPING_TIMER = "last_active_questions_mapping";
+    public static final String DISK_WRITE_TIMER = "last_active_questions_disk_write";
+    public static final String INDEXING_TIMER = "last_active_questions_indexing";
+    public static final String NOTIFICATION_TIMER = "last_active_questions_notification";
+
     private final FetchLastActiveQuestionsEndpoint mFetchLastActiveQuestionsEndpoint;
+    private final TimeProvider mTimeProvider;
+    private final QuestionsDiskCache mQuestionsDiskCache;
+    private final QuestionsSearchIndex mQuestionsSearchIndex;
+    private final ConnectivityMonitor mConnectivityMonitor;
+    private final SyncQueue<String> mSyncQueue;
+    private final Executor mBackgroundExecutor;
+    private final Executor mUiExecutor;
+    private final RequestCoalescer<Integer> mPageRequestCoalescer = new RequestCoalescer<>();
+
+    private final Counter mMemoizationHitsCounter;
+    private final Counter mMemoizationMissesCounter;
+    private final Timer mDiskReadTimer;
+    private final Timer mMappingTimer;
+    private final Timer mDiskWriteTimer;
+    private final Timer mIndexingTimer;
+    private final Timer mNotificationTimer;
 
-    public FetchLastActiveQuestionsUseCase(FetchLastActiveQuestionsEndpoint fetchLastActiveQuestionsEndpoint) {
+    private List<Question> mMemoizedQuestions;
+    private long mMemoizedTimestamp;
+    private long mNotifiedQuestionsFetchTimestamp = FETCH_TIMESTAMP_UNKNOWN;
+    private FetchRequest mFetchRequest;
+
+    public FetchLastActiveQuestionsUseCase(FetchLastActiveQuestionsEndpoint fetchLastActiveQuestionsEndpoint,
+                                           TimeProvider timeProvider,
+                                           QuestionsDiskCache questionsDiskCache,
+                                           QuestionsSearchIndex questionsSearchIndex,
+                                           ConnectivityMonitor connectivityMonitor,
+                                           SyncQueue<String> syncQueue,
+                                           Metrics metrics,
+                                           Executor backgroundExecutor,
+                                           Executor uiExecutor) {
+        // application scoped, so controllers which leak without unregistering must not be retained
+        super(true);
         mFetchLastActiveQuestionsEndpoint = fetchLastActiveQuestionsEndpoint;
+        mTimeProvider = timeProvider;
+        mQuestionsDiskCache = questionsDiskCache;
+        mQuestionsSearchIndex = questionsSearchIndex;
+        mConnectivityMonitor = connectivityMonitor;
+        mSyncQueue = syncQueue;
+        mBackgroundExecutor = backgroundExecutor;
+        mUiExecutor = uiExecutor;
+        mMemoizationHitsCounter = metrics.counter(MEMOIZATION_HITS_COUNTER);
+        mMemoizationMissesCounter = metrics.counter(MEMOIZATION_MISSES_COUNTER);
+        mDiskReadTimer = metrics.timer(DISK_READ_TIMER);
+        mMappingTimer = metrics.timer(MAPPING_TIMER);
+        mDiskWriteTimer = metrics.timer(DISK_WRITE_TIMER);
+        mIndexingTimer = metrics.timer(INDEXING_TIMER);
+        mNotificationTimer = metrics.timer(NOTIFICATION_TIMER);
     }
 
+    /**
+     * Notifies the listeners with the memoized questions if they were fetched less than
+     * {@link #MEMOIZATION_TIMEOUT_MS} ago. Otherwise, notifies the listeners with the outdated
+     * questions from memory or disk (if any) and then with the result of a network request. Calls
+     * made while the request is in flight don't result in additional requests, and don't serve the
+     * outdated questions again.
+     */
     public void fetchLastActiveQuestionsAndNotify() {
-        mFetchLastActiveQuestionsEndpoint.fetchLastActiveQuestions(new FetchLastActiveQuestionsEndpoint.Listener() {
+        if (mMemoizedQuestions != null
+                && mTimeProvider.getMonotonicTimestamp() - mMemoizedTimestamp < MEMOIZATION_TIMEOUT_MS) {
+            mMemoizationHitsCounter.increment();
+            notifySuccess(mMemoizedQuestions, mMemoizedTimestamp);
+            return;
+        }
+        mMemoizationMissesCounter.increment();
+
+        if (mFetchRequest == null && !mConnectivityMonitor.isConnected()) {
+            serveStoredQuestions(new StoredQuestionsCallback() {
+                @Override
+                public void onStoredQuestionsServed(boolean served) {
+                    deferUntilOnline(served);
+                }
+            });
+            return;
+        }
+
+        if (mFetchRequest != null) {
+            return;
+        }
+
+        final FetchRequest request = new FetchRequest();
+        mFetchRequest = request;
+        serveStoredQuestions(request);
+
+        Cancellable call = mFetchLastActiveQuestionsEndpoint.fetchLastActiveQuestions(new FetchLastActiveQuestionsEndpoint.Listener() {
             @Override
-            public void onQuestionsFetched(List<QuestionSchema> questions) {
-                notifySuccess(questions);
+            public void onQuestionsFetched(final List<QuestionSchema> questionSchemas) {
+                mBackgroundExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (request.mCancelled) {
+                            return;
+                        }
+                        final List<Question> questions = schemasToQuestions(questionSchemas);
+                        indexQuestions(questionSchemas);
+                        long startNanos = mDiskWriteTimer.start();
+                        mQuestionsDiskCache.putLastActiveQuestions(questions);
+                        mDiskWriteTimer.stop(startNanos);
+                        mUiExecutor.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                if (mFetchRequest != request) {
+                                    return;
+                                }
+                                mFetchRequest = null;
+                                mMemoizedQuestions = questions;
+                                mMemoizedTimestamp = mTimeProvider.getMonotonicTimestamp();
+                                notifySuccess(questions, mMemoizedTimestamp);
+                            }
+                        });
+                    }
+                });
             }
 
             @Override
             public void onQuestionsFetchFailed() {
-                notifyFailure();
+                // the questions from disk might still be being read
+                mBackgroundExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        mUiExecutor.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                if (mFetchRequest == request) {
+                                    mFetchRequest = null;
+                                    onFetchFailed(request);
+                                }
+                            }
+                        });
+                    }
+                });
+            }
+        });
+        request.mCall = call;
+    }
+
+    private void onFetchFailed(FetchRequest request) {
+        if (mConnectivityMonitor.isConnected()) {
+            notifyFailure();
+        } else {
+            deferUntilOnline(request.mStoredQuestionsServed);
+        }
+    }
+
+    /**
+     * Fetches a page which follows (or precedes) the pages that were already shown. Listeners are
+     * notified with the questions of this page only. Pages aren't stored on disk, and concurrent
+     * requests for the same page result in a single network call.
+     */
+    public void fetchLastActiveQuestionsPageAndNotify(int page) {
+        final RequestCoalescer.InFlightRequest inFlightRequest = mPageRequestCoalescer.tryStart(page);
+        if (inFlightRequest == null) {
+            return;
+        }
+
+        Cancellable call = mFetchLastActiveQuestionsEndpoint.fetchLastActiveQuestionsPage(page, new FetchLastActiveQuestionsEndpoint.PageListener() {
+            @Override
+            public void onQuestionsPageFetched(final int page,
+                                               final List<QuestionSchema> questionSchemas,
+                                               final boolean hasMore) {
+                mBackgroundExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!mPageRequestCoalescer.isInFlight(page, inFlightRequest)) {
+                            return;
+                        }
+                        final List<Question> questions = schemasToQuestions(questionSchemas);
+                        indexQuestions(questionSchemas);
+                        mUiExecutor.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                if (mPageRequestCoalescer.finish(page, inFlightRequest)) {
+                                    notifyPageSuccess(page, questions, hasMore);
+                                }
+                            }
+                        });
+                    }
+                });
+            }
+
+            @Override
+            public void onQuestionsPageFetchFailed(final int page) {
+                mUiExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (mPageRequestCoalescer.finish(page, inFlightRequest)) {
+                            notifyPageFailure(page);
+                        }
+                    }
+                });
+            }
+        });
+        mPageRequestCoalescer.setCancellable(inFlightRequest, call);
+    }
+
+    @Override
+    protected void onLastListenerUnregistered() {
+        if (mFetchRequest != null && mFetchRequest.mCall != null) {
+            mFetchRequest.mCancelled = true;
+            mFetchRequest.mCall.cancel();
+            mFetchRequest = null;
+        }
+        mPageRequestCoalescer.cancelAll();
+    }
+
+    /**
+     * Notifies the listeners with the outdated questions from memory or disk (if any), and then
+     * invokes the callback. Questions are read from disk on the background executor, so in this case
+     * the callback is invoked later on the UI executor.
+     */
+    private void serveStoredQuestions(final StoredQuestionsCallback callback) {
+        // outdated data is shown only until fresh data arrives
+        if (mMemoizedQuestions != null) {
+            callback.onStoredQuestionsServed(serveQuestionsIfAny(mMemoizedQuestions, mMemoizedTimestamp));
+            return;
+        }
+        mBackgroundExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                long startNanos = mDiskReadTimer.start();
+                final List<Question> storedQuestions = mQuestionsDiskCache.getLastActiveQuestions();
+                mDiskReadTimer.stop(startNanos);
+                mUiExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (mMemoizedQuestions != null) {
+                            // fresh questions were delivered while the questions were being read
+                            callback.onStoredQuestionsServed(true);
+                        } else {
+                            callback.onStoredQuestionsServed(
+                                    serveQuestionsIfAny(storedQuestions, FETCH_TIMESTAMP_UNKNOWN));
+                        }
+                    }
+                });
             }
         });
     }
 
+    /**
+     * @return true if the listeners were notified with the questions
+     */
+    private boolean serveQuestionsIfAny(List<Question> questions, long fetchTimestamp) {
+        if (questions != null && !questions.isEmpty()) {
+            notifySuccess(questions, fetchTimestamp);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    private void deferUntilOnline(boolean storedQuestionsServed) {
+        mSyncQueue.add(SYNC_KEY, SyncQueue.Priority.USER_VISIBLE);
+        if (!storedQuestionsServed) {
+            notifyFailure();
+        }
+    }
+
+    private void notifyPageSuccess(int page, List<Question> questions, boolean hasMore) {
+        Listeners<Listener> listeners = getListeners();
+        for (int i = 0; i < listeners.size(); i++) {
+            Listener listener = listeners.get(i);
+            if (listener != null) {
+                listener.onLastActiveQuestionsPageFetched(page, questions, hasMore);
+            }
+        }
+    }
+
+    private void notifyPageFailure(int page) {
+        Listeners<Listener> listeners = getListeners();
+        for (int i = 0; i < listeners.size(); i++) {
+            Listener listener = listeners.get(i);
+            if (listener != null) {
+                listener.onLastActiveQuestionsPageFetchFailed(page);
+            }
+        }
+    }
+
     private void notifyFailure() {
-        for (Listener listener : getListeners()) {
-            listener.onLastActiveQuestionsFetchFailed();
+        Listeners<Listener> listeners = getListeners();
+        for (int i = 0; i < listeners.size(); i++) {
+            Listener listener = listeners.get(i);
+            if (listener != null) {
+                listener.onLastActiveQuestionsFetchFailed();
+            }
         }
     }
 
-    private void notifySuccess(List<QuestionSchema> questionSchemas) {
+    private List<Question> schemasToQuestions(List<QuestionSchema> questionSchemas) {
+        long startNanos = mMappingTimer.start();
         List<Question> questions = new ArrayList<>(questionSchemas.size());
         for (QuestionSchema questionSchema : questionSchemas) {
             questions.add(new Question(questionSchema.getId(), questionSchema.getTitle()));
         }
-        for (Listener listener : getListeners()) {
-            listener.onLastActiveQuestionsFetched(questions);
+        mMappingTimer.stop(startNanos);
+        return questions;
+    }
+
+    private void indexQuestions(List<QuestionSchema> questionSchemas) {
+        long startNanos = mIndexingTimer.start();
+        for (QuestionSchema questionSchema : questionSchemas) {
+            mQuestionsSearchIndex.indexQuestion(
+                    questionSchema.getId(), questionSchema.getTitle(), questionSchema.getLastActivityDate());
+        }
+        mIndexingTimer.stop(startNanos);
+    }
+
+    /**
+     * @return the monotonic timestamp at which the questions the listeners were last notified with
+     *         were fetched from the network, or {@link #FETCH_TIMESTAMP_UNKNOWN} if they were read
+     *         from disk. Listeners can call it while they are being notified.
+     */
+    public long getNotifiedQuestionsFetchTimestamp() {
+        return mNotifiedQuestionsFetchTimestamp;
+    }
+
+    private void notifySuccess(List<Question> questions, long fetchTimestamp) {
+        mNotifiedQuestionsFetchTimestamp = fetchTimestamp;
+        long startNanos = mNotificationTimer.start();
+        Listeners<Listener> listeners = getListeners();
+        for (int i = 0; i < listeners.size(); i++) {
+            Listener listener = listeners.get(i);
+            if (listener != null) {
+                listener.onLastActiveQuestionsFetched(questions);
+            }
+        }
+        mNotificationTimer.stop(startNanos);
+    }
+
+    private static class FetchRequest implements StoredQuestionsCallback {
+
+        private Cancellable mCall;
+        // read on the background executor, so that results of a cancelled request aren't processed
+        private volatile boolean mCancelled;
+        // whether the listeners were served with the outdated questions while the request is in flight
+        private boolean mStoredQuestionsServed;
+
+        @Override
+        public void onStoredQuestionsServed(boolean served) {
+            mStoredQuestionsServed |= served;
         }
     }
 }
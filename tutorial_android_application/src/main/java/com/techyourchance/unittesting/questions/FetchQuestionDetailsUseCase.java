@@ -1,13 +1,40 @@
 package com.techyourchance.unittesting.questions;
 
 import com.techyourchance.unittesting.common.BaseObservable;
+import com.techyourchance.unittesting.common.cache.BaseExpiringLruCache;
+import com.techyourchance.unittesting.common.cache.LongExpiringLruCache;
+import com.techyourchance.unittesting.common.connectivity.ConnectivityMonitor;
+import com.techyourchance.unittesting.common.instrumentation.Counter;
+import com.techyourchance.unittesting.common.instrumentation.Gauge;
+import com.techyourchance.unittesting.common.instrumentation.Metrics;
+import com.techyourchance.unittesting.common.instrumentation.Timer;
+import com.techyourchance.unittesting.common.requests.Cancellable;
+import com.techyourchance.unittesting.common.requests.RequestCoalescer;
+import com.techyourchance.unittesting.common.sync.SyncQueue;
 import com.techyourchance.unittesting.common.time.TimeProvider;
 import com.techyourchance.unittesting.networking.questions.FetchQuestionDetailsEndpoint;
 import com.techyourchance.unittesting.networking.questions.QuestionSchema;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
 
+/**
+ * The state of this use case is confined to the UI thread: it must be called on the UI thread, and
+ * it handles the results of the endpoint on the UI executor. Reads from disk, mapping of the results,
+ * writes to disk and indexing for search are done on the background executor. It must be serial, so
+ * that results of the network are handled after the details which were being read from disk.
+ *
+ * Requests made on behalf of the listeners are cancelled when the last listener unregisters, and
+ * their results which were already on the way are dropped.
+ * Prefetches aren't cancelled, because they are made on behalf of the cache.
+ *
+ * While the device is offline, question details are served from memory or disk only, and the
+ * refresh is left to {@link QuestionsSyncWorker} (listeners are notified of failure only if there
+ * was nothing to serve).
+ */
 public class FetchQuestionDetailsUseCase extends BaseObservable<FetchQuestionDetailsUseCase.Listener> {
 
     public interface Listener {
@@ -15,52 +42,401 @@ public class FetchQuestionDetailsUseCase extends BaseObservable<FetchQuestionDet
         void onQuestionDetailsFetchFailed();
     }
 
+    public interface PrefetchListener {
+        void onQuestionDetailsPrefetched(String questionId);
+        void onQuestionDetailsPrefetchFailed(String questionId);
+    }
+
+    private interface StoreCallback {
+        void onQuestionDetailsStored(QuestionDetails questionDetails);
+    }
+
+    private interface DiskReadCallback {
+        void onQuestionDetailsRead(QuestionDetails storedQuestionDetails);
+    }
+
+    public static final String CACHE_HITS_COUNTER = "question_details_cache_hits";
+    public static final String CACHE_MISSES_COUNTER = "question_details_cache_misses";
+    public static final String CACHE_SIZE_GAUGE = "question_details_cache_size";
+    public static final String CACHE_WEIGHT_GAUGE = "question_details_cache_weight";
+    public static final String DISK_READ_TIMER = "question_details_disk_read";
+    public static final String MAPPING_TIMER = "question_details_mapping";
+    public static final String DISK_WRITE_TIMER = "question_details_disk_write";
+    public static final String INDEXING_TIMER = "question_details_indexing";
+    public static final String NOTIFICATION_TIMER = "question_details_notification";
+
     private static final long CACHE_TIMEOUT_MS = 60000;
+    private static final long CACHE_MAX_SIZE_BYTES = 1024 * 1024;
+
+    private static final BaseExpiringLruCache.Weigher<CachedQuestionDetails> QUESTION_DETAILS_WEIGHER =
+            new BaseExpiringLruCache.Weigher<CachedQuestionDetails>() {
+                @Override
+                public int weigh(CachedQuestionDetails cachedQuestionDetails) {
+                    QuestionDetails questionDetails = cachedQuestionDetails.mQuestionDetails;
+                    // rough estimate of the memory retained by the strings (two bytes per char)
+                    return 2 * (length(questionDetails.getId())
+                            + length(questionDetails.getTitle())
+                            + length(questionDetails.getBody()));
+                }
+
+                private int length(String string) {
+                    return string == null ? 0 : string.length();
+                }
+            };
 
     private final FetchQuestionDetailsEndpoint mFetchQuestionDetailsEndpoint;
-    private final TimeProvider mTimeProvider;
 
-    private final Map<String, QuestionDetailsCacheEntry> mQuestionDetailsCache = new HashMap<>();
+    private final QuestionsDiskCache mQuestionsDiskCache;
+
+    private final QuestionsSearchIndex mQuestionsSearchIndex;
+
+    private final ConnectivityMonitor mConnectivityMonitor;
+
+    private final SyncQueue<String> mSyncQueue;
+
+    private final Executor mBackgroundExecutor;
+
+    private final Executor mUiExecutor;
+
+    // keyed by the numeric ids, so that the many cached details don't retain boxed keys
+    private final LongExpiringLruCache<CachedQuestionDetails> mQuestionDetailsCache;
+
+    private final RequestCoalescer<String> mRequestCoalescer = new RequestCoalescer<>();
+
+    private final Counter mCacheHitsCounter;
+    private final Counter mCacheMissesCounter;
+    private final Timer mDiskReadTimer;
+    private final Timer mMappingTimer;
+    private final Timer mDiskWriteTimer;
+    private final Timer mIndexingTimer;
+    private final Timer mNotificationTimer;
+
+    private final Set<String> mInFlightPrefetches = new HashSet<>();
+
+    // prefetches which listeners are waiting for because they were requested in the meantime
+    // (mapped to whether the listeners were served with the details from disk in the meantime)
+    private final Map<String, Boolean> mAwaitedPrefetches = new HashMap<>();
 
     public FetchQuestionDetailsUseCase(FetchQuestionDetailsEndpoint fetchQuestionDetailsEndpoint,
-                                       TimeProvider timeProvider) {
+                                       TimeProvider timeProvider,
+                                       QuestionsDiskCache questionsDiskCache,
+                                       QuestionsSearchIndex questionsSearchIndex,
+                                       ConnectivityMonitor connectivityMonitor,
+                                       SyncQueue<String> syncQueue,
+                                       Metrics metrics,
+                                       Executor backgroundExecutor,
+                                       Executor uiExecutor) {
+        // application scoped, so controllers which leak without unregistering must not be retained
+        super(true);
         mFetchQuestionDetailsEndpoint = fetchQuestionDetailsEndpoint;
-        mTimeProvider = timeProvider;
+        mQuestionsDiskCache = questionsDiskCache;
+        mQuestionsSearchIndex = questionsSearchIndex;
+        mConnectivityMonitor = connectivityMonitor;
+        mSyncQueue = syncQueue;
+        mBackgroundExecutor = backgroundExecutor;
+        mUiExecutor = uiExecutor;
+        mQuestionDetailsCache = new LongExpiringLruCache<>(
+                CACHE_MAX_SIZE_BYTES,
+                CACHE_TIMEOUT_MS,
+                QUESTION_DETAILS_WEIGHER,
+                timeProvider
+        );
+        mCacheHitsCounter = metrics.counter(CACHE_HITS_COUNTER);
+        mCacheMissesCounter = metrics.counter(CACHE_MISSES_COUNTER);
+        mDiskReadTimer = metrics.timer(DISK_READ_TIMER);
+        mMappingTimer = metrics.timer(MAPPING_TIMER);
+        mDiskWriteTimer = metrics.timer(DISK_WRITE_TIMER);
+        mIndexingTimer = metrics.timer(INDEXING_TIMER);
+        mNotificationTimer = metrics.timer(NOTIFICATION_TIMER);
+        metrics.registerGauge(CACHE_SIZE_GAUGE, new Gauge() {
+            @Override
+            public long getValue() {
+                return mQuestionDetailsCache.size();
+            }
+        });
+        metrics.registerGauge(CACHE_WEIGHT_GAUGE, new Gauge() {
+            @Override
+            public long getValue() {
+                return mQuestionDetailsCache.getCurrentWeight();
+            }
+        });
     }
 
     public void fetchQuestionDetailsAndNotify(final String questionId) {
         if (serveQuestionDetailsFromCacheIfValid(questionId)) {
             return;
         }
-        mFetchQuestionDetailsEndpoint.fetchQuestionDetails(questionId, new FetchQuestionDetailsEndpoint.Listener() {
+        if (!mRequestCoalescer.isInFlight(questionId) && !mConnectivityMonitor.isConnected()) {
+            readQuestionDetailsFromDisk(questionId, new DiskReadCallback() {
+                @Override
+                public void onQuestionDetailsRead(QuestionDetails storedQuestionDetails) {
+                    deferUntilOnline(questionId, serveStoredQuestionDetails(storedQuestionDetails));
+                }
+            });
+            return;
+        }
+        final RequestCoalescer.InFlightRequest inFlightRequest = mRequestCoalescer.tryStart(questionId);
+        if (inFlightRequest == null) {
+            // the result of the pending request will be delivered to all registered listeners. They
+            // were served from disk when it started, unless it's a prefetch which nobody awaited yet
+            if (mInFlightPrefetches.contains(questionId) && !mAwaitedPrefetches.containsKey(questionId)) {
+                awaitPrefetch(questionId);
+            }
+            return;
+        }
+        final FetchRequest request = new FetchRequest();
+        // data from disk might be outdated, so it's shown only until fresh data arrives
+        readQuestionDetailsFromDisk(questionId, new DiskReadCallback() {
+            @Override
+            public void onQuestionDetailsRead(QuestionDetails storedQuestionDetails) {
+                request.mStoredQuestionDetailsServed = serveStoredQuestionDetails(storedQuestionDetails);
+            }
+        });
+        Cancellable call = mFetchQuestionDetailsEndpoint.fetchQuestionDetails(questionId, new FetchQuestionDetailsEndpoint.Listener() {
             @Override
             public void onQuestionDetailsFetched(QuestionSchema question) {
-                QuestionDetailsCacheEntry cacheEntry = new QuestionDetailsCacheEntry(
-                        schemaToQuestionDetails(question),
-                        mTimeProvider.getCurrentTimestamp()
-                );
-                mQuestionDetailsCache.put(questionId, cacheEntry);
-                notifySuccess(cacheEntry.mQuestionDetails);
+                storeQuestionDetails(questionId, question, new StoreCallback() {
+                    @Override
+                    public void onQuestionDetailsStored(QuestionDetails questionDetails) {
+                        if (mRequestCoalescer.finish(questionId, inFlightRequest)) {
+                            notifySuccess(questionDetails);
+                        }
+                    }
+                });
             }
 
             @Override
             public void onQuestionDetailsFetchFailed() {
-                notifyFailure();
+                executeAfterBackgroundWork(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!mRequestCoalescer.finish(questionId, inFlightRequest)) {
+                            return;
+                        }
+                        if (mConnectivityMonitor.isConnected()) {
+                            notifyFailure();
+                        } else {
+                            deferUntilOnline(questionId, request.mStoredQuestionDetailsServed);
+                        }
+                    }
+                });
+            }
+        });
+        mRequestCoalescer.setCancellable(inFlightRequest, call);
+    }
+
+    private void awaitPrefetch(final String questionId) {
+        mAwaitedPrefetches.put(questionId, false);
+        readQuestionDetailsFromDisk(questionId, new DiskReadCallback() {
+            @Override
+            public void onQuestionDetailsRead(QuestionDetails storedQuestionDetails) {
+                // the prefetch might have completed while the details were being read
+                if (mAwaitedPrefetches.containsKey(questionId)) {
+                    mAwaitedPrefetches.put(questionId, serveStoredQuestionDetails(storedQuestionDetails));
+                }
             }
         });
     }
 
+    @Override
+    protected void onLastListenerUnregistered() {
+        mRequestCoalescer.cancelAll();
+        mAwaitedPrefetches.clear();
+    }
+
+    /**
+     * Fetches question details into the cache without notifying the registered listeners, unless
+     * they request the same question before the prefetch completes. Questions which are already
+     * cached or being fetched aren't fetched again.
+     */
+    public void prefetchQuestionDetails(final String questionId, final PrefetchListener prefetchListener) {
+        if (mQuestionDetailsCache.get(toCacheKey(questionId)) != null || mRequestCoalescer.isInFlight(questionId)) {
+            prefetchListener.onQuestionDetailsPrefetched(questionId);
+            return;
+        }
+        if (!mConnectivityMonitor.isConnected()) {
+            mSyncQueue.add(questionId, SyncQueue.Priority.BACKGROUND);
+            prefetchListener.onQuestionDetailsPrefetchFailed(questionId);
+            return;
+        }
+        final RequestCoalescer.InFlightRequest inFlightRequest = mRequestCoalescer.tryStart(questionId);
+        mInFlightPrefetches.add(questionId);
+        mFetchQuestionDetailsEndpoint.prefetchQuestionDetails(questionId, new FetchQuestionDetailsEndpoint.Listener() {
+            @Override
+            public void onQuestionDetailsFetched(QuestionSchema question) {
+                storeQuestionDetails(questionId, question, new StoreCallback() {
+                    @Override
+                    public void onQuestionDetailsStored(QuestionDetails questionDetails) {
+                        mRequestCoalescer.finish(questionId, inFlightRequest);
+                        mInFlightPrefetches.remove(questionId);
+                        if (mAwaitedPrefetches.remove(questionId) != null) {
+                            notifySuccess(questionDetails);
+                        }
+                        prefetchListener.onQuestionDetailsPrefetched(questionId);
+                    }
+                });
+            }
+
+            @Override
+            public void onQuestionDetailsFetchFailed() {
+                executeAfterBackgroundWork(new Runnable() {
+                    @Override
+                    public void run() {
+                        mRequestCoalescer.finish(questionId, inFlightRequest);
+                        mInFlightPrefetches.remove(questionId);
+                        Boolean storedQuestionDetailsServed = mAwaitedPrefetches.remove(questionId);
+                        if (storedQuestionDetailsServed == null) {
+                            if (!mConnectivityMonitor.isConnected()) {
+                                mSyncQueue.add(questionId, SyncQueue.Priority.BACKGROUND);
+                            }
+                        } else if (mConnectivityMonitor.isConnected()) {
+                            notifyFailure();
+                        } else {
+                            deferUntilOnline(questionId, storedQuestionDetailsServed);
+                        }
+                        prefetchListener.onQuestionDetailsPrefetchFailed(questionId);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Maps the schema, stores the details on disk and indexes them on the background executor, then
+     * caches the details in memory and invokes the callback on the UI executor.
+     */
+    private void storeQuestionDetails(final String questionId,
+                                      final QuestionSchema questionSchema,
+                                      final StoreCallback callback) {
+        mBackgroundExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                long startNanos = mMappingTimer.start();
+                final QuestionDetails questionDetails = schemaToQuestionDetails(questionSchema);
+                mMappingTimer.stop(startNanos);
+
+                startNanos = mDiskWriteTimer.start();
+                mQuestionsDiskCache.putQuestionDetails(questionDetails);
+                mDiskWriteTimer.stop(startNanos);
+
+                startNanos = mIndexingTimer.start();
+                mQuestionsSearchIndex.indexQuestionDetails(questionId, questionSchema.getTitle(),
+                        questionSchema.getBody(), questionSchema.getLastActivityDate());
+                mIndexingTimer.stop(startNanos);
+                mUiExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        mQuestionDetailsCache.put(toCacheKey(questionId), new CachedQuestionDetails(questionDetails));
+                        callback.onQuestionDetailsStored(questionDetails);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Executes the runnable on the UI executor after the work which was already submitted to the
+     * background executor, so that failures don't overtake the details which are being read from disk.
+     */
+    private void executeAfterBackgroundWork(final Runnable runnable) {
+        mBackgroundExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                mUiExecutor.execute(runnable);
+            }
+        });
+    }
+
+    public long getCoalescedRequestsCount() {
+        return mRequestCoalescer.getCoalescedRequestsCount();
+    }
+
+    /**
+     * @throws NumberFormatException if the id isn't numeric (ids of Stack Overflow are)
+     */
+    private static long toCacheKey(String questionId) {
+        return Long.parseLong(questionId);
+    }
+
+    /**
+     * Attaches data derived from the question details (e.g. their rendering) to the details cached in
+     * memory, so that the data is dropped together with the details. Nothing is attached if equal
+     * details aren't cached. Can be called on any thread.
+     */
+    public void attachToCachedQuestionDetails(QuestionDetails questionDetails, Object attachment) {
+        CachedQuestionDetails cachedQuestionDetails = getCachedQuestionDetails(questionDetails);
+        if (cachedQuestionDetails != null) {
+            cachedQuestionDetails.mAttachment = attachment;
+        }
+    }
+
+    /**
+     * @return the data attached to the cached details equal to the given ones, or null
+     */
+    public Object getAttachment(QuestionDetails questionDetails) {
+        CachedQuestionDetails cachedQuestionDetails = getCachedQuestionDetails(questionDetails);
+        return cachedQuestionDetails == null ? null : cachedQuestionDetails.mAttachment;
+    }
+
+    private CachedQuestionDetails getCachedQuestionDetails(QuestionDetails questionDetails) {
+        CachedQuestionDetails cachedQuestionDetails = mQuestionDetailsCache.get(toCacheKey(questionDetails.getId()));
+        if (cachedQuestionDetails == null || !cachedQuestionDetails.mQuestionDetails.equals(questionDetails)) {
+            return null;
+        }
+        return cachedQuestionDetails;
+    }
+
     private boolean serveQuestionDetailsFromCacheIfValid(String questionId) {
-        final QuestionDetailsCacheEntry cachedQuestionDetailsEntry = mQuestionDetailsCache.get(questionId);
-        if (cachedQuestionDetailsEntry != null
-                && mTimeProvider.getCurrentTimestamp() < cachedQuestionDetailsEntry.mCachedTimestamp + CACHE_TIMEOUT_MS) {
-            notifySuccess(cachedQuestionDetailsEntry.mQuestionDetails);
+        CachedQuestionDetails cachedQuestionDetails = mQuestionDetailsCache.get(toCacheKey(questionId));
+        if (cachedQuestionDetails != null) {
+            mCacheHitsCounter.increment();
+            notifySuccess(cachedQuestionDetails.mQuestionDetails);
+            return true;
+        } else {
+            mCacheMissesCounter.increment();
+            return false;
+        }
+    }
+
+    /**
+     * Reads the details on the background executor and invokes the callback on the UI executor
+     */
+    private void readQuestionDetailsFromDisk(final String questionId, final DiskReadCallback callback) {
+        mBackgroundExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                long startNanos = mDiskReadTimer.start();
+                final QuestionDetails storedQuestionDetails = mQuestionsDiskCache.getQuestionDetails(questionId);
+                mDiskReadTimer.stop(startNanos);
+                mUiExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onQuestionDetailsRead(storedQuestionDetails);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * @return true if the listeners were notified with the details from disk
+     */
+    private boolean serveStoredQuestionDetails(QuestionDetails storedQuestionDetails) {
+        if (storedQuestionDetails != null) {
+            notifySuccess(storedQuestionDetails);
             return true;
         } else {
             return false;
         }
     }
 
+    private void deferUntilOnline(String questionId, boolean storedQuestionDetailsServed) {
+        mSyncQueue.add(questionId, SyncQueue.Priority.USER_VISIBLE);
+        if (!storedQuestionDetailsServed) {
+            notifyFailure();
+        }
+    }
+
     private QuestionDetails schemaToQuestionDetails(QuestionSchema questionSchema) {
         return new QuestionDetails(
                 questionSchema.getId(),
@@ -70,25 +446,40 @@ public class FetchQuestionDetailsUseCase extends BaseObservable<FetchQuestionDet
     }
 
     private void notifyFailure() {
-        for (Listener listener : getListeners()) {
-            listener.onQuestionDetailsFetchFailed();
+        Listeners<Listener> listeners = getListeners();
+        for (int i = 0; i < listeners.size(); i++) {
+            Listener listener = listeners.get(i);
+            if (listener != null) {
+                listener.onQuestionDetailsFetchFailed();
+            }
         }
     }
 
     private void notifySuccess(QuestionDetails questionDetails) {
-        for (Listener listener : getListeners()) {
-            listener.onQuestionDetailsFetched(questionDetails);
+        long startNanos = mNotificationTimer.start();
+        Listeners<Listener> listeners = getListeners();
+        for (int i = 0; i < listeners.size(); i++) {
+            Listener listener = listeners.get(i);
+            if (listener != null) {
+                listener.onQuestionDetailsFetched(questionDetails);
+            }
         }
+        mNotificationTimer.stop(startNanos);
     }
 
-    private static class QuestionDetailsCacheEntry {
+    private static class CachedQuestionDetails {
         private final QuestionDetails mQuestionDetails;
-        private final long mCachedTimestamp;
+        // written by other threads (e.g. the renderer's)
+        private volatile Object mAttachment;
 
-        private QuestionDetailsCacheEntry(QuestionDetails questionDetails, long cachedTimestamp) {
+        private CachedQuestionDetails(QuestionDetails questionDetails) {
             mQuestionDetails = questionDetails;
-            mCachedTimestamp = cachedTimestamp;
         }
     }
 
+    private static class FetchRequest {
+        // whether the listeners were served with the details from disk while the request is in flight
+        private boolean mStoredQuestionDetailsServed;
+    }
+
 }
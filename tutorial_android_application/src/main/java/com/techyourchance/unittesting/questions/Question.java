@@ -8,6 +8,9 @@ public class Question {
 
     private final String mTitle;
 
+    // lazily computed, like the hash of String; questions are immutable
+    private int mHashCode;
+
     public Question(String id, String title) {
         mId = id;
         mTitle = title;
@@ -32,6 +35,12 @@ public class Question {
 
     @Override
     public int hashCode() {
-        return Objects.hash(mId, mTitle);
+        // Objects.hash() would allocate a varargs array on every call
+        int hashCode = mHashCode;
+        if (hashCode == 0) {
+            hashCode = 31 * Objects.hashCode(mId) + Objects.hashCode(mTitle);
+            mHashCode = hashCode;
+        }
+        return hashCode;
     }
 }
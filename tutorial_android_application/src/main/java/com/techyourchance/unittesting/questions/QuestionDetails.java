@@ -10,6 +10,9 @@ public class QuestionDetails {
 
     private final String mBody;
 
+    // lazily computed, like the hash of String; details are immutable
+    private int mHashCode;
+
     public QuestionDetails(String id, String title, String body) {
         mId = id;
         mTitle = title;
@@ -40,6 +43,12 @@ public class QuestionDetails {
 
     @Override
     public int hashCode() {
-        return Objects.hash(mId, mTitle, mBody);
+        // Objects.hash() would allocate a varargs array on every call
+        int hashCode = mHashCode;
+        if (hashCode == 0) {
+            hashCode = 31 * (31 * Objects.hashCode(mId) + Objects.hashCode(mTitle)) + Objects.hashCode(mBody);
+            mHashCode = hashCode;
+        }
+        return hashCode;
     }
 }
@@ -0,0 +1,31 @@
+package com.techyourchance.unittesting.questions;
+
+/**
+ * Limits the work done by {@link QuestionDetailsPrefetcher}.
+ */
+public class QuestionDetailsPrefetchPolicy {
+
+    private final int mMaxPrefetchedQuestions;
+    private final int mMaxConcurrentBatches;
+
+    /**
+     * @param maxPrefetchedQuestions how many questions from the top of the given list are prefetched
+     * @param maxConcurrentBatches how many batches of prefetches (i.e. network calls) can be in
+     *                             flight at the same time
+     */
+    public QuestionDetailsPrefetchPolicy(int maxPrefetchedQuestions, int maxConcurrentBatches) {
+        if (maxPrefetchedQuestions < 0 || maxConcurrentBatches < 1) {
+            throw new IllegalArgumentException("invalid limits");
+        }
+        mMaxPrefetchedQuestions = maxPrefetchedQuestions;
+        mMaxConcurrentBatches = maxConcurrentBatches;
+    }
+
+    public int getMaxPrefetchedQuestions() {
+        return mMaxPrefetchedQuestions;
+    }
+
+    public int getMaxConcurrentBatches() {
+        return mMaxConcurrentBatches;
+    }
+}
@@ -0,0 +1,107 @@
+package com.techyourchance.unittesting.questions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Warms up the cache of {@link FetchQuestionDetailsUseCase} with details of the questions the user
+ * is likely to open. The queued prefetches are started together, as a batch, so that the endpoint
+ * fetches them in a single network call. Batches are queued behind each other, so prefetches never
+ * compete with more than a few network calls made on behalf of the user.
+ */
+public class QuestionDetailsPrefetcher implements FetchQuestionDetailsUseCase.PrefetchListener {
+
+    private final FetchQuestionDetailsUseCase mFetchQuestionDetailsUseCase;
+    private final QuestionDetailsPrefetchPolicy mPolicy;
+
+    private final LinkedList<String> mQueuedQuestionIds = new LinkedList<>();
+    // the ids of the prefetches in flight, mapped to the ids of their batches which are still in flight
+    private final Map<String, Set<String>> mInFlightBatchesByQuestionId = new HashMap<>();
+    private int mInFlightBatchesCount;
+
+    public QuestionDetailsPrefetcher(FetchQuestionDetailsUseCase fetchQuestionDetailsUseCase,
+                                     QuestionDetailsPrefetchPolicy policy) {
+        mFetchQuestionDetailsUseCase = fetchQuestionDetailsUseCase;
+        mPolicy = policy;
+    }
+
+    /**
+     * Replaces the queued prefetches with the questions from the top of the given list.
+     */
+    public void prefetch(List<Question> questions) {
+        mQueuedQuestionIds.clear();
+        for (Question question : questions) {
+            if (mQueuedQuestionIds.size() + mInFlightBatchesByQuestionId.size() >= mPolicy.getMaxPrefetchedQuestions()) {
+                break;
+            }
+            if (!mInFlightBatchesByQuestionId.containsKey(question.getId())) {
+                mQueuedQuestionIds.add(question.getId());
+            }
+        }
+        startQueuedPrefetches();
+    }
+
+    /**
+     * Drops the queued prefetches. Prefetches in flight complete, but no new ones are started.
+     */
+    public void cancel() {
+        mQueuedQuestionIds.clear();
+    }
+
+    public int getQueuedPrefetchesCount() {
+        return mQueuedQuestionIds.size();
+    }
+
+    public int getInFlightPrefetchesCount() {
+        return mInFlightBatchesByQuestionId.size();
+    }
+
+    public int getInFlightBatchesCount() {
+        return mInFlightBatchesCount;
+    }
+
+    @Override
+    public void onQuestionDetailsPrefetched(String questionId) {
+        onPrefetchCompleted(questionId);
+    }
+
+    @Override
+    public void onQuestionDetailsPrefetchFailed(String questionId) {
+        // not retried - the details will be fetched if the user opens the question
+        onPrefetchCompleted(questionId);
+    }
+
+    private void onPrefetchCompleted(String questionId) {
+        Set<String> batch = mInFlightBatchesByQuestionId.remove(questionId);
+        if (batch == null) {
+            return;
+        }
+        batch.remove(questionId);
+        if (batch.isEmpty()) {
+            mInFlightBatchesCount--;
+            startQueuedPrefetches();
+        }
+    }
+
+    private void startQueuedPrefetches() {
+        if (mQueuedQuestionIds.isEmpty() || mInFlightBatchesCount >= mPolicy.getMaxConcurrentBatches()) {
+            return;
+        }
+        List<String> questionIds = new ArrayList<>(mQueuedQuestionIds);
+        mQueuedQuestionIds.clear();
+        // the whole batch is registered first, because prefetches can complete synchronously
+        Set<String> batch = new HashSet<>(questionIds);
+        for (String questionId : questionIds) {
+            mInFlightBatchesByQuestionId.put(questionId, batch);
+        }
+        mInFlightBatchesCount++;
+        for (String questionId : questionIds) {
+            mFetchQuestionDetailsUseCase.prefetchQuestionDetails(questionId, this);
+        }
+    }
+}
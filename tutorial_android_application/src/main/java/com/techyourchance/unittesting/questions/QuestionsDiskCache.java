@@ -0,0 +1,208 @@
+package com.techyourchance.unittesting.questions;
+
+import com.techyourchance.unittesting.common.diskstore.DiskKeyValueStore;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Keeps the last known questions on disk, so that screens can be rendered before the network
+ * responds. The data served from here can be arbitrarily old and should always be refreshed.
+ *
+ * Disk errors are not propagated to clients: this cache is an optimization, so an I/O failure
+ * is treated as a cache miss.
+ *
+ * The number of stored question details is capped; the least recently used ones are removed when
+ * the cap is exceeded. Accesses aren't persisted, so after reopening the details are ordered by the
+ * time they were stored.
+ */
+public class QuestionsDiskCache {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final String STORE_NAME = "questions";
+    private static final String LAST_ACTIVE_QUESTIONS_KEY = "last_active_questions";
+    private static final String QUESTION_DETAILS_KEY_PREFIX = "question_details_";
+
+    private final File mDirectory;
+    private final int mMaxQuestionDetailsCount;
+
+    // ids of the stored question details, from the least to the most recently used
+    private final LinkedHashMap<String, Boolean> mQuestionDetailsIds = new LinkedHashMap<>(16, 0.75f, true);
+
+    private DiskKeyValueStore mStore;
+    private boolean mStoreUnavailable;
+
+    public QuestionsDiskCache(File directory, int maxQuestionDetailsCount) {
+        if (maxQuestionDetailsCount <= 0) {
+            throw new IllegalArgumentException("max question details count must be positive: " + maxQuestionDetailsCount);
+        }
+        mDirectory = directory;
+        mMaxQuestionDetailsCount = maxQuestionDetailsCount;
+    }
+
+    public synchronized List<Question> getLastActiveQuestions() {
+        byte[] bytes = read(LAST_ACTIVE_QUESTIONS_KEY);
+        if (bytes == null) {
+            return null;
+        }
+        try {
+            DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes));
+            int questionsCount = input.readInt();
+            List<Question> questions = new ArrayList<>(questionsCount);
+            for (int i = 0; i < questionsCount; i++) {
+                questions.add(new Question(readString(input), readString(input)));
+            }
+            return questions;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public synchronized void putLastActiveQuestions(List<Question> questions) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream output = new DataOutputStream(bytes);
+            output.writeInt(questions.size());
+            for (Question question : questions) {
+                writeString(output, question.getId());
+                writeString(output, question.getTitle());
+            }
+            output.flush();
+            write(LAST_ACTIVE_QUESTIONS_KEY, bytes.toByteArray());
+        } catch (IOException e) {
+            // not cached
+        }
+    }
+
+    public synchronized QuestionDetails getQuestionDetails(String questionId) {
+        byte[] bytes = read(QUESTION_DETAILS_KEY_PREFIX + questionId);
+        if (bytes == null) {
+            return null;
+        }
+        // marks the details as the most recently used ones
+        mQuestionDetailsIds.get(questionId);
+        try {
+            DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes));
+            return new QuestionDetails(readString(input), readString(input), readString(input));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public synchronized void putQuestionDetails(QuestionDetails questionDetails) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream output = new DataOutputStream(bytes);
+            writeString(output, questionDetails.getId());
+            writeString(output, questionDetails.getTitle());
+            writeString(output, questionDetails.getBody());
+            output.flush();
+            if (!write(QUESTION_DETAILS_KEY_PREFIX + questionDetails.getId(), bytes.toByteArray())) {
+                return;
+            }
+        } catch (IOException e) {
+            // not cached
+            return;
+        }
+        mQuestionDetailsIds.put(questionDetails.getId(), true);
+        removeLeastRecentlyUsedQuestionDetails();
+    }
+
+    public synchronized void close() {
+        if (mStore != null) {
+            try {
+                mStore.close();
+            } catch (IOException e) {
+                // nothing to do about it
+            }
+            mStore = null;
+        }
+        mQuestionDetailsIds.clear();
+    }
+
+    private byte[] read(String key) {
+        DiskKeyValueStore store = getStore();
+        if (store == null) {
+            return null;
+        }
+        try {
+            return store.get(key);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return false if the store is unavailable
+     */
+    private boolean write(String key, byte[] value) throws IOException {
+        DiskKeyValueStore store = getStore();
+        if (store == null) {
+            return false;
+        }
+        store.put(key, value);
+        return true;
+    }
+
+    private DiskKeyValueStore getStore() {
+        if (mStore == null && !mStoreUnavailable) {
+            try {
+                mStore = new DiskKeyValueStore(mDirectory, STORE_NAME);
+                for (String key : mStore.keys()) {
+                    if (key.startsWith(QUESTION_DETAILS_KEY_PREFIX)) {
+                        mQuestionDetailsIds.put(key.substring(QUESTION_DETAILS_KEY_PREFIX.length()), true);
+                    }
+                }
+            } catch (IOException e) {
+                // don't retry on each access; the app works without the disk cache
+                mStoreUnavailable = true;
+                close();
+            }
+        }
+        return mStore;
+    }
+
+    private void removeLeastRecentlyUsedQuestionDetails() {
+        Iterator<String> leastRecentlyUsedIds = mQuestionDetailsIds.keySet().iterator();
+        while (mQuestionDetailsIds.size() > mMaxQuestionDetailsCount) {
+            String questionId = leastRecentlyUsedIds.next();
+            leastRecentlyUsedIds.remove();
+            try {
+                mStore.remove(QUESTION_DETAILS_KEY_PREFIX + questionId);
+            } catch (IOException e) {
+                // the details stay on disk until they're overwritten
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream output, String string) throws IOException {
+        if (string == null) {
+            output.writeInt(-1);
+            return;
+        }
+        // DataOutputStream.writeUTF() is limited to 64KB, which isn't enough for question bodies
+        byte[] bytes = string.getBytes(UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
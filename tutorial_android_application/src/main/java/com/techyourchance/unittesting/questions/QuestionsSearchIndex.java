@@ -0,0 +1,341 @@
+package com.techyourchance.unittesting.questions;
+
+import com.techyourchance.unittesting.common.html.HtmlTokenizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * In-memory inverted index over the titles and bodies of the questions which pass through the use
+ * cases. Tokens are case-insensitive runs of letters and digits. A question matches a query if it
+ * contains all the tokens of the query; the last token also matches as a prefix (unless the query
+ * ends with a separator), so that results can be shown while the user types. Results are ranked by
+ * the last activity on the questions, most recent first.
+ *
+ * Updates are incremental: indexing a question again updates only the postings of the tokens it
+ * gained or lost. The index holds up to a maximum number of questions; when it's full, the question
+ * which was indexed least recently is evicted. Thread-safe; indexing (which parses the bodies) and
+ * searching should be done off the UI thread.
+ */
+public class QuestionsSearchIndex {
+
+    public static final long LAST_ACTIVITY_UNKNOWN = 0;
+
+    private static final String[] NO_TOKENS = new String[0];
+
+    private final int mMaxSize;
+    // in the order of indexing, least recent first
+    private final Map<String, Document> mDocumentsByQuestionId = new LinkedHashMap<>(16, 0.75f, true);
+    // position is the id of the document; ids of evicted documents are reused
+    private final List<Document> mDocuments = new ArrayList<>();
+    private final List<Integer> mFreeDocumentIds = new ArrayList<>();
+    private final TreeMap<String, Postings> mPostingsByToken = new TreeMap<>();
+    private long mIndexingsCount;
+
+    // per-document state of the current query; the stamp makes clearing between queries unnecessary
+    private int[] mQueryStamps = new int[16];
+    private int[] mMatchedTokensCounts = new int[16];
+    private int mQueryStamp;
+
+    public QuestionsSearchIndex(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("max size must be positive");
+        }
+        mMaxSize = maxSize;
+    }
+
+    /**
+     * Indexes the title of the question. The body indexed earlier (if any) is kept.
+     * @param lastActivityTimestamp Unix time of the last activity, or {@link #LAST_ACTIVITY_UNKNOWN}
+     */
+    public synchronized void indexQuestion(String questionId, String title, long lastActivityTimestamp) {
+        Document document = getOrCreateDocument(questionId);
+        updateDocument(document, title, tokenize(title), document.mBodyTokens, lastActivityTimestamp);
+    }
+
+    /**
+     * Indexes the title and the HTML body of the question.
+     * @param lastActivityTimestamp Unix time of the last activity, or {@link #LAST_ACTIVITY_UNKNOWN}
+     */
+    public synchronized void indexQuestionDetails(String questionId,
+                                                  String title,
+                                                  String htmlBody,
+                                                  long lastActivityTimestamp) {
+        Document document = getOrCreateDocument(questionId);
+        updateDocument(document, title, tokenize(title), tokenizeHtml(htmlBody), lastActivityTimestamp);
+    }
+
+    /**
+     * @return up to maxResults matching questions, most recently active first
+     */
+    public synchronized List<Question> search(String query, int maxResults) {
+        String[] queryTokens = tokenize(query);
+        if (queryTokens.length == 0 || maxResults <= 0 || mDocumentsByQuestionId.isEmpty()) {
+            return Collections.emptyList();
+        }
+        boolean lastTokenIsPrefix = Character.isLetterOrDigit(query.charAt(query.length() - 1));
+
+        mQueryStamp++;
+        TopDocuments topDocuments = new TopDocuments(Math.min(maxResults, mDocumentsByQuestionId.size()));
+        for (int i = 0; i < queryTokens.length; i++) {
+            boolean lastToken = i == queryTokens.length - 1;
+            if (lastToken && lastTokenIsPrefix) {
+                String token = queryTokens[i];
+                for (Postings postings : mPostingsByToken.subMap(token, token + Character.MAX_VALUE).values()) {
+                    match(postings, i, queryTokens.length, topDocuments);
+                }
+            } else {
+                Postings postings = mPostingsByToken.get(queryTokens[i]);
+                if (postings == null) {
+                    return Collections.emptyList();
+                }
+                match(postings, i, queryTokens.length, topDocuments);
+            }
+        }
+        return topDocuments.toQuestions();
+    }
+
+    /**
+     * @return the number of indexed questions
+     */
+    public synchronized int size() {
+        return mDocumentsByQuestionId.size();
+    }
+
+    private void match(Postings postings, int tokenIndex, int tokensCount, TopDocuments topDocuments) {
+        for (int i = 0; i < postings.mSize; i++) {
+            int documentId = postings.mDocumentIds[i];
+            if (mQueryStamps[documentId] != mQueryStamp) {
+                if (tokenIndex != 0) {
+                    continue;
+                }
+                mQueryStamps[documentId] = mQueryStamp;
+                mMatchedTokensCounts[documentId] = 1;
+            } else if (mMatchedTokensCounts[documentId] == tokenIndex) {
+                mMatchedTokensCounts[documentId]++;
+            } else {
+                // didn't match a previous token, or already matched this one through another prefix
+                continue;
+            }
+            if (mMatchedTokensCounts[documentId] == tokensCount) {
+                topDocuments.offer(mDocuments.get(documentId));
+            }
+        }
+    }
+
+    private Document getOrCreateDocument(String questionId) {
+        mIndexingsCount++;
+        // access order, so this also marks the document as the most recently indexed one
+        Document document = mDocumentsByQuestionId.get(questionId);
+        if (document != null) {
+            document.mIndexingNumber = mIndexingsCount;
+            return document;
+        }
+        if (mDocumentsByQuestionId.size() == mMaxSize) {
+            evictLeastRecentDocument();
+        }
+        if (!mFreeDocumentIds.isEmpty()) {
+            document = new Document(mFreeDocumentIds.remove(mFreeDocumentIds.size() - 1), questionId);
+            mDocuments.set(document.mId, document);
+        } else {
+            document = new Document(mDocuments.size(), questionId);
+            mDocuments.add(document);
+            if (mQueryStamps.length < mDocuments.size()) {
+                mQueryStamps = Arrays.copyOf(mQueryStamps, mQueryStamps.length * 2);
+                mMatchedTokensCounts = Arrays.copyOf(mMatchedTokensCounts, mMatchedTokensCounts.length * 2);
+            }
+        }
+        document.mIndexingNumber = mIndexingsCount;
+        mDocumentsByQuestionId.put(questionId, document);
+        return document;
+    }
+
+    private void evictLeastRecentDocument() {
+        Iterator<Document> iterator = mDocumentsByQuestionId.values().iterator();
+        Document document = iterator.next();
+        iterator.remove();
+        for (String token : document.getTokens()) {
+            removePosting(token, document.mId);
+        }
+        mDocuments.set(document.mId, null);
+        mFreeDocumentIds.add(document.mId);
+    }
+
+    private void removePosting(String token, int documentId) {
+        Postings postings = mPostingsByToken.get(token);
+        postings.remove(documentId);
+        if (postings.mSize == 0) {
+            mPostingsByToken.remove(token);
+        }
+    }
+
+    private void updateDocument(Document document,
+                                String title,
+                                String[] titleTokens,
+                                String[] bodyTokens,
+                                long lastActivityTimestamp) {
+        Set<String> oldTokens = document.getTokens();
+        document.mTitle = title;
+        document.mTitleTokens = titleTokens;
+        document.mBodyTokens = bodyTokens;
+        // activity only moves forward, and unknown activity mustn't demote the question
+        document.mLastActivityTimestamp = Math.max(document.mLastActivityTimestamp, lastActivityTimestamp);
+        Set<String> newTokens = document.getTokens();
+
+        for (String token : oldTokens) {
+            if (!newTokens.contains(token)) {
+                removePosting(token, document.mId);
+            }
+        }
+        for (String token : newTokens) {
+            if (!oldTokens.contains(token)) {
+                Postings postings = mPostingsByToken.get(token);
+                if (postings == null) {
+                    postings = new Postings();
+                    mPostingsByToken.put(token, postings);
+                }
+                postings.add(document.mId);
+            }
+        }
+    }
+
+    private static String[] tokenizeHtml(String html) {
+        if (html == null) {
+            return NO_TOKENS;
+        }
+        Set<String> tokens = new LinkedHashSet<>();
+        HtmlTokenizer tokenizer = new HtmlTokenizer(html);
+        while (tokenizer.next() != HtmlTokenizer.END_OF_INPUT) {
+            if (tokenizer.getTokenType() == HtmlTokenizer.TEXT) {
+                tokenize(tokenizer.getText(), tokens);
+            }
+        }
+        return tokens.toArray(new String[tokens.size()]);
+    }
+
+    private static String[] tokenize(String text) {
+        if (text == null) {
+            return NO_TOKENS;
+        }
+        Set<String> tokens = new LinkedHashSet<>();
+        tokenize(text, tokens);
+        return tokens.toArray(new String[tokens.size()]);
+    }
+
+    private static void tokenize(String text, Set<String> tokens) {
+        int tokenStart = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean tokenChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (tokenChar && tokenStart < 0) {
+                tokenStart = i;
+            } else if (!tokenChar && tokenStart >= 0) {
+                tokens.add(text.substring(tokenStart, i).toLowerCase(Locale.ROOT));
+                tokenStart = -1;
+            }
+        }
+    }
+
+    private static class Document {
+
+        private final int mId;
+        private final String mQuestionId;
+        private String mTitle;
+        private String[] mTitleTokens = NO_TOKENS;
+        private String[] mBodyTokens = NO_TOKENS;
+        private long mLastActivityTimestamp = LAST_ACTIVITY_UNKNOWN;
+        private long mIndexingNumber;
+
+        private Document(int id, String questionId) {
+            mId = id;
+            mQuestionId = questionId;
+        }
+
+        private Set<String> getTokens() {
+            Set<String> tokens = new LinkedHashSet<>(Arrays.asList(mTitleTokens));
+            tokens.addAll(Arrays.asList(mBodyTokens));
+            return tokens;
+        }
+
+        /**
+         * @return true if this document should be ranked above the other one
+         */
+        private boolean isMoreRecentThan(Document other) {
+            if (mLastActivityTimestamp != other.mLastActivityTimestamp) {
+                return mLastActivityTimestamp > other.mLastActivityTimestamp;
+            }
+            // questions indexed later are more likely to be recent
+            return mIndexingNumber > other.mIndexingNumber;
+        }
+    }
+
+    /**
+     * Ids of the documents which contain a token, in no particular order.
+     */
+    private static class Postings {
+
+        private int[] mDocumentIds = new int[2];
+        private int mSize;
+
+        private void add(int documentId) {
+            if (mSize == mDocumentIds.length) {
+                mDocumentIds = Arrays.copyOf(mDocumentIds, mSize * 2);
+            }
+            mDocumentIds[mSize++] = documentId;
+        }
+
+        private void remove(int documentId) {
+            for (int i = 0; i < mSize; i++) {
+                if (mDocumentIds[i] == documentId) {
+                    mDocumentIds[i] = mDocumentIds[--mSize];
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * The most recent documents offered so far, sorted from the most recent one.
+     */
+    private static class TopDocuments {
+
+        private final Document[] mDocuments;
+        private int mSize;
+
+        private TopDocuments(int maxSize) {
+            mDocuments = new Document[maxSize];
+        }
+
+        private void offer(Document document) {
+            if (mSize == mDocuments.length) {
+                if (!document.isMoreRecentThan(mDocuments[mSize - 1])) {
+                    return;
+                }
+                mSize--;
+            }
+            int position = mSize;
+            while (position > 0 && document.isMoreRecentThan(mDocuments[position - 1])) {
+                mDocuments[position] = mDocuments[position - 1];
+                position--;
+            }
+            mDocuments[position] = document;
+            mSize++;
+        }
+
+        private List<Question> toQuestions() {
+            List<Question> questions = new ArrayList<>(mSize);
+            for (int i = 0; i < mSize; i++) {
+                questions.add(new Question(mDocuments[i].mQuestionId, mDocuments[i].mTitle));
+            }
+            return questions;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.techyourchance.unittesting.questions;
+
+import com.techyourchance.unittesting.common.connectivity.ConnectivityMonitor;
+import com.techyourchance.unittesting.common.sync.SyncQueue;
+
+/**
+ * Refreshes the questions which the use cases couldn't fetch while the device was offline, once
+ * it's back online. User-visible refreshes are started right away and their results are delivered
+ * to the listeners of the use cases (if any). Background refreshes only warm up the caches, and are
+ * queued behind each other like the prefetches of {@link QuestionDetailsPrefetcher}.
+ *
+ * Must be used on the UI thread, and connectivity changes must be reported on the UI thread.
+ */
+public class QuestionsSyncWorker implements
+        ConnectivityMonitor.Listener, FetchQuestionDetailsUseCase.PrefetchListener {
+
+    public static final int MAX_CONCURRENT_BACKGROUND_SYNCS = 2;
+
+    private final SyncQueue<String> mSyncQueue;
+    private final ConnectivityMonitor mConnectivityMonitor;
+    private final FetchLastActiveQuestionsUseCase mFetchLastActiveQuestionsUseCase;
+    private final FetchQuestionDetailsUseCase mFetchQuestionDetailsUseCase;
+
+    private int mInFlightBackgroundSyncsCount;
+
+    public QuestionsSyncWorker(SyncQueue<String> syncQueue,
+                               ConnectivityMonitor connectivityMonitor,
+                               FetchLastActiveQuestionsUseCase fetchLastActiveQuestionsUseCase,
+                               FetchQuestionDetailsUseCase fetchQuestionDetailsUseCase) {
+        mSyncQueue = syncQueue;
+        mConnectivityMonitor = connectivityMonitor;
+        mFetchLastActiveQuestionsUseCase = fetchLastActiveQuestionsUseCase;
+        mFetchQuestionDetailsUseCase = fetchQuestionDetailsUseCase;
+    }
+
+    public void start() {
+        mConnectivityMonitor.registerListener(this);
+        drainSyncQueue();
+    }
+
+    public void stop() {
+        mConnectivityMonitor.unregisterListener(this);
+    }
+
+    @Override
+    public void onConnectivityChanged(boolean connected) {
+        if (connected) {
+            drainSyncQueue();
+        }
+    }
+
+    @Override
+    public void onQuestionDetailsPrefetched(String questionId) {
+        mInFlightBackgroundSyncsCount--;
+        drainSyncQueue();
+    }
+
+    @Override
+    public void onQuestionDetailsPrefetchFailed(String questionId) {
+        // if the device went offline again, the use case queued the question again
+        mInFlightBackgroundSyncsCount--;
+        drainSyncQueue();
+    }
+
+    public int getInFlightBackgroundSyncsCount() {
+        return mInFlightBackgroundSyncsCount;
+    }
+
+    private void drainSyncQueue() {
+        String key;
+        while (mConnectivityMonitor.isConnected()
+                && (key = mSyncQueue.poll(SyncQueue.Priority.USER_VISIBLE)) != null) {
+            if (FetchLastActiveQuestionsUseCase.SYNC_KEY.equals(key)) {
+                mFetchLastActiveQuestionsUseCase.fetchLastActiveQuestionsAndNotify();
+            } else {
+                mFetchQuestionDetailsUseCase.fetchQuestionDetailsAndNotify(key);
+            }
+        }
+        while (mConnectivityMonitor.isConnected()
+                && mInFlightBackgroundSyncsCount < MAX_CONCURRENT_BACKGROUND_SYNCS
+                && (key = mSyncQueue.poll(SyncQueue.Priority.BACKGROUND)) != null) {
+            mInFlightBackgroundSyncsCount++;
+            mFetchQuestionDetailsUseCase.prefetchQuestionDetails(key, this);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.techyourchance.unittesting.questions;
+
+import com.techyourchance.unittesting.common.BaseObservable;
+import com.techyourchance.unittesting.common.instrumentation.Metrics;
+import com.techyourchance.unittesting.common.instrumentation.Timer;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Searches the questions which were fetched by the other use cases (see {@link QuestionsSearchIndex}).
+ * It must be called on the UI thread; queries run on the background executor, and listeners are
+ * notified on the UI executor. Results of a query which was superseded by a newer one before it
+ * completed are dropped, so listeners can search while the user types.
+ */
+public class SearchQuestionsUseCase extends BaseObservable<SearchQuestionsUseCase.Listener> {
+
+    public interface Listener {
+        void onQuestionsFound(String query, List<Question> questions);
+    }
+
+    public static final int MAX_RESULTS = 50;
+
+    public static final String SEARCH_TIMER = "questions_search";
+
+    private final QuestionsSearchIndex mQuestionsSearchIndex;
+    private final Executor mBackgroundExecutor;
+    private final Executor mUiExecutor;
+    private final Timer mSearchTimer;
+
+    private int mLatestQueryNumber;
+
+    public SearchQuestionsUseCase(QuestionsSearchIndex questionsSearchIndex,
+                                  Metrics metrics,
+                                  Executor backgroundExecutor,
+                                  Executor uiExecutor) {
+        mQuestionsSearchIndex = questionsSearchIndex;
+        mBackgroundExecutor = backgroundExecutor;
+        mUiExecutor = uiExecutor;
+        mSearchTimer = metrics.timer(SEARCH_TIMER);
+    }
+
+    public void searchQuestionsAndNotify(final String query) {
+        final int queryNumber = ++mLatestQueryNumber;
+        mBackgroundExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                long startNanos = mSearchTimer.start();
+                final List<Question> questions = mQuestionsSearchIndex.search(query, MAX_RESULTS);
+                mSearchTimer.stop(startNanos);
+                mUiExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (queryNumber == mLatestQueryNumber) {
+                            notifySuccess(query, questions);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void notifySuccess(String query, List<Question> questions) {
+        Listeners<Listener> listeners = getListeners();
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onQuestionsFound(query, questions);
+        }
+    }
+}
@@ -15,18 +15,28 @@ import com.techyourchance.unittesting.screens.questionslist.QuestionsListViewMvc
 import com.techyourchance.unittesting.screens.questionslist.questionslistitem.QuestionsListItemViewMvc;
 import com.techyourchance.unittesting.screens.questionslist.questionslistitem.QuestionsListItemViewMvcImpl;
 
+import java.util.concurrent.Executor;
+
 public class ViewMvcFactory {
 
     private final LayoutInflater mLayoutInflater;
     private final NavDrawerHelper mNavDrawerHelper;
+    private final Executor mBackgroundExecutor;
+    private final Executor mUiExecutor;
 
-    public ViewMvcFactory(LayoutInflater layoutInflater, NavDrawerHelper navDrawerHelper) {
+    public ViewMvcFactory(LayoutInflater layoutInflater,
+                          NavDrawerHelper navDrawerHelper,
+                          Executor backgroundExecutor,
+                          Executor uiExecutor) {
         mLayoutInflater = layoutInflater;
         mNavDrawerHelper = navDrawerHelper;
+        mBackgroundExecutor = backgroundExecutor;
+        mUiExecutor = uiExecutor;
     }
 
     public QuestionsListViewMvc getQuestionsListViewMvc(@Nullable ViewGroup parent) {
-        return new QuestionsListViewMvcImpl(mLayoutInflater, parent, mNavDrawerHelper, this);
+        return new QuestionsListViewMvcImpl(
+                mLayoutInflater, parent, mNavDrawerHelper, this, mBackgroundExecutor, mUiExecutor);
     }
 
     public QuestionsListItemViewMvc getQuestionsListItemViewMvc(@Nullable ViewGroup parent) {
@@ -1,25 +1,42 @@
 package com.techyourchance.unittesting.screens.questiondetails;
 
+import com.techyourchance.unittesting.common.instrumentation.Metrics;
+import com.techyourchance.unittesting.common.instrumentation.Timer;
 import com.techyourchance.unittesting.questions.FetchQuestionDetailsUseCase;
 import com.techyourchance.unittesting.questions.QuestionDetails;
 import com.techyourchance.unittesting.screens.common.screensnavigator.ScreensNavigator;
 import com.techyourchance.unittesting.screens.common.toastshelper.ToastsHelper;
 
-public class QuestionDetailsController implements QuestionDetailsViewMvc.Listener, FetchQuestionDetailsUseCase.Listener {
+public class QuestionDetailsController implements
+        QuestionDetailsViewMvc.Listener,
+        FetchQuestionDetailsUseCase.Listener,
+        QuestionDetailsRenderer.Listener {
+
+    public static final String BIND_TIMER = "question_details_bind";
 
     private final FetchQuestionDetailsUseCase mFetchQuestionDetailsUseCase;
     private final ScreensNavigator mScreensNavigator;
     private final ToastsHelper mToastsHelper;
+    private final QuestionDetailsRenderer mQuestionDetailsRenderer;
+    private final Timer mBindTimer;
 
     private String mQuestionId;
     private QuestionDetailsViewMvc mViewMvc;
 
+    // only the rendering of the latest fetched details is shown; incomplete renderings are shown
+    // while the complete one is awaited
+    private QuestionDetails mAwaitedRendering;
+
     public QuestionDetailsController(FetchQuestionDetailsUseCase fetchQuestionDetailsUseCase,
                                      ScreensNavigator screensNavigator,
-                                     ToastsHelper toastsHelper) {
+                                     ToastsHelper toastsHelper,
+                                     QuestionDetailsRenderer questionDetailsRenderer,
+                                     Metrics metrics) {
         mFetchQuestionDetailsUseCase = fetchQuestionDetailsUseCase;
         mScreensNavigator = screensNavigator;
         mToastsHelper = toastsHelper;
+        mQuestionDetailsRenderer = questionDetailsRenderer;
+        mBindTimer = metrics.timer(BIND_TIMER);
     }
 
     public void bindQuestionId(String questionId) {
@@ -41,11 +58,36 @@ public class QuestionDetailsController implements QuestionDetailsViewMvc.Listene
     public void onStop() {
         mViewMvc.unregisterListener(this);
         mFetchQuestionDetailsUseCase.unregisterListener(this);
+        mAwaitedRendering = null;
     }
 
     @Override
     public void onQuestionDetailsFetched(QuestionDetails questionDetails) {
-        mViewMvc.bindQuestion(questionDetails);
+        RenderedQuestionDetails renderedQuestionDetails = mQuestionDetailsRenderer.getRendered(questionDetails);
+        if (renderedQuestionDetails != null) {
+            mAwaitedRendering = null;
+            bindQuestion(renderedQuestionDetails);
+        } else {
+            mAwaitedRendering = questionDetails;
+            mQuestionDetailsRenderer.renderAndNotify(questionDetails, this);
+        }
+    }
+
+    @Override
+    public void onQuestionDetailsRendered(RenderedQuestionDetails renderedQuestionDetails) {
+        if (renderedQuestionDetails.getQuestionDetails() != mAwaitedRendering) {
+            return;
+        }
+        if (renderedQuestionDetails.isComplete()) {
+            mAwaitedRendering = null;
+        }
+        bindQuestion(renderedQuestionDetails);
+    }
+
+    private void bindQuestion(RenderedQuestionDetails renderedQuestionDetails) {
+        long startNanos = mBindTimer.start();
+        mViewMvc.bindQuestion(renderedQuestionDetails);
+        mBindTimer.stop(startNanos);
         mViewMvc.hideProgressIndication();
     }
 
@@ -0,0 +1,115 @@
+package com.techyourchance.unittesting.screens.questiondetails;
+
+import com.techyourchance.unittesting.common.html.HtmlStyledTextParser;
+import com.techyourchance.unittesting.common.html.StyledTextConverter;
+import com.techyourchance.unittesting.common.instrumentation.Metrics;
+import com.techyourchance.unittesting.common.instrumentation.Timer;
+import com.techyourchance.unittesting.questions.FetchQuestionDetailsUseCase;
+import com.techyourchance.unittesting.questions.QuestionDetails;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Renders the HTML of question details on a background thread and attaches the results to the
+ * details cached by {@link FetchQuestionDetailsUseCase}, so that showing the same question details
+ * again doesn't involve any parsing, and the results are dropped together with the details. Only
+ * equal details are served the attached result, so a changed title or body is never served.
+ *
+ * The beginning of a long body is delivered as an incomplete rendering before the rest of the body
+ * is parsed, so the first screen of the question can be shown early.
+ */
+public class QuestionDetailsRenderer {
+
+    public interface Listener {
+        void onQuestionDetailsRendered(RenderedQuestionDetails renderedQuestionDetails);
+    }
+
+    public static final String RENDER_TIMER = "question_details_render";
+    public static final String FIRST_SCREEN_RENDER_TIMER = "question_details_first_screen_render";
+
+    // roughly the amount of text that fits on a phone screen
+    private static final int FIRST_SCREEN_TEXT_LENGTH = 1500;
+
+    private final StyledTextConverter mStyledTextConverter;
+    private final FetchQuestionDetailsUseCase mFetchQuestionDetailsUseCase;
+    private final Executor mBackgroundExecutor;
+    private final Executor mMainThreadExecutor;
+    private final Timer mRenderTimer;
+    private final Timer mFirstScreenRenderTimer;
+
+    public QuestionDetailsRenderer(StyledTextConverter styledTextConverter,
+                                   FetchQuestionDetailsUseCase fetchQuestionDetailsUseCase,
+                                   Executor backgroundExecutor,
+                                   Executor mainThreadExecutor,
+                                   Metrics metrics) {
+        mStyledTextConverter = styledTextConverter;
+        mFetchQuestionDetailsUseCase = fetchQuestionDetailsUseCase;
+        mBackgroundExecutor = backgroundExecutor;
+        mMainThreadExecutor = mainThreadExecutor;
+        mRenderTimer = metrics.timer(RENDER_TIMER);
+        mFirstScreenRenderTimer = metrics.timer(FIRST_SCREEN_RENDER_TIMER);
+    }
+
+    /**
+     * @return the rendering attached to these question details, or null
+     */
+    public RenderedQuestionDetails getRendered(QuestionDetails questionDetails) {
+        Object attachment = mFetchQuestionDetailsUseCase.getAttachment(questionDetails);
+        return attachment instanceof RenderedQuestionDetails ? (RenderedQuestionDetails) attachment : null;
+    }
+
+    /**
+     * Renders the question details on a background thread and notifies the listener on the main
+     * thread. If the body is long, the listener is first notified with an incomplete rendering.
+     */
+    public void renderAndNotify(final QuestionDetails questionDetails, final Listener listener) {
+        mBackgroundExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                RenderedQuestionDetails renderedQuestionDetails = render(questionDetails, listener);
+                mFetchQuestionDetailsUseCase.attachToCachedQuestionDetails(questionDetails, renderedQuestionDetails);
+                notifyRendered(renderedQuestionDetails, listener);
+            }
+        });
+    }
+
+    private RenderedQuestionDetails render(QuestionDetails questionDetails, Listener listener) {
+        long startNanos = mRenderTimer.start();
+
+        HtmlStyledTextParser titleParser = createParser(questionDetails.getTitle());
+        titleParser.parseAll();
+        CharSequence title = convert(titleParser);
+
+        HtmlStyledTextParser bodyParser = createParser(questionDetails.getBody());
+        if (!bodyParser.parseUntil(FIRST_SCREEN_TEXT_LENGTH)) {
+            notifyRendered(
+                    new RenderedQuestionDetails(questionDetails, title, convert(bodyParser), false),
+                    listener
+            );
+            mFirstScreenRenderTimer.stop(startNanos);
+        }
+
+        bodyParser.parseAll();
+        RenderedQuestionDetails renderedQuestionDetails =
+                new RenderedQuestionDetails(questionDetails, title, convert(bodyParser), true);
+        mRenderTimer.stop(startNanos);
+        return renderedQuestionDetails;
+    }
+
+    private HtmlStyledTextParser createParser(String html) {
+        return new HtmlStyledTextParser(html == null ? "" : html);
+    }
+
+    private CharSequence convert(HtmlStyledTextParser parser) {
+        return mStyledTextConverter.convert(parser.getStyledText());
+    }
+
+    private void notifyRendered(final RenderedQuestionDetails renderedQuestionDetails, final Listener listener) {
+        mMainThreadExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                listener.onQuestionDetailsRendered(renderedQuestionDetails);
+            }
+        });
+    }
+}
@@ -1,6 +1,5 @@
 package com.techyourchance.unittesting.screens.questiondetails;
 
-import com.techyourchance.unittesting.questions.QuestionDetails;
 import com.techyourchance.unittesting.screens.common.views.ObservableViewMvc;
 
 public interface QuestionDetailsViewMvc extends ObservableViewMvc<QuestionDetailsViewMvc.Listener> {
@@ -9,7 +8,7 @@ public interface QuestionDetailsViewMvc extends ObservableViewMvc<QuestionDetail
         void onNavigateUpClicked();
     }
 
-    void bindQuestion(QuestionDetails question);
+    void bindQuestion(RenderedQuestionDetails question);
 
     void showProgressIndication();
 
@@ -1,7 +1,6 @@
 package com.techyourchance.unittesting.screens.questiondetails;
 
 import android.support.v7.widget.Toolbar;
-import android.text.Html;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -9,7 +8,6 @@ import android.widget.ProgressBar;
 import android.widget.TextView;
 
 import com.techyourchance.unittesting.R;
-import com.techyourchance.unittesting.questions.QuestionDetails;
 import com.techyourchance.unittesting.screens.common.ViewMvcFactory;
 import com.techyourchance.unittesting.screens.common.toolbar.ToolbarViewMvc;
 import com.techyourchance.unittesting.screens.common.views.BaseObservableViewMvc;
@@ -56,17 +54,9 @@ public class QuestionDetailsViewMvcImpl extends BaseObservableViewMvc<QuestionDe
     }
 
     @Override
-    public void bindQuestion(QuestionDetails question) {
-        String questionTitle = question.getTitle();
-        String questionBody = question.getBody();
-
-        if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.N) {
-            mTxtQuestionTitle.setText(Html.fromHtml(questionTitle, Html.FROM_HTML_MODE_LEGACY));
-            mTxtQuestionBody.setText(Html.fromHtml(questionBody, Html.FROM_HTML_MODE_LEGACY));
-        } else {
-            mTxtQuestionTitle.setText(Html.fromHtml(questionTitle));
-            mTxtQuestionBody.setText(Html.fromHtml(questionBody));
-        }
+    public void bindQuestion(RenderedQuestionDetails question) {
+        mTxtQuestionTitle.setText(question.getTitle());
+        mTxtQuestionBody.setText(question.getBody());
     }
 
 
@@ -0,0 +1,41 @@
+package com.techyourchance.unittesting.screens.questiondetails;
+
+import com.techyourchance.unittesting.questions.QuestionDetails;
+
+/**
+ * Question details with the title and the body already converted from HTML into styled text. The
+ * body of an incomplete rendering contains only the beginning of the question.
+ */
+public class RenderedQuestionDetails {
+
+    private final QuestionDetails mQuestionDetails;
+    private final CharSequence mTitle;
+    private final CharSequence mBody;
+    private final boolean mComplete;
+
+    public RenderedQuestionDetails(QuestionDetails questionDetails,
+                                   CharSequence title,
+                                   CharSequence body,
+                                   boolean complete) {
+        mQuestionDetails = questionDetails;
+        mTitle = title;
+        mBody = body;
+        mComplete = complete;
+    }
+
+    public QuestionDetails getQuestionDetails() {
+        return mQuestionDetails;
+    }
+
+    public CharSequence getTitle() {
+        return mTitle;
+    }
+
+    public CharSequence getBody() {
+        return mBody;
+    }
+
+    public boolean isComplete() {
+        return mComplete;
+    }
+}
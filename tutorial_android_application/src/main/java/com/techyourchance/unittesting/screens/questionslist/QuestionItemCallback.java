@@ -0,0 +1,23 @@
+package com.techyourchance.unittesting.screens.questionslist;
+
+import com.techyourchance.unittesting.common.diff.ListDiffer;
+import com.techyourchance.unittesting.questions.Question;
+
+import java.util.Objects;
+
+/**
+ * Matches questions by id when the questions list is diffed; a question is re-bound only when its
+ * title changed. Titles can be null.
+ */
+class QuestionItemCallback implements ListDiffer.ItemCallback<Question> {
+
+    @Override
+    public Object getItemId(Question question) {
+        return question.getId();
+    }
+
+    @Override
+    public boolean areContentsTheSame(Question oldQuestion, Question newQuestion) {
+        return Objects.equals(oldQuestion.getTitle(), newQuestion.getTitle());
+    }
+}
@@ -1,8 +1,11 @@
 package com.techyourchance.unittesting.screens.questionslist;
 
+import com.techyourchance.unittesting.common.Constants;
+import com.techyourchance.unittesting.common.cache.StaleWhileRevalidatePolicy;
 import com.techyourchance.unittesting.common.time.TimeProvider;
 import com.techyourchance.unittesting.questions.FetchLastActiveQuestionsUseCase;
 import com.techyourchance.unittesting.questions.Question;
+import com.techyourchance.unittesting.questions.QuestionDetailsPrefetcher;
 import com.techyourchance.unittesting.screens.common.screensnavigator.ScreensNavigator;
 import com.techyourchance.unittesting.screens.common.toastshelper.ToastsHelper;
 
@@ -12,25 +15,50 @@ public class QuestionsListController  implements
         QuestionsListViewMvc.Listener,
         FetchLastActiveQuestionsUseCase.Listener {
 
-    private static final int CACHE_TIMEOUT_MS = 10000;
+    private static final long FRESH_WINDOW_MS = 10000;
+    private static final long STALE_WINDOW_MS = 5 * 60 * 1000;
+    private static final int MAX_RESIDENT_PAGES = 5;
+    private static final int PREFETCH_DISTANCE = Constants.QUESTIONS_LIST_PAGE_SIZE / 2;
 
     private final FetchLastActiveQuestionsUseCase mFetchLastActiveQuestionsUseCase;
     private final ScreensNavigator mScreensNavigator;
     private final ToastsHelper mToastsHelper;
     private final TimeProvider mTimeProvider;
+    private final QuestionDetailsPrefetcher mQuestionDetailsPrefetcher;
+    private final StaleWhileRevalidatePolicy mCachePolicy;
+    private final QuestionsPager mQuestionsPager = new QuestionsPager(MAX_RESIDENT_PAGES, PREFETCH_DISTANCE);
 
     private QuestionsListViewMvc mViewMvc;
     private List<Question> mQuestions;
-    private long mLastCachedTimestamp;
+    private long mQuestionsFetchTimestamp;
 
     public QuestionsListController(FetchLastActiveQuestionsUseCase fetchLastActiveQuestionsUseCase,
                                    ScreensNavigator screensNavigator,
                                    ToastsHelper toastsHelper,
-                                   TimeProvider timeProvider) {
+                                   TimeProvider timeProvider,
+                                   QuestionDetailsPrefetcher questionDetailsPrefetcher) {
+        this(
+                fetchLastActiveQuestionsUseCase,
+                screensNavigator,
+                toastsHelper,
+                timeProvider,
+                questionDetailsPrefetcher,
+                new StaleWhileRevalidatePolicy(FRESH_WINDOW_MS, STALE_WINDOW_MS)
+        );
+    }
+
+    public QuestionsListController(FetchLastActiveQuestionsUseCase fetchLastActiveQuestionsUseCase,
+                                   ScreensNavigator screensNavigator,
+                                   ToastsHelper toastsHelper,
+                                   TimeProvider timeProvider,
+                                   QuestionDetailsPrefetcher questionDetailsPrefetcher,
+                                   StaleWhileRevalidatePolicy cachePolicy) {
         mFetchLastActiveQuestionsUseCase = fetchLastActiveQuestionsUseCase;
         mScreensNavigator = screensNavigator;
         mToastsHelper = toastsHelper;
         mTimeProvider = timeProvider;
+        mQuestionDetailsPrefetcher = questionDetailsPrefetcher;
+        mCachePolicy = cachePolicy;
     }
 
     public void bindView(QuestionsListViewMvc viewMvc) {
@@ -41,40 +69,95 @@ public class QuestionsListController  implements
         mViewMvc.registerListener(this);
         mFetchLastActiveQuestionsUseCase.registerListener(this);
 
-        if (isCachedDataValid()) {
-            mViewMvc.bindQuestions(mQuestions);
-        } else {
-            mViewMvc.showProgressIndication();
-            mFetchLastActiveQuestionsUseCase.fetchLastActiveQuestionsAndNotify();
+        switch (getCachedDataFreshness()) {
+            case FRESH:
+                mViewMvc.bindQuestions(mQuestionsPager.getQuestions());
+                break;
+            case STALE:
+                // show what we have right away and refresh in the background
+                mViewMvc.bindQuestions(mQuestionsPager.getQuestions());
+                mFetchLastActiveQuestionsUseCase.fetchLastActiveQuestionsAndNotify();
+                break;
+            case EXPIRED:
+                mQuestions = null;
+                mQuestionsPager.reset();
+                mViewMvc.showProgressIndication();
+                mFetchLastActiveQuestionsUseCase.fetchLastActiveQuestionsAndNotify();
+                break;
         }
     }
 
-    private boolean isCachedDataValid() {
-        return mQuestions != null
-                && mTimeProvider.getCurrentTimestamp() < mLastCachedTimestamp + CACHE_TIMEOUT_MS;
+    private StaleWhileRevalidatePolicy.Freshness getCachedDataFreshness() {
+        if (mQuestions == null) {
+            return StaleWhileRevalidatePolicy.Freshness.EXPIRED;
+        }
+        if (mQuestionsFetchTimestamp == FetchLastActiveQuestionsUseCase.FETCH_TIMESTAMP_UNKNOWN) {
+            // questions of unknown age (e.g. from disk) are shown, but always refreshed
+            return StaleWhileRevalidatePolicy.Freshness.STALE;
+        }
+        return mCachePolicy.getFreshness(mQuestionsFetchTimestamp, mTimeProvider.getMonotonicTimestamp());
     }
 
     public void onStop() {
         mViewMvc.unregisterListener(this);
         mFetchLastActiveQuestionsUseCase.unregisterListener(this);
+        mQuestionDetailsPrefetcher.cancel();
     }
 
     @Override
     public void onQuestionClicked(Question question) {
         mScreensNavigator.toQuestionDetails(question.getId());
     }
+
+    @Override
+    public void onQuestionsListScrolled(int firstVisiblePosition, int lastVisiblePosition) {
+        int page = mQuestionsPager.getPageToFetch(firstVisiblePosition, lastVisiblePosition);
+        if (page != QuestionsPager.NO_PAGE) {
+            mFetchLastActiveQuestionsUseCase.fetchLastActiveQuestionsPageAndNotify(page);
+        }
+        prefetchVisibleQuestions(firstVisiblePosition, lastVisiblePosition);
+    }
+
+    private void prefetchVisibleQuestions(int firstVisiblePosition, int lastVisiblePosition) {
+        List<Question> questions = mQuestionsPager.getQuestions();
+        int fromPosition = Math.max(0, firstVisiblePosition);
+        int toPosition = Math.min(questions.size(), lastVisiblePosition + 1);
+        if (fromPosition < toPosition) {
+            mQuestionDetailsPrefetcher.prefetch(questions.subList(fromPosition, toPosition));
+        }
+    }
     
     @Override
     public void onLastActiveQuestionsFetched(List<Question> questions) {
+        boolean questionsChanged = !questions.equals(mQuestions);
         mQuestions = questions;
-        mLastCachedTimestamp = mTimeProvider.getCurrentTimestamp();
+        mQuestionsFetchTimestamp = mFetchLastActiveQuestionsUseCase.getNotifiedQuestionsFetchTimestamp();
         mViewMvc.hideProgressIndication();
-        mViewMvc.bindQuestions(questions);
+        if (questionsChanged && mQuestionsPager.setFirstPage(questions)) {
+            mViewMvc.bindQuestions(mQuestionsPager.getQuestions());
+            // the top questions are the most likely to be opened
+            mQuestionDetailsPrefetcher.prefetch(questions);
+        }
     }
 
     @Override
     public void onLastActiveQuestionsFetchFailed() {
         mViewMvc.hideProgressIndication();
-        mToastsHelper.showUseCaseError();
+        // failing to refresh data that is already shown isn't reported to the user
+        if (mQuestions == null) {
+            mToastsHelper.showUseCaseError();
+        }
+    }
+
+    @Override
+    public void onLastActiveQuestionsPageFetched(int page, List<Question> questions, boolean hasMore) {
+        if (mQuestionsPager.addPage(page, questions, hasMore)) {
+            mViewMvc.bindQuestions(mQuestionsPager.getQuestions());
+        }
+    }
+
+    @Override
+    public void onLastActiveQuestionsPageFetchFailed(int page) {
+        // the page will be requested again when the list is scrolled
     }
 }
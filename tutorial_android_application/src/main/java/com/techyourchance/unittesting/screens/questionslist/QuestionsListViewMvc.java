@@ -9,6 +9,7 @@ public interface QuestionsListViewMvc extends ObservableViewMvc<QuestionsListVie
 
     public interface Listener {
         void onQuestionClicked(Question question);
+        void onQuestionsListScrolled(int firstVisiblePosition, int lastVisiblePosition);
     }
 
     void bindQuestions(List<Question> questions);
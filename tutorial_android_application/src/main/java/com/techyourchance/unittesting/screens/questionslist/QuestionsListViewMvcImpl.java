@@ -17,6 +17,7 @@ import com.techyourchance.unittesting.screens.common.toolbar.ToolbarViewMvc;
 import com.techyourchance.unittesting.screens.common.views.BaseObservableViewMvc;
 
 import java.util.List;
+import java.util.concurrent.Executor;
 
 public class QuestionsListViewMvcImpl extends BaseObservableViewMvc<QuestionsListViewMvc.Listener>
         implements QuestionsListViewMvc, QuestionsRecyclerAdapter.Listener {
@@ -32,14 +33,26 @@ public class QuestionsListViewMvcImpl extends BaseObservableViewMvc<QuestionsLis
     public QuestionsListViewMvcImpl(LayoutInflater inflater,
                                     @Nullable ViewGroup parent,
                                     NavDrawerHelper navDrawerHelper,
-                                    ViewMvcFactory viewMvcFactory) {
+                                    ViewMvcFactory viewMvcFactory,
+                                    Executor backgroundExecutor,
+                                    Executor uiExecutor) {
         mNavDrawerHelper = navDrawerHelper;
         setRootView(inflater.inflate(R.layout.layout_questions_list, parent, false));
 
         mRecyclerQuestions = findViewById(R.id.recycler_questions);
-        mRecyclerQuestions.setLayoutManager(new LinearLayoutManager(getContext()));
-        mAdapter = new QuestionsRecyclerAdapter(this, viewMvcFactory);
+        final LinearLayoutManager layoutManager = new LinearLayoutManager(getContext());
+        mRecyclerQuestions.setLayoutManager(layoutManager);
+        mAdapter = new QuestionsRecyclerAdapter(this, viewMvcFactory, backgroundExecutor, uiExecutor);
         mRecyclerQuestions.setAdapter(mAdapter);
+        mRecyclerQuestions.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                onQuestionsListScrolled(
+                        layoutManager.findFirstVisibleItemPosition(),
+                        layoutManager.findLastVisibleItemPosition()
+                );
+            }
+        });
 
         mProgressBar = findViewById(R.id.progress);
 
@@ -66,6 +79,15 @@ public class QuestionsListViewMvcImpl extends BaseObservableViewMvc<QuestionsLis
         }
     }
 
+    private void onQuestionsListScrolled(int firstVisiblePosition, int lastVisiblePosition) {
+        if (firstVisiblePosition == RecyclerView.NO_POSITION) {
+            return;
+        }
+        for (Listener listener : getListeners()) {
+            listener.onQuestionsListScrolled(firstVisiblePosition, lastVisiblePosition);
+        }
+    }
+
     @Override
     public void bindQuestions(List<Question> questions) {
         mAdapter.bindQuestions(questions);
@@ -0,0 +1,156 @@
+package com.techyourchance.unittesting.screens.questionslist;
+
+import com.techyourchance.unittesting.questions.Question;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps a window of consecutive pages of questions in memory and decides which page should be
+ * fetched next given the visible range of the list. When the window grows beyond the maximal number
+ * of resident pages, the page at the opposite end of the window is dropped; it will be fetched again
+ * if the user scrolls back to it.
+ */
+public class QuestionsPager {
+
+    public static final int NO_PAGE = -1;
+
+    private static final int FIRST_PAGE = 1;
+
+    private final int mMaxResidentPages;
+    private final int mPrefetchDistance;
+
+    private final LinkedList<List<Question>> mResidentPages = new LinkedList<>();
+    private int mFirstResidentPage = FIRST_PAGE;
+    private boolean mHasMore;
+
+    // questions of the resident pages, merged whenever the window changes
+    private List<Question> mQuestions = Collections.emptyList();
+
+    /**
+     * @param maxResidentPages the maximal number of pages kept in memory
+     * @param prefetchDistance how many questions before either end of the window the adjacent
+     *                         page should be fetched
+     */
+    public QuestionsPager(int maxResidentPages, int prefetchDistance) {
+        if (maxResidentPages < 2) {
+            throw new IllegalArgumentException("at least two pages must be resident");
+        }
+        mMaxResidentPages = maxResidentPages;
+        mPrefetchDistance = prefetchDistance;
+    }
+
+    public void reset() {
+        mResidentPages.clear();
+        mFirstResidentPage = FIRST_PAGE;
+        mHasMore = false;
+        mQuestions = Collections.emptyList();
+    }
+
+    /**
+     * Sets the contents of the first page. If the first page isn't resident anymore, the window
+     * doesn't change.
+     * @return true if the resident questions changed
+     */
+    public boolean setFirstPage(List<Question> questions) {
+        if (mResidentPages.isEmpty()) {
+            mResidentPages.add(questions);
+            // the size of the first page isn't known, so the next page is fetched to find out
+            mHasMore = !questions.isEmpty();
+            mergeResidentPages();
+            return true;
+        } else if (mFirstResidentPage == FIRST_PAGE) {
+            mResidentPages.set(0, questions);
+            mergeResidentPages();
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Adds a page adjacent to the window. Pages which aren't adjacent (e.g. responses to requests
+     * made before the window moved) are ignored.
+     * @return true if the resident questions changed
+     */
+    public boolean addPage(int page, List<Question> questions, boolean hasMore) {
+        if (mResidentPages.isEmpty()) {
+            return false;
+        }
+        if (page == getLastResidentPage() + 1) {
+            mResidentPages.addLast(questions);
+            mHasMore = hasMore;
+            if (mResidentPages.size() > mMaxResidentPages) {
+                mResidentPages.removeFirst();
+                mFirstResidentPage++;
+            }
+            mergeResidentPages();
+            return true;
+        } else if (page == mFirstResidentPage - 1) {
+            mResidentPages.addFirst(questions);
+            mFirstResidentPage--;
+            if (mResidentPages.size() > mMaxResidentPages) {
+                mResidentPages.removeLast();
+                mHasMore = true;
+            }
+            mergeResidentPages();
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * @return questions from all the resident pages. Activity can move a question to another page
+     *         between page fetches, so questions which were already listed are skipped
+     */
+    public List<Question> getQuestions() {
+        return mQuestions;
+    }
+
+    private void mergeResidentPages() {
+        List<Question> questions = new ArrayList<>();
+        Set<String> ids = new HashSet<>();
+        for (List<Question> page : mResidentPages) {
+            for (Question question : page) {
+                if (ids.add(question.getId())) {
+                    questions.add(question);
+                }
+            }
+        }
+        mQuestions = Collections.unmodifiableList(questions);
+    }
+
+    /**
+     * @return the page that should be fetched given the visible range of questions, or
+     *         {@link #NO_PAGE}
+     */
+    public int getPageToFetch(int firstVisiblePosition, int lastVisiblePosition) {
+        if (mResidentPages.isEmpty()) {
+            return NO_PAGE;
+        }
+        if (mHasMore && lastVisiblePosition >= mQuestions.size() - 1 - mPrefetchDistance) {
+            return getLastResidentPage() + 1;
+        } else if (mFirstResidentPage > FIRST_PAGE && firstVisiblePosition <= mPrefetchDistance) {
+            return mFirstResidentPage - 1;
+        } else {
+            return NO_PAGE;
+        }
+    }
+
+    public int getFirstResidentPage() {
+        return mFirstResidentPage;
+    }
+
+    public int getLastResidentPage() {
+        return mFirstResidentPage + mResidentPages.size() - 1;
+    }
+
+    public boolean hasMore() {
+        return mHasMore;
+    }
+}
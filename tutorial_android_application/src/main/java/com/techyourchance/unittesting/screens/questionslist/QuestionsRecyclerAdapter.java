@@ -4,12 +4,15 @@ import android.support.annotation.NonNull;
 import android.support.v7.widget.RecyclerView;
 import android.view.ViewGroup;
 
+import com.techyourchance.unittesting.common.diff.ListDiffer;
+import com.techyourchance.unittesting.common.diff.ListUpdateCallback;
 import com.techyourchance.unittesting.questions.Question;
 import com.techyourchance.unittesting.screens.common.ViewMvcFactory;
 import com.techyourchance.unittesting.screens.questionslist.questionslistitem.QuestionsListItemViewMvc;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 public class QuestionsRecyclerAdapter extends RecyclerView.Adapter<QuestionsRecyclerAdapter.MyViewHolder>
         implements QuestionsListItemViewMvc.Listener {
@@ -29,19 +32,78 @@ public class QuestionsRecyclerAdapter extends RecyclerView.Adapter<QuestionsRecy
 
     }
 
+    private static final ListDiffer.ItemCallback<Question> QUESTION_ITEM_CALLBACK = new QuestionItemCallback();
+
     private final Listener mListener;
     private final ViewMvcFactory mViewMvcFactory;
+    private final Executor mBackgroundExecutor;
+    private final Executor mUiExecutor;
+
+    private final ListUpdateCallback mListUpdateCallback = new ListUpdateCallback() {
+        @Override
+        public void onInserted(int position, int count) {
+            notifyItemRangeInserted(position, count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            notifyItemRangeRemoved(position, count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            notifyItemMoved(fromPosition, toPosition);
+        }
+
+        @Override
+        public void onChanged(int position, int count) {
+            notifyItemRangeChanged(position, count);
+        }
+    };
 
     private List<Question> mQuestions = new ArrayList<>();
 
-    public QuestionsRecyclerAdapter(Listener listener, ViewMvcFactory viewMvcFactory) {
+    // incremented on each bind, so that diffs computed against outdated data are discarded
+    private int mBindGeneration;
+
+    public QuestionsRecyclerAdapter(Listener listener,
+                                    ViewMvcFactory viewMvcFactory,
+                                    Executor backgroundExecutor,
+                                    Executor uiExecutor) {
         mListener = listener;
         mViewMvcFactory = viewMvcFactory;
+        mBackgroundExecutor = backgroundExecutor;
+        mUiExecutor = uiExecutor;
     }
 
     public void bindQuestions(List<Question> questions) {
-        mQuestions = new ArrayList<>(questions);
-        notifyDataSetChanged();
+        final List<Question> oldQuestions = mQuestions;
+        final List<Question> newQuestions = new ArrayList<>(questions);
+        final int bindGeneration = ++mBindGeneration;
+
+        if (oldQuestions.isEmpty() || newQuestions.isEmpty()) {
+            mQuestions = newQuestions;
+            notifyDataSetChanged();
+            return;
+        }
+
+        mBackgroundExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final ListDiffer.DiffResult diffResult =
+                        ListDiffer.calculateDiff(oldQuestions, newQuestions, QUESTION_ITEM_CALLBACK);
+                mUiExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (bindGeneration != mBindGeneration) {
+                            return;
+                        }
+                        mQuestions = newQuestions;
+                        diffResult.dispatchUpdatesTo(mListUpdateCallback);
+                    }
+                });
+            }
+        });
     }
 
     @NonNull
@@ -0,0 +1,102 @@
+package com.techyourchance.unittesting.benchmarks;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Harness shared by the benchmarks: runs an operation for a number of warmup iterations, then
+ * measures the average time and the bytes allocated per iteration (on JVMs which support allocation
+ * accounting).
+ */
+public class Benchmark {
+
+    public interface Operation {
+        /**
+         * @return any value derived from the result of the operation, so that the JIT can't
+         *         eliminate it
+         */
+        long run(int iteration) throws Exception;
+    }
+
+    public static class Result {
+
+        private final double mAverageNanos;
+        private final double mAverageAllocatedBytes;
+        private final long mChecksum;
+
+        private Result(double averageNanos, double averageAllocatedBytes, long checksum) {
+            mAverageNanos = averageNanos;
+            mAverageAllocatedBytes = averageAllocatedBytes;
+            mChecksum = checksum;
+        }
+
+        public double getAverageNanos() {
+            return mAverageNanos;
+        }
+
+        public double getAverageMicros() {
+            return mAverageNanos / 1000;
+        }
+
+        public double getAverageAllocatedBytes() {
+            return mAverageAllocatedBytes;
+        }
+
+        /**
+         * @return the sum of the values returned by all the iterations
+         */
+        public long getChecksum() {
+            return mChecksum;
+        }
+    }
+
+    public static Result measure(Operation operation, int warmupIterations, int measuredIterations)
+            throws Exception {
+        long checksum = 0;
+        for (int i = 0; i < warmupIterations; i++) {
+            checksum += operation.run(i);
+        }
+
+        long startAllocatedBytes = getAllocatedBytes();
+        long startNano = System.nanoTime();
+        for (int i = 0; i < measuredIterations; i++) {
+            checksum += operation.run(i);
+        }
+        long elapsedNano = System.nanoTime() - startNano;
+        long allocatedBytes = getAllocatedBytes() - startAllocatedBytes;
+
+        return new Result(
+                (double) elapsedNano / measuredIterations,
+                (double) allocatedBytes / measuredIterations,
+                checksum
+        );
+    }
+
+    /**
+     * @return the bytes allocated so far by the current thread, or 0 if the JVM doesn't support
+     *         allocation accounting
+     */
+    public static long getAllocatedBytes() {
+        java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        } else {
+            return 0;
+        }
+    }
+
+    /**
+     * @return the used heap after a few garbage collections
+     */
+    public static long getUsedHeapBytes() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,103 @@
+package com.techyourchance.unittesting.common;
+
+import com.techyourchance.unittesting.benchmarks.Benchmark;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures the cost of notifying 1, 4 and 64 listeners of {@link BaseObservable}, in strong and
+ * weak listeners modes, against the previous implementation which iterated an unmodifiable view of
+ * a concurrent set. Reports the average time and the bytes allocated per notification (on JVMs which
+ * support allocation accounting). Not a unit test - run the main method manually.
+ */
+public class BaseObservableBenchmark {
+
+    private static final int[] LISTENERS_COUNTS = {1, 4, 64};
+    private static final int WARMUP_NOTIFICATIONS = 2000000;
+    private static final int MEASURED_NOTIFICATIONS = 2000000;
+
+    private interface Observable {
+        void registerListener(Listener listener);
+        int notifyListeners(int value);
+    }
+
+    private static class Listener {
+
+        private int mSum;
+
+        private void onNotified(int value) {
+            mSum += value;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (int listenersCount : LISTENERS_COUNTS) {
+            System.out.println(listenersCount + " listeners:");
+            measure("  concurrent set      ", new ConcurrentSetObservable(), listenersCount);
+            measure("  copy-on-write       ", new CopyOnWriteObservable(false), listenersCount);
+            measure("  copy-on-write, weak ", new CopyOnWriteObservable(true), listenersCount);
+        }
+    }
+
+    private static void measure(String name, final Observable observable, int listenersCount) throws Exception {
+        Listener[] listeners = new Listener[listenersCount];
+        for (int i = 0; i < listenersCount; i++) {
+            listeners[i] = new Listener();
+            observable.registerListener(listeners[i]);
+        }
+
+        Benchmark.Result result = Benchmark.measure(new Benchmark.Operation() {
+            @Override
+            public long run(int iteration) {
+                return observable.notifyListeners(iteration);
+            }
+        }, WARMUP_NOTIFICATIONS, MEASURED_NOTIFICATIONS);
+
+        System.out.println(String.format("%s %8.1f ns, %6.1f bytes allocated (%d)",
+                name, result.getAverageNanos(), result.getAverageAllocatedBytes(), result.getChecksum() + listeners[0].mSum));
+    }
+
+    private static class CopyOnWriteObservable extends BaseObservable<Listener> implements Observable {
+
+        private CopyOnWriteObservable(boolean weakListeners) {
+            super(weakListeners);
+        }
+
+        @Override
+        public int notifyListeners(int value) {
+            Listeners<Listener> listeners = getListeners();
+            int count = 0;
+            for (int i = 0; i < listeners.size(); i++) {
+                Listener listener = listeners.get(i);
+                if (listener != null) {
+                    listener.onNotified(value);
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    private static class ConcurrentSetObservable implements Observable {
+
+        private final Set<Listener> mListeners = Collections.newSetFromMap(
+                new ConcurrentHashMap<Listener, Boolean>(1));
+
+        @Override
+        public void registerListener(Listener listener) {
+            mListeners.add(listener);
+        }
+
+        @Override
+        public int notifyListeners(int value) {
+            int count = 0;
+            for (Listener listener : Collections.unmodifiableSet(mListeners)) {
+                listener.onNotified(value);
+                count++;
+            }
+            return count;
+        }
+    }
+}
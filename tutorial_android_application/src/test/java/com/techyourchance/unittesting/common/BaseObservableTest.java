@@ -0,0 +1,240 @@
+package com.techyourchance.unittesting.common;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class BaseObservableTest {
+
+    // region helper fields ------------------------------------------------------------------------
+    private Listener mListener1;
+    private Listener mListener2;
+    private Listener mListener3;
+    // endregion helper fields ---------------------------------------------------------------------
+
+    ObservableTd SUT;
+
+    @Before
+    public void setup() throws Exception {
+        mListener1 = new Listener("1");
+        mListener2 = new Listener("2");
+        mListener3 = new Listener("3");
+        SUT = new ObservableTd(false);
+    }
+
+    @Test
+    public void getListeners_listenersInRegistrationOrder() throws Exception {
+        // Arrange
+        SUT.registerListener(mListener3);
+        SUT.registerListener(mListener1);
+        SUT.registerListener(mListener2);
+        // Act
+        List<Listener> listeners = SUT.getListenersList();
+        // Assert
+        assertThat(listeners, is(Arrays.asList(mListener3, mListener1, mListener2)));
+    }
+
+    @Test
+    public void registerListener_sameListenerTwice_registeredOnce() throws Exception {
+        // Arrange
+        SUT.registerListener(mListener1);
+        // Act
+        SUT.registerListener(mListener1);
+        // Assert
+        assertThat(SUT.getListenersList(), is(Collections.singletonList(mListener1)));
+    }
+
+    @Test
+    public void unregisterListener_orderOfOtherListenersPreserved() throws Exception {
+        // Arrange
+        SUT.registerListener(mListener1);
+        SUT.registerListener(mListener2);
+        SUT.registerListener(mListener3);
+        // Act
+        SUT.unregisterListener(mListener2);
+        // Assert
+        assertThat(SUT.getListenersList(), is(Arrays.asList(mListener1, mListener3)));
+    }
+
+    @Test
+    public void unregisterListener_notRegistered_noChange() throws Exception {
+        // Arrange
+        SUT.registerListener(mListener1);
+        // Act
+        SUT.unregisterListener(mListener2);
+        // Assert
+        assertThat(SUT.getListenersList(), is(Collections.singletonList(mListener1)));
+    }
+
+    @Test
+    public void getListeners_listenerUnregistersAnotherDuringNotification_allListenersOfSnapshotNotified() throws Exception {
+        // Arrange
+        mListener1.mToUnregister = mListener2;
+        SUT.registerListener(mListener1);
+        SUT.registerListener(mListener2);
+        // Act
+        SUT.notifyListeners();
+        // Assert
+        assertThat(mListener1.mNotificationsCount, is(1));
+        assertThat(mListener2.mNotificationsCount, is(1));
+        assertThat(SUT.getListenersList(), is(Collections.singletonList(mListener1)));
+    }
+
+    @Test
+    public void getListeners_weakListenersMode_registeredListenersNotified() throws Exception {
+        // Arrange
+        SUT = new ObservableTd(true);
+        SUT.registerListener(mListener1);
+        SUT.registerListener(mListener2);
+        // Act
+        SUT.notifyListeners();
+        // Assert
+        assertThat(mListener1.mNotificationsCount, is(1));
+        assertThat(mListener2.mNotificationsCount, is(1));
+    }
+
+    @Test
+    public void getListeners_weakListenersModeAndListenerCollected_listenerDropped() throws Exception {
+        // Arrange
+        SUT = new ObservableTd(true);
+        SUT.registerListener(mListener1);
+        WeakReference<Listener> leakedListener = registerLeakedListener();
+        // Act
+        collectGarbage(leakedListener);
+        // Assert
+        assertThat(SUT.getListenersList(), is(Collections.singletonList(mListener1)));
+    }
+
+    @Test
+    public void getListeners_weakListenersModeAndListenerCollectedSinceLastRegistration_liveListenersNotified() throws Exception {
+        // Arrange
+        SUT = new ObservableTd(true);
+        WeakReference<Listener> leakedListener = registerLeakedListener();
+        SUT.registerListener(mListener1);
+        collectGarbage(leakedListener);
+        // Act
+        SUT.notifyListeners();
+        // Assert
+        assertThat(mListener1.mNotificationsCount, is(1));
+    }
+
+    @Test
+    public void getListeners_strongListenersModeAndListenerNotReferencedElsewhere_listenerRetained() throws Exception {
+        // Arrange
+        WeakReference<Listener> leakedListener = registerLeakedListener();
+        // Act
+        System.gc();
+        // Assert
+        assertThat(SUT.getListenersList().size(), is(1));
+        assertThat(leakedListener.get() != null, is(true));
+    }
+
+    @Test
+    public void unregisterListener_lastListener_subclassNotified() throws Exception {
+        // Arrange
+        SUT.registerListener(mListener1);
+        SUT.registerListener(mListener2);
+        SUT.unregisterListener(mListener1);
+        // Act
+        SUT.unregisterListener(mListener2);
+        // Assert
+        assertThat(SUT.mLastListenerUnregisteredCount, is(1));
+    }
+
+    @Test
+    public void unregisterListener_notRegisteredAndNoListeners_subclassNotNotified() throws Exception {
+        // Arrange
+        // Act
+        SUT.unregisterListener(mListener1);
+        // Assert
+        assertThat(SUT.mLastListenerUnregisteredCount, is(0));
+    }
+
+    // region helper methods -----------------------------------------------------------------------
+
+    private WeakReference<Listener> registerLeakedListener() {
+        Listener listener = new Listener("leaked");
+        SUT.registerListener(listener);
+        return new WeakReference<>(listener);
+    }
+
+    private static void collectGarbage(WeakReference<?> reference) throws InterruptedException {
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        if (reference.get() != null) {
+            throw new RuntimeException("listener wasn't garbage collected");
+        }
+    }
+
+    // endregion helper methods --------------------------------------------------------------------
+
+    // region helper classes -----------------------------------------------------------------------
+
+    private class Listener {
+
+        private final String mName;
+        private int mNotificationsCount;
+        private Listener mToUnregister;
+
+        private Listener(String name) {
+            mName = name;
+        }
+
+        private void onNotified() {
+            mNotificationsCount++;
+            if (mToUnregister != null) {
+                SUT.unregisterListener(mToUnregister);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return mName;
+        }
+    }
+
+    private static class ObservableTd extends BaseObservable<Listener> {
+
+        private int mLastListenerUnregisteredCount;
+
+        private ObservableTd(boolean weakListeners) {
+            super(weakListeners);
+        }
+
+        @Override
+        protected void onLastListenerUnregistered() {
+            mLastListenerUnregisteredCount++;
+        }
+
+        private void notifyListeners() {
+            Listeners<Listener> listeners = getListeners();
+            for (int i = 0; i < listeners.size(); i++) {
+                Listener listener = listeners.get(i);
+                if (listener != null) {
+                    listener.onNotified();
+                }
+            }
+        }
+
+        private List<Listener> getListenersList() {
+            List<Listener> listeners = new ArrayList<>();
+            for (Listener listener : getListeners()) {
+                listeners.add(listener);
+            }
+            return listeners;
+        }
+    }
+
+    // endregion helper classes --------------------------------------------------------------------
+
+}
@@ -0,0 +1,226 @@
+package com.techyourchance.unittesting.common.cache;
+
+import com.techyourchance.unittesting.common.time.TimeProvider;
+import com.techyourchance.unittesting.common.time.VirtualTimeProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ExpiringLruCacheTest {
+
+    // region constants ----------------------------------------------------------------------------
+    private static final int MAX_ENTRIES = 3;
+    private static final long TIME_TO_LIVE_MS = 1000;
+    // endregion constants -------------------------------------------------------------------------
+
+    // region helper fields ------------------------------------------------------------------------
+    private TimeProviderTd mTimeProviderTd;
+    // endregion helper fields ---------------------------------------------------------------------
+
+    ExpiringLruCache<String, String> SUT;
+
+    @Before
+    public void setup() throws Exception {
+        mTimeProviderTd = new TimeProviderTd();
+        SUT = new ExpiringLruCache<>(MAX_ENTRIES, TIME_TO_LIVE_MS, mTimeProviderTd);
+    }
+
+    @Test
+    public void get_afterPut_valueReturnedAndHitCounted() throws Exception {
+        // Arrange
+        SUT.put("key1", "value1");
+        // Act
+        String result = SUT.get("key1");
+        // Assert
+        assertThat(result, is("value1"));
+        assertThat(SUT.getHitCount(), is(1L));
+        assertThat(SUT.getMissCount(), is(0L));
+    }
+
+    @Test
+    public void get_unknownKey_nullReturnedAndMissCounted() throws Exception {
+        // Arrange
+        // Act
+        String result = SUT.get("key1");
+        // Assert
+        assertThat(result, is(nullValue()));
+        assertThat(SUT.getMissCount(), is(1L));
+    }
+
+    @Test
+    public void get_rightBeforeTimeToLive_valueReturned() throws Exception {
+        // Arrange
+        SUT.put("key1", "value1");
+        mTimeProviderTd.mMonotonicTimestamp = TIME_TO_LIVE_MS - 1;
+        // Act
+        String result = SUT.get("key1");
+        // Assert
+        assertThat(result, is("value1"));
+    }
+
+    @Test
+    public void get_afterTimeToLive_nullReturnedAndEntryRemoved() throws Exception {
+        // Arrange
+        SUT.put("key1", "value1");
+        mTimeProviderTd.mMonotonicTimestamp = TIME_TO_LIVE_MS;
+        // Act
+        String result = SUT.get("key1");
+        // Assert
+        assertThat(result, is(nullValue()));
+        assertThat(SUT.size(), is(0));
+        assertThat(SUT.getExpirationCount(), is(1L));
+        assertThat(SUT.getMissCount(), is(1L));
+    }
+
+    @Test
+    public void get_wallClockMovedBackAfterPut_valueExpiresAfterTimeToLive() throws Exception {
+        // Arrange
+        VirtualTimeProvider timeProvider = new VirtualTimeProvider();
+        SUT = new ExpiringLruCache<>(MAX_ENTRIES, TIME_TO_LIVE_MS, timeProvider);
+        SUT.put("key1", "value1");
+        timeProvider.changeWallClockBy(-TIME_TO_LIVE_MS * 10);
+        timeProvider.advanceByMs(TIME_TO_LIVE_MS);
+        // Act
+        String result = SUT.get("key1");
+        // Assert
+        assertThat(result, is(nullValue()));
+    }
+
+    @Test
+    public void put_overMaxEntries_leastRecentlyUsedEntryEvicted() throws Exception {
+        // Arrange
+        SUT.put("key1", "value1");
+        SUT.put("key2", "value2");
+        SUT.put("key3", "value3");
+        SUT.get("key1");
+        // Act
+        SUT.put("key4", "value4");
+        // Assert
+        assertThat(SUT.size(), is(MAX_ENTRIES));
+        assertThat(SUT.get("key2"), is(nullValue()));
+        assertThat(SUT.get("key1"), is("value1"));
+        assertThat(SUT.get("key3"), is("value3"));
+        assertThat(SUT.get("key4"), is("value4"));
+        assertThat(SUT.getEvictionCount(), is(1L));
+    }
+
+    @Test
+    public void put_existingKey_valueReplacedWithoutEviction() throws Exception {
+        // Arrange
+        SUT.put("key1", "value1");
+        // Act
+        SUT.put("key1", "value2");
+        // Assert
+        assertThat(SUT.size(), is(1));
+        assertThat(SUT.get("key1"), is("value2"));
+        assertThat(SUT.getEvictionCount(), is(0L));
+    }
+
+    @Test
+    public void put_expiredEntriesPresent_expiredEntriesRemoved() throws Exception {
+        // Arrange
+        SUT.put("key1", "value1");
+        SUT.put("key2", "value2");
+        mTimeProviderTd.mMonotonicTimestamp = TIME_TO_LIVE_MS;
+        // Act
+        SUT.put("key3", "value3");
+        // Assert
+        assertThat(SUT.size(), is(1));
+        assertThat(SUT.getExpirationCount(), is(2L));
+        assertThat(SUT.getEvictionCount(), is(0L));
+    }
+
+    @Test
+    public void put_expiredEntryUsedRecently_expiredEntryRemovedAndUnexpiredEntriesRetained() throws Exception {
+        // Arrange
+        SUT.put("key1", "value1");
+        mTimeProviderTd.mMonotonicTimestamp = TIME_TO_LIVE_MS / 2;
+        SUT.put("key2", "value2");
+        SUT.get("key1");
+        mTimeProviderTd.mMonotonicTimestamp = TIME_TO_LIVE_MS;
+        // Act
+        SUT.put("key3", "value3");
+        // Assert
+        assertThat(SUT.size(), is(2));
+        assertThat(SUT.getExpirationCount(), is(1L));
+        assertThat(SUT.get("key2"), is("value2"));
+        assertThat(SUT.get("key3"), is("value3"));
+    }
+
+    @Test
+    public void put_weightedOverBudget_entriesEvictedUntilWithinBudget() throws Exception {
+        // Arrange
+        SUT = new ExpiringLruCache<>(10, TIME_TO_LIVE_MS, new LengthWeigher(), mTimeProviderTd);
+        SUT.put("key1", "1234");
+        SUT.put("key2", "1234");
+        // Act
+        SUT.put("key3", "12345");
+        // Assert
+        assertThat(SUT.get("key1"), is(nullValue()));
+        assertThat(SUT.get("key2"), is("1234"));
+        assertThat(SUT.get("key3"), is("12345"));
+        assertThat(SUT.getCurrentWeight(), is(9L));
+    }
+
+    @Test
+    public void put_valueHeavierThanBudget_valueNotCachedAndOtherEntriesRetained() throws Exception {
+        // Arrange
+        SUT = new ExpiringLruCache<>(10, TIME_TO_LIVE_MS, new LengthWeigher(), mTimeProviderTd);
+        SUT.put("key1", "1234");
+        // Act
+        SUT.put("key2", "12345678901");
+        // Assert
+        assertThat(SUT.get("key2"), is(nullValue()));
+        assertThat(SUT.get("key1"), is("1234"));
+        assertThat(SUT.getCurrentWeight(), is(4L));
+    }
+
+    @Test
+    public void evictExpired_expiredEntriesRemoved() throws Exception {
+        // Arrange
+        SUT.put("key1", "value1");
+        mTimeProviderTd.mMonotonicTimestamp = TIME_TO_LIVE_MS / 2;
+        SUT.put("key2", "value2");
+        mTimeProviderTd.mMonotonicTimestamp = TIME_TO_LIVE_MS;
+        // Act
+        SUT.evictExpired();
+        // Assert
+        assertThat(SUT.size(), is(1));
+        assertThat(SUT.get("key2"), is("value2"));
+    }
+
+    @Test
+    public void remove_entryRemovedAndWeightReleased() throws Exception {
+        // Arrange
+        SUT.put("key1", "value1");
+        // Act
+        String result = SUT.remove("key1");
+        // Assert
+        assertThat(result, is("value1"));
+        assertThat(SUT.size(), is(0));
+        assertThat(SUT.getCurrentWeight(), is(0L));
+    }
+
+    // region helper classes -----------------------------------------------------------------------
+    private static class TimeProviderTd extends TimeProvider {
+        private long mMonotonicTimestamp;
+
+        @Override
+        public long getMonotonicTimestamp() {
+            return mMonotonicTimestamp;
+        }
+    }
+
+    private static class LengthWeigher implements ExpiringLruCache.Weigher<String> {
+        @Override
+        public int weigh(String value) {
+            return value.length();
+        }
+    }
+    // endregion helper classes --------------------------------------------------------------------
+
+}
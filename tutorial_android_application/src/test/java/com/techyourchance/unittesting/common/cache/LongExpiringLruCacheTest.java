@@ -0,0 +1,115 @@
+package com.techyourchance.unittesting.common.cache;
+
+import com.techyourchance.unittesting.common.time.TimeProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class LongExpiringLruCacheTest {
+
+    // region constants ----------------------------------------------------------------------------
+    private static final int MAX_ENTRIES = 2;
+    private static final long TIME_TO_LIVE_MS = 1000;
+    // endregion constants -------------------------------------------------------------------------
+
+    // region helper fields ------------------------------------------------------------------------
+    private TimeProviderTd mTimeProviderTd;
+    // endregion helper fields ---------------------------------------------------------------------
+
+    LongExpiringLruCache<String> SUT;
+
+    @Before
+    public void setup() throws Exception {
+        mTimeProviderTd = new TimeProviderTd();
+        SUT = new LongExpiringLruCache<>(MAX_ENTRIES, TIME_TO_LIVE_MS, mTimeProviderTd);
+    }
+
+    @Test
+    public void get_afterPut_valueReturned() throws Exception {
+        // Arrange
+        SUT.put(1L, "value1");
+        // Act
+        String result = SUT.get(1L);
+        // Assert
+        assertThat(result, is("value1"));
+        assertThat(SUT.getHitCount(), is(1L));
+    }
+
+    @Test
+    public void put_sameKey_valueReplaced() throws Exception {
+        // Arrange
+        SUT.put(1L, "value1");
+        // Act
+        SUT.put(1L, "value2");
+        // Assert
+        assertThat(SUT.get(1L), is("value2"));
+        assertThat(SUT.size(), is(1));
+    }
+
+    @Test
+    public void put_overMaxEntries_leastRecentlyUsedEntryRemovedFromIndex() throws Exception {
+        // Arrange
+        SUT.put(1L, "value1");
+        SUT.put(2L, "value2");
+        SUT.get(1L);
+        // Act
+        SUT.put(3L, "value3");
+        // Assert
+        assertThat(SUT.get(2L), is(nullValue()));
+        assertThat(SUT.get(1L), is("value1"));
+        assertThat(SUT.get(3L), is("value3"));
+        assertThat(SUT.size(), is(2));
+    }
+
+    @Test
+    public void get_afterTimeToLive_nullReturnedAndEntryRemoved() throws Exception {
+        // Arrange
+        SUT.put(1L, "value1");
+        mTimeProviderTd.mMonotonicTimestamp = TIME_TO_LIVE_MS;
+        // Act
+        String result = SUT.get(1L);
+        // Assert
+        assertThat(result, is(nullValue()));
+        assertThat(SUT.size(), is(0));
+    }
+
+    @Test
+    public void remove_existingKey_valueReturnedAndRemoved() throws Exception {
+        // Arrange
+        SUT.put(1L, "value1");
+        // Act
+        String result = SUT.remove(1L);
+        // Assert
+        assertThat(result, is("value1"));
+        assertThat(SUT.get(1L), is(nullValue()));
+        assertThat(SUT.getCurrentWeight(), is(0L));
+    }
+
+    @Test
+    public void clear_entriesRemoved() throws Exception {
+        // Arrange
+        SUT.put(1L, "value1");
+        SUT.put(2L, "value2");
+        // Act
+        SUT.clear();
+        // Assert
+        assertThat(SUT.size(), is(0));
+        assertThat(SUT.get(1L), is(nullValue()));
+    }
+
+    // region helper classes -----------------------------------------------------------------------
+    private static class TimeProviderTd extends TimeProvider {
+        private long mMonotonicTimestamp;
+
+        @Override
+        public long getMonotonicTimestamp() {
+            return mMonotonicTimestamp;
+        }
+    }
+    // endregion helper classes --------------------------------------------------------------------
+
+}
@@ -0,0 +1,137 @@
+package com.techyourchance.unittesting.common.collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class LongHashMapTest {
+
+    LongHashMap<String> SUT;
+
+    @Before
+    public void setup() throws Exception {
+        SUT = new LongHashMap<>();
+    }
+
+    @Test
+    public void get_keyPut_valueReturned() throws Exception {
+        // Arrange
+        SUT.put(1, "one");
+        SUT.put(-2, "minus two");
+        // Act
+        // Assert
+        assertThat(SUT.get(1), is("one"));
+        assertThat(SUT.get(-2), is("minus two"));
+        assertThat(SUT.containsKey(1), is(true));
+        assertThat(SUT.size(), is(2));
+    }
+
+    @Test
+    public void get_keyNotPut_nullReturned() throws Exception {
+        // Arrange
+        SUT.put(1, "one");
+        // Act
+        // Assert
+        assertThat(SUT.get(2), is(nullValue()));
+        assertThat(SUT.containsKey(2), is(false));
+    }
+
+    @Test
+    public void put_existingKey_valueReplacedAndPreviousValueReturned() throws Exception {
+        // Arrange
+        SUT.put(1, "one");
+        // Act
+        String previousValue = SUT.put(1, "uno");
+        // Assert
+        assertThat(previousValue, is("one"));
+        assertThat(SUT.get(1), is("uno"));
+        assertThat(SUT.size(), is(1));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void put_nullValue_nullPointerExceptionThrown() throws Exception {
+        // Arrange
+        // Act
+        SUT.put(1, null);
+        // Assert
+    }
+
+    @Test
+    public void put_moreKeysThanInitialCapacity_allKeysRetained() throws Exception {
+        // Arrange
+        // Act
+        for (long key = 0; key < 1000; key++) {
+            SUT.put(key, String.valueOf(key));
+        }
+        // Assert
+        assertThat(SUT.size(), is(1000));
+        for (long key = 0; key < 1000; key++) {
+            assertThat(SUT.get(key), is(String.valueOf(key)));
+        }
+    }
+
+    @Test
+    public void remove_keyPut_valueReturnedAndKeyRemoved() throws Exception {
+        // Arrange
+        SUT.put(1, "one");
+        // Act
+        String removedValue = SUT.remove(1);
+        // Assert
+        assertThat(removedValue, is("one"));
+        assertThat(SUT.get(1), is(nullValue()));
+        assertThat(SUT.isEmpty(), is(true));
+    }
+
+    @Test
+    public void remove_keyNotPut_nullReturned() throws Exception {
+        // Arrange
+        SUT.put(1, "one");
+        // Act
+        String removedValue = SUT.remove(2);
+        // Assert
+        assertThat(removedValue, is(nullValue()));
+        assertThat(SUT.size(), is(1));
+    }
+
+    @Test
+    public void randomPutsAndRemoves_sameContentsAsHashMap() throws Exception {
+        // Arrange
+        Map<Long, String> expected = new HashMap<>();
+        Random random = new Random(42);
+        // Act
+        for (int i = 0; i < 100000; i++) {
+            // a small key range, so that keys are removed and put back often
+            long key = random.nextInt(500);
+            if (random.nextBoolean()) {
+                assertThat(SUT.put(key, "value" + i), is(expected.put(key, "value" + i)));
+            } else {
+                assertThat(SUT.remove(key), is(expected.remove(key)));
+            }
+        }
+        // Assert
+        assertThat(SUT.size(), is(expected.size()));
+        for (long key = 0; key < 500; key++) {
+            assertThat(SUT.get(key), is(expected.get(key)));
+        }
+    }
+
+    @Test
+    public void clear_allKeysRemoved() throws Exception {
+        // Arrange
+        SUT.put(1, "one");
+        SUT.put(2, "two");
+        // Act
+        SUT.clear();
+        // Assert
+        assertThat(SUT.isEmpty(), is(true));
+        assertThat(SUT.get(1), is(nullValue()));
+    }
+
+}
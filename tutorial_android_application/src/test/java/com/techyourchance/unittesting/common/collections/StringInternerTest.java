@@ -0,0 +1,54 @@
+package com.techyourchance.unittesting.common.collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class StringInternerTest {
+
+    StringInterner SUT;
+
+    @Before
+    public void setup() throws Exception {
+        SUT = new StringInterner();
+    }
+
+    @Test
+    public void intern_equalStrings_firstInstanceReturned() throws Exception {
+        // Arrange
+        String first = new String("title");
+        String second = new String("title");
+        // Act
+        SUT.intern(first);
+        String result = SUT.intern(second);
+        // Assert
+        assertThat(result, is(sameInstance(first)));
+        assertThat(SUT.size(), is(1));
+    }
+
+    @Test
+    public void intern_differentStrings_bothPooled() throws Exception {
+        // Arrange
+        // Act
+        String first = SUT.intern(new String("title1"));
+        String second = SUT.intern(new String("title2"));
+        // Assert
+        assertThat(first, is("title1"));
+        assertThat(second, is("title2"));
+        assertThat(SUT.size(), is(2));
+    }
+
+    @Test
+    public void intern_null_nullReturned() throws Exception {
+        // Arrange
+        // Act
+        String result = SUT.intern(null);
+        // Assert
+        assertThat(result, is(nullValue()));
+    }
+
+}
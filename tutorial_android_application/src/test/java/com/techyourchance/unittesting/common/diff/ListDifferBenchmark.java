@@ -0,0 +1,82 @@
+package com.techyourchance.unittesting.common.diff;
+
+import com.techyourchance.unittesting.benchmarks.Benchmark;
+import com.techyourchance.unittesting.questions.Question;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures {@link ListDiffer} on lists of questions of different sizes, where the new list is a
+ * typical refresh of the old one: a few questions added on top, a few removed, a few moved and a few
+ * re-titled. Not a unit test - run the main method manually.
+ */
+public class ListDifferBenchmark {
+
+    private static final int[] LIST_SIZES = {20, 100, 1000, 10000};
+    private static final int WARMUP_ITERATIONS = 200;
+    private static final int MEASURED_ITERATIONS = 200;
+
+    private static final ListDiffer.ItemCallback<Question> QUESTIONS_CALLBACK = new ListDiffer.ItemCallback<Question>() {
+        @Override
+        public Object getItemId(Question question) {
+            return question.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(Question oldQuestion, Question newQuestion) {
+            return oldQuestion.getTitle().equals(newQuestion.getTitle());
+        }
+    };
+
+    public static void main(String[] args) throws Exception {
+        Random random = new Random(42);
+        for (int listSize : LIST_SIZES) {
+            final List<Question> oldList = questions(listSize);
+            final List<Question> newList = refresh(oldList, random);
+
+            Benchmark.Result result = Benchmark.measure(new Benchmark.Operation() {
+                @Override
+                public long run(int iteration) {
+                    return ListDiffer.calculateDiff(oldList, newList, QUESTIONS_CALLBACK).getUpdatesCount();
+                }
+            }, WARMUP_ITERATIONS, MEASURED_ITERATIONS);
+
+            System.out.println(String.format("%6d questions: %10.1f us per diff (%d)",
+                    listSize, result.getAverageMicros(), result.getChecksum()));
+        }
+    }
+
+    private static List<Question> questions(int count) {
+        List<Question> questions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            questions.add(new Question(String.valueOf(i), "title" + i));
+        }
+        return questions;
+    }
+
+    private static List<Question> refresh(List<Question> oldList, Random random) {
+        List<Question> newList = new ArrayList<>(oldList);
+        int changesCount = Math.max(1, oldList.size() / 20);
+        for (int i = 0; i < changesCount; i++) {
+            newList.remove(random.nextInt(newList.size()));
+        }
+        for (int i = 0; i < changesCount; i++) {
+            int position = random.nextInt(newList.size());
+            Question question = newList.get(position);
+            newList.set(position, new Question(question.getId(), question.getTitle() + " (edited)"));
+        }
+        for (int i = 0; i < changesCount; i++) {
+            newList.add(random.nextInt(newList.size()), newList.remove(random.nextInt(newList.size())));
+        }
+        List<Question> addedQuestions = new ArrayList<>();
+        for (int i = 0; i < changesCount; i++) {
+            addedQuestions.add(new Question("new" + i, "new title" + i));
+        }
+        Collections.reverse(addedQuestions);
+        newList.addAll(0, addedQuestions);
+        return newList;
+    }
+}
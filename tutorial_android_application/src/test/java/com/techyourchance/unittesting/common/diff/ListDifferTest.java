@@ -0,0 +1,239 @@
+package com.techyourchance.unittesting.common.diff;
+
+import com.techyourchance.unittesting.questions.Question;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ListDifferTest {
+
+    // region constants ----------------------------------------------------------------------------
+    private static final ListDiffer.ItemCallback<Question> QUESTIONS_CALLBACK = new ListDiffer.ItemCallback<Question>() {
+        @Override
+        public Object getItemId(Question question) {
+            return question.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(Question oldQuestion, Question newQuestion) {
+            return oldQuestion.getTitle().equals(newQuestion.getTitle());
+        }
+    };
+    // endregion constants -------------------------------------------------------------------------
+
+    // region helper fields ------------------------------------------------------------------------
+    private ListUpdateCallbackTd mListUpdateCallbackTd;
+    // endregion helper fields ---------------------------------------------------------------------
+
+    @Before
+    public void setup() throws Exception {
+        mListUpdateCallbackTd = new ListUpdateCallbackTd();
+    }
+
+    @Test
+    public void calculateDiff_sameLists_noUpdates() throws Exception {
+        // Arrange
+        List<Question> oldList = questions("1", "2", "3");
+        List<Question> newList = questions("1", "2", "3");
+        // Act
+        ListDiffer.DiffResult result = ListDiffer.calculateDiff(oldList, newList, QUESTIONS_CALLBACK);
+        // Assert
+        assertThat(result.getUpdatesCount(), is(0));
+    }
+
+    @Test
+    public void calculateDiff_itemsAppended_singleInsertion() throws Exception {
+        // Arrange
+        List<Question> oldList = questions("1", "2");
+        List<Question> newList = questions("1", "2", "3", "4");
+        // Act
+        applyDiff(oldList, newList);
+        // Assert
+        assertThat(mListUpdateCallbackTd.mUpdates, is(updates("insert 2 2")));
+    }
+
+    @Test
+    public void calculateDiff_itemsRemoved_removalRangesFromTheEnd() throws Exception {
+        // Arrange
+        List<Question> oldList = questions("1", "2", "3", "4", "5");
+        List<Question> newList = questions("1", "4");
+        // Act
+        applyDiff(oldList, newList);
+        // Assert
+        assertThat(mListUpdateCallbackTd.mUpdates, is(updates("remove 4 1", "remove 1 2")));
+    }
+
+    @Test
+    public void calculateDiff_titleChanged_singleChange() throws Exception {
+        // Arrange
+        List<Question> oldList = questions("1", "2", "3");
+        List<Question> newList = questions("1", "2", "3");
+        newList.set(1, new Question("2", "new title"));
+        // Act
+        applyDiff(oldList, newList);
+        // Assert
+        assertThat(mListUpdateCallbackTd.mUpdates, is(updates("change 1 1")));
+    }
+
+    @Test
+    public void calculateDiff_lastItemMovedToTop_singleMove() throws Exception {
+        // Arrange
+        List<Question> oldList = questions("1", "2", "3", "4", "5");
+        List<Question> newList = questions("5", "1", "2", "3", "4");
+        // Act
+        applyDiff(oldList, newList);
+        // Assert
+        assertThat(mListUpdateCallbackTd.mUpdates, is(updates("move 4 0")));
+    }
+
+    @Test
+    public void calculateDiff_firstItemMovedToBottom_singleMove() throws Exception {
+        // Arrange
+        List<Question> oldList = questions("1", "2", "3", "4", "5");
+        List<Question> newList = questions("2", "3", "4", "5", "1");
+        // Act
+        applyDiff(oldList, newList);
+        // Assert
+        assertThat(mListUpdateCallbackTd.mUpdates, is(updates("move 0 4")));
+    }
+
+    @Test
+    public void calculateDiff_changedAndMovedItem_changeDispatchedAtFinalPosition() throws Exception {
+        // Arrange
+        List<Question> oldList = questions("1", "2", "3");
+        List<Question> newList = new ArrayList<>(Arrays.asList(
+                new Question("3", "new title"), new Question("1", "title1"), new Question("2", "title2")));
+        // Act
+        applyDiff(oldList, newList);
+        // Assert
+        assertThat(mListUpdateCallbackTd.mUpdates, is(updates("move 2 0", "change 0 1")));
+    }
+
+    @Test
+    public void calculateDiff_duplicateIds_allItemsReplaced() throws Exception {
+        // Arrange
+        List<Question> oldList = questions("1", "2");
+        List<Question> newList = questions("1", "1", "3");
+        // Act
+        applyDiff(oldList, newList);
+        // Assert
+        assertThat(mListUpdateCallbackTd.mUpdates, is(updates("remove 0 2", "insert 0 3")));
+    }
+
+    @Test
+    public void calculateDiff_randomLists_updatesTransformOldListIntoNewList() throws Exception {
+        // Arrange
+        Random random = new Random(42);
+        for (int iteration = 0; iteration < 200; iteration++) {
+            List<Question> oldList = randomQuestions(random);
+            List<Question> newList = randomQuestions(random);
+            mListUpdateCallbackTd = new ListUpdateCallbackTd();
+            // Act
+            applyDiff(oldList, newList);
+            // Assert
+            assertThat(mListUpdateCallbackTd.mItems, is(newList));
+        }
+    }
+
+    // region helper methods -----------------------------------------------------------------------
+
+    private void applyDiff(List<Question> oldList, List<Question> newList) {
+        mListUpdateCallbackTd.mItems = new ArrayList<>(oldList);
+        mListUpdateCallbackTd.mNewList = newList;
+        ListDiffer.calculateDiff(oldList, newList, QUESTIONS_CALLBACK).dispatchUpdatesTo(mListUpdateCallbackTd);
+        mListUpdateCallbackTd.applyPendingChanges();
+    }
+
+    private static List<Question> questions(String... ids) {
+        List<Question> questions = new ArrayList<>();
+        for (String id : ids) {
+            questions.add(new Question(id, "title" + id));
+        }
+        return questions;
+    }
+
+    private static List<Question> randomQuestions(Random random) {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            ids.add(i);
+        }
+        Collections.shuffle(ids, random);
+        List<Question> questions = new ArrayList<>();
+        int size = random.nextInt(ids.size());
+        for (int i = 0; i < size; i++) {
+            int id = ids.get(i);
+            questions.add(new Question(String.valueOf(id), "title" + id + "-" + random.nextInt(3)));
+        }
+        return questions;
+    }
+
+    private static List<String> updates(String... updates) {
+        return Arrays.asList(updates);
+    }
+
+    // endregion helper methods --------------------------------------------------------------------
+
+    // region helper classes -----------------------------------------------------------------------
+
+    /**
+     * Applies the updates to a copy of the old list. Inserted and changed items are taken from the
+     * new list once all the updates had been dispatched, because only then the positions are final.
+     */
+    private static class ListUpdateCallbackTd implements ListUpdateCallback {
+
+        private final List<String> mUpdates = new LinkedList<>();
+        private final List<Integer> mPositionsToRefresh = new ArrayList<>();
+        private List<Question> mItems;
+        private List<Question> mNewList;
+
+        @Override
+        public void onInserted(int position, int count) {
+            mUpdates.add("insert " + position + " " + count);
+            for (int i = 0; i < count; i++) {
+                mItems.add(position + i, null);
+                mPositionsToRefresh.add(position + i);
+            }
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            mUpdates.add("remove " + position + " " + count);
+            for (int i = 0; i < count; i++) {
+                mItems.remove(position);
+            }
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            mUpdates.add("move " + fromPosition + " " + toPosition);
+            mItems.add(toPosition, mItems.remove(fromPosition));
+        }
+
+        @Override
+        public void onChanged(int position, int count) {
+            mUpdates.add("change " + position + " " + count);
+            for (int i = 0; i < count; i++) {
+                mPositionsToRefresh.add(position + i);
+            }
+        }
+
+        private void applyPendingChanges() {
+            for (int position : mPositionsToRefresh) {
+                mItems.set(position, mNewList.get(position));
+            }
+        }
+    }
+
+    // endregion helper classes --------------------------------------------------------------------
+
+}
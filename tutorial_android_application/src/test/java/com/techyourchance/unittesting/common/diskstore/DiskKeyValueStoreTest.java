@@ -0,0 +1,226 @@
+package com.techyourchance.unittesting.common.diskstore;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class DiskKeyValueStoreTest {
+
+    // region constants ----------------------------------------------------------------------------
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String STORE_NAME = "store";
+    // endregion constants -------------------------------------------------------------------------
+
+    // region helper fields ------------------------------------------------------------------------
+    @Rule public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+    private File mDirectory;
+    // endregion helper fields ---------------------------------------------------------------------
+
+    DiskKeyValueStore SUT;
+
+    @Before
+    public void setup() throws Exception {
+        mDirectory = mTemporaryFolder.newFolder();
+        SUT = new DiskKeyValueStore(mDirectory, STORE_NAME);
+    }
+
+    @Test
+    public void keys_liveKeysReturnedInOrderOfLatestWrite() throws Exception {
+        // Arrange
+        SUT.put("key1", bytes("value1"));
+        SUT.put("key2", bytes("value2"));
+        SUT.put("key3", bytes("value3"));
+        SUT.put("key1", bytes("value4"));
+        SUT.remove("key2");
+        // Act
+        List<String> result = SUT.keys();
+        // Assert
+        assertThat(result, is(Arrays.asList("key3", "key1")));
+    }
+
+    @Test
+    public void get_afterPut_valueReturned() throws Exception {
+        // Arrange
+        SUT.put("key1", bytes("value1"));
+        // Act
+        byte[] result = SUT.get("key1");
+        // Assert
+        assertThat(string(result), is("value1"));
+    }
+
+    @Test
+    public void get_unknownKey_nullReturned() throws Exception {
+        // Arrange
+        SUT.put("key1", bytes("value1"));
+        // Act
+        byte[] result = SUT.get("key2");
+        // Assert
+        assertThat(result, is(nullValue()));
+    }
+
+    @Test
+    public void get_keyPutTwice_latestValueReturned() throws Exception {
+        // Arrange
+        SUT.put("key1", bytes("value1"));
+        SUT.put("key1", bytes("value2"));
+        // Act
+        byte[] result = SUT.get("key1");
+        // Assert
+        assertThat(string(result), is("value2"));
+        assertThat(SUT.size(), is(1));
+    }
+
+    @Test
+    public void get_afterRemove_nullReturned() throws Exception {
+        // Arrange
+        SUT.put("key1", bytes("value1"));
+        // Act
+        boolean removed = SUT.remove("key1");
+        // Assert
+        assertThat(removed, is(true));
+        assertThat(SUT.get("key1"), is(nullValue()));
+        assertThat(SUT.size(), is(0));
+    }
+
+    @Test
+    public void get_manyKeys_allValuesReturned() throws Exception {
+        // Arrange
+        for (int i = 0; i < 1000; i++) {
+            SUT.put("key" + i, bytes("value" + i));
+        }
+        // Act
+        // Assert
+        assertThat(SUT.size(), is(1000));
+        for (int i = 0; i < 1000; i++) {
+            assertThat(string(SUT.get("key" + i)), is("value" + i));
+        }
+    }
+
+    @Test
+    public void get_afterReopen_valuesRestored() throws Exception {
+        // Arrange
+        SUT.put("key1", bytes("value1"));
+        SUT.put("key2", bytes("value2"));
+        SUT.remove("key2");
+        SUT.close();
+        // Act
+        SUT = new DiskKeyValueStore(mDirectory, STORE_NAME);
+        // Assert
+        assertThat(string(SUT.get("key1")), is("value1"));
+        assertThat(SUT.get("key2"), is(nullValue()));
+        assertThat(SUT.size(), is(1));
+    }
+
+    @Test
+    public void get_afterReopenWithoutIndex_indexRebuiltFromData() throws Exception {
+        // Arrange
+        SUT.put("key1", bytes("value1"));
+        SUT.put("key2", bytes("value2"));
+        SUT.put("key1", bytes("value3"));
+        SUT.remove("key2");
+        SUT.close();
+        deleteIndexFile();
+        // Act
+        SUT = new DiskKeyValueStore(mDirectory, STORE_NAME);
+        // Assert
+        assertThat(string(SUT.get("key1")), is("value3"));
+        assertThat(SUT.get("key2"), is(nullValue()));
+        assertThat(SUT.size(), is(1));
+    }
+
+    @Test
+    public void get_afterReopenWithTruncatedTailRecord_previousRecordsRestored() throws Exception {
+        // Arrange
+        SUT.put("key1", bytes("value1"));
+        SUT.put("key2", bytes("value2"));
+        SUT.close();
+        deleteIndexFile();
+        truncateDataFile(3);
+        // Act
+        SUT = new DiskKeyValueStore(mDirectory, STORE_NAME);
+        // Assert
+        assertThat(string(SUT.get("key1")), is("value1"));
+        assertThat(SUT.get("key2"), is(nullValue()));
+    }
+
+    @Test
+    public void compact_overwrittenValues_dataShrunkAndLatestValuesRetained() throws Exception {
+        // Arrange
+        for (int i = 0; i < 10; i++) {
+            SUT.put("key1", bytes("value" + i));
+            SUT.put("key2", bytes("value" + i));
+        }
+        long dataLengthBeforeCompaction = SUT.getDataLength();
+        // Act
+        SUT.compact();
+        // Assert
+        assertThat(SUT.getDataLength() < dataLengthBeforeCompaction, is(true));
+        assertThat(SUT.getDataLength(), is(SUT.getLiveBytes()));
+        assertThat(string(SUT.get("key1")), is("value9"));
+        assertThat(string(SUT.get("key2")), is("value9"));
+    }
+
+    @Test
+    public void compact_afterReopen_valuesRestored() throws Exception {
+        // Arrange
+        SUT.put("key1", bytes("value1"));
+        SUT.put("key1", bytes("value2"));
+        SUT.compact();
+        SUT.close();
+        // Act
+        SUT = new DiskKeyValueStore(mDirectory, STORE_NAME);
+        // Assert
+        assertThat(string(SUT.get("key1")), is("value2"));
+        assertThat(SUT.size(), is(1));
+    }
+
+    @Test
+    public void put_mostlyOverwrittenData_compactedAutomatically() throws Exception {
+        // Arrange
+        byte[] value = new byte[1024];
+        // Act
+        for (int i = 0; i < 1000; i++) {
+            SUT.put("key" + (i % 10), value);
+        }
+        // Assert
+        assertThat(SUT.getDataLength() < 1000 * value.length, is(true));
+        assertThat(SUT.size(), is(10));
+    }
+
+    // region helper methods -----------------------------------------------------------------------
+
+    private void deleteIndexFile() {
+        new File(mDirectory, STORE_NAME + ".index").delete();
+    }
+
+    private void truncateDataFile(int bytesToRemove) throws Exception {
+        RandomAccessFile dataFile = new RandomAccessFile(new File(mDirectory, STORE_NAME + ".data"), "rw");
+        try {
+            dataFile.setLength(dataFile.length() - bytesToRemove);
+        } finally {
+            dataFile.close();
+        }
+    }
+
+    private static byte[] bytes(String string) {
+        return string.getBytes(UTF_8);
+    }
+
+    private static String string(byte[] bytes) {
+        return new String(bytes, UTF_8);
+    }
+
+    // endregion helper methods --------------------------------------------------------------------
+
+}
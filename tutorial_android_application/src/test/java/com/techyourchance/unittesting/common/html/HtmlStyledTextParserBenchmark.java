@@ -0,0 +1,109 @@
+package com.techyourchance.unittesting.common.html;
+
+import com.techyourchance.unittesting.benchmarks.Benchmark;
+
+/**
+ * Measures {@link HtmlStyledTextParser} on question bodies shaped like the ones Stack Overflow
+ * returns (paragraphs, code blocks full of character references, lists, links and quotes), up to
+ * the maximal body length that Stack Overflow allows. Compares parsing the whole body with parsing
+ * only the first screen of it. Not a unit test - run the main method manually.
+ */
+public class HtmlStyledTextParserBenchmark {
+
+    private static final int[] BODY_LENGTHS = {2000, 10000, 30000};
+    private static final int FIRST_SCREEN_TEXT_LENGTH = 1500;
+    private static final int WARMUP_ITERATIONS = 2000;
+    private static final int MEASURED_ITERATIONS = 2000;
+
+    private interface Parse {
+        int run(String html);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Parse tokenizeOnly = new Parse() {
+            @Override
+            public int run(String html) {
+                HtmlTokenizer tokenizer = new HtmlTokenizer(html);
+                int tokensCount = 0;
+                while (tokenizer.next() != HtmlTokenizer.END_OF_INPUT) {
+                    tokensCount++;
+                }
+                return tokensCount;
+            }
+        };
+        Parse parseAll = new Parse() {
+            @Override
+            public int run(String html) {
+                HtmlStyledTextParser parser = new HtmlStyledTextParser(html);
+                parser.parseAll();
+                return parser.getStyledText().getRuns().size();
+            }
+        };
+        Parse parseFirstScreen = new Parse() {
+            @Override
+            public int run(String html) {
+                HtmlStyledTextParser parser = new HtmlStyledTextParser(html);
+                parser.parseUntil(FIRST_SCREEN_TEXT_LENGTH);
+                return parser.getStyledText().getRuns().size();
+            }
+        };
+
+        for (int bodyLength : BODY_LENGTHS) {
+            String html = body(bodyLength);
+            System.out.println("body of " + html.length() + " chars:");
+            measure("  tokenize only ", tokenizeOnly, html);
+            measure("  whole body    ", parseAll, html);
+            measure("  first screen  ", parseFirstScreen, html);
+        }
+    }
+
+    private static void measure(String name, final Parse parse, final String html) throws Exception {
+        Benchmark.Result result = Benchmark.measure(new Benchmark.Operation() {
+            @Override
+            public long run(int iteration) {
+                return parse.run(html);
+            }
+        }, WARMUP_ITERATIONS, MEASURED_ITERATIONS);
+
+        System.out.println(String.format("%s %10.1f us, %8d KB allocated (%d)",
+                name, result.getAverageMicros(), (long) result.getAverageAllocatedBytes() / 1024, result.getChecksum()));
+    }
+
+    private static String body(int length) {
+        StringBuilder body = new StringBuilder();
+        int section = 0;
+        while (body.length() < length) {
+            switch (section++ % 4) {
+                case 0:
+                    body.append("<p>I'm trying to use <code>RecyclerView</code> with <strong>paging</strong>, ")
+                            .append("but the list jumps after <em>every</em> update. According to ")
+                            .append("<a href=\"https://developer.android.com/reference/androidx/recyclerview/widget/RecyclerView\" rel=\"nofollow noreferrer\">the docs</a>")
+                            .append(" this shouldn&#39;t happen. Here&#39;s what I have so far:</p>\n\n");
+                    break;
+                case 1:
+                    body.append("<pre class=\"lang-java s-code-block\"><code>")
+                            .append("public class Adapter extends RecyclerView.Adapter&lt;ViewHolder&gt; {\n")
+                            .append("    private final List&lt;Question&gt; mItems = new ArrayList&lt;&gt;();\n\n")
+                            .append("    void bind(List&lt;Question&gt; items) {\n")
+                            .append("        if (items != null &amp;&amp; !items.isEmpty()) {\n")
+                            .append("            mItems.addAll(items);\n")
+                            .append("        }\n")
+                            .append("    }\n")
+                            .append("}\n</code></pre>\n\n");
+                    break;
+                case 2:
+                    body.append("<p>Things I&#39;ve tried:</p>\n\n<ul>\n")
+                            .append("<li>calling <code>notifyDataSetChanged()</code> after each page</li>\n")
+                            .append("<li>setting <code>setHasStableIds(true)</code></li>\n")
+                            .append("<li>disabling item animations</li>\n</ul>\n\n");
+                    break;
+                default:
+                    body.append("<blockquote>\n<p>java.lang.IndexOutOfBoundsException: Inconsistency detected. ")
+                            .append("Invalid view holder adapter position</p>\n</blockquote>\n\n")
+                            .append("<p>What am I doing wrong?<br>\nAny help is appreciated.</p>\n\n");
+                    break;
+            }
+        }
+        return body.toString();
+    }
+}
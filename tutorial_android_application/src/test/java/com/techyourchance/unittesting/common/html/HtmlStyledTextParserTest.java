@@ -0,0 +1,177 @@
+package com.techyourchance.unittesting.common.html;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class HtmlStyledTextParserTest {
+
+    HtmlStyledTextParser SUT;
+
+    @Test
+    public void parseAll_paragraphs_separatedByBlankLineWithoutOuterWhitespace() throws Exception {
+        // Arrange
+        SUT = new HtmlStyledTextParser("\n<p>First   paragraph\nwrapped.</p>\n\n<p>Second.</p>\n");
+        // Act
+        SUT.parseAll();
+        // Assert
+        assertThat(SUT.getStyledText().getText(), is("First paragraph wrapped.\n\nSecond."));
+    }
+
+    @Test
+    public void parseAll_inlineStyles_runsCoverStyledText() throws Exception {
+        // Arrange
+        SUT = new HtmlStyledTextParser("<p>a <strong>b</strong> <em>c</em> <code>d()</code></p>");
+        // Act
+        SUT.parseAll();
+        // Assert
+        StyledText styledText = SUT.getStyledText();
+        assertThat(styledText.getText(), is("a b c d()"));
+        assertThat(runs(styledText), is(Arrays.asList("STRONG b", "EMPHASIS c", "CODE d()")));
+    }
+
+    @Test
+    public void parseAll_link_runWithUrl() throws Exception {
+        // Arrange
+        SUT = new HtmlStyledTextParser("see <a href=\"https://stackoverflow.com/q/1\" rel=\"nofollow\">this</a>");
+        // Act
+        SUT.parseAll();
+        // Assert
+        StyleRun run = SUT.getStyledText().getRuns().get(0);
+        assertThat(run.getStyle(), is(StyleRun.Style.LINK));
+        assertThat(run.getUrl(), is("https://stackoverflow.com/q/1"));
+        assertThat(runs(SUT.getStyledText()), is(Arrays.asList("LINK this")));
+    }
+
+    @Test
+    public void parseAll_preformattedCode_whitespacePreservedAndCodeNotStyledTwice() throws Exception {
+        // Arrange
+        SUT = new HtmlStyledTextParser("<p>Code:</p>\n\n<pre><code>if (a &lt; b) {\n    return;\n}\n</code></pre>\n\n<p>End</p>");
+        // Act
+        SUT.parseAll();
+        // Assert
+        StyledText styledText = SUT.getStyledText();
+        assertThat(styledText.getText(), is("Code:\n\nif (a < b) {\n    return;\n}\n\nEnd"));
+        assertThat(runs(styledText), is(Arrays.asList("CODE_BLOCK if (a < b) {\n    return;\n}\n")));
+    }
+
+    @Test
+    public void parseAll_lists_itemsPrefixedAndOnSeparateLines() throws Exception {
+        // Arrange
+        SUT = new HtmlStyledTextParser("<ul>\n<li>one</li>\n<li>two</li>\n</ul>\n<ol><li>first</li><li>second</li></ol>");
+        // Act
+        SUT.parseAll();
+        // Assert
+        StyledText styledText = SUT.getStyledText();
+        assertThat(styledText.getText(), is("\u2022 one\n\u2022 two\n\n1. first\n2. second"));
+        assertThat(runs(styledText), is(Arrays.asList(
+                "LIST_ITEM \u2022 one", "LIST_ITEM \u2022 two", "LIST_ITEM 1. first", "LIST_ITEM 2. second")));
+    }
+
+    @Test
+    public void parseAll_listItemsWithoutEndTags_itemsClosedByNextItem() throws Exception {
+        // Arrange
+        SUT = new HtmlStyledTextParser("<ul><li>one<li>two</ul>");
+        // Act
+        SUT.parseAll();
+        // Assert
+        assertThat(runs(SUT.getStyledText()), is(Arrays.asList("LIST_ITEM \u2022 one", "LIST_ITEM \u2022 two")));
+    }
+
+    @Test
+    public void parseAll_blockquote_quoteRunAroundParagraphs() throws Exception {
+        // Arrange
+        SUT = new HtmlStyledTextParser("<p>Intro</p><blockquote><p>quoted</p><p>text</p></blockquote><p>Outro</p>");
+        // Act
+        SUT.parseAll();
+        // Assert
+        StyledText styledText = SUT.getStyledText();
+        assertThat(styledText.getText(), is("Intro\n\nquoted\n\ntext\n\nOutro"));
+        assertThat(runs(styledText), is(Arrays.asList("QUOTE quoted\n\ntext")));
+    }
+
+    @Test
+    public void parseAll_lineBreak_newlineInserted() throws Exception {
+        // Arrange
+        SUT = new HtmlStyledTextParser("line one <br>\nline two");
+        // Act
+        SUT.parseAll();
+        // Assert
+        assertThat(SUT.getStyledText().getText(), is("line one\nline two"));
+    }
+
+    @Test
+    public void parseAll_misnestedTags_runsClosedWithEnclosingElement() throws Exception {
+        // Arrange
+        SUT = new HtmlStyledTextParser("<p><strong>a <em>b</strong> c</em></p>");
+        // Act
+        SUT.parseAll();
+        // Assert
+        StyledText styledText = SUT.getStyledText();
+        assertThat(styledText.getText(), is("a b c"));
+        assertThat(runs(styledText), is(Arrays.asList("STRONG a b", "EMPHASIS b")));
+    }
+
+    @Test
+    public void parseUntil_longDocument_stopsEarlyWithOpenElementsStyledToEnd() throws Exception {
+        // Arrange
+        StringBuilder html = new StringBuilder("<blockquote>");
+        for (int i = 0; i < 100; i++) {
+            html.append("<p>paragraph ").append(i).append("</p>");
+        }
+        html.append("</blockquote>");
+        SUT = new HtmlStyledTextParser(html.toString());
+        // Act
+        boolean finished = SUT.parseUntil(50);
+        // Assert
+        StyledText styledText = SUT.getStyledText();
+        assertThat(finished, is(false));
+        assertThat(styledText.getText().length() < 100, is(true));
+        assertThat(runs(styledText), is(Arrays.asList("QUOTE " + styledText.getText())));
+    }
+
+    @Test
+    public void parseUntil_thenParseAll_sameResultAsParsingAtOnce() throws Exception {
+        // Arrange
+        String html = "<p>a <a href=\"u\">b <code>c</code></a></p><pre><code>d\n</code></pre><ul><li><em>e</em></li></ul>";
+        HtmlStyledTextParser atOnce = new HtmlStyledTextParser(html);
+        atOnce.parseAll();
+        SUT = new HtmlStyledTextParser(html);
+        // Act
+        SUT.parseUntil(3);
+        SUT.parseAll();
+        // Assert
+        assertThat(SUT.isFinished(), is(true));
+        assertThat(SUT.getStyledText().getText(), is(atOnce.getStyledText().getText()));
+        assertThat(runs(SUT.getStyledText()), is(runs(atOnce.getStyledText())));
+    }
+
+    @Test
+    public void parseAll_emptyInput_emptyText() throws Exception {
+        // Arrange
+        SUT = new HtmlStyledTextParser("");
+        // Act
+        SUT.parseAll();
+        // Assert
+        assertThat(SUT.getStyledText().getText(), is(""));
+        assertThat(SUT.getStyledText().getRuns().size(), is(0));
+    }
+
+    // region helper methods -----------------------------------------------------------------------
+
+    private static List<String> runs(StyledText styledText) {
+        List<String> runs = new ArrayList<>();
+        for (StyleRun run : styledText.getRuns()) {
+            runs.add(run.getStyle() + " " + styledText.getText().substring(run.getStart(), run.getEnd()));
+        }
+        return runs;
+    }
+
+    // endregion helper methods --------------------------------------------------------------------
+
+}
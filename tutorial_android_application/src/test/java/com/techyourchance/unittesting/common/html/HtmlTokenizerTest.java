@@ -0,0 +1,131 @@
+package com.techyourchance.unittesting.common.html;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class HtmlTokenizerTest {
+
+    HtmlTokenizer SUT;
+
+    @Test
+    public void next_tagsAndText_tokensInDocumentOrder() throws Exception {
+        // Arrange
+        SUT = new HtmlTokenizer("<p>Some <STRONG>bold</Strong> text</p>");
+        // Act
+        List<String> tokens = readAll();
+        // Assert
+        assertThat(tokens, is(Arrays.asList(
+                "<p>", "Some ", "<strong>", "bold", "</strong>", " text", "</p>")));
+    }
+
+    @Test
+    public void next_attributes_valuesDecoded() throws Exception {
+        // Arrange
+        SUT = new HtmlTokenizer("<a href=\"https://example.com/?a=1&amp;b=2\" rel='nofollow' title=x>link</a>");
+        // Act
+        SUT.next();
+        // Assert
+        assertThat(SUT.getAttribute("href"), is("https://example.com/?a=1&b=2"));
+        assertThat(SUT.getAttribute("rel"), is("nofollow"));
+        assertThat(SUT.getAttribute("title"), is("x"));
+        assertThat(SUT.getAttribute("class"), is(nullValue()));
+    }
+
+    @Test
+    public void next_characterReferences_decoded() throws Exception {
+        // Arrange
+        SUT = new HtmlTokenizer("&lt;T&gt; &quot;q&quot; &#39;s&#x27; &amp;&amp;");
+        // Act
+        SUT.next();
+        // Assert
+        assertThat(SUT.getText(), is("<T> \"q\" 's' &&"));
+    }
+
+    @Test
+    public void next_unknownAndMalformedReferences_leftAsIs() throws Exception {
+        // Arrange
+        SUT = new HtmlTokenizer("a &unknown; b & c &#xZZ;");
+        // Act
+        SUT.next();
+        // Assert
+        assertThat(SUT.getText(), is("a &unknown; b & c &#xZZ;"));
+    }
+
+    @Test
+    public void next_selfClosingTag_reported() throws Exception {
+        // Arrange
+        SUT = new HtmlTokenizer("<br/><hr />");
+        // Act
+        SUT.next();
+        boolean firstSelfClosing = SUT.isSelfClosing();
+        SUT.next();
+        // Assert
+        assertThat(firstSelfClosing, is(true));
+        assertThat(SUT.isSelfClosing(), is(true));
+        assertThat(SUT.getTagName(), is("hr"));
+    }
+
+    @Test
+    public void next_commentsAndDoctype_skipped() throws Exception {
+        // Arrange
+        SUT = new HtmlTokenizer("<!DOCTYPE html><!-- comment <p> -->text");
+        // Act
+        List<String> tokens = readAll();
+        // Assert
+        assertThat(tokens, is(Arrays.asList("text")));
+    }
+
+    @Test
+    public void next_strayLessThanSign_partOfText() throws Exception {
+        // Arrange
+        SUT = new HtmlTokenizer("a < b");
+        // Act
+        List<String> tokens = readAll();
+        // Assert
+        assertThat(tokens, is(Arrays.asList("a ", "<", " b")));
+    }
+
+    @Test
+    public void next_unterminatedTag_consumedUntilEndOfInput() throws Exception {
+        // Arrange
+        SUT = new HtmlTokenizer("text<a href=\"x");
+        // Act
+        List<String> tokens = readAll();
+        // Assert
+        assertThat(tokens, is(Arrays.asList("text", "<a>")));
+        assertThat(SUT.getPosition(), is("text<a href=\"x".length()));
+    }
+
+    // region helper methods -----------------------------------------------------------------------
+
+    private List<String> readAll() {
+        List<String> tokens = new ArrayList<>();
+        int tokenType;
+        while ((tokenType = SUT.next()) != HtmlTokenizer.END_OF_INPUT) {
+            switch (tokenType) {
+                case HtmlTokenizer.TEXT:
+                    tokens.add(SUT.getText());
+                    break;
+                case HtmlTokenizer.START_TAG:
+                    tokens.add("<" + SUT.getTagName() + ">");
+                    break;
+                case HtmlTokenizer.END_TAG:
+                    tokens.add("</" + SUT.getTagName() + ">");
+                    break;
+                default:
+                    throw new RuntimeException("unknown token type: " + tokenType);
+            }
+        }
+        return tokens;
+    }
+
+    // endregion helper methods --------------------------------------------------------------------
+
+}
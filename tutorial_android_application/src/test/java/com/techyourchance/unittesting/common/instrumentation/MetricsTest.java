@@ -0,0 +1,152 @@
+package com.techyourchance.unittesting.common.instrumentation;
+
+import com.techyourchance.unittesting.common.time.TimeProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class MetricsTest {
+
+    // region constants ----------------------------------------------------------------------------
+    private static final String NAME_1 = "metric_a";
+    private static final String NAME_2 = "metric_b";
+    // endregion constants -------------------------------------------------------------------------
+
+    // region helper fields ------------------------------------------------------------------------
+    private ExporterTd mExporterTd;
+    // endregion helper fields ---------------------------------------------------------------------
+
+    Metrics SUT;
+
+    @Before
+    public void setup() throws Exception {
+        mExporterTd = new ExporterTd();
+        SUT = new Metrics(new TimeProvider());
+    }
+
+    @Test
+    public void timer_sameName_sameTimerReturned() throws Exception {
+        // Arrange
+        // Act
+        Timer first = SUT.timer(NAME_1);
+        Timer second = SUT.timer(NAME_1);
+        // Assert
+        assertThat(second, is(sameInstance(first)));
+    }
+
+    @Test
+    public void counter_sameName_sameCounterReturned() throws Exception {
+        // Arrange
+        // Act
+        Counter first = SUT.counter(NAME_1);
+        Counter second = SUT.counter(NAME_1);
+        // Assert
+        assertThat(second, is(sameInstance(first)));
+    }
+
+    @Test
+    public void export_allMetricsExportedSortedByName() throws Exception {
+        // Arrange
+        SUT.counter(NAME_2).add(5);
+        SUT.counter(NAME_1).increment();
+        SUT.timer(NAME_1).record(100);
+        SUT.registerGauge(NAME_1, constantGauge(7));
+        // Act
+        SUT.export(mExporterTd);
+        // Assert
+        assertThat(mExporterTd.mExported, is(Arrays.asList(
+                "timer " + NAME_1 + " 1",
+                "counter " + NAME_1 + " 1",
+                "counter " + NAME_2 + " 5",
+                "gauge " + NAME_1 + " 7"
+        )));
+    }
+
+    @Test
+    public void export_gaugeReadOnEachExport() throws Exception {
+        // Arrange
+        final long[] value = {1};
+        SUT.registerGauge(NAME_1, new Gauge() {
+            @Override
+            public long getValue() {
+                return value[0];
+            }
+        });
+        SUT.export(new ExporterTd());
+        value[0] = 2;
+        // Act
+        SUT.export(mExporterTd);
+        // Assert
+        assertThat(mExporterTd.mExported, is(Arrays.asList("gauge " + NAME_1 + " 2")));
+    }
+
+    @Test
+    public void registerGauge_sameName_previousGaugeReplaced() throws Exception {
+        // Arrange
+        SUT.registerGauge(NAME_1, constantGauge(1));
+        // Act
+        SUT.registerGauge(NAME_1, constantGauge(2));
+        SUT.export(mExporterTd);
+        // Assert
+        assertThat(mExporterTd.mExported, is(Arrays.asList("gauge " + NAME_1 + " 2")));
+    }
+
+    @Test
+    public void dump_allMetricsIncluded() throws Exception {
+        // Arrange
+        SUT.timer(NAME_1).record(2000);
+        SUT.counter(NAME_2).add(3);
+        // Act
+        String dump = SUT.dump();
+        // Assert
+        assertThat(dump, containsString(NAME_1 + ": count=1 p50=2us"));
+        assertThat(dump, containsString(NAME_2 + ": 3"));
+    }
+
+    // region helper methods -----------------------------------------------------------------------
+
+    private static Gauge constantGauge(final long value) {
+        return new Gauge() {
+            @Override
+            public long getValue() {
+                return value;
+            }
+        };
+    }
+
+    // endregion helper methods --------------------------------------------------------------------
+
+    // region helper classes -----------------------------------------------------------------------
+
+    private static class ExporterTd implements Metrics.Exporter {
+
+        private final List<String> mExported = new ArrayList<>();
+
+        @Override
+        public void exportTimer(String name, Timer timer) {
+            mExported.add("timer " + name + " " + timer.getCount());
+        }
+
+        @Override
+        public void exportCounter(String name, long value) {
+            mExported.add("counter " + name + " " + value);
+        }
+
+        @Override
+        public void exportGauge(String name, long value) {
+            mExported.add("gauge " + name + " " + value);
+        }
+    }
+
+    // endregion helper classes --------------------------------------------------------------------
+
+}
@@ -0,0 +1,144 @@
+package com.techyourchance.unittesting.common.instrumentation;
+
+import com.techyourchance.unittesting.common.time.VirtualTimeProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TimerTest {
+
+    // region constants ----------------------------------------------------------------------------
+    private static final long MAX_RELATIVE_ERROR_DIVISOR = 16;
+    // endregion constants -------------------------------------------------------------------------
+
+    // region helper fields ------------------------------------------------------------------------
+    private VirtualTimeProvider mTimeProvider;
+    // endregion helper fields ---------------------------------------------------------------------
+
+    Timer SUT;
+
+    @Before
+    public void setup() throws Exception {
+        mTimeProvider = new VirtualTimeProvider();
+        SUT = new Timer(mTimeProvider);
+    }
+
+    @Test
+    public void getPercentileNanos_nothingRecorded_zero() throws Exception {
+        // Arrange
+        // Act
+        // Assert
+        assertThat(SUT.getCount(), is(0L));
+        assertThat(SUT.getPercentileNanos(50), is(0L));
+    }
+
+    @Test
+    public void record_severalDurations_countTotalAndMaxReturned() throws Exception {
+        // Arrange
+        // Act
+        SUT.record(100);
+        SUT.record(300);
+        SUT.record(200);
+        // Assert
+        assertThat(SUT.getCount(), is(3L));
+        assertThat(SUT.getTotalNanos(), is(600L));
+        assertThat(SUT.getMaxNanos(), is(300L));
+    }
+
+    @Test
+    public void getPercentileNanos_smallDurations_exactPercentiles() throws Exception {
+        // Arrange
+        for (long duration = 1; duration <= 10; duration++) {
+            SUT.record(duration);
+        }
+        // Act
+        // Assert
+        assertThat(SUT.getPercentileNanos(0), is(1L));
+        assertThat(SUT.getPercentileNanos(50), is(5L));
+        assertThat(SUT.getPercentileNanos(90), is(9L));
+        assertThat(SUT.getPercentileNanos(100), is(10L));
+    }
+
+    @Test
+    public void getPercentileNanos_largeDurations_withinRelativeErrorAboveDuration() throws Exception {
+        // Arrange
+        long[] durations = {17, 1000, 123456, 50000000, 7000000000L};
+        // Act
+        // Assert
+        for (long duration : durations) {
+            Timer timer = new Timer(mTimeProvider);
+            timer.record(duration);
+            timer.record(Long.MAX_VALUE / 2); // so that the percentile isn't capped by the max
+            long percentile = timer.getPercentileNanos(50);
+            assertThat(percentile >= duration, is(true));
+            assertThat(percentile - duration <= duration / MAX_RELATIVE_ERROR_DIVISOR, is(true));
+        }
+    }
+
+    @Test
+    public void getPercentileNanos_hundredthPercentile_maxReturned() throws Exception {
+        // Arrange
+        SUT.record(1000);
+        SUT.record(123456);
+        // Act
+        long percentile = SUT.getPercentileNanos(100);
+        // Assert
+        assertThat(percentile, is(123456L));
+    }
+
+    @Test
+    public void getPercentileNanos_skewedDistribution_tailSeparatedFromMedian() throws Exception {
+        // Arrange
+        for (int i = 0; i < 99; i++) {
+            SUT.record(1000);
+        }
+        SUT.record(1000000);
+        // Act
+        long median = SUT.getPercentileNanos(50);
+        long p99 = SUT.getPercentileNanos(99);
+        long p999 = SUT.getPercentileNanos(99.9);
+        // Assert
+        assertThat(median < 1000 + 1000 / MAX_RELATIVE_ERROR_DIVISOR, is(true));
+        assertThat(p99 < 1000 + 1000 / MAX_RELATIVE_ERROR_DIVISOR, is(true));
+        assertThat(p999, is(1000000L));
+    }
+
+    @Test
+    public void record_maxLongDuration_recorded() throws Exception {
+        // Arrange
+        // Act
+        SUT.record(Long.MAX_VALUE);
+        // Assert
+        assertThat(SUT.getPercentileNanos(50), is(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void record_negativeDuration_recordedAsZero() throws Exception {
+        // Arrange
+        // Act
+        SUT.record(-5);
+        // Assert
+        assertThat(SUT.getCount(), is(1L));
+        assertThat(SUT.getTotalNanos(), is(0L));
+        assertThat(SUT.getPercentileNanos(50), is(0L));
+    }
+
+    @Test
+    public void stop_monotonicDurationSinceStartRecorded() throws Exception {
+        // Arrange
+        long startNanos = SUT.start();
+        mTimeProvider.advanceBy(1500, TimeUnit.MICROSECONDS);
+        mTimeProvider.changeWallClockBy(-TimeUnit.HOURS.toMillis(1));
+        // Act
+        SUT.stop(startNanos);
+        // Assert
+        assertThat(SUT.getCount(), is(1L));
+        assertThat(SUT.getTotalNanos(), is(1500000L));
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.techyourchance.unittesting.common.requests;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RequestCoalescerTest {
+
+    // region constants ----------------------------------------------------------------------------
+    private static final String KEY = "key";
+    // endregion constants -------------------------------------------------------------------------
+
+    // region helper fields ------------------------------------------------------------------------
+    @Mock Cancellable mCancellableMock;
+    // endregion helper fields ---------------------------------------------------------------------
+
+    RequestCoalescer<String> SUT;
+
+    @Before
+    public void setup() throws Exception {
+        SUT = new RequestCoalescer<>();
+    }
+
+    @Test
+    public void tryStart_requestInFlight_nullReturnedAndCoalescedRequestCounted() throws Exception {
+        // Arrange
+        SUT.tryStart(KEY);
+        // Act
+        RequestCoalescer.InFlightRequest result = SUT.tryStart(KEY);
+        // Assert
+        assertThat(result, is(nullValue()));
+        assertThat(SUT.getCoalescedRequestsCount(), is(1L));
+    }
+
+    @Test
+    public void tryStart_afterFinish_newRequestReturned() throws Exception {
+        // Arrange
+        RequestCoalescer.InFlightRequest request = SUT.tryStart(KEY);
+        SUT.finish(KEY, request);
+        // Act
+        RequestCoalescer.InFlightRequest result = SUT.tryStart(KEY);
+        // Assert
+        assertThat(result, is(notNullValue()));
+    }
+
+    @Test
+    public void finish_requestInFlight_trueReturnedAndRequestFinished() throws Exception {
+        // Arrange
+        RequestCoalescer.InFlightRequest request = SUT.tryStart(KEY);
+        // Act
+        boolean result = SUT.finish(KEY, request);
+        // Assert
+        assertThat(result, is(true));
+        assertThat(SUT.isInFlight(KEY), is(false));
+    }
+
+    @Test
+    public void finish_cancelledRequestAfterNewRequestStarted_falseReturnedAndNewRequestStillInFlight() throws Exception {
+        // Arrange
+        RequestCoalescer.InFlightRequest cancelledRequest = SUT.tryStart(KEY);
+        SUT.setCancellable(cancelledRequest, mCancellableMock);
+        SUT.cancelAll();
+        SUT.tryStart(KEY);
+        // Act
+        boolean result = SUT.finish(KEY, cancelledRequest);
+        // Assert
+        assertThat(result, is(false));
+        assertThat(SUT.isInFlight(KEY), is(true));
+    }
+
+    @Test
+    public void isInFlight_cancelledRequestAfterNewRequestStarted_falseReturned() throws Exception {
+        // Arrange
+        RequestCoalescer.InFlightRequest cancelledRequest = SUT.tryStart(KEY);
+        SUT.setCancellable(cancelledRequest, mCancellableMock);
+        SUT.cancelAll();
+        RequestCoalescer.InFlightRequest newRequest = SUT.tryStart(KEY);
+        // Act
+        boolean result = SUT.isInFlight(KEY, cancelledRequest);
+        // Assert
+        assertThat(result, is(false));
+        assertThat(SUT.isInFlight(KEY, newRequest), is(true));
+    }
+
+    @Test
+    public void cancelAll_cancellableRequest_callCancelledAndRequestFinished() throws Exception {
+        // Arrange
+        RequestCoalescer.InFlightRequest request = SUT.tryStart(KEY);
+        SUT.setCancellable(request, mCancellableMock);
+        // Act
+        SUT.cancelAll();
+        // Assert
+        verify(mCancellableMock).cancel();
+        assertThat(SUT.isInFlight(KEY), is(false));
+    }
+
+    @Test
+    public void cancelAll_requestNotCancellable_requestStillInFlight() throws Exception {
+        // Arrange
+        SUT.tryStart(KEY);
+        // Act
+        SUT.cancelAll();
+        // Assert
+        assertThat(SUT.isInFlight(KEY), is(true));
+    }
+}
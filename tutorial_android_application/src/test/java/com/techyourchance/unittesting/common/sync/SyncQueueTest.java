@@ -0,0 +1,103 @@
+package com.techyourchance.unittesting.common.sync;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class SyncQueueTest {
+
+    // region constants ----------------------------------------------------------------------------
+    private static final String KEY_1 = "key1";
+    private static final String KEY_2 = "key2";
+    // endregion constants -------------------------------------------------------------------------
+
+    SyncQueue<String> SUT;
+
+    @Before
+    public void setup() throws Exception {
+        SUT = new SyncQueue<>();
+    }
+
+    @Test
+    public void poll_empty_null() throws Exception {
+        // Arrange
+        // Act
+        // Assert
+        assertThat(SUT.poll(SyncQueue.Priority.USER_VISIBLE), is(nullValue()));
+        assertThat(SUT.poll(SyncQueue.Priority.BACKGROUND), is(nullValue()));
+    }
+
+    @Test
+    public void poll_severalKeys_keysReturnedInOrderOfAddition() throws Exception {
+        // Arrange
+        SUT.add(KEY_1, SyncQueue.Priority.USER_VISIBLE);
+        SUT.add(KEY_2, SyncQueue.Priority.USER_VISIBLE);
+        // Act
+        String first = SUT.poll(SyncQueue.Priority.USER_VISIBLE);
+        String second = SUT.poll(SyncQueue.Priority.USER_VISIBLE);
+        // Assert
+        assertThat(first, is(KEY_1));
+        assertThat(second, is(KEY_2));
+        assertThat(SUT.size(), is(0));
+    }
+
+    @Test
+    public void poll_otherPriority_null() throws Exception {
+        // Arrange
+        SUT.add(KEY_1, SyncQueue.Priority.BACKGROUND);
+        // Act
+        String result = SUT.poll(SyncQueue.Priority.USER_VISIBLE);
+        // Assert
+        assertThat(result, is(nullValue()));
+        assertThat(SUT.size(), is(1));
+    }
+
+    @Test
+    public void add_keyAlreadyQueued_notAddedAgainAndDeduplicationCounted() throws Exception {
+        // Arrange
+        SUT.add(KEY_1, SyncQueue.Priority.USER_VISIBLE);
+        // Act
+        boolean result = SUT.add(KEY_1, SyncQueue.Priority.USER_VISIBLE);
+        // Assert
+        assertThat(result, is(false));
+        assertThat(SUT.size(), is(1));
+        assertThat(SUT.getDeduplicatedKeysCount(), is(1L));
+    }
+
+    @Test
+    public void add_backgroundKeyAddedAsUserVisible_keyMovedToUserVisible() throws Exception {
+        // Arrange
+        SUT.add(KEY_1, SyncQueue.Priority.BACKGROUND);
+        // Act
+        SUT.add(KEY_1, SyncQueue.Priority.USER_VISIBLE);
+        // Assert
+        assertThat(SUT.poll(SyncQueue.Priority.BACKGROUND), is(nullValue()));
+        assertThat(SUT.poll(SyncQueue.Priority.USER_VISIBLE), is(KEY_1));
+    }
+
+    @Test
+    public void add_userVisibleKeyAddedAsBackground_keyStaysUserVisible() throws Exception {
+        // Arrange
+        SUT.add(KEY_1, SyncQueue.Priority.USER_VISIBLE);
+        // Act
+        SUT.add(KEY_1, SyncQueue.Priority.BACKGROUND);
+        // Assert
+        assertThat(SUT.poll(SyncQueue.Priority.BACKGROUND), is(nullValue()));
+        assertThat(SUT.poll(SyncQueue.Priority.USER_VISIBLE), is(KEY_1));
+    }
+
+    @Test
+    public void add_keyPolledBefore_addedAgain() throws Exception {
+        // Arrange
+        SUT.add(KEY_1, SyncQueue.Priority.USER_VISIBLE);
+        SUT.poll(SyncQueue.Priority.USER_VISIBLE);
+        // Act
+        boolean result = SUT.add(KEY_1, SyncQueue.Priority.USER_VISIBLE);
+        // Assert
+        assertThat(result, is(true));
+    }
+
+}
@@ -0,0 +1,259 @@
+package com.techyourchance.unittesting.common.time;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Clock which moves only when told to, together with a scheduled executor which runs its tasks on
+ * that clock. Tasks run on the calling thread of {@link #advanceBy(long, TimeUnit)}, in the order of
+ * their due times (and in the order of scheduling when due at the same time), and the clock shows
+ * the due time of each task while it runs. This makes timing of caches, retries and rate limits
+ * deterministic in tests and benchmarks, without sleeping.
+ *
+ * Not thread-safe: tasks must be scheduled and the clock advanced on the same thread.
+ */
+public class VirtualTimeProvider extends TimeProvider {
+
+    // arbitrary, but not zero, so that code which treats zero as "never" gets caught
+    private static final long START_WALL_CLOCK_MS = 1500000000000L;
+    private static final long START_MONOTONIC_NANOS = TimeUnit.HOURS.toNanos(1);
+
+    private final PriorityQueue<VirtualTask<?>> mTasks = new PriorityQueue<>();
+    private final VirtualScheduledExecutorService mScheduledExecutorService =
+            new VirtualScheduledExecutorService();
+
+    private long mMonotonicNanos = START_MONOTONIC_NANOS;
+    private long mWallClockOffsetMs = START_WALL_CLOCK_MS - TimeUnit.NANOSECONDS.toMillis(START_MONOTONIC_NANOS);
+    private long mTasksScheduledCount;
+
+    @Override
+    public long getCurrentTimestamp() {
+        return TimeUnit.NANOSECONDS.toMillis(mMonotonicNanos) + mWallClockOffsetMs;
+    }
+
+    @Override
+    public long getMonotonicNanos() {
+        return mMonotonicNanos;
+    }
+
+    /**
+     * @return executor which runs its tasks when the clock is advanced past their due times
+     */
+    public ScheduledExecutorService getScheduledExecutorService() {
+        return mScheduledExecutorService;
+    }
+
+    /**
+     * Moves the clock forward, running the tasks which become due on the way (including the tasks
+     * which they schedule).
+     */
+    public void advanceBy(long duration, TimeUnit unit) {
+        if (duration < 0) {
+            throw new IllegalArgumentException("time can't go backwards: " + duration);
+        }
+        long targetNanos = mMonotonicNanos + unit.toNanos(duration);
+        VirtualTask<?> task;
+        while ((task = mTasks.peek()) != null && task.mDueNanos <= targetNanos) {
+            mTasks.poll();
+            mMonotonicNanos = Math.max(mMonotonicNanos, task.mDueNanos);
+            task.runTask();
+        }
+        mMonotonicNanos = targetNanos;
+    }
+
+    public void advanceByMs(long durationMs) {
+        advanceBy(durationMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs the tasks which are due now, without moving the clock.
+     */
+    public void runDueTasks() {
+        advanceBy(0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Moves the wall clock only, like the user or the network changing the time of the device.
+     * Monotonic time isn't affected.
+     */
+    public void changeWallClockBy(long deltaMs) {
+        mWallClockOffsetMs += deltaMs;
+    }
+
+    /**
+     * @return the number of tasks which are scheduled and weren't run or cancelled yet
+     */
+    public int getPendingTasksCount() {
+        int count = 0;
+        for (VirtualTask<?> task : mTasks) {
+            if (!task.isDone()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private <T> VirtualTask<T> schedule(Callable<T> callable, long delay, TimeUnit unit, long periodNanos) {
+        VirtualTask<T> task = new VirtualTask<>(
+                callable, mMonotonicNanos + Math.max(0, unit.toNanos(delay)), periodNanos, mTasksScheduledCount++);
+        mTasks.add(task);
+        return task;
+    }
+
+    private class VirtualTask<T> extends FutureTask<T> implements ScheduledFuture<T> {
+
+        private final long mPeriodNanos; // 0 for one-shot tasks, negative for fixed delay
+        private final long mSequenceNumber;
+        private long mDueNanos;
+
+        private VirtualTask(Callable<T> callable, long dueNanos, long periodNanos, long sequenceNumber) {
+            super(callable);
+            mDueNanos = dueNanos;
+            mPeriodNanos = periodNanos;
+            mSequenceNumber = sequenceNumber;
+        }
+
+        private void runTask() {
+            if (mPeriodNanos == 0) {
+                run();
+                return;
+            }
+            if (runAndReset()) {
+                mDueNanos = mPeriodNanos > 0 ? mDueNanos + mPeriodNanos : mMonotonicNanos - mPeriodNanos;
+                mTasks.add(this);
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                mTasks.remove(this);
+            }
+            return cancelled;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(mDueNanos - mMonotonicNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other instanceof VirtualTask) {
+                VirtualTask<?> otherTask = (VirtualTask<?>) other;
+                if (mDueNanos != otherTask.mDueNanos) {
+                    return mDueNanos < otherTask.mDueNanos ? -1 : 1;
+                }
+                return mSequenceNumber < otherTask.mSequenceNumber ? -1 : 1;
+            }
+            long delayDiff = getDelay(TimeUnit.NANOSECONDS) - other.getDelay(TimeUnit.NANOSECONDS);
+            return delayDiff < 0 ? -1 : (delayDiff > 0 ? 1 : 0);
+        }
+
+        @Override
+        public T get() throws InterruptedException, ExecutionException {
+            if (!isDone()) {
+                // blocking would hang the test, because the clock is advanced on this very thread
+                throw new IllegalStateException("the task is due in " + getDelay(TimeUnit.MILLISECONDS) + "ms");
+            }
+            return super.get();
+        }
+
+        @Override
+        public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            if (!isDone()) {
+                throw new TimeoutException();
+            }
+            return super.get();
+        }
+    }
+
+    private class VirtualScheduledExecutorService extends AbstractExecutorService
+            implements ScheduledExecutorService {
+
+        private boolean mShutdown;
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            return VirtualTimeProvider.this.schedule(toCallable(command), delay, unit, 0);
+        }
+
+        @Override
+        public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+            return VirtualTimeProvider.this.schedule(callable, delay, unit, 0);
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+            if (period <= 0) {
+                throw new IllegalArgumentException("period must be positive: " + period);
+            }
+            return VirtualTimeProvider.this.schedule(toCallable(command), initialDelay, unit, unit.toNanos(period));
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+            if (delay <= 0) {
+                throw new IllegalArgumentException("delay must be positive: " + delay);
+            }
+            return VirtualTimeProvider.this.schedule(toCallable(command), initialDelay, unit, -unit.toNanos(delay));
+        }
+
+        /**
+         * The command runs on the next advance of the clock (or {@link #runDueTasks()}), not right away.
+         */
+        @Override
+        public void execute(Runnable command) {
+            schedule(command, 0, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void shutdown() {
+            mShutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            mShutdown = true;
+            List<Runnable> pendingTasks = new ArrayList<Runnable>(mTasks);
+            mTasks.clear();
+            return pendingTasks;
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return mShutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return mShutdown && mTasks.isEmpty();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return isTerminated();
+        }
+
+        private Callable<Object> toCallable(final Runnable command) {
+            return new Callable<Object>() {
+                @Override
+                public Object call() {
+                    command.run();
+                    return null;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.techyourchance.unittesting.common.time;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class VirtualTimeProviderTest {
+
+    // region helper fields ------------------------------------------------------------------------
+    private ScheduledExecutorService mScheduledExecutorService;
+    private List<String> mRunTasks;
+    // endregion helper fields ---------------------------------------------------------------------
+
+    VirtualTimeProvider SUT;
+
+    @Before
+    public void setup() throws Exception {
+        SUT = new VirtualTimeProvider();
+        mScheduledExecutorService = SUT.getScheduledExecutorService();
+        mRunTasks = new ArrayList<>();
+    }
+
+    @Test
+    public void advanceBy_monotonicAndWallClockMovedTogether() throws Exception {
+        // Arrange
+        long monotonicNanos = SUT.getMonotonicNanos();
+        long wallClockMs = SUT.getCurrentTimestamp();
+        // Act
+        SUT.advanceByMs(1500);
+        // Assert
+        assertThat(SUT.getMonotonicNanos() - monotonicNanos, is(TimeUnit.MILLISECONDS.toNanos(1500)));
+        assertThat(SUT.getCurrentTimestamp() - wallClockMs, is(1500L));
+    }
+
+    @Test
+    public void changeWallClockBy_monotonicTimeNotAffected() throws Exception {
+        // Arrange
+        long monotonicTimestamp = SUT.getMonotonicTimestamp();
+        long wallClockMs = SUT.getCurrentTimestamp();
+        // Act
+        SUT.changeWallClockBy(-5000);
+        // Assert
+        assertThat(SUT.getMonotonicTimestamp(), is(monotonicTimestamp));
+        assertThat(SUT.getCurrentTimestamp(), is(wallClockMs - 5000));
+    }
+
+    @Test
+    public void schedule_taskNotDue_notRun() throws Exception {
+        // Arrange
+        mScheduledExecutorService.schedule(task("task"), 100, TimeUnit.MILLISECONDS);
+        // Act
+        SUT.advanceByMs(99);
+        // Assert
+        assertThat(mRunTasks.isEmpty(), is(true));
+        assertThat(SUT.getPendingTasksCount(), is(1));
+    }
+
+    @Test
+    public void schedule_severalTasks_runInOrderOfDueTimeThenScheduling() throws Exception {
+        // Arrange
+        mScheduledExecutorService.schedule(task("late"), 200, TimeUnit.MILLISECONDS);
+        mScheduledExecutorService.schedule(task("early1"), 100, TimeUnit.MILLISECONDS);
+        mScheduledExecutorService.schedule(task("early2"), 100, TimeUnit.MILLISECONDS);
+        // Act
+        SUT.advanceByMs(1000);
+        // Assert
+        assertThat(mRunTasks, is(Arrays.asList("early1", "early2", "late")));
+    }
+
+    @Test
+    public void advanceBy_clockShowsDueTimeWhileTaskRuns() throws Exception {
+        // Arrange
+        final long startTimestamp = SUT.getMonotonicTimestamp();
+        final long[] timestampInTask = new long[1];
+        mScheduledExecutorService.schedule(new Runnable() {
+            @Override
+            public void run() {
+                timestampInTask[0] = SUT.getMonotonicTimestamp();
+            }
+        }, 100, TimeUnit.MILLISECONDS);
+        // Act
+        SUT.advanceByMs(1000);
+        // Assert
+        assertThat(timestampInTask[0] - startTimestamp, is(100L));
+        assertThat(SUT.getMonotonicTimestamp() - startTimestamp, is(1000L));
+    }
+
+    @Test
+    public void advanceBy_taskScheduledByDueTask_runIfDueWithinAdvance() throws Exception {
+        // Arrange
+        mScheduledExecutorService.schedule(new Runnable() {
+            @Override
+            public void run() {
+                mScheduledExecutorService.schedule(task("nested"), 100, TimeUnit.MILLISECONDS);
+            }
+        }, 100, TimeUnit.MILLISECONDS);
+        // Act
+        SUT.advanceByMs(200);
+        // Assert
+        assertThat(mRunTasks, is(Arrays.asList("nested")));
+    }
+
+    @Test
+    public void cancel_taskNotRun() throws Exception {
+        // Arrange
+        ScheduledFuture<?> future = mScheduledExecutorService.schedule(task("task"), 100, TimeUnit.MILLISECONDS);
+        // Act
+        future.cancel(false);
+        SUT.advanceByMs(1000);
+        // Assert
+        assertThat(mRunTasks.isEmpty(), is(true));
+        assertThat(SUT.getPendingTasksCount(), is(0));
+    }
+
+    @Test
+    public void execute_runOnNextAdvanceOnly() throws Exception {
+        // Arrange
+        mScheduledExecutorService.execute(task("task"));
+        assertThat(mRunTasks.isEmpty(), is(true));
+        // Act
+        SUT.runDueTasks();
+        // Assert
+        assertThat(mRunTasks, is(Arrays.asList("task")));
+    }
+
+    @Test
+    public void scheduleAtFixedRate_runOncePerPeriod() throws Exception {
+        // Arrange
+        mScheduledExecutorService.scheduleAtFixedRate(task("task"), 0, 100, TimeUnit.MILLISECONDS);
+        // Act
+        SUT.advanceByMs(350);
+        // Assert
+        assertThat(mRunTasks.size(), is(4));
+    }
+
+    @Test
+    public void getDelay_remainingVirtualTimeReturned() throws Exception {
+        // Arrange
+        ScheduledFuture<?> future = mScheduledExecutorService.schedule(task("task"), 100, TimeUnit.MILLISECONDS);
+        // Act
+        SUT.advanceByMs(30);
+        // Assert
+        assertThat(future.getDelay(TimeUnit.MILLISECONDS), is(70L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void advanceBy_negativeDuration_exceptionThrown() throws Exception {
+        // Arrange
+        // Act
+        SUT.advanceByMs(-1);
+        // Assert
+    }
+
+    // region helper methods -----------------------------------------------------------------------
+
+    private Runnable task(final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                mRunTasks.add(name);
+            }
+        };
+    }
+
+    // endregion helper methods --------------------------------------------------------------------
+
+}
@@ -0,0 +1,109 @@
+package com.techyourchance.unittesting.networking;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+
+import okhttp3.Cache;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class CacheHitCounterTest {
+
+    // region constants ----------------------------------------------------------------------------
+    private static final String BODY = "{\"items\":[]}";
+    private static final String ETAG = "\"v1\"";
+    // endregion constants -------------------------------------------------------------------------
+
+    // region helper fields ------------------------------------------------------------------------
+    @Rule public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+    private MockWebServer mMockWebServer;
+    private OkHttpClient mOkHttpClient;
+    // endregion helper fields ---------------------------------------------------------------------
+
+    CacheHitCounter SUT;
+
+    @Before
+    public void setup() throws Exception {
+        mMockWebServer = new MockWebServer();
+        mMockWebServer.start();
+        SUT = new CacheHitCounter();
+        mOkHttpClient = new OkHttpClient.Builder()
+                .cache(new Cache(mTemporaryFolder.newFolder(), 1024 * 1024))
+                .addInterceptor(SUT)
+                .build();
+    }
+
+    @After
+    public void teardown() throws Exception {
+        mMockWebServer.shutdown();
+    }
+
+    @Test
+    public void intercept_cacheableResponseRequestedTwice_secondServedFromCache() throws Exception {
+        // Arrange
+        mMockWebServer.enqueue(new MockResponse().setHeader("Cache-Control", "max-age=60").setBody(BODY));
+        // Act
+        String firstBody = get();
+        String secondBody = get();
+        // Assert
+        assertThat(secondBody, is(firstBody));
+        assertThat(mMockWebServer.getRequestCount(), is(1));
+        assertThat(SUT.getNetworkResponsesCount(), is(1));
+        assertThat(SUT.getCacheHitsCount(), is(1));
+    }
+
+    @Test
+    public void intercept_responseWithEtagRequestedTwice_secondRevalidatedWithEtag() throws Exception {
+        // Arrange
+        mMockWebServer.enqueue(new MockResponse().setHeader("Cache-Control", "no-cache").setHeader("ETag", ETAG).setBody(BODY));
+        mMockWebServer.enqueue(new MockResponse().setResponseCode(304).setHeader("ETag", ETAG));
+        // Act
+        get();
+        String secondBody = get();
+        // Assert
+        mMockWebServer.takeRequest();
+        RecordedRequest revalidation = mMockWebServer.takeRequest();
+        assertThat(revalidation.getHeader("If-None-Match"), is(ETAG));
+        assertThat(secondBody, is(BODY));
+        assertThat(SUT.getConditionalCacheHitsCount(), is(1));
+        assertThat(SUT.getCacheHitsCount(), is(0));
+    }
+
+    @Test
+    public void intercept_uncacheableResponse_bothFromNetwork() throws Exception {
+        // Arrange
+        mMockWebServer.enqueue(new MockResponse().setHeader("Cache-Control", "no-store").setBody(BODY));
+        mMockWebServer.enqueue(new MockResponse().setHeader("Cache-Control", "no-store").setBody(BODY));
+        // Act
+        get();
+        get();
+        // Assert
+        assertThat(SUT.getNetworkResponsesCount(), is(2));
+        assertThat(SUT.getCacheHitsCount(), is(0));
+        assertThat(SUT.getConditionalCacheHitsCount(), is(0));
+    }
+
+    // region helper methods -----------------------------------------------------------------------
+
+    private String get() throws IOException {
+        Request request = new Request.Builder().url(mMockWebServer.url("/questions")).build();
+        try (Response response = mOkHttpClient.newCall(request).execute()) {
+            return response.body().string();
+        }
+    }
+
+    // endregion helper methods --------------------------------------------------------------------
+
+}
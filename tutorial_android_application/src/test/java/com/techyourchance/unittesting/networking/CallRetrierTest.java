@@ -0,0 +1,344 @@
+package com.techyourchance.unittesting.networking;
+
+import com.techyourchance.unittesting.common.requests.Cancellable;
+import com.techyourchance.unittesting.common.time.TimeProvider;
+import com.techyourchance.unittesting.common.time.VirtualTimeProvider;
+import com.techyourchance.unittesting.networking.questions.QuestionSchema;
+import com.techyourchance.unittesting.networking.questions.QuestionsListResponseSchema;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CallRetrierTest {
+
+    // region constants ----------------------------------------------------------------------------
+    private static final QuestionsListResponseSchema RESPONSE = new QuestionsListResponseSchema(
+            Collections.singletonList(new QuestionSchema("title", "1", "body")));
+    // endregion constants -------------------------------------------------------------------------
+
+    // region helper fields ------------------------------------------------------------------------
+    @Mock TimeProvider mTimeProviderMock;
+    @Mock ScheduledExecutorService mScheduledExecutorServiceMock;
+    @Mock ScheduledFuture<?> mScheduledFutureMock;
+    @Mock Call<QuestionsListResponseSchema> mCallMock;
+    @Mock Call<QuestionsListResponseSchema> mRetriedCallMock;
+    @Mock Callback<QuestionsListResponseSchema> mCallbackMock;
+
+    @Captor ArgumentCaptor<Callback<QuestionsListResponseSchema>> mCallbackCaptor;
+    @Captor ArgumentCaptor<Runnable> mRunnableCaptor;
+    // endregion helper fields ---------------------------------------------------------------------
+
+    private RetryPolicy mRetryPolicy;
+    private RequestScheduler mRequestScheduler;
+
+    CallRetrier SUT;
+
+    @Before
+    public void setup() throws Exception {
+        mRetryPolicy = new RetryPolicy(mTimeProviderMock, new Random(0));
+        mRequestScheduler = new RequestScheduler(mTimeProviderMock, mScheduledExecutorServiceMock);
+        SUT = new CallRetrier(mRetryPolicy, mRequestScheduler, mScheduledExecutorServiceMock, new CancelledCallsCounter());
+        doReturn(mScheduledFutureMock).when(mScheduledExecutorServiceMock)
+                .schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        when(mCallMock.request()).thenReturn(new Request.Builder()
+                .url("http://localhost/questions")
+                .header(NetworkUsageCounter.ENDPOINT_HEADER, StackoverflowApi.LAST_ACTIVE_QUESTIONS_ENDPOINT)
+                .build());
+    }
+
+    @Test
+    public void enqueue_success_callbackNotified() throws Exception {
+        // Arrange
+        enqueue(mCallMock);
+        // Act
+        Response<QuestionsListResponseSchema> response = Response.success(RESPONSE);
+        respond(mCallMock, response);
+        // Assert
+        verify(mCallbackMock).onResponse(mCallMock, response);
+    }
+
+    @Test
+    public void enqueue_ioError_retriedWithCloneAfterDelay() throws Exception {
+        // Arrange
+        when(mCallMock.clone()).thenReturn(mRetriedCallMock);
+        enqueue(mCallMock);
+        // Act
+        fail(mCallMock, new IOException());
+        runScheduledAttempt();
+        // Assert
+        verify(mRetriedCallMock).enqueue(any(Callback.class));
+        verify(mCallbackMock, never()).onFailure(any(Call.class), any(Throwable.class));
+    }
+
+    @Test
+    public void enqueue_ioErrorThenSuccess_callbackNotifiedOfSuccessOnly() throws Exception {
+        // Arrange
+        when(mCallMock.clone()).thenReturn(mRetriedCallMock);
+        enqueue(mCallMock);
+        fail(mCallMock, new IOException());
+        runScheduledAttempt();
+        // Act
+        Response<QuestionsListResponseSchema> response = Response.success(RESPONSE);
+        respond(mRetriedCallMock, response);
+        // Assert
+        verify(mCallbackMock).onResponse(mRetriedCallMock, response);
+        verify(mCallbackMock, never()).onFailure(any(Call.class), any(Throwable.class));
+    }
+
+    @Test
+    public void enqueue_serverError_retried() throws Exception {
+        // Arrange
+        enqueue(mCallMock);
+        // Act
+        respond(mCallMock, errorResponse(503));
+        // Assert
+        verify(mScheduledExecutorServiceMock).schedule(any(Runnable.class), anyLong(), eq(TimeUnit.MILLISECONDS));
+        verify(mCallbackMock, never()).onResponse(any(Call.class), any(Response.class));
+    }
+
+    @Test
+    public void enqueue_clientError_callbackNotifiedWithoutRetry() throws Exception {
+        // Arrange
+        enqueue(mCallMock);
+        // Act
+        Response<QuestionsListResponseSchema> response = errorResponse(400);
+        respond(mCallMock, response);
+        // Assert
+        verify(mCallbackMock).onResponse(mCallMock, response);
+        verify(mScheduledExecutorServiceMock, never()).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    public void enqueue_nonRetryableError_callbackNotifiedWithoutRetry() throws Exception {
+        // Arrange
+        enqueue(mCallMock);
+        // Act
+        IllegalStateException error = new IllegalStateException();
+        fail(mCallMock, error);
+        // Assert
+        verify(mCallbackMock).onFailure(mCallMock, error);
+    }
+
+    @Test
+    public void enqueue_allAttemptsFail_callbackNotifiedOfLastFailure() throws Exception {
+        // Arrange
+        when(mCallMock.clone()).thenReturn(mCallMock);
+        enqueue(mCallMock);
+        IOException lastError = new IOException();
+        // Act
+        for (int i = 1; i < RetryPolicy.MAX_ATTEMPTS; i++) {
+            fail(mCallMock, new IOException());
+            runScheduledAttempt();
+        }
+        fail(mCallMock, lastError);
+        // Assert
+        verify(mCallbackMock).onFailure(mCallMock, lastError);
+    }
+
+    @Test
+    public void cancel_whileRetryScheduled_retryCancelledAndCallbackNotNotified() throws Exception {
+        // Arrange
+        Cancellable call = enqueue(mCallMock);
+        fail(mCallMock, new IOException());
+        // Act
+        call.cancel();
+        // Assert
+        verify(mScheduledFutureMock).cancel(false);
+        runScheduledAttempt();
+        verify(mCallMock, never()).clone();
+        verify(mCallbackMock, never()).onFailure(any(Call.class), any(Throwable.class));
+    }
+
+    @Test
+    public void cancel_whileInFlight_callCancelledAndCallbackNotNotified() throws Exception {
+        // Arrange
+        Cancellable call = enqueue(mCallMock);
+        // Act
+        call.cancel();
+        fail(mCallMock, new IOException("Canceled"));
+        // Assert
+        verify(mCallMock).cancel();
+        verify(mCallbackMock, never()).onFailure(any(Call.class), any(Throwable.class));
+    }
+
+    @Test
+    public void enqueue_backoffRequestedByPreviousResponse_callDelayedByBackoff() throws Exception {
+        // Arrange
+        enqueue(mCallMock);
+        respond(mCallMock, Response.success(new QuestionsListResponseSchema(
+                Collections.<QuestionSchema>emptyList(), false, 5, ThrottlingResponseSchema.QUOTA_UNKNOWN)));
+        // Act
+        enqueue(mCallMock);
+        // Assert
+        verify(mCallMock).enqueue(any(Callback.class));
+        verify(mScheduledExecutorServiceMock).schedule(any(Runnable.class), eq(5000L), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void enqueue_quotaReported_quotaPassedToScheduler() throws Exception {
+        // Arrange
+        enqueue(mCallMock);
+        // Act
+        respond(mCallMock, Response.success(new QuestionsListResponseSchema(
+                Collections.<QuestionSchema>emptyList(), false, 0, 500)));
+        // Assert
+        assertThat(mRequestScheduler.getQuotaRemaining(), is(500));
+    }
+
+    @Test
+    public void enqueue_prefetchWhileQuotaRunningLow_callbackNotifiedOfFailureWithoutCall() throws Exception {
+        // Arrange
+        mRequestScheduler.onQuotaRemaining(0);
+        // Act
+        SUT.enqueue(mCallMock, RequestScheduler.Priority.PREFETCH, mCallbackMock);
+        // Assert
+        verify(mCallMock, never()).enqueue(any(Callback.class));
+        verify(mCallbackMock).onFailure(eq(mCallMock), any(IOException.class));
+    }
+
+    @Test
+    public void enqueue_ioErrorOnVirtualClock_retriedOnlyOnceRetryDelayPassed() throws Exception {
+        // Arrange
+        VirtualTimeProvider timeProvider = new VirtualTimeProvider();
+        ScheduledExecutorService scheduledExecutorService = timeProvider.getScheduledExecutorService();
+        SUT = new CallRetrier(new RetryPolicy(timeProvider, new Random(0)),
+                new RequestScheduler(timeProvider, scheduledExecutorService),
+                scheduledExecutorService, new CancelledCallsCounter());
+        when(mCallMock.clone()).thenReturn(mRetriedCallMock);
+        enqueue(mCallMock);
+        fail(mCallMock, new IOException());
+        // Act
+        timeProvider.advanceByMs(RetryPolicy.BASE_DELAY_MS / 2 - 1);
+        verify(mRetriedCallMock, never()).enqueue(any(Callback.class));
+        timeProvider.advanceByMs(RetryPolicy.BASE_DELAY_MS / 2 + 1);
+        // Assert
+        verify(mRetriedCallMock).enqueue(any(Callback.class));
+    }
+
+    @Test
+    public void enqueue_throttleViolationOnVirtualClock_retriedOnlyOnceBackoffPassed() throws Exception {
+        // Arrange
+        VirtualTimeProvider timeProvider = new VirtualTimeProvider();
+        ScheduledExecutorService scheduledExecutorService = timeProvider.getScheduledExecutorService();
+        SUT = new CallRetrier(new RetryPolicy(timeProvider, new Random(0)),
+                new RequestScheduler(timeProvider, scheduledExecutorService),
+                scheduledExecutorService, new CancelledCallsCounter());
+        when(mCallMock.clone()).thenReturn(mRetriedCallMock);
+        enqueue(mCallMock);
+        respond(mCallMock, throttleViolationResponse(5));
+        // Act
+        timeProvider.advanceByMs(4999);
+        verify(mRetriedCallMock, never()).enqueue(any(Callback.class));
+        timeProvider.advanceByMs(1);
+        // Assert
+        verify(mRetriedCallMock).enqueue(any(Callback.class));
+        verify(mCallbackMock, never()).onResponse(any(Call.class), any(Response.class));
+    }
+
+    @Test
+    public void enqueue_throttleViolationWithLongBackoff_notRetriedAndErrorBodyLeftForCallback() throws Exception {
+        // Arrange
+        enqueue(mCallMock);
+        Response<QuestionsListResponseSchema> response = throttleViolationResponse(3600);
+        // Act
+        respond(mCallMock, response);
+        // Assert
+        verify(mCallbackMock).onResponse(mCallMock, response);
+        verify(mCallMock, never()).clone();
+        assertThat(response.errorBody().string(), is(throttleViolationBody(3600)));
+    }
+
+    @Test
+    public void enqueue_throttleViolationWithLongBackoff_backoffPassedToScheduler() throws Exception {
+        // Arrange
+        enqueue(mCallMock);
+        respond(mCallMock, throttleViolationResponse(3600));
+        // Act
+        enqueue(mCallMock);
+        // Assert
+        verify(mScheduledExecutorServiceMock).schedule(any(Runnable.class), eq(3600000L), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void enqueue_clientErrorWithMalformedBody_notRetried() throws Exception {
+        // Arrange
+        enqueue(mCallMock);
+        Response<QuestionsListResponseSchema> response = Response.error(400,
+                ResponseBody.create(MediaType.parse("text/html"), "<html>Bad Request</html>"));
+        // Act
+        respond(mCallMock, response);
+        // Assert
+        verify(mCallbackMock).onResponse(mCallMock, response);
+        verify(mCallMock, never()).clone();
+    }
+
+    // region helper methods -----------------------------------------------------------------------
+
+    private Cancellable enqueue(Call<QuestionsListResponseSchema> call) {
+        return SUT.enqueue(call, RequestScheduler.Priority.USER_VISIBLE, mCallbackMock);
+    }
+
+    private void respond(Call<QuestionsListResponseSchema> call, Response<QuestionsListResponseSchema> response) {
+        verify(call).enqueue(mCallbackCaptor.capture());
+        mCallbackCaptor.getValue().onResponse(call, response);
+    }
+
+    private void fail(Call<QuestionsListResponseSchema> call, Throwable throwable) {
+        verify(call, atLeastOnce()).enqueue(mCallbackCaptor.capture());
+        mCallbackCaptor.getValue().onFailure(call, throwable);
+    }
+
+    private void runScheduledAttempt() {
+        verify(mScheduledExecutorServiceMock, atLeastOnce())
+                .schedule(mRunnableCaptor.capture(), anyLong(), any(TimeUnit.class));
+        mRunnableCaptor.getValue().run();
+    }
+
+    private static Response<QuestionsListResponseSchema> errorResponse(int code) {
+        return Response.error(code, ResponseBody.create(MediaType.parse("application/json"), ""));
+    }
+
+    private static Response<QuestionsListResponseSchema> throttleViolationResponse(int backoffSeconds) {
+        return Response.error(400, ResponseBody.create(
+                MediaType.parse("application/json"), throttleViolationBody(backoffSeconds)));
+    }
+
+    private static String throttleViolationBody(int backoffSeconds) {
+        return "{\"error_id\":502,\"error_name\":\"throttle_violation\","
+                + "\"error_message\":\"too many requests from this IP\",\"backoff\":" + backoffSeconds + "}";
+    }
+
+    // endregion helper methods --------------------------------------------------------------------
+
+}
@@ -0,0 +1,162 @@
+package com.techyourchance.unittesting.networking;
+
+import com.techyourchance.unittesting.common.instrumentation.Metrics;
+import com.techyourchance.unittesting.common.requests.Cancellable;
+import com.techyourchance.unittesting.common.time.TimeProvider;
+import com.techyourchance.unittesting.networking.questions.FetchQuestionDetailsEndpoint;
+import com.techyourchance.unittesting.networking.questions.QuestionSchema;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CancelledCallsCounterTest {
+
+    // region constants ----------------------------------------------------------------------------
+    private static final int BODY_LENGTH = 100000;
+    private static final long THROTTLED_BYTES_PER_PERIOD = 1024;
+    private static final long THROTTLE_PERIOD_MS = 50;
+    // endregion constants -------------------------------------------------------------------------
+
+    // region helper fields ------------------------------------------------------------------------
+    private MockWebServer mMockWebServer;
+    private ScheduledExecutorService mScheduledExecutorService;
+    private FetchQuestionDetailsEndpoint mFetchQuestionDetailsEndpoint;
+    private CountDownLatch mResponseLatch;
+    // endregion helper fields ---------------------------------------------------------------------
+
+    CancelledCallsCounter SUT;
+
+    @Before
+    public void setup() throws Exception {
+        mMockWebServer = new MockWebServer();
+        mMockWebServer.start();
+
+        SUT = new CancelledCallsCounter();
+        StackoverflowApi stackoverflowApi = new Retrofit.Builder()
+                .baseUrl(mMockWebServer.url("/"))
+                .client(new OkHttpClient.Builder().addInterceptor(SUT).build())
+                .addConverterFactory(QuestionsConverterFactory.create())
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(StackoverflowApi.class);
+        mScheduledExecutorService = Executors.newSingleThreadScheduledExecutor();
+        CallRetrier callRetrier = new CallRetrier(
+                new RetryPolicy(new TimeProvider(), new Random()),
+                new RequestScheduler(new TimeProvider(), mScheduledExecutorService),
+                mScheduledExecutorService,
+                SUT
+        );
+        mFetchQuestionDetailsEndpoint = new FetchQuestionDetailsEndpoint(stackoverflowApi, callRetrier, new Metrics(new TimeProvider()));
+        mResponseLatch = new CountDownLatch(1);
+    }
+
+    @After
+    public void teardown() throws Exception {
+        mScheduledExecutorService.shutdownNow();
+        mMockWebServer.shutdown();
+    }
+
+    @Test
+    public void cancel_afterResponse_notCounted() throws Exception {
+        // Arrange
+        mMockWebServer.enqueue(questionDetailsResponse());
+        Cancellable call = fetchQuestionDetails();
+        assertTrue(mResponseLatch.await(5, TimeUnit.SECONDS));
+        // Act
+        call.cancel();
+        // Assert
+        assertThat(SUT.getCancelledCallsCount(), is(0L));
+        assertThat(SUT.getCancelledBytes(), is(0L));
+    }
+
+    @Test
+    public void cancel_beforeResponse_callCountedAndListenerNotNotified() throws Exception {
+        // Arrange
+        mMockWebServer.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+        Cancellable call = fetchQuestionDetails();
+        mMockWebServer.takeRequest();
+        // Act
+        call.cancel();
+        // Assert
+        assertThat(SUT.getCancelledCallsCount(), is(1L));
+        assertThat(SUT.getCancelledBytes(), is(0L));
+        assertFalse(mResponseLatch.await(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void cancel_whileResponseBodyReceived_receivedBytesCounted() throws Exception {
+        // Arrange
+        mMockWebServer.enqueue(questionDetailsResponse()
+                .throttleBody(THROTTLED_BYTES_PER_PERIOD, THROTTLE_PERIOD_MS, TimeUnit.MILLISECONDS));
+        Cancellable call = fetchQuestionDetails();
+        mMockWebServer.takeRequest();
+        Thread.sleep(10 * THROTTLE_PERIOD_MS);
+        // Act
+        call.cancel();
+        // Assert
+        assertThat(SUT.getCancelledCallsCount(), is(1L));
+        assertTrue(SUT.getCancelledBytes() > 0);
+        assertTrue(SUT.getCancelledBytes() < BODY_LENGTH);
+        assertFalse(mResponseLatch.await(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void cancel_twice_countedOnce() throws Exception {
+        // Arrange
+        mMockWebServer.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+        Cancellable call = fetchQuestionDetails();
+        mMockWebServer.takeRequest();
+        // Act
+        call.cancel();
+        call.cancel();
+        // Assert
+        assertThat(SUT.getCancelledCallsCount(), is(1L));
+    }
+
+    // region helper methods -----------------------------------------------------------------------
+
+    private Cancellable fetchQuestionDetails() {
+        return mFetchQuestionDetailsEndpoint.fetchQuestionDetails("0", new FetchQuestionDetailsEndpoint.Listener() {
+            @Override
+            public void onQuestionDetailsFetched(QuestionSchema question) {
+                mResponseLatch.countDown();
+            }
+
+            @Override
+            public void onQuestionDetailsFetchFailed() {
+                mResponseLatch.countDown();
+            }
+        });
+    }
+
+    private static MockResponse questionDetailsResponse() {
+        StringBuilder sb = new StringBuilder("{\"items\":[{\"question_id\":0,\"title\":\"title\",\"body\":\"");
+        for (int i = 0; i < BODY_LENGTH; i++) {
+            sb.append('b');
+        }
+        sb.append("\"}]}");
+        return new MockResponse().setBody(sb.toString());
+    }
+
+    // endregion helper methods --------------------------------------------------------------------
+
+}
@@ -0,0 +1,94 @@
+package com.techyourchance.unittesting.networking;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ConnectionReuseCounterTest {
+
+    // region helper fields ------------------------------------------------------------------------
+    private MockWebServer mMockWebServer;
+    private OkHttpClient mOkHttpClient;
+    // endregion helper fields ---------------------------------------------------------------------
+
+    ConnectionReuseCounter SUT;
+
+    @Before
+    public void setup() throws Exception {
+        mMockWebServer = new MockWebServer();
+        mMockWebServer.start();
+        SUT = new ConnectionReuseCounter();
+        mOkHttpClient = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool())
+                .addNetworkInterceptor(SUT)
+                .build();
+    }
+
+    @After
+    public void teardown() throws Exception {
+        mMockWebServer.shutdown();
+    }
+
+    @Test
+    public void intercept_sequentialRequests_singleConnectionReused() throws Exception {
+        // Arrange
+        for (int i = 0; i < 3; i++) {
+            mMockWebServer.enqueue(new MockResponse().setBody("body"));
+        }
+        // Act
+        get();
+        get();
+        get();
+        // Assert
+        assertThat(SUT.getRequestsCount(), is(3));
+        assertThat(SUT.getConnectionsCount(), is(1));
+        assertThat(SUT.getReusedConnectionRequestsCount(), is(2));
+    }
+
+    @Test
+    public void intercept_serverClosesConnection_newConnectionCounted() throws Exception {
+        // Arrange
+        mMockWebServer.enqueue(new MockResponse().setBody("body").setSocketPolicy(SocketPolicy.DISCONNECT_AT_END));
+        mMockWebServer.enqueue(new MockResponse().setBody("body"));
+        // Act
+        get();
+        get();
+        // Assert
+        assertThat(SUT.getConnectionsCount(), is(2));
+    }
+
+    @Test
+    public void intercept_plainHttp_noTlsHandshakes() throws Exception {
+        // Arrange
+        mMockWebServer.enqueue(new MockResponse().setBody("body"));
+        // Act
+        get();
+        // Assert
+        assertThat(SUT.getTlsHandshakesCount(), is(0));
+    }
+
+    // region helper methods -----------------------------------------------------------------------
+
+    private void get() throws IOException {
+        Request request = new Request.Builder().url(mMockWebServer.url("/questions")).build();
+        try (Response response = mOkHttpClient.newCall(request).execute()) {
+            response.body().string();
+        }
+    }
+
+    // endregion helper methods --------------------------------------------------------------------
+
+}
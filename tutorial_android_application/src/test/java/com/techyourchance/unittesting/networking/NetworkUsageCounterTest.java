@@ -0,0 +1,265 @@
+package com.techyourchance.unittesting.networking;
+
+import com.techyourchance.unittesting.common.instrumentation.Metrics;
+import com.techyourchance.unittesting.common.time.TimeProvider;
+import com.techyourchance.unittesting.networking.questions.FetchLastActiveQuestionsEndpoint;
+import com.techyourchance.unittesting.networking.questions.FetchQuestionDetailsEndpoint;
+import com.techyourchance.unittesting.networking.questions.QuestionFilters;
+import com.techyourchance.unittesting.networking.questions.QuestionSchema;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Cache;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class NetworkUsageCounterTest {
+
+    // region constants ----------------------------------------------------------------------------
+    private static final int QUESTIONS_COUNT = 20;
+    private static final int BODY_LENGTH = 2000;
+    private static final String ETAG = "\"v1\"";
+    // endregion constants -------------------------------------------------------------------------
+
+    // region helper fields ------------------------------------------------------------------------
+    @Rule public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+    private MockWebServer mMockWebServer;
+    private QuestionsDispatcher mQuestionsDispatcher;
+    private StackoverflowApi mStackoverflowApi;
+    private ScheduledExecutorService mScheduledExecutorService;
+    private CallRetrier mCallRetrier;
+    private CountDownLatch mResponseLatch;
+    // endregion helper fields ---------------------------------------------------------------------
+
+    NetworkUsageCounter SUT;
+
+    @Before
+    public void setup() throws Exception {
+        mMockWebServer = new MockWebServer();
+        mQuestionsDispatcher = new QuestionsDispatcher();
+        mMockWebServer.setDispatcher(mQuestionsDispatcher);
+        mMockWebServer.start();
+
+        SUT = new NetworkUsageCounter();
+        mStackoverflowApi = createStackoverflowApi(new OkHttpClient.Builder().addInterceptor(SUT).build());
+        mScheduledExecutorService = Executors.newSingleThreadScheduledExecutor();
+        mCallRetrier = new CallRetrier(
+                new RetryPolicy(new TimeProvider(), new Random()),
+                new RequestScheduler(new TimeProvider(), mScheduledExecutorService),
+                mScheduledExecutorService,
+                new CancelledCallsCounter()
+        );
+        mResponseLatch = new CountDownLatch(1);
+    }
+
+    @After
+    public void teardown() throws Exception {
+        mScheduledExecutorService.shutdownNow();
+        mMockWebServer.shutdown();
+    }
+
+    @Test
+    public void fetchLastActiveQuestions_questionsRequestedWithoutBodies() throws Exception {
+        // Arrange
+        // Act
+        fetchLastActiveQuestions();
+        // Assert
+        RecordedRequest request = mMockWebServer.takeRequest();
+        assertThat(request.getRequestUrl().queryParameter("filter"), is(QuestionFilters.WITHOUT_BODY));
+    }
+
+    @Test
+    public void fetchQuestionDetails_questionRequestedWithBody() throws Exception {
+        // Arrange
+        // Act
+        fetchQuestionDetails();
+        // Assert
+        RecordedRequest request = mMockWebServer.takeRequest();
+        assertThat(request.getRequestUrl().queryParameter("filter"), is(QuestionFilters.WITH_BODY));
+    }
+
+    @Test
+    public void fetchLastActiveQuestions_endpointHeaderNotSent() throws Exception {
+        // Arrange
+        // Act
+        fetchLastActiveQuestions();
+        // Assert
+        RecordedRequest request = mMockWebServer.takeRequest();
+        assertThat(request.getHeader(NetworkUsageCounter.ENDPOINT_HEADER), is(nullValue()));
+    }
+
+    @Test
+    public void fetchLastActiveQuestions_receivedBytesCountedForEndpoint() throws Exception {
+        // Arrange
+        // Act
+        fetchLastActiveQuestions();
+        // Assert
+        RecordedRequest request = mMockWebServer.takeRequest();
+        long servedBytes = questionsResponse(request.getRequestUrl().queryParameter("filter"), QUESTIONS_COUNT)
+                .getBytes("UTF-8").length;
+        assertThat(SUT.getReceivedBytes(StackoverflowApi.LAST_ACTIVE_QUESTIONS_ENDPOINT), is(servedBytes));
+        assertThat(SUT.getResponsesCount(StackoverflowApi.LAST_ACTIVE_QUESTIONS_ENDPOINT), is(1));
+        assertThat(SUT.getReceivedBytes(StackoverflowApi.QUESTION_DETAILS_ENDPOINT), is(0L));
+    }
+
+    @Test
+    public void fetchLastActiveQuestions_fewerBytesPerQuestionThanWithBodies() throws Exception {
+        // Arrange
+        // Act
+        fetchLastActiveQuestions();
+        mResponseLatch = new CountDownLatch(1);
+        fetchQuestionDetails();
+        // Assert
+        long listBytesPerQuestion = SUT.getReceivedBytes(StackoverflowApi.LAST_ACTIVE_QUESTIONS_ENDPOINT) / QUESTIONS_COUNT;
+        long detailsBytesPerQuestion = SUT.getReceivedBytes(StackoverflowApi.QUESTION_DETAILS_ENDPOINT);
+        assertTrue(listBytesPerQuestion * 10 < detailsBytesPerQuestion);
+    }
+
+    @Test
+    public void fetchLastActiveQuestions_servedFromHttpCache_cachedResponseNotCounted() throws Exception {
+        // Arrange
+        useHttpCache("max-age=60");
+        fetchLastActiveQuestions();
+        long receivedBytes = SUT.getReceivedBytes(StackoverflowApi.LAST_ACTIVE_QUESTIONS_ENDPOINT);
+        mResponseLatch = new CountDownLatch(1);
+        // Act
+        fetchLastActiveQuestions();
+        // Assert
+        assertThat(mMockWebServer.getRequestCount(), is(1));
+        assertThat(SUT.getReceivedBytes(StackoverflowApi.LAST_ACTIVE_QUESTIONS_ENDPOINT), is(receivedBytes));
+        assertThat(SUT.getResponsesCount(StackoverflowApi.LAST_ACTIVE_QUESTIONS_ENDPOINT), is(1));
+    }
+
+    @Test
+    public void fetchLastActiveQuestions_revalidatedFromHttpCache_cachedBodyNotCounted() throws Exception {
+        // Arrange
+        useHttpCache("no-cache");
+        fetchLastActiveQuestions();
+        long receivedBytes = SUT.getReceivedBytes(StackoverflowApi.LAST_ACTIVE_QUESTIONS_ENDPOINT);
+        mResponseLatch = new CountDownLatch(1);
+        // Act
+        fetchLastActiveQuestions();
+        // Assert
+        assertThat(mMockWebServer.getRequestCount(), is(2));
+        assertThat(SUT.getReceivedBytes(StackoverflowApi.LAST_ACTIVE_QUESTIONS_ENDPOINT), is(receivedBytes));
+        assertThat(SUT.getResponsesCount(StackoverflowApi.LAST_ACTIVE_QUESTIONS_ENDPOINT), is(2));
+    }
+
+    // region helper methods -----------------------------------------------------------------------
+
+    private StackoverflowApi createStackoverflowApi(OkHttpClient okHttpClient) {
+        return new Retrofit.Builder()
+                .baseUrl(mMockWebServer.url("/"))
+                .client(okHttpClient)
+                .addConverterFactory(QuestionsConverterFactory.create())
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(StackoverflowApi.class);
+    }
+
+    private void useHttpCache(String cacheControl) throws Exception {
+        mQuestionsDispatcher.mCacheControl = cacheControl;
+        // like in the app, the counter precedes the cache
+        mStackoverflowApi = createStackoverflowApi(new OkHttpClient.Builder()
+                .cache(new Cache(mTemporaryFolder.newFolder(), 1024 * 1024))
+                .addInterceptor(SUT)
+                .build());
+    }
+
+    private void fetchLastActiveQuestions() throws InterruptedException {
+        new FetchLastActiveQuestionsEndpoint(mStackoverflowApi, mCallRetrier, new Metrics(new TimeProvider())).fetchLastActiveQuestions(
+                new FetchLastActiveQuestionsEndpoint.Listener() {
+                    @Override
+                    public void onQuestionsFetched(List<QuestionSchema> questions) {
+                        mResponseLatch.countDown();
+                    }
+
+                    @Override
+                    public void onQuestionsFetchFailed() {
+                        throw new RuntimeException("fetch failed");
+                    }
+                });
+        assertTrue(mResponseLatch.await(5, TimeUnit.SECONDS));
+    }
+
+    private void fetchQuestionDetails() throws InterruptedException {
+        new FetchQuestionDetailsEndpoint(mStackoverflowApi, mCallRetrier, new Metrics(new TimeProvider())).fetchQuestionDetails("0",
+                new FetchQuestionDetailsEndpoint.Listener() {
+                    @Override
+                    public void onQuestionDetailsFetched(QuestionSchema question) {
+                        mResponseLatch.countDown();
+                    }
+
+                    @Override
+                    public void onQuestionDetailsFetchFailed() {
+                        throw new RuntimeException("fetch failed");
+                    }
+                });
+        assertTrue(mResponseLatch.await(5, TimeUnit.SECONDS));
+    }
+
+    private static String questionsResponse(String filter, int questionsCount) {
+        boolean withBody = QuestionFilters.WITH_BODY.equals(filter);
+        StringBuilder sb = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < questionsCount; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"question_id\":").append(i).append(",\"title\":\"title").append(i).append('"');
+            if (withBody) {
+                sb.append(",\"body\":\"");
+                for (int j = 0; j < BODY_LENGTH; j++) {
+                    sb.append('b');
+                }
+                sb.append('"');
+            }
+            sb.append('}');
+        }
+        sb.append("],\"has_more\":true}");
+        return sb.toString();
+    }
+
+    // endregion helper methods --------------------------------------------------------------------
+
+    // region helper classes -----------------------------------------------------------------------
+    private static class QuestionsDispatcher extends Dispatcher {
+
+        private String mCacheControl = "no-store";
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            if (ETAG.equals(request.getHeader("If-None-Match"))) {
+                return new MockResponse().setResponseCode(304).setHeader("ETag", ETAG);
+            }
+            String filter = request.getRequestUrl().queryParameter("filter");
+            int questionsCount = request.getRequestUrl().pathSegments().size() > 1 ? 1 : QUESTIONS_COUNT;
+            return new MockResponse()
+                    .setHeader("Cache-Control", mCacheControl)
+                    .setHeader("ETag", ETAG)
+                    .setBody(questionsResponse(filter, questionsCount));
+        }
+    }
+    // endregion helper classes --------------------------------------------------------------------
+
+}
@@ -0,0 +1,242 @@
+package com.techyourchance.unittesting.networking;
+
+import com.techyourchance.unittesting.common.requests.Cancellable;
+import com.techyourchance.unittesting.common.time.TimeProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RequestSchedulerTest {
+
+    // region constants ----------------------------------------------------------------------------
+    private static final long START_TIMESTAMP = 1000000;
+    private static final String METHOD_1 = "method1";
+    private static final String METHOD_2 = "method2";
+    // endregion constants -------------------------------------------------------------------------
+
+    // region helper fields ------------------------------------------------------------------------
+    @Mock TimeProvider mTimeProviderMock;
+    @Mock ScheduledExecutorService mScheduledExecutorServiceMock;
+    @Mock ScheduledFuture<?> mScheduledFutureMock;
+    @Mock RequestScheduler.ScheduledRequest mRequestMock1;
+    @Mock RequestScheduler.ScheduledRequest mRequestMock2;
+    @Mock RequestScheduler.ScheduledRequest mFillerRequestMock;
+
+    @Captor ArgumentCaptor<Runnable> mRunnableCaptor;
+    // endregion helper fields ---------------------------------------------------------------------
+
+    RequestScheduler SUT;
+
+    @Before
+    public void setup() throws Exception {
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(START_TIMESTAMP);
+        doReturn(mScheduledFutureMock).when(mScheduledExecutorServiceMock)
+                .schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        SUT = new RequestScheduler(mTimeProviderMock, mScheduledExecutorServiceMock);
+    }
+
+    @Test
+    public void schedule_tokensAvailable_runImmediately() throws Exception {
+        // Arrange
+        // Act
+        SUT.schedule(METHOD_1, RequestScheduler.Priority.USER_VISIBLE, mRequestMock1);
+        // Assert
+        verify(mRequestMock1).run();
+        verify(mScheduledExecutorServiceMock, never()).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    public void schedule_burstExhausted_runWhenTokenRefilled() throws Exception {
+        // Arrange
+        useTokens(RequestScheduler.MAX_BURST);
+        SUT.schedule(METHOD_1, RequestScheduler.Priority.USER_VISIBLE, mRequestMock1);
+        verify(mRequestMock1, never()).run();
+        // Act
+        advanceTime(RequestScheduler.TOKEN_REFILL_PERIOD_MS);
+        runScheduledDispatch();
+        // Assert
+        verify(mScheduledExecutorServiceMock).schedule(any(Runnable.class),
+                eq(RequestScheduler.TOKEN_REFILL_PERIOD_MS), eq(TimeUnit.MILLISECONDS));
+        verify(mRequestMock1).run();
+    }
+
+    @Test
+    public void schedule_methodInBackoff_runWhenBackoffPasses() throws Exception {
+        // Arrange
+        SUT.onBackoffRequested(METHOD_1, 5000);
+        SUT.schedule(METHOD_1, RequestScheduler.Priority.USER_VISIBLE, mRequestMock1);
+        verify(mRequestMock1, never()).run();
+        // Act
+        advanceTime(5000);
+        runScheduledDispatch();
+        // Assert
+        verify(mScheduledExecutorServiceMock).schedule(any(Runnable.class), eq(5000L), eq(TimeUnit.MILLISECONDS));
+        verify(mRequestMock1).run();
+    }
+
+    @Test
+    public void schedule_otherMethodInBackoff_runImmediately() throws Exception {
+        // Arrange
+        SUT.onBackoffRequested(METHOD_2, 5000);
+        // Act
+        SUT.schedule(METHOD_1, RequestScheduler.Priority.USER_VISIBLE, mRequestMock1);
+        // Assert
+        verify(mRequestMock1).run();
+    }
+
+    @Test
+    public void onBackoffRequested_shorterThanCurrentBackoff_currentBackoffKept() throws Exception {
+        // Arrange
+        SUT.onBackoffRequested(METHOD_1, 5000);
+        // Act
+        SUT.onBackoffRequested(METHOD_1, 1000);
+        SUT.schedule(METHOD_1, RequestScheduler.Priority.USER_VISIBLE, mRequestMock1);
+        // Assert
+        verify(mScheduledExecutorServiceMock).schedule(any(Runnable.class), eq(5000L), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void schedule_prefetchWithoutTokensReserve_queuedWhileUserVisibleRun() throws Exception {
+        // Arrange
+        useTokens(RequestScheduler.MAX_BURST - RequestScheduler.PREFETCH_TOKENS_RESERVE);
+        // Act
+        SUT.schedule(METHOD_1, RequestScheduler.Priority.PREFETCH, mRequestMock1);
+        SUT.schedule(METHOD_1, RequestScheduler.Priority.USER_VISIBLE, mRequestMock2);
+        // Assert
+        verify(mRequestMock1, never()).run();
+        verify(mRequestMock2).run();
+    }
+
+    @Test
+    public void schedule_userVisibleQueuedAfterPrefetch_runFirst() throws Exception {
+        // Arrange
+        useTokens(RequestScheduler.MAX_BURST);
+        SUT.schedule(METHOD_1, RequestScheduler.Priority.PREFETCH, mRequestMock1);
+        SUT.schedule(METHOD_1, RequestScheduler.Priority.USER_VISIBLE, mRequestMock2);
+        // Act
+        advanceTime((1 + RequestScheduler.PREFETCH_TOKENS_RESERVE) * RequestScheduler.TOKEN_REFILL_PERIOD_MS);
+        runScheduledDispatch();
+        // Assert
+        verify(mRequestMock2).run();
+        verify(mRequestMock1, never()).run();
+    }
+
+    @Test
+    public void schedule_prefetchWhileQuotaRunningLow_rejected() throws Exception {
+        // Arrange
+        SUT.onQuotaRemaining(RequestScheduler.PREFETCH_QUOTA_RESERVE - 1);
+        // Act
+        SUT.schedule(METHOD_1, RequestScheduler.Priority.PREFETCH, mRequestMock1);
+        // Assert
+        verify(mRequestMock1).onRejected();
+        verify(mRequestMock1, never()).run();
+        assertThat(SUT.getRejectedRequestsCount(), is(1L));
+    }
+
+    @Test
+    public void schedule_userVisibleWhileQuotaRunningLow_run() throws Exception {
+        // Arrange
+        SUT.onQuotaRemaining(0);
+        // Act
+        SUT.schedule(METHOD_1, RequestScheduler.Priority.USER_VISIBLE, mRequestMock1);
+        // Assert
+        verify(mRequestMock1).run();
+        assertThat(SUT.getRejectedRequestsCount(), is(0L));
+    }
+
+    @Test
+    public void schedule_prefetchWhileQuotaSufficient_run() throws Exception {
+        // Arrange
+        SUT.onQuotaRemaining(RequestScheduler.PREFETCH_QUOTA_RESERVE);
+        // Act
+        SUT.schedule(METHOD_1, RequestScheduler.Priority.PREFETCH, mRequestMock1);
+        // Assert
+        verify(mRequestMock1).run();
+    }
+
+    @Test
+    public void schedule_queuedPrefetchWhenQuotaDropped_rejectedOnNextDispatch() throws Exception {
+        // Arrange
+        useTokens(RequestScheduler.MAX_BURST);
+        SUT.schedule(METHOD_1, RequestScheduler.Priority.PREFETCH, mRequestMock1);
+        SUT.onQuotaRemaining(0);
+        // Act
+        runScheduledDispatch();
+        // Assert
+        verify(mRequestMock1).onRejected();
+        verify(mRequestMock1, never()).run();
+    }
+
+    @Test
+    public void cancel_queuedRequest_notRun() throws Exception {
+        // Arrange
+        useTokens(RequestScheduler.MAX_BURST);
+        Cancellable request = SUT.schedule(METHOD_1, RequestScheduler.Priority.USER_VISIBLE, mRequestMock1);
+        // Act
+        request.cancel();
+        advanceTime(RequestScheduler.TOKEN_REFILL_PERIOD_MS);
+        runScheduledDispatch();
+        // Assert
+        verify(mRequestMock1, never()).run();
+    }
+
+    @Test
+    public void schedule_severalQueued_runInOrder() throws Exception {
+        // Arrange
+        useTokens(RequestScheduler.MAX_BURST);
+        SUT.schedule(METHOD_1, RequestScheduler.Priority.USER_VISIBLE, mRequestMock1);
+        SUT.schedule(METHOD_2, RequestScheduler.Priority.USER_VISIBLE, mRequestMock2);
+        // Act
+        advanceTime(2 * RequestScheduler.TOKEN_REFILL_PERIOD_MS);
+        runScheduledDispatch();
+        // Assert
+        InOrder inOrder = inOrder(mRequestMock1, mRequestMock2);
+        inOrder.verify(mRequestMock1).run();
+        inOrder.verify(mRequestMock2).run();
+    }
+
+    // region helper methods -----------------------------------------------------------------------
+
+    private void useTokens(int count) {
+        for (int i = 0; i < count; i++) {
+            SUT.schedule(METHOD_1, RequestScheduler.Priority.USER_VISIBLE, mFillerRequestMock);
+        }
+    }
+
+    private void advanceTime(long ms) {
+        long now = mTimeProviderMock.getMonotonicTimestamp();
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(now + ms);
+    }
+
+    private void runScheduledDispatch() {
+        verify(mScheduledExecutorServiceMock, atLeastOnce())
+                .schedule(mRunnableCaptor.capture(), anyLong(), any(TimeUnit.class));
+        mRunnableCaptor.getValue().run();
+    }
+
+    // endregion helper methods --------------------------------------------------------------------
+
+}
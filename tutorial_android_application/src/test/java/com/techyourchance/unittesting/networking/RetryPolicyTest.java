@@ -0,0 +1,205 @@
+package com.techyourchance.unittesting.networking;
+
+import com.techyourchance.unittesting.common.time.TimeProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import retrofit2.Response;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RetryPolicyTest {
+
+    // region constants ----------------------------------------------------------------------------
+    private static final long START_TIMESTAMP = 1000000;
+    // endregion constants -------------------------------------------------------------------------
+
+    // region helper fields ------------------------------------------------------------------------
+    @Mock TimeProvider mTimeProviderMock;
+    private RandomTd mRandomTd;
+    // endregion helper fields ---------------------------------------------------------------------
+
+    RetryPolicy SUT;
+
+    @Before
+    public void setup() throws Exception {
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(START_TIMESTAMP);
+        mRandomTd = new RandomTd();
+        SUT = new RetryPolicy(mTimeProviderMock, mRandomTd);
+    }
+
+    @Test
+    public void isRetryable_ioErrors_true() throws Exception {
+        // Arrange
+        // Act
+        // Assert
+        assertThat(SUT.isRetryable(new IOException()), is(true));
+        assertThat(SUT.isRetryable(new SocketTimeoutException()), is(true));
+    }
+
+    @Test
+    public void isRetryable_otherThrowables_false() throws Exception {
+        // Arrange
+        // Act
+        // Assert
+        assertThat(SUT.isRetryable(new IllegalStateException()), is(false));
+    }
+
+    @Test
+    public void isRetryable_serverErrorsTimeoutAndThrottling_true() throws Exception {
+        // Arrange
+        // Act
+        // Assert
+        assertThat(SUT.isRetryable(errorResponse(500)), is(true));
+        assertThat(SUT.isRetryable(errorResponse(503)), is(true));
+        assertThat(SUT.isRetryable(errorResponse(408)), is(true));
+        assertThat(SUT.isRetryable(errorResponse(429)), is(true));
+    }
+
+    @Test
+    public void isRetryable_clientErrors_false() throws Exception {
+        // Arrange
+        // Act
+        // Assert
+        assertThat(SUT.isRetryable(errorResponse(400)), is(false));
+        assertThat(SUT.isRetryable(errorResponse(404)), is(false));
+    }
+
+    @Test
+    public void isRetryable_throttleViolationWithShortBackoff_true() throws Exception {
+        // Arrange
+        // Act
+        // Assert
+        assertThat(SUT.isRetryable(throttleViolation(0)), is(true));
+        assertThat(SUT.isRetryable(throttleViolation(
+                (int) TimeUnit.MILLISECONDS.toSeconds(RetryPolicy.MAX_THROTTLE_BACKOFF_MS))), is(true));
+    }
+
+    @Test
+    public void isRetryable_throttleViolationWithLongBackoff_false() throws Exception {
+        // Arrange
+        // Act
+        // Assert
+        assertThat(SUT.isRetryable(throttleViolation(
+                (int) TimeUnit.MILLISECONDS.toSeconds(RetryPolicy.MAX_THROTTLE_BACKOFF_MS) + 1)), is(false));
+    }
+
+    @Test
+    public void isRetryable_otherApiErrors_false() throws Exception {
+        // Arrange
+        // Act
+        // Assert
+        assertThat(SUT.isRetryable(new ApiErrorSchema(400, "bad_parameter", 0, ThrottlingResponseSchema.QUOTA_UNKNOWN)), is(false));
+        assertThat(SUT.isRetryable((ApiErrorSchema) null), is(false));
+    }
+
+    @Test
+    public void getRetryDelayMs_firstFailure_betweenHalfAndFullBaseDelay() throws Exception {
+        // Arrange
+        // Act
+        mRandomTd.mNextDouble = 0;
+        long minDelay = SUT.getRetryDelayMs(1);
+        mRandomTd.mNextDouble = 0.999;
+        long maxDelay = SUT.getRetryDelayMs(1);
+        // Assert
+        assertThat(minDelay, is(RetryPolicy.BASE_DELAY_MS / 2));
+        assertThat(maxDelay <= RetryPolicy.BASE_DELAY_MS, is(true));
+        assertThat(maxDelay > RetryPolicy.BASE_DELAY_MS * 9 / 10, is(true));
+    }
+
+    @Test
+    public void getRetryDelayMs_subsequentFailures_delayDoubled() throws Exception {
+        // Arrange
+        mRandomTd.mNextDouble = 0;
+        // Act
+        long firstDelay = SUT.getRetryDelayMs(1);
+        long secondDelay = SUT.getRetryDelayMs(2);
+        long thirdDelay = SUT.getRetryDelayMs(3);
+        // Assert
+        assertThat(secondDelay, is(2 * firstDelay));
+        assertThat(thirdDelay, is(2 * secondDelay));
+    }
+
+    @Test
+    public void getRetryDelayMs_maxAttemptsReached_noRetry() throws Exception {
+        // Arrange
+        // Act
+        long delay = SUT.getRetryDelayMs(RetryPolicy.MAX_ATTEMPTS);
+        // Assert
+        assertThat(delay, is(RetryPolicy.NO_RETRY));
+    }
+
+    @Test
+    public void getRetryDelayMs_budgetExhausted_noRetryAndDenialCounted() throws Exception {
+        // Arrange
+        exhaustRetryBudget();
+        // Act
+        long delay = SUT.getRetryDelayMs(1);
+        // Assert
+        assertThat(delay, is(RetryPolicy.NO_RETRY));
+        assertThat(SUT.getRetriesCount(), is((long) RetryPolicy.RETRY_BUDGET));
+        assertThat(SUT.getRetriesDeniedByBudgetCount(), is(1L));
+    }
+
+    @Test
+    public void getRetryDelayMs_budgetExhaustedAndRefillPeriodPassed_singleRetryAllowed() throws Exception {
+        // Arrange
+        exhaustRetryBudget();
+        when(mTimeProviderMock.getMonotonicTimestamp())
+                .thenReturn(START_TIMESTAMP + RetryPolicy.RETRY_BUDGET_REFILL_PERIOD_MS);
+        // Act
+        long firstDelay = SUT.getRetryDelayMs(1);
+        long secondDelay = SUT.getRetryDelayMs(1);
+        // Assert
+        assertThat(firstDelay != RetryPolicy.NO_RETRY, is(true));
+        assertThat(secondDelay, is(RetryPolicy.NO_RETRY));
+    }
+
+    // region helper methods -----------------------------------------------------------------------
+
+    private void exhaustRetryBudget() {
+        for (int i = 0; i < RetryPolicy.RETRY_BUDGET; i++) {
+            SUT.getRetryDelayMs(1);
+        }
+    }
+
+    private static ApiErrorSchema throttleViolation(int backoffSeconds) {
+        return new ApiErrorSchema(ApiErrorSchema.ERROR_ID_THROTTLE_VIOLATION, "throttle_violation",
+                backoffSeconds, ThrottlingResponseSchema.QUOTA_UNKNOWN);
+    }
+
+    private static Response<String> errorResponse(int code) {
+        return Response.error(code, ResponseBody.create(MediaType.parse("application/json"), ""));
+    }
+
+    // endregion helper methods --------------------------------------------------------------------
+
+    // region helper classes -----------------------------------------------------------------------
+
+    private static class RandomTd extends Random {
+
+        private double mNextDouble = 0.5;
+
+        @Override
+        public double nextDouble() {
+            return mNextDouble;
+        }
+    }
+
+    // endregion helper classes --------------------------------------------------------------------
+
+}
@@ -0,0 +1,309 @@
+package com.techyourchance.unittesting.networking.questions;
+
+import com.techyourchance.unittesting.common.instrumentation.Metrics;
+import com.techyourchance.unittesting.common.requests.Cancellable;
+import com.techyourchance.unittesting.common.time.TimeProvider;
+import com.techyourchance.unittesting.networking.CallRetrier;
+import com.techyourchance.unittesting.networking.CancelledCallsCounter;
+import com.techyourchance.unittesting.networking.RequestScheduler;
+import com.techyourchance.unittesting.networking.RetryPolicy;
+import com.techyourchance.unittesting.networking.StackoverflowApi;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BatchingFetchQuestionDetailsEndpointTest {
+
+    // region constants ----------------------------------------------------------------------------
+    private static final QuestionSchema QUESTION1 = new QuestionSchema("title1", "1", "body1");
+    private static final QuestionSchema QUESTION2 = new QuestionSchema("title2", "2", "body2");
+    // endregion constants -------------------------------------------------------------------------
+
+    // region helper fields ------------------------------------------------------------------------
+    @Mock StackoverflowApi mStackoverflowApiMock;
+    @Mock ScheduledExecutorService mScheduledExecutorServiceMock;
+    @Mock ScheduledFuture<?> mScheduledFutureMock;
+    @Mock Call<QuestionsListResponseSchema> mCallMock;
+    @Mock FetchQuestionDetailsEndpoint.Listener mListener1;
+    @Mock FetchQuestionDetailsEndpoint.Listener mListener2;
+
+    @Captor ArgumentCaptor<Runnable> mRunnableCaptor;
+    @Captor ArgumentCaptor<Callback<QuestionsListResponseSchema>> mCallbackCaptor;
+    // endregion helper fields ---------------------------------------------------------------------
+
+    private CancelledCallsCounter mCancelledCallsCounter;
+    private RequestScheduler mRequestScheduler;
+    private Metrics mMetrics;
+
+    BatchingFetchQuestionDetailsEndpoint SUT;
+
+    @Before
+    public void setup() throws Exception {
+        mCancelledCallsCounter = new CancelledCallsCounter();
+        mMetrics = new Metrics(new TimeProvider());
+        mRequestScheduler = new RequestScheduler(new TimeProvider(), mScheduledExecutorServiceMock);
+        CallRetrier callRetrier = new CallRetrier(new RetryPolicy(new TimeProvider(), new Random()),
+                mRequestScheduler, mScheduledExecutorServiceMock, mCancelledCallsCounter);
+        SUT = new BatchingFetchQuestionDetailsEndpoint(
+                mStackoverflowApiMock, mScheduledExecutorServiceMock, callRetrier, mMetrics);
+        doReturn(mScheduledFutureMock).when(mScheduledExecutorServiceMock)
+                .schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        when(mStackoverflowApiMock.fetchQuestionsDetails(anyString(), anyInt(), anyString())).thenReturn(mCallMock);
+        when(mCallMock.request()).thenReturn(new Request.Builder().url("http://localhost/questions/1").build());
+    }
+
+    @Test
+    public void prefetchQuestionDetails_singleRequest_flushScheduledAfterBatchWindow() throws Exception {
+        // Arrange
+        // Act
+        SUT.prefetchQuestionDetails("1", mListener1);
+        // Assert
+        verify(mScheduledExecutorServiceMock).schedule(any(Runnable.class),
+                eq(BatchingFetchQuestionDetailsEndpoint.BATCH_WINDOW_MS), eq(TimeUnit.MILLISECONDS));
+        verify(mStackoverflowApiMock, never()).fetchQuestionsDetails(anyString(), anyInt(), anyString());
+    }
+
+    @Test
+    public void prefetchQuestionDetails_requestsWithinBatchWindow_singleCallWithAllIds() throws Exception {
+        // Arrange
+        SUT.prefetchQuestionDetails("1", mListener1);
+        SUT.prefetchQuestionDetails("2", mListener2);
+        // Act
+        runScheduledFlush();
+        // Assert
+        verify(mScheduledExecutorServiceMock, times(1)).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        verify(mStackoverflowApiMock).fetchQuestionsDetails("1;2", 2, QuestionFilters.WITH_BODY);
+        assertThat(SUT.getBatchesCount(), is(1L));
+    }
+
+    @Test
+    public void prefetchQuestionDetails_sameIdRequestedTwice_idSentOnce() throws Exception {
+        // Arrange
+        SUT.prefetchQuestionDetails("1", mListener1);
+        SUT.prefetchQuestionDetails("1", mListener2);
+        // Act
+        runScheduledFlush();
+        // Assert
+        verify(mStackoverflowApiMock).fetchQuestionsDetails("1", 1, QuestionFilters.WITH_BODY);
+    }
+
+    @Test
+    public void prefetchQuestionDetails_maxBatchSizeReached_flushedImmediately() throws Exception {
+        // Arrange
+        for (int i = 0; i < BatchingFetchQuestionDetailsEndpoint.MAX_BATCH_SIZE - 1; i++) {
+            SUT.prefetchQuestionDetails(String.valueOf(i), mListener1);
+        }
+        verify(mStackoverflowApiMock, never()).fetchQuestionsDetails(anyString(), anyInt(), anyString());
+        // Act
+        SUT.prefetchQuestionDetails("last", mListener1);
+        // Assert
+        verify(mStackoverflowApiMock).fetchQuestionsDetails(anyString(), eq(BatchingFetchQuestionDetailsEndpoint.MAX_BATCH_SIZE), anyString());
+        verify(mScheduledFutureMock).cancel(false);
+    }
+
+    @Test
+    public void prefetchQuestionDetails_success_resultsFannedOutToListenersById() throws Exception {
+        // Arrange
+        SUT.prefetchQuestionDetails("1", mListener1);
+        SUT.prefetchQuestionDetails("2", mListener2);
+        runScheduledFlush();
+        // Act
+        respondWith(QUESTION2, QUESTION1);
+        // Assert
+        verify(mListener1).onQuestionDetailsFetched(QUESTION1);
+        verify(mListener2).onQuestionDetailsFetched(QUESTION2);
+    }
+
+    @Test
+    public void prefetchQuestionDetails_questionMissingFromResponse_listenerNotifiedOfFailure() throws Exception {
+        // Arrange
+        SUT.prefetchQuestionDetails("1", mListener1);
+        SUT.prefetchQuestionDetails("2", mListener2);
+        runScheduledFlush();
+        // Act
+        respondWith(QUESTION1);
+        // Assert
+        verify(mListener1).onQuestionDetailsFetched(QUESTION1);
+        verify(mListener2).onQuestionDetailsFetchFailed();
+        assertThat(mMetrics.counter(FetchQuestionDetailsEndpoint.FAILURES_COUNTER).getValue(), is(1L));
+    }
+
+    @Test
+    public void prefetchQuestionDetails_nonRetryableError_allListenersNotifiedOfFailure() throws Exception {
+        // Arrange
+        SUT.prefetchQuestionDetails("1", mListener1);
+        SUT.prefetchQuestionDetails("2", mListener2);
+        runScheduledFlush();
+        // Act
+        verify(mCallMock).enqueue(mCallbackCaptor.capture());
+        mCallbackCaptor.getValue().onResponse(mCallMock, Response.<QuestionsListResponseSchema>error(
+                400, ResponseBody.create(MediaType.parse("application/json"), "")));
+        // Assert
+        verify(mListener1).onQuestionDetailsFetchFailed();
+        verify(mListener2).onQuestionDetailsFetchFailed();
+        assertThat(mMetrics.counter(FetchQuestionDetailsEndpoint.FAILURES_COUNTER).getValue(), is(2L));
+    }
+
+    @Test
+    public void prefetchQuestionDetails_requestAfterFlush_newBatchScheduled() throws Exception {
+        // Arrange
+        SUT.prefetchQuestionDetails("1", mListener1);
+        runScheduledFlush();
+        // Act
+        SUT.prefetchQuestionDetails("2", mListener2);
+        // Assert
+        verify(mScheduledExecutorServiceMock, times(2)).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    public void cancel_beforeFlush_idNotSent() throws Exception {
+        // Arrange
+        Cancellable request1 = SUT.prefetchQuestionDetails("1", mListener1);
+        SUT.prefetchQuestionDetails("2", mListener2);
+        // Act
+        request1.cancel();
+        runScheduledFlush();
+        // Assert
+        verify(mStackoverflowApiMock).fetchQuestionsDetails("2", 1, QuestionFilters.WITH_BODY);
+    }
+
+    @Test
+    public void cancel_allRequestsBeforeFlush_noCallAndScheduledFlushCancelled() throws Exception {
+        // Arrange
+        Cancellable request1 = SUT.prefetchQuestionDetails("1", mListener1);
+        // Act
+        request1.cancel();
+        // Assert
+        verify(mScheduledFutureMock).cancel(false);
+        SUT.flush();
+        verify(mStackoverflowApiMock, never()).fetchQuestionsDetails(anyString(), anyInt(), anyString());
+    }
+
+    @Test
+    public void cancel_someRequestsOfFlushedBatch_callNotCancelledAndCancelledListenerNotNotified() throws Exception {
+        // Arrange
+        Cancellable request1 = SUT.prefetchQuestionDetails("1", mListener1);
+        SUT.prefetchQuestionDetails("2", mListener2);
+        runScheduledFlush();
+        // Act
+        request1.cancel();
+        respondWith(QUESTION1, QUESTION2);
+        // Assert
+        verify(mCallMock, never()).cancel();
+        verify(mListener1, never()).onQuestionDetailsFetched(any(QuestionSchema.class));
+        verify(mListener2).onQuestionDetailsFetched(QUESTION2);
+    }
+
+    @Test
+    public void cancel_allRequestsOfFlushedBatch_callCancelledAndCounted() throws Exception {
+        // Arrange
+        Cancellable request1 = SUT.prefetchQuestionDetails("1", mListener1);
+        Cancellable request2 = SUT.prefetchQuestionDetails("2", mListener2);
+        runScheduledFlush();
+        // Act
+        request1.cancel();
+        request2.cancel();
+        // Assert
+        verify(mCallMock).cancel();
+        assertThat(mCancelledCallsCounter.getCancelledCallsCount(), is(1L));
+    }
+
+    @Test
+    public void fetchQuestionDetails_noPendingRequests_sentImmediately() throws Exception {
+        // Arrange
+        // Act
+        SUT.fetchQuestionDetails("1", mListener1);
+        // Assert
+        verify(mStackoverflowApiMock).fetchQuestionsDetails("1", 1, QuestionFilters.WITH_BODY);
+        verify(mScheduledExecutorServiceMock, never()).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    public void fetchQuestionDetails_prefetchesPending_sentImmediatelyTogetherWithPrefetches() throws Exception {
+        // Arrange
+        SUT.prefetchQuestionDetails("1", mListener1);
+        // Act
+        SUT.fetchQuestionDetails("2", mListener2);
+        // Assert
+        verify(mStackoverflowApiMock).fetchQuestionsDetails("1;2", 2, QuestionFilters.WITH_BODY);
+        verify(mScheduledFutureMock).cancel(false);
+        assertThat(SUT.getBatchesCount(), is(1L));
+    }
+
+    @Test
+    public void prefetchQuestionDetails_quotaRunningLow_noCallAndListenersNotifiedOfFailure() throws Exception {
+        // Arrange
+        mRequestScheduler.onQuotaRemaining(0);
+        SUT.prefetchQuestionDetails("1", mListener1);
+        SUT.prefetchQuestionDetails("2", mListener2);
+        // Act
+        runScheduledFlush();
+        // Assert
+        verify(mCallMock, never()).enqueue(any(Callback.class));
+        verify(mListener1).onQuestionDetailsFetchFailed();
+        verify(mListener2).onQuestionDetailsFetchFailed();
+    }
+
+    @Test
+    public void prefetchQuestionDetails_quotaRunningLowAndBatchedWithUserRequest_callMadeForBoth() throws Exception {
+        // Arrange
+        mRequestScheduler.onQuotaRemaining(0);
+        SUT.prefetchQuestionDetails("1", mListener1);
+        SUT.fetchQuestionDetails("2", mListener2);
+        // Act
+        respondWith(QUESTION1, QUESTION2);
+        // Assert
+        verify(mListener1).onQuestionDetailsFetched(QUESTION1);
+        verify(mListener2).onQuestionDetailsFetched(QUESTION2);
+    }
+
+    // region helper methods -----------------------------------------------------------------------
+
+    private void runScheduledFlush() {
+        verify(mScheduledExecutorServiceMock).schedule(mRunnableCaptor.capture(), anyLong(), any(TimeUnit.class));
+        mRunnableCaptor.getValue().run();
+    }
+
+    private void respondWith(QuestionSchema... questions) {
+        verify(mCallMock).enqueue(mCallbackCaptor.capture());
+        List<QuestionSchema> questionsList = new LinkedList<>(Arrays.asList(questions));
+        mCallbackCaptor.getValue().onResponse(mCallMock, Response.success(new QuestionsListResponseSchema(questionsList)));
+    }
+
+    // endregion helper methods --------------------------------------------------------------------
+
+}
@@ -0,0 +1,230 @@
+package com.techyourchance.unittesting.networking.questions;
+
+import com.techyourchance.unittesting.common.Constants;
+import com.techyourchance.unittesting.common.instrumentation.Metrics;
+import com.techyourchance.unittesting.common.time.TimeProvider;
+import com.techyourchance.unittesting.networking.CallRetrier;
+import com.techyourchance.unittesting.networking.CancelledCallsCounter;
+import com.techyourchance.unittesting.networking.RequestScheduler;
+import com.techyourchance.unittesting.networking.RetryPolicy;
+import com.techyourchance.unittesting.networking.StackoverflowApi;
+import com.techyourchance.unittesting.networking.ThrottlingResponseSchema;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ScheduledExecutorService;
+
+import okhttp3.Request;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FetchLastActiveQuestionsEndpointTest {
+
+    // region constants ----------------------------------------------------------------------------
+    private static final QuestionSchema QUESTION1 = new QuestionSchema("title1", "1", null, 300);
+    private static final QuestionSchema QUESTION2 = new QuestionSchema("title2", "2", null, 200);
+    private static final QuestionSchema QUESTION3 = new QuestionSchema("title3", "3", null, 100);
+    // endregion constants -------------------------------------------------------------------------
+
+    // region helper fields ------------------------------------------------------------------------
+    @Mock StackoverflowApi mStackoverflowApiMock;
+    @Mock ScheduledExecutorService mScheduledExecutorServiceMock;
+    @Mock Call<QuestionsListResponseSchema> mCallMock;
+    @Mock FetchLastActiveQuestionsEndpoint.Listener mListenerMock;
+    @Mock FetchLastActiveQuestionsEndpoint.PageListener mPageListenerMock;
+
+    @Captor ArgumentCaptor<Callback<QuestionsListResponseSchema>> mCallbackCaptor;
+    @Captor ArgumentCaptor<List<QuestionSchema>> mQuestionsCaptor;
+    // endregion helper fields ---------------------------------------------------------------------
+
+    private Metrics mMetrics;
+
+    FetchLastActiveQuestionsEndpoint SUT;
+
+    @Before
+    public void setup() throws Exception {
+        mMetrics = new Metrics(new TimeProvider());
+        RequestScheduler requestScheduler = new RequestScheduler(new TimeProvider(), mScheduledExecutorServiceMock);
+        CallRetrier callRetrier = new CallRetrier(new RetryPolicy(new TimeProvider(), new Random()),
+                requestScheduler, mScheduledExecutorServiceMock, new CancelledCallsCounter());
+        SUT = new FetchLastActiveQuestionsEndpoint(mStackoverflowApiMock, callRetrier, mMetrics);
+        when(mStackoverflowApiMock.fetchLastActiveQuestions(anyInt(), anyInt(), nullable(Long.class), anyString()))
+                .thenReturn(mCallMock);
+        when(mCallMock.request()).thenReturn(new Request.Builder().url("http://localhost/questions").build());
+    }
+
+    @Test
+    public void fetchLastActiveQuestions_firstTime_fullPageRequested() throws Exception {
+        // Arrange
+        // Act
+        SUT.fetchLastActiveQuestions(mListenerMock);
+        // Assert
+        verify(mStackoverflowApiMock).fetchLastActiveQuestions(Constants.QUESTIONS_LIST_PAGE_SIZE,
+                FetchLastActiveQuestionsEndpoint.FIRST_PAGE, null, QuestionFilters.WITHOUT_BODY);
+    }
+
+    @Test
+    public void fetchLastActiveQuestions_fetchedBefore_questionsActiveSinceMostRecentActivityRequested() throws Exception {
+        // Arrange
+        fetch(false, QUESTION2, QUESTION3);
+        // Act
+        SUT.fetchLastActiveQuestions(mListenerMock);
+        // Assert
+        verify(mStackoverflowApiMock).fetchLastActiveQuestions(Constants.QUESTIONS_LIST_PAGE_SIZE,
+                FetchLastActiveQuestionsEndpoint.FIRST_PAGE, 200L, QuestionFilters.WITHOUT_BODY);
+    }
+
+    @Test
+    public void fetchLastActiveQuestions_deltaRefresh_activeQuestionsMergedOnTopWithoutDuplicates() throws Exception {
+        // Arrange
+        QuestionSchema updatedQuestion3 = new QuestionSchema("title3 edited", "3", null, 400);
+        fetch(false, QUESTION1, QUESTION2, QUESTION3);
+        // Act
+        fetch(false, updatedQuestion3);
+        // Assert
+        assertThat(getLastFetchedQuestions(), is(Arrays.asList(updatedQuestion3, QUESTION1, QUESTION2)));
+    }
+
+    @Test
+    public void fetchLastActiveQuestions_deltaRefreshWithoutChanges_previousQuestionsReturned() throws Exception {
+        // Arrange
+        fetch(false, QUESTION1, QUESTION2);
+        // Act
+        fetch(false);
+        // Assert
+        assertThat(getLastFetchedQuestions(), is(Arrays.asList(QUESTION1, QUESTION2)));
+    }
+
+    @Test
+    public void fetchLastActiveQuestions_deltaRefreshFillsPage_oldestQuestionsDropped() throws Exception {
+        // Arrange
+        fetch(false, QUESTION1, QUESTION2, QUESTION3);
+        List<QuestionSchema> activeQuestions = new ArrayList<>();
+        for (int i = 0; i < Constants.QUESTIONS_LIST_PAGE_SIZE - 1; i++) {
+            activeQuestions.add(new QuestionSchema("title", String.valueOf(100 + i), null, 1000 - i));
+        }
+        // Act
+        fetch(false, activeQuestions.toArray(new QuestionSchema[0]));
+        // Assert
+        List<QuestionSchema> expectedQuestions = new ArrayList<>(activeQuestions);
+        expectedQuestions.add(QUESTION1);
+        assertThat(getLastFetchedQuestions(), is(expectedQuestions));
+    }
+
+    @Test
+    public void fetchLastActiveQuestions_deltaRefreshHasMore_activeQuestionsReplacePage() throws Exception {
+        // Arrange
+        QuestionSchema activeQuestion = new QuestionSchema("title4", "4", null, 500);
+        fetch(false, QUESTION1, QUESTION2);
+        // Act
+        fetch(true, activeQuestion);
+        // Assert
+        assertThat(getLastFetchedQuestions(), is(Arrays.asList(activeQuestion)));
+    }
+
+    @Test
+    public void fetchLastActiveQuestions_maxConsecutiveDeltaRefreshesReached_fullPageRequested() throws Exception {
+        // Arrange
+        fetch(false, QUESTION1);
+        for (int i = 0; i < FetchLastActiveQuestionsEndpoint.MAX_CONSECUTIVE_DELTA_REFRESHES; i++) {
+            fetch(false);
+        }
+        // Act
+        SUT.fetchLastActiveQuestions(mListenerMock);
+        // Assert
+        verify(mStackoverflowApiMock, atLeastOnce()).fetchLastActiveQuestions(Constants.QUESTIONS_LIST_PAGE_SIZE,
+                FetchLastActiveQuestionsEndpoint.FIRST_PAGE, null, QuestionFilters.WITHOUT_BODY);
+    }
+
+    @Test
+    public void fetchLastActiveQuestions_activityUnknown_fullPageRequested() throws Exception {
+        // Arrange
+        fetch(false, new QuestionSchema("title1", "1", null));
+        // Act
+        SUT.fetchLastActiveQuestions(mListenerMock);
+        // Assert
+        verify(mStackoverflowApiMock, atLeastOnce()).fetchLastActiveQuestions(anyInt(), anyInt(), isNull(), anyString());
+    }
+
+    @Test
+    public void fetchLastActiveQuestions_failure_nextRefreshStillDelta() throws Exception {
+        // Arrange
+        fetch(false, QUESTION1);
+        SUT.fetchLastActiveQuestions(mListenerMock);
+        captureCallback().onFailure(mCallMock, new IllegalStateException());
+        // Act
+        SUT.fetchLastActiveQuestions(mListenerMock);
+        // Assert
+        verify(mListenerMock).onQuestionsFetchFailed();
+        verify(mStackoverflowApiMock, atLeastOnce()).fetchLastActiveQuestions(Constants.QUESTIONS_LIST_PAGE_SIZE,
+                FetchLastActiveQuestionsEndpoint.FIRST_PAGE, 300L, QuestionFilters.WITHOUT_BODY);
+    }
+
+    @Test
+    public void fetchLastActiveQuestions_deltaRefreshAndFailure_metricsRecorded() throws Exception {
+        // Arrange
+        fetch(false, QUESTION1);
+        fetch(false, QUESTION2);
+        SUT.fetchLastActiveQuestions(mListenerMock);
+        // Act
+        captureCallback().onFailure(mCallMock, new IllegalStateException());
+        // Assert
+        assertThat(mMetrics.timer(FetchLastActiveQuestionsEndpoint.NETWORK_TIMER).getCount(), is(3L));
+        assertThat(mMetrics.counter(FetchLastActiveQuestionsEndpoint.DELTA_REFRESHES_COUNTER).getValue(), is(1L));
+        assertThat(mMetrics.counter(FetchLastActiveQuestionsEndpoint.FAILURES_COUNTER).getValue(), is(1L));
+    }
+
+    @Test
+    public void fetchLastActiveQuestionsPage_fetchedBefore_fullPageRequested() throws Exception {
+        // Arrange
+        fetch(false, QUESTION1);
+        // Act
+        SUT.fetchLastActiveQuestionsPage(2, mPageListenerMock);
+        // Assert
+        verify(mStackoverflowApiMock).fetchLastActiveQuestions(Constants.QUESTIONS_LIST_PAGE_SIZE,
+                2, null, QuestionFilters.WITHOUT_BODY);
+    }
+
+    // region helper methods -----------------------------------------------------------------------
+
+    private void fetch(boolean hasMore, QuestionSchema... questions) {
+        SUT.fetchLastActiveQuestions(mListenerMock);
+        captureCallback().onResponse(mCallMock, Response.success(new QuestionsListResponseSchema(
+                new ArrayList<>(Arrays.asList(questions)), hasMore, 0, ThrottlingResponseSchema.QUOTA_UNKNOWN)));
+    }
+
+    private Callback<QuestionsListResponseSchema> captureCallback() {
+        verify(mCallMock, atLeastOnce()).enqueue(mCallbackCaptor.capture());
+        return mCallbackCaptor.getValue();
+    }
+
+    private List<QuestionSchema> getLastFetchedQuestions() {
+        verify(mListenerMock, atLeastOnce()).onQuestionsFetched(mQuestionsCaptor.capture());
+        return mQuestionsCaptor.getValue();
+    }
+
+    // endregion helper methods --------------------------------------------------------------------
+
+}
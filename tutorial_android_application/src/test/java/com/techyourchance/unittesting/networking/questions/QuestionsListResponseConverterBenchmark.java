@@ -0,0 +1,95 @@
+package com.techyourchance.unittesting.networking.questions;
+
+import com.google.gson.Gson;
+import com.techyourchance.unittesting.benchmarks.Benchmark;
+import com.techyourchance.unittesting.common.collections.StringInterner;
+
+import java.io.IOException;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+
+/**
+ * Compares reflective Gson deserialization of {@link QuestionsListResponseSchema} with
+ * {@link QuestionsListResponseConverter} on payloads of different sizes. Reports the average parse
+ * time and the bytes allocated per parse (on JVMs which support allocation accounting). Not a unit
+ * test - run the main method manually.
+ */
+public class QuestionsListResponseConverterBenchmark {
+
+    private static final int[] QUESTIONS_COUNTS = {20, 100, 1000};
+    private static final int BODY_LENGTH = 4000;
+    private static final int WARMUP_ITERATIONS = 100;
+    private static final int MEASURED_ITERATIONS = 100;
+
+    private static final MediaType JSON = MediaType.parse("application/json");
+
+    private interface Parser {
+        QuestionsListResponseSchema parse(String json) throws IOException;
+    }
+
+    public static void main(String[] args) throws Exception {
+        final Gson gson = new Gson();
+        Parser gsonParser = new Parser() {
+            @Override
+            public QuestionsListResponseSchema parse(String json) {
+                return gson.fromJson(ResponseBody.create(JSON, json).charStream(), QuestionsListResponseSchema.class);
+            }
+        };
+        final QuestionsListResponseConverter withBodiesConverter = new QuestionsListResponseConverter(true, new StringInterner());
+        Parser withBodiesParser = new Parser() {
+            @Override
+            public QuestionsListResponseSchema parse(String json) throws IOException {
+                return withBodiesConverter.convert(ResponseBody.create(JSON, json));
+            }
+        };
+        final QuestionsListResponseConverter withoutBodiesConverter = new QuestionsListResponseConverter(false, new StringInterner());
+        Parser withoutBodiesParser = new Parser() {
+            @Override
+            public QuestionsListResponseSchema parse(String json) throws IOException {
+                return withoutBodiesConverter.convert(ResponseBody.create(JSON, json));
+            }
+        };
+
+        for (int questionsCount : QUESTIONS_COUNTS) {
+            String json = response(questionsCount);
+            System.out.println(questionsCount + " questions (" + json.length() / 1024 + " KB):");
+            measure("  gson                 ", gsonParser, json);
+            measure("  streaming            ", withBodiesParser, json);
+            measure("  streaming, no bodies ", withoutBodiesParser, json);
+        }
+    }
+
+    private static void measure(String name, final Parser parser, final String json) throws Exception {
+        Benchmark.Result result = Benchmark.measure(new Benchmark.Operation() {
+            @Override
+            public long run(int iteration) throws IOException {
+                return parser.parse(json).getQuestions().size();
+            }
+        }, WARMUP_ITERATIONS, MEASURED_ITERATIONS);
+
+        System.out.println(String.format("%s %10.1f us, %8d KB allocated (%d)",
+                name, result.getAverageMicros(), (long) result.getAverageAllocatedBytes() / 1024, result.getChecksum()));
+    }
+
+    private static String response(int questionsCount) {
+        StringBuilder body = new StringBuilder();
+        while (body.length() < BODY_LENGTH) {
+            body.append("<p>Some question text with <code>code</code> in it.</p>\\n");
+        }
+        StringBuilder sb = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < questionsCount; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"tags\":[\"java\",\"android\"],")
+                    .append("\"owner\":{\"user_id\":").append(i).append(",\"display_name\":\"user").append(i).append("\"},")
+                    .append("\"is_answered\":false,\"view_count\":").append(i * 7).append(',')
+                    .append("\"question_id\":").append(1000000 + i).append(',')
+                    .append("\"title\":\"Question title number ").append(i).append("\",")
+                    .append("\"body\":\"").append(body).append("\"}");
+        }
+        sb.append("],\"has_more\":true,\"quota_max\":300,\"quota_remaining\":299}");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,148 @@
+package com.techyourchance.unittesting.networking.questions;
+
+import com.techyourchance.unittesting.common.collections.StringInterner;
+import com.techyourchance.unittesting.networking.ThrottlingResponseSchema;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class QuestionsListResponseConverterTest {
+
+    // region constants ----------------------------------------------------------------------------
+    private static final String RESPONSE = "{"
+            + "\"items\":["
+            + "{\"tags\":[\"java\",\"android\"],\"owner\":{\"user_id\":1,\"display_name\":\"user\"},"
+            + "\"question_id\":11,\"title\":\"title1\",\"body\":\"<p>body1</p>\",\"score\":3,"
+            + "\"last_activity_date\":1500000000},"
+            + "{\"question_id\":22,\"title\":null,\"body\":\"<p>body2</p>\"}"
+            + "],"
+            + "\"has_more\":true,"
+            + "\"quota_max\":300,"
+            + "\"quota_remaining\":299,"
+            + "\"backoff\":10"
+            + "}";
+    // endregion constants -------------------------------------------------------------------------
+
+    StringInterner mTitleInterner;
+
+    QuestionsListResponseConverter SUT;
+
+    @Before
+    public void setup() throws Exception {
+        mTitleInterner = new StringInterner();
+        SUT = new QuestionsListResponseConverter(true, mTitleInterner);
+    }
+
+    @Test
+    public void convert_idsAndTitlesParsed() throws Exception {
+        // Arrange
+        // Act
+        List<QuestionSchema> result = SUT.convert(responseBody(RESPONSE)).getQuestions();
+        // Assert
+        assertThat(result.size(), is(2));
+        assertThat(result.get(0).getId(), is("11"));
+        assertThat(result.get(0).getTitle(), is("title1"));
+        assertThat(result.get(1).getId(), is("22"));
+        assertThat(result.get(1).getTitle(), is(nullValue()));
+    }
+
+    @Test
+    public void convert_sameQuestionInTwoResponses_titleInstanceShared() throws Exception {
+        // Arrange
+        // Act
+        List<QuestionSchema> result1 = SUT.convert(responseBody(RESPONSE)).getQuestions();
+        List<QuestionSchema> result2 = SUT.convert(responseBody(RESPONSE)).getQuestions();
+        // Assert
+        assertThat(result2.get(0).getTitle(), is(sameInstance(result1.get(0).getTitle())));
+    }
+
+    @Test
+    public void convert_hasMoreParsed() throws Exception {
+        // Arrange
+        // Act
+        QuestionsListResponseSchema result = SUT.convert(responseBody(RESPONSE));
+        // Assert
+        assertThat(result.hasMore(), is(true));
+    }
+
+    @Test
+    public void convert_lastActivityDateParsedOrZeroIfMissing() throws Exception {
+        // Arrange
+        // Act
+        List<QuestionSchema> result = SUT.convert(responseBody(RESPONSE)).getQuestions();
+        // Assert
+        assertThat(result.get(0).getLastActivityDate(), is(1500000000L));
+        assertThat(result.get(1).getLastActivityDate(), is(0L));
+    }
+
+    @Test
+    public void convert_readingBodies_bodiesParsed() throws Exception {
+        // Arrange
+        // Act
+        List<QuestionSchema> result = SUT.convert(responseBody(RESPONSE)).getQuestions();
+        // Assert
+        assertThat(result.get(0).getBody(), is("<p>body1</p>"));
+        assertThat(result.get(1).getBody(), is("<p>body2</p>"));
+    }
+
+    @Test
+    public void convert_withoutBodies_bodiesSkipped() throws Exception {
+        // Arrange
+        SUT = new QuestionsListResponseConverter(false, mTitleInterner);
+        // Act
+        List<QuestionSchema> result = SUT.convert(responseBody(RESPONSE)).getQuestions();
+        // Assert
+        assertThat(result.get(0).getId(), is("11"));
+        assertThat(result.get(0).getBody(), is(nullValue()));
+        assertThat(result.get(1).getBody(), is(nullValue()));
+    }
+
+    @Test
+    public void convert_noItems_emptyListAndNoMore() throws Exception {
+        // Arrange
+        // Act
+        QuestionsListResponseSchema result = SUT.convert(responseBody("{\"quota_remaining\":10}"));
+        // Assert
+        assertThat(result.getQuestions().isEmpty(), is(true));
+        assertThat(result.hasMore(), is(false));
+    }
+
+    @Test
+    public void convert_throttlingFieldsParsed() throws Exception {
+        // Arrange
+        // Act
+        QuestionsListResponseSchema result = SUT.convert(responseBody(RESPONSE));
+        // Assert
+        assertThat(result.getQuotaRemaining(), is(299));
+        assertThat(result.getBackoffSeconds(), is(10));
+    }
+
+    @Test
+    public void convert_noThrottlingFields_quotaUnknownAndNoBackoff() throws Exception {
+        // Arrange
+        // Act
+        QuestionsListResponseSchema result = SUT.convert(responseBody("{\"items\":[]}"));
+        // Assert
+        assertThat(result.getQuotaRemaining(), is(ThrottlingResponseSchema.QUOTA_UNKNOWN));
+        assertThat(result.getBackoffSeconds(), is(0));
+    }
+
+    // region helper methods -----------------------------------------------------------------------
+
+    private ResponseBody responseBody(String json) {
+        return ResponseBody.create(MediaType.parse("application/json"), json);
+    }
+
+    // endregion helper methods --------------------------------------------------------------------
+
+}
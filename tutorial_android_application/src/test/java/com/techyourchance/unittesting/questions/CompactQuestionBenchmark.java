@@ -0,0 +1,119 @@
+package com.techyourchance.unittesting.questions;
+
+import com.techyourchance.unittesting.benchmarks.Benchmark;
+import com.techyourchance.unittesting.common.collections.LongHashMap;
+import com.techyourchance.unittesting.common.collections.StringInterner;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares {@link Question} in a HashMap keyed by string ids with {@link CompactQuestion} in a
+ * {@link LongHashMap}, with 100k questions. The heap footprint is measured for a list of questions and
+ * a cache which hold copies of the same questions, parsed from different responses (as the questions
+ * list and the cache of the app do). Lookup throughput is measured with random ids. Not a unit test -
+ * run the main method manually, preferably with a fixed heap size (e.g. -Xms1g -Xmx1g).
+ */
+public class CompactQuestionBenchmark {
+
+    private static final int QUESTIONS_COUNT = 100000;
+    private static final long FIRST_ID = 50000000;
+    private static final int LOOKUPS_COUNT = 1000000;
+    private static final int WARMUP_ITERATIONS = 10;
+    private static final int MEASURED_ITERATIONS = 10;
+
+    public static void main(String[] args) throws Exception {
+        long baselineBytes = Benchmark.getUsedHeapBytes();
+        List<Question> questions = parseQuestions();
+        final Map<String, Question> questionsCache = new HashMap<>();
+        for (Question question : parseQuestions()) {
+            questionsCache.put(question.getId(), question);
+        }
+        long questionsBytes = Benchmark.getUsedHeapBytes() - baselineBytes;
+
+        baselineBytes = Benchmark.getUsedHeapBytes();
+        StringInterner titleInterner = new StringInterner();
+        List<CompactQuestion> compactQuestions = new ArrayList<>(QUESTIONS_COUNT);
+        for (Question question : parseQuestions()) {
+            compactQuestions.add(CompactQuestion.fromQuestion(question, titleInterner));
+        }
+        final LongHashMap<CompactQuestion> compactQuestionsCache = new LongHashMap<>();
+        for (Question question : parseQuestions()) {
+            CompactQuestion compactQuestion = CompactQuestion.fromQuestion(question, titleInterner);
+            compactQuestionsCache.put(compactQuestion.getId(), compactQuestion);
+        }
+        // the interner is needed only while the questions are parsed
+        titleInterner = null;
+        long compactQuestionsBytes = Benchmark.getUsedHeapBytes() - baselineBytes;
+
+        System.out.println(String.format("heap: Question %8d KB, CompactQuestion %8d KB (%d, %d)",
+                questionsBytes / 1024, compactQuestionsBytes / 1024,
+                questions.size() + questionsCache.size(), compactQuestions.size() + compactQuestionsCache.size()));
+
+        Random random = new Random(42);
+        final long[] ids = new long[LOOKUPS_COUNT];
+        final String[] stringIds = new String[LOOKUPS_COUNT];
+        for (int i = 0; i < LOOKUPS_COUNT; i++) {
+            ids[i] = FIRST_ID + random.nextInt(QUESTIONS_COUNT);
+            stringIds[i] = String.valueOf(ids[i]);
+        }
+
+        Benchmark.Result questionsResult = Benchmark.measure(new Benchmark.Operation() {
+            @Override
+            public long run(int iteration) {
+                return lookUp(questionsCache, stringIds);
+            }
+        }, WARMUP_ITERATIONS, MEASURED_ITERATIONS);
+        Benchmark.Result compactQuestionsResult = Benchmark.measure(new Benchmark.Operation() {
+            @Override
+            public long run(int iteration) {
+                return lookUp(compactQuestionsCache, ids);
+            }
+        }, WARMUP_ITERATIONS, MEASURED_ITERATIONS);
+
+        System.out.println(String.format("lookups: HashMap<String, Question> %6.1f M/s, LongHashMap<CompactQuestion> %6.1f M/s (%d)",
+                lookupsPerMicro(questionsResult), lookupsPerMicro(compactQuestionsResult),
+                questionsResult.getChecksum() + compactQuestionsResult.getChecksum()));
+    }
+
+    private static int lookUp(Map<String, Question> cache, String[] ids) {
+        int hits = 0;
+        for (String id : ids) {
+            if (cache.get(id) != null) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    private static int lookUp(LongHashMap<CompactQuestion> cache, long[] ids) {
+        int hits = 0;
+        for (long id : ids) {
+            if (cache.get(id) != null) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    private static double lookupsPerMicro(Benchmark.Result result) {
+        return LOOKUPS_COUNT / result.getAverageMicros();
+    }
+
+    /**
+     * @return new instances of the questions, as if they were parsed from a response
+     */
+    private static List<Question> parseQuestions() {
+        List<Question> questions = new ArrayList<>(QUESTIONS_COUNT);
+        for (int i = 0; i < QUESTIONS_COUNT; i++) {
+            questions.add(new Question(
+                    String.valueOf(FIRST_ID + i),
+                    new StringBuilder("How do I fix the error number ").append(i).append(" in my Android app?").toString()
+            ));
+        }
+        return questions;
+    }
+}
@@ -1,5 +1,10 @@
 package com.techyourchance.unittesting.questions;
 
+import com.techyourchance.unittesting.common.connectivity.ConnectivityMonitor;
+import com.techyourchance.unittesting.common.instrumentation.Metrics;
+import com.techyourchance.unittesting.common.requests.Cancellable;
+import com.techyourchance.unittesting.common.sync.SyncQueue;
+import com.techyourchance.unittesting.common.time.TimeProvider;
 import com.techyourchance.unittesting.networking.questions.FetchLastActiveQuestionsEndpoint;
 import com.techyourchance.unittesting.networking.questions.QuestionSchema;
 import com.techyourchance.unittesting.testdata.QuestionsTestData;
@@ -14,13 +19,17 @@ import org.mockito.junit.MockitoJUnitRunner;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
 public class FetchLastActiveQuestionsUseCaseTest {
@@ -33,6 +42,14 @@ public class FetchLastActiveQuestionsUseCaseTest {
     private EndpointTd mEndpointTd;
     @Mock FetchLastActiveQuestionsUseCase.Listener mListener1;
     @Mock FetchLastActiveQuestionsUseCase.Listener mListener2;
+    @Mock QuestionsDiskCache mQuestionsDiskCacheMock;
+    @Mock TimeProvider mTimeProviderMock;
+    private ExecutorTd mBackgroundExecutorTd;
+    private ExecutorTd mUiExecutorTd;
+    private QuestionsSearchIndex mQuestionsSearchIndex;
+    private ConnectivityMonitor mConnectivityMonitor;
+    private SyncQueue<String> mSyncQueue;
+    private Metrics mMetrics;
 
     @Captor ArgumentCaptor<List<Question>> mQuestionsCaptor;
     // endregion helper fields ---------------------------------------------------------------------
@@ -42,7 +59,14 @@ public class FetchLastActiveQuestionsUseCaseTest {
     @Before
     public void setup() throws Exception {
         mEndpointTd = new EndpointTd();
-        SUT = new FetchLastActiveQuestionsUseCase(mEndpointTd);
+        mBackgroundExecutorTd = new ExecutorTd();
+        mUiExecutorTd = new ExecutorTd();
+        mQuestionsSearchIndex = new QuestionsSearchIndex(100);
+        mConnectivityMonitor = new ConnectivityMonitor();
+        mSyncQueue = new SyncQueue<>();
+        mMetrics = new Metrics(new TimeProvider());
+        SUT = new FetchLastActiveQuestionsUseCase(mEndpointTd, mTimeProviderMock, mQuestionsDiskCacheMock,
+                mQuestionsSearchIndex, mConnectivityMonitor, mSyncQueue, mMetrics, mBackgroundExecutorTd, mUiExecutorTd);
     }
 
     @Test
@@ -61,6 +85,38 @@ public class FetchLastActiveQuestionsUseCaseTest {
         assertThat(questionLists.get(1), is(QUESTIONS));
     }
 
+    @Test
+    public void fetchLastActiveQuestionsAndNotify_success_storedOnBackgroundExecutorAndListenersNotifiedOnUiExecutor() throws Exception {
+        // Arrange
+        success();
+        SUT.registerListener(mListener1);
+        mBackgroundExecutorTd.mPaused = true;
+        mUiExecutorTd.mPaused = true;
+        // Act
+        SUT.fetchLastActiveQuestionsAndNotify();
+        // Assert
+        verify(mQuestionsDiskCacheMock, never()).putLastActiveQuestions(any(List.class));
+        mBackgroundExecutorTd.runPending();
+        verify(mQuestionsDiskCacheMock).putLastActiveQuestions(QUESTIONS);
+        verify(mListener1, never()).onLastActiveQuestionsFetched(any(List.class));
+        mUiExecutorTd.runPending();
+        verify(mListener1).onLastActiveQuestionsFetched(QUESTIONS);
+    }
+
+    @Test
+    public void fetchLastActiveQuestionsPageAndNotify_failure_listenersNotifiedOnUiExecutor() throws Exception {
+        // Arrange
+        failure();
+        SUT.registerListener(mListener1);
+        mUiExecutorTd.mPaused = true;
+        // Act
+        SUT.fetchLastActiveQuestionsPageAndNotify(2);
+        // Assert
+        verify(mListener1, never()).onLastActiveQuestionsPageFetchFailed(2);
+        mUiExecutorTd.runPending();
+        verify(mListener1).onLastActiveQuestionsPageFetchFailed(2);
+    }
+
     @Test
     public void fetchLastActiveQuestionsAndNotify_failure_listenersNotifiedOfFailure() throws Exception {
         // Arrange
@@ -74,6 +130,488 @@ public class FetchLastActiveQuestionsUseCaseTest {
         verify(mListener2).onLastActiveQuestionsFetchFailed();
     }
 
+    @Test
+    public void fetchLastActiveQuestionsAndNotify_success_questionsStoredOnDisk() throws Exception {
+        // Arrange
+        success();
+        // Act
+        SUT.fetchLastActiveQuestionsAndNotify();
+        // Assert
+        verify(mQuestionsDiskCacheMock).putLastActiveQuestions(QUESTIONS);
+    }
+
+    @Test
+    public void fetchLastActiveQuestionsAndNotify_storedOnDisk_listenersNotifiedWithDataFromDiskAndThenFromEndpoint() throws Exception {
+        // Arrange
+        List<Question> storedQuestions = new LinkedList<>();
+        storedQuestions.add(new Question("id3", "title3"));
+        when(mQuestionsDiskCacheMock.getLastActiveQuestions()).thenReturn(storedQuestions);
+        success();
+        SUT.registerListener(mListener1);
+        // Act
+        SUT.fetchLastActiveQuestionsAndNotify();
+        // Assert
+        verify(mListener1, times(2)).onLastActiveQuestionsFetched(mQuestionsCaptor.capture());
+        List<List<Question>> questionLists = mQuestionsCaptor.getAllValues();
+        assertThat(questionLists.get(0), is(storedQuestions));
+        assertThat(questionLists.get(1), is(QUESTIONS));
+    }
+
+    @Test
+    public void fetchLastActiveQuestionsAndNotify_storedOnDiskAndFailure_listenersNotifiedWithDataFromDiskAndOfFailure() throws Exception {
+        // Arrange
+        List<Question> storedQuestions = new LinkedList<>();
+        storedQuestions.add(new Question("id3", "title3"));
+        when(mQuestionsDiskCacheMock.getLastActiveQuestions()).thenReturn(storedQuestions);
+        failure();
+        SUT.registerListener(mListener1);
+        // Act
+        SUT.fetchLastActiveQuestionsAndNotify();
+        // Assert
+        verify(mListener1).onLastActiveQuestionsFetched(storedQuestions);
+        verify(mListener1).onLastActiveQuestionsFetchFailed();
+    }
+
+    @Test
+    public void fetchLastActiveQuestionsAndNotify_storedOnDisk_readOnBackgroundExecutorAndListenersNotifiedOnUiExecutor() throws Exception {
+        // Arrange
+        List<Question> storedQuestions = new LinkedList<>();
+        storedQuestions.add(new Question("id3", "title3"));
+        when(mQuestionsDiskCacheMock.getLastActiveQuestions()).thenReturn(storedQuestions);
+        mEndpointTd.mPendingResponse = true;
+        SUT.registerListener(mListener1);
+        mBackgroundExecutorTd.mPaused = true;
+        mUiExecutorTd.mPaused = true;
+        // Act
+        SUT.fetchLastActiveQuestionsAndNotify();
+        // Assert
+        verify(mQuestionsDiskCacheMock, never()).getLastActiveQuestions();
+        mBackgroundExecutorTd.runPending();
+        verify(mQuestionsDiskCacheMock).getLastActiveQuestions();
+        verify(mListener1, never()).onLastActiveQuestionsFetched(any(List.class));
+        mUiExecutorTd.runPending();
+        verify(mListener1).onLastActiveQuestionsFetched(storedQuestions);
+    }
+
+    @Test
+    public void fetchLastActiveQuestionsAndNotify_storedOnDiskAndFailureWhileOfflineBeforeDiskRead_failureNotNotified() throws Exception {
+        // Arrange
+        List<Question> storedQuestions = new LinkedList<>();
+        storedQuestions.add(new Question("id3", "title3"));
+        when(mQuestionsDiskCacheMock.getLastActiveQuestions()).thenReturn(storedQuestions);
+        mEndpointTd.mPendingResponse = true;
+        SUT.registerListener(mListener1);
+        mBackgroundExecutorTd.mPaused = true;
+        SUT.fetchLastActiveQuestionsAndNotify();
+        mConnectivityMonitor.setConnected(false);
+        failure();
+        // Act
+        mEndpointTd.completePendingRequest();
+        mBackgroundExecutorTd.runPending();
+        // Assert
+        verify(mListener1).onLastActiveQuestionsFetched(storedQuestions);
+        verify(mListener1, never()).onLastActiveQuestionsFetchFailed();
+        assertThat(mSyncQueue.size(), is(1));
+    }
+
+    @Test
+    public void fetchLastActiveQuestionsAndNotify_calledWhileInFlightAndQuestionsFetchedBeforeDiskRead_storedQuestionsNotServed() throws Exception {
+        // Arrange
+        List<Question> storedQuestions = new LinkedList<>();
+        storedQuestions.add(new Question("id3", "title3"));
+        when(mQuestionsDiskCacheMock.getLastActiveQuestions()).thenReturn(storedQuestions);
+        mEndpointTd.mPendingResponse = true;
+        SUT.registerListener(mListener1);
+        SUT.fetchLastActiveQuestionsAndNotify();
+        mBackgroundExecutorTd.mPaused = true;
+        mEndpointTd.completePendingRequest();
+        SUT.fetchLastActiveQuestionsAndNotify();
+        // Act
+        mBackgroundExecutorTd.runPending();
+        // Assert
+        verify(mListener1, times(2)).onLastActiveQuestionsFetched(mQuestionsCaptor.capture());
+        List<List<Question>> questionLists = mQuestionsCaptor.getAllValues();
+        assertThat(questionLists.get(0), is(storedQuestions));
+        assertThat(questionLists.get(1), is(QUESTIONS));
+    }
+
+    @Test
+    public void fetchLastActiveQuestionsAndNotify_secondTimeWithinMemoizationTimeout_memoizedQuestionsWithoutEndpointCall() throws Exception {
+        // Arrange
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(0L);
+        SUT.fetchLastActiveQuestionsAndNotify();
+        SUT.registerListener(mListener1);
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(FetchLastActiveQuestionsUseCase.MEMOIZATION_TIMEOUT_MS - 1);
+        // Act
+        SUT.fetchLastActiveQuestionsAndNotify();
+        // Assert
+        verify(mListener1).onLastActiveQuestionsFetched(QUESTIONS);
+        assertThat(mEndpointTd.mCallCount, is(1));
+    }
+
+    @Test
+    public void fetchLastActiveQuestionsAndNotify_secondTimeWithinMemoizationTimeout_memoizationMissAndHitCounted() throws Exception {
+        // Arrange
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(0L);
+        SUT.fetchLastActiveQuestionsAndNotify();
+        // Act
+        SUT.fetchLastActiveQuestionsAndNotify();
+        // Assert
+        assertThat(mMetrics.counter(FetchLastActiveQuestionsUseCase.MEMOIZATION_MISSES_COUNTER).getValue(), is(1L));
+        assertThat(mMetrics.counter(FetchLastActiveQuestionsUseCase.MEMOIZATION_HITS_COUNTER).getValue(), is(1L));
+        assertThat(mMetrics.timer(FetchLastActiveQuestionsUseCase.DISK_WRITE_TIMER).getCount(), is(1L));
+    }
+
+    @Test
+    public void fetchLastActiveQuestionsAndNotify_secondTimeAfterMemoizationTimeout_memoizedQuestionsAndThenEndpointQuestions() throws Exception {
+        // Arrange
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(0L);
+        SUT.fetchLastActiveQuestionsAndNotify();
+        SUT.registerListener(mListener1);
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(FetchLastActiveQuestionsUseCase.MEMOIZATION_TIMEOUT_MS);
+        // Act
+        SUT.fetchLastActiveQuestionsAndNotify();
+        // Assert
+        verify(mListener1, times(2)).onLastActiveQuestionsFetched(QUESTIONS);
+        assertThat(mEndpointTd.mCallCount, is(2));
+        verify(mQuestionsDiskCacheMock, times(1)).getLastActiveQuestions();
+    }
+
+    @Test
+    public void fetchLastActiveQuestionsAndNotify_failure_nothingMemoized() throws Exception {
+        // Arrange
+        failure();
+        SUT.fetchLastActiveQuestionsAndNotify();
+        mEndpointTd.mFailure = false;
+        // Act
+        SUT.fetchLastActiveQuestionsAndNotify();
+        // Assert
+        assertThat(mEndpointTd.mCallCount, is(2));
+    }
+
+    @Test
+    public void getNotifiedQuestionsFetchTimestamp_questionsFromDisk_unknownReturned() throws Exception {
+        // Arrange
+        List<Question> storedQuestions = new LinkedList<>();
+        storedQuestions.add(new Question("id3", "title3"));
+        when(mQuestionsDiskCacheMock.getLastActiveQuestions()).thenReturn(storedQuestions);
+        mEndpointTd.mPendingResponse = true;
+        SUT.registerListener(mListener1);
+        SUT.fetchLastActiveQuestionsAndNotify();
+        // Act
+        long result = SUT.getNotifiedQuestionsFetchTimestamp();
+        // Assert
+        assertThat(result, is(FetchLastActiveQuestionsUseCase.FETCH_TIMESTAMP_UNKNOWN));
+    }
+
+    @Test
+    public void getNotifiedQuestionsFetchTimestamp_memoizedQuestionsServedLater_timeOfFetchReturned() throws Exception {
+        // Arrange
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(1000L);
+        SUT.fetchLastActiveQuestionsAndNotify();
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(1000L + FetchLastActiveQuestionsUseCase.MEMOIZATION_TIMEOUT_MS - 1);
+        SUT.fetchLastActiveQuestionsAndNotify();
+        // Act
+        long result = SUT.getNotifiedQuestionsFetchTimestamp();
+        // Assert
+        assertThat(result, is(1000L));
+    }
+
+    @Test
+    public void fetchLastActiveQuestionsAndNotify_calledWhileInFlightAndStoredOnDisk_diskReadAndServedOnce() throws Exception {
+        // Arrange
+        List<Question> storedQuestions = new LinkedList<>();
+        storedQuestions.add(new Question("id3", "title3"));
+        when(mQuestionsDiskCacheMock.getLastActiveQuestions()).thenReturn(storedQuestions);
+        mEndpointTd.mPendingResponse = true;
+        SUT.registerListener(mListener1);
+        // Act
+        SUT.fetchLastActiveQuestionsAndNotify();
+        SUT.fetchLastActiveQuestionsAndNotify();
+        // Assert
+        verify(mQuestionsDiskCacheMock, times(1)).getLastActiveQuestions();
+        verify(mListener1, times(1)).onLastActiveQuestionsFetched(storedQuestions);
+    }
+
+    @Test
+    public void fetchLastActiveQuestionsAndNotify_calledWhileInFlight_singleEndpointCallAndListenersNotifiedOnce() throws Exception {
+        // Arrange
+        mEndpointTd.mPendingResponse = true;
+        SUT.registerListener(mListener1);
+        SUT.registerListener(mListener2);
+        // Act
+        SUT.fetchLastActiveQuestionsAndNotify();
+        SUT.fetchLastActiveQuestionsAndNotify();
+        mEndpointTd.completePendingRequest();
+        // Assert
+        assertThat(mEndpointTd.mCallCount, is(1));
+        verify(mListener1).onLastActiveQuestionsFetched(QUESTIONS);
+        verify(mListener2).onLastActiveQuestionsFetched(QUESTIONS);
+    }
+
+    @Test
+    public void fetchLastActiveQuestionsAndNotify_lastListenerUnregisteredWhileInFlight_callCancelled() throws Exception {
+        // Arrange
+        mEndpointTd.mPendingResponse = true;
+        SUT.registerListener(mListener1);
+        SUT.fetchLastActiveQuestionsAndNotify();
+        // Act
+        SUT.unregisterListener(mListener1);
+        // Assert
+        assertThat(mEndpointTd.mCancelledCallsCount, is(1));
+    }
+
+    @Test
+    public void fetchLastActiveQuestionsAndNotify_notLastListenerUnregisteredWhileInFlight_callNotCancelled() throws Exception {
+        // Arrange
+        mEndpointTd.mPendingResponse = true;
+        SUT.registerListener(mListener1);
+        SUT.registerListener(mListener2);
+        SUT.fetchLastActiveQuestionsAndNotify();
+        // Act
+        SUT.unregisterListener(mListener1);
+        // Assert
+        assertThat(mEndpointTd.mCancelledCallsCount, is(0));
+    }
+
+    @Test
+    public void fetchLastActiveQuestionsAndNotify_lastListenerUnregisteredAfterCompletion_callNotCancelled() throws Exception {
+        // Arrange
+        success();
+        SUT.registerListener(mListener1);
+        SUT.fetchLastActiveQuestionsAndNotify();
+        // Act
+        SUT.unregisterListener(mListener1);
+        // Assert
+        assertThat(mEndpointTd.mCancelledCallsCount, is(0));
+    }
+
+    @Test
+    public void fetchLastActiveQuestionsAndNotify_lastListenerUnregisteredBeforeResultProcessed_resultNotStoredNorIndexed() throws Exception {
+        // Arrange
+        SUT.registerListener(mListener1);
+        mBackgroundExecutorTd.mPaused = true;
+        SUT.fetchLastActiveQuestionsAndNotify();
+        // Act
+        SUT.unregisterListener(mListener1);
+        mBackgroundExecutorTd.runPending();
+        // Assert
+        verify(mQuestionsDiskCacheMock, never()).putLastActiveQuestions(any(List.class));
+        assertThat(mQuestionsSearchIndex.size(), is(0));
+    }
+
+    @Test
+    public void fetchLastActiveQuestionsPageAndNotify_lastListenerUnregisteredBeforeResultProcessed_resultNotIndexed() throws Exception {
+        // Arrange
+        SUT.registerListener(mListener1);
+        mBackgroundExecutorTd.mPaused = true;
+        SUT.fetchLastActiveQuestionsPageAndNotify(2);
+        // Act
+        SUT.unregisterListener(mListener1);
+        mBackgroundExecutorTd.runPending();
+        // Assert
+        assertThat(mQuestionsSearchIndex.size(), is(0));
+        verify(mListener1, never()).onLastActiveQuestionsPageFetched(any(Integer.class), any(List.class), any(Boolean.class));
+    }
+
+    @Test
+    public void fetchLastActiveQuestionsAndNotify_calledAfterCancellation_endpointCalledAgain() throws Exception {
+        // Arrange
+        mEndpointTd.mPendingResponse = true;
+        SUT.registerListener(mListener1);
+        SUT.fetchLastActiveQuestionsAndNotify();
+        SUT.unregisterListener(mListener1);
+        SUT.registerListener(mListener1);
+        // Act
+        SUT.fetchLastActiveQuestionsAndNotify();
+        // Assert
+        assertThat(mEndpointTd.mCallCount, is(2));
+    }
+
+    @Test
+    public void fetchLastActiveQuestionsAndNotify_cancelledRequestFailsAfterNewRequestStarted_failureDroppedAndNewRequestStillInFlight() throws Exception {
+        // Arrange
+        mEndpointTd.mPendingResponse = true;
+        SUT.registerListener(mListener1);
+        SUT.fetchLastActiveQuestionsAndNotify();
+        SUT.unregisterListener(mListener1);
+        SUT.registerListener(mListener1);
+        SUT.fetchLastActiveQuestionsAndNotify();
+        // Act
+        failure();
+        mEndpointTd.completeOldestPendingRequest();
+        SUT.fetchLastActiveQuestionsAndNotify();
+        // Assert
+        verify(mListener1, never()).onLastActiveQuestionsFetchFailed();
+        assertThat(mEndpointTd.mCallCount, is(2));
+    }
+
+    @Test
+    public void fetchLastActiveQuestionsPageAndNotify_lastListenerUnregisteredWhileInFlight_callCancelledAndPageFetchedAgainLater() throws Exception {
+        // Arrange
+        mEndpointTd.mPendingPageResponse = true;
+        SUT.registerListener(mListener1);
+        SUT.fetchLastActiveQuestionsPageAndNotify(2);
+        // Act
+        SUT.unregisterListener(mListener1);
+        SUT.fetchLastActiveQuestionsPageAndNotify(2);
+        // Assert
+        assertThat(mEndpointTd.mCancelledCallsCount, is(1));
+        assertThat(mEndpointTd.mPageCallCount, is(2));
+    }
+
+    @Test
+    public void fetchLastActiveQuestionsPageAndNotify_success_listenersNotifiedWithPageData() throws Exception {
+        // Arrange
+        success();
+        SUT.registerListener(mListener1);
+        SUT.registerListener(mListener2);
+        // Act
+        SUT.fetchLastActiveQuestionsPageAndNotify(2);
+        // Assert
+        verify(mListener1).onLastActiveQuestionsPageFetched(2, QUESTIONS, true);
+        verify(mListener2).onLastActiveQuestionsPageFetched(2, QUESTIONS, true);
+        assertThat(mEndpointTd.mLastRequestedPage, is(2));
+    }
+
+    @Test
+    public void fetchLastActiveQuestionsPageAndNotify_failure_listenersNotifiedOfPageFailure() throws Exception {
+        // Arrange
+        failure();
+        SUT.registerListener(mListener1);
+        // Act
+        SUT.fetchLastActiveQuestionsPageAndNotify(2);
+        // Assert
+        verify(mListener1).onLastActiveQuestionsPageFetchFailed(2);
+    }
+
+    @Test
+    public void fetchLastActiveQuestionsPageAndNotify_success_pageNotStoredOnDisk() throws Exception {
+        // Arrange
+        success();
+        // Act
+        SUT.fetchLastActiveQuestionsPageAndNotify(2);
+        // Assert
+        verify(mQuestionsDiskCacheMock, never()).putLastActiveQuestions(any(List.class));
+    }
+
+    @Test
+    public void fetchLastActiveQuestionsPageAndNotify_samePageRequestedWhileInFlight_singleEndpointCall() throws Exception {
+        // Arrange
+        mEndpointTd.mPendingPageResponse = true;
+        SUT.registerListener(mListener1);
+        // Act
+        SUT.fetchLastActiveQuestionsPageAndNotify(2);
+        SUT.fetchLastActiveQuestionsPageAndNotify(2);
+        mEndpointTd.completePendingPageRequest();
+        // Assert
+        assertThat(mEndpointTd.mPageCallCount, is(1));
+        verify(mListener1).onLastActiveQuestionsPageFetched(2, QUESTIONS, true);
+    }
+
+    @Test
+    public void fetchLastActiveQuestionsPageAndNotify_samePageRequestedAfterCompletion_endpointCalledAgain() throws Exception {
+        // Arrange
+        success();
+        // Act
+        SUT.fetchLastActiveQuestionsPageAndNotify(2);
+        SUT.fetchLastActiveQuestionsPageAndNotify(2);
+        // Assert
+        assertThat(mEndpointTd.mPageCallCount, is(2));
+    }
+
+    @Test
+    public void fetchLastActiveQuestionsAndNotify_success_questionsIndexedOnBackgroundExecutor() throws Exception {
+        // Arrange
+        success();
+        mBackgroundExecutorTd.mPaused = true;
+        // Act
+        SUT.fetchLastActiveQuestionsAndNotify();
+        // Assert
+        assertThat(mQuestionsSearchIndex.size(), is(0));
+        mBackgroundExecutorTd.runPending();
+        assertThat(mQuestionsSearchIndex.search("title1", 10), is(QUESTIONS.subList(0, 1)));
+    }
+
+    @Test
+    public void fetchLastActiveQuestionsPageAndNotify_success_questionsIndexed() throws Exception {
+        // Arrange
+        success();
+        // Act
+        SUT.fetchLastActiveQuestionsPageAndNotify(2);
+        // Assert
+        assertThat(mQuestionsSearchIndex.size(), is(QUESTIONS.size()));
+    }
+
+    @Test
+    public void fetchLastActiveQuestionsAndNotify_offlineAndStoredOnDisk_listenersNotifiedWithDataFromDiskOnlyAndSyncQueued() throws Exception {
+        // Arrange
+        List<Question> storedQuestions = new LinkedList<>();
+        storedQuestions.add(new Question("id3", "title3"));
+        when(mQuestionsDiskCacheMock.getLastActiveQuestions()).thenReturn(storedQuestions);
+        mConnectivityMonitor.setConnected(false);
+        SUT.registerListener(mListener1);
+        // Act
+        SUT.fetchLastActiveQuestionsAndNotify();
+        // Assert
+        assertThat(mEndpointTd.mCallCount, is(0));
+        verify(mListener1).onLastActiveQuestionsFetched(storedQuestions);
+        verify(mListener1, never()).onLastActiveQuestionsFetchFailed();
+        assertThat(mSyncQueue.poll(SyncQueue.Priority.USER_VISIBLE), is(FetchLastActiveQuestionsUseCase.SYNC_KEY));
+    }
+
+    @Test
+    public void fetchLastActiveQuestionsAndNotify_offlineAndNothingStored_listenersNotifiedOfFailureAndSyncQueued() throws Exception {
+        // Arrange
+        mConnectivityMonitor.setConnected(false);
+        SUT.registerListener(mListener1);
+        // Act
+        SUT.fetchLastActiveQuestionsAndNotify();
+        // Assert
+        assertThat(mEndpointTd.mCallCount, is(0));
+        verify(mListener1).onLastActiveQuestionsFetchFailed();
+        assertThat(mSyncQueue.size(), is(1));
+    }
+
+    @Test
+    public void fetchLastActiveQuestionsAndNotify_connectivityLostWhileInFlightAndStoredOnDisk_failureNotNotifiedAndSyncQueued() throws Exception {
+        // Arrange
+        List<Question> storedQuestions = new LinkedList<>();
+        storedQuestions.add(new Question("id3", "title3"));
+        when(mQuestionsDiskCacheMock.getLastActiveQuestions()).thenReturn(storedQuestions);
+        mEndpointTd.mPendingResponse = true;
+        SUT.registerListener(mListener1);
+        SUT.fetchLastActiveQuestionsAndNotify();
+        // Act
+        mConnectivityMonitor.setConnected(false);
+        failure();
+        mEndpointTd.completePendingRequest();
+        // Assert
+        verify(mListener1, never()).onLastActiveQuestionsFetchFailed();
+        assertThat(mSyncQueue.size(), is(1));
+    }
+
+    @Test
+    public void fetchLastActiveQuestionsAndNotify_failureWhileOnline_syncNotQueued() throws Exception {
+        // Arrange
+        failure();
+        // Act
+        SUT.fetchLastActiveQuestionsAndNotify();
+        // Assert
+        assertThat(mSyncQueue.size(), is(0));
+    }
+
+    @Test
+    public void fetchLastActiveQuestionsAndNotify_offlineSeveralTimes_syncQueuedOnce() throws Exception {
+        // Arrange
+        mConnectivityMonitor.setConnected(false);
+        // Act
+        SUT.fetchLastActiveQuestionsAndNotify();
+        SUT.fetchLastActiveQuestionsAndNotify();
+        // Assert
+        assertThat(mSyncQueue.size(), is(1));
+    }
+
     // region helper methods -----------------------------------------------------------------------
 
     private void success() {
@@ -90,13 +628,41 @@ public class FetchLastActiveQuestionsUseCaseTest {
     private static class EndpointTd extends FetchLastActiveQuestionsEndpoint {
 
         public boolean mFailure;
+        public boolean mPendingResponse;
+        public boolean mPendingPageResponse;
+        public int mCallCount;
+        public int mPageCallCount;
+        public int mLastRequestedPage;
+        public int mCancelledCallsCount;
+        private List<Listener> mPendingListeners = new LinkedList<>();
+        private PageListener mPendingPageListener;
 
         public EndpointTd() {
-            super(null);
+            super(null, null, new Metrics(new TimeProvider()));
         }
 
         @Override
-        public void fetchLastActiveQuestions(Listener listener) {
+        public Cancellable fetchLastActiveQuestions(Listener listener) {
+            mCallCount++;
+            if (mPendingResponse) {
+                mPendingListeners.add(listener);
+            } else {
+                respondToRequest(listener);
+            }
+            return new CancellableTd();
+        }
+
+        public void completePendingRequest() {
+            while (!mPendingListeners.isEmpty()) {
+                completeOldestPendingRequest();
+            }
+        }
+
+        public void completeOldestPendingRequest() {
+            respondToRequest(mPendingListeners.remove(0));
+        }
+
+        private void respondToRequest(Listener listener) {
             if (mFailure) {
                 listener.onQuestionsFetchFailed();
             } else {
@@ -106,6 +672,63 @@ public class FetchLastActiveQuestionsUseCaseTest {
                 listener.onQuestionsFetched(questionSchemas);
             }
         }
+
+        @Override
+        public Cancellable fetchLastActiveQuestionsPage(int page, PageListener listener) {
+            mPageCallCount++;
+            mLastRequestedPage = page;
+            if (mPendingPageResponse) {
+                mPendingPageListener = listener;
+            } else {
+                respondToPageRequest(page, listener);
+            }
+            return new CancellableTd();
+        }
+
+        public void completePendingPageRequest() {
+            respondToPageRequest(mLastRequestedPage, mPendingPageListener);
+        }
+
+        private void respondToPageRequest(int page, PageListener listener) {
+            if (mFailure) {
+                listener.onQuestionsPageFetchFailed(page);
+            } else {
+                List<QuestionSchema> questionSchemas = new LinkedList<>();
+                questionSchemas.add(new QuestionSchema("title1", "id1", "body1"));
+                questionSchemas.add(new QuestionSchema("title2", "id2", "body2"));
+                listener.onQuestionsPageFetched(page, questionSchemas, true);
+            }
+        }
+
+        private class CancellableTd implements Cancellable {
+            @Override
+            public void cancel() {
+                mCancelledCallsCount++;
+            }
+        }
+    }
+
+    private static class ExecutorTd implements Executor {
+
+        private final List<Runnable> mPending = new LinkedList<>();
+        private boolean mPaused;
+
+        @Override
+        public void execute(Runnable runnable) {
+            if (mPaused) {
+                mPending.add(runnable);
+            } else {
+                runnable.run();
+            }
+        }
+
+        public void runPending() {
+            mPaused = false;
+            for (Runnable runnable : mPending) {
+                runnable.run();
+            }
+            mPending.clear();
+        }
     }
     // endregion helper classes --------------------------------------------------------------------
 
@@ -1,5 +1,9 @@
 package com.techyourchance.unittesting.questions;
 
+import com.techyourchance.unittesting.common.connectivity.ConnectivityMonitor;
+import com.techyourchance.unittesting.common.instrumentation.Metrics;
+import com.techyourchance.unittesting.common.requests.Cancellable;
+import com.techyourchance.unittesting.common.sync.SyncQueue;
 import com.techyourchance.unittesting.common.time.TimeProvider;
 import com.techyourchance.unittesting.networking.questions.FetchQuestionDetailsEndpoint;
 import com.techyourchance.unittesting.networking.questions.QuestionSchema;
@@ -13,6 +17,10 @@ import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.mockito.stubbing.Answer;
 
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.CoreMatchers.nullValue;
@@ -20,6 +28,8 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -39,8 +49,18 @@ public class FetchQuestionDetailsUseCaseSolutionTest {
     private ListenerTd mListener1;
     private ListenerTd mListener2;
     @Mock TimeProvider mTimeProviderMock;
+    @Mock QuestionsDiskCache mQuestionsDiskCacheMock;
+    @Mock FetchQuestionDetailsUseCase.PrefetchListener mPrefetchListenerMock;
+    @Mock Cancellable mCancellableMock;
+    private ExecutorTd mBackgroundExecutorTd;
+    private ExecutorTd mUiExecutorTd;
+    private QuestionsSearchIndex mQuestionsSearchIndex;
+    private ConnectivityMonitor mConnectivityMonitor;
+    private SyncQueue<String> mSyncQueue;
+    private Metrics mMetrics;
 
     private int mEndpointCallsCount;
+    private List<FetchQuestionDetailsEndpoint.Listener> mPendingEndpointListeners = new LinkedList<>();
     // endregion helper fields ---------------------------------------------------------------------
 
     FetchQuestionDetailsUseCase SUT;
@@ -49,12 +69,36 @@ public class FetchQuestionDetailsUseCaseSolutionTest {
     public void setup() throws Exception {
         mListener1 = new ListenerTd();
         mListener2 = new ListenerTd();
-        SUT = new FetchQuestionDetailsUseCase(mFetchQuestionDetailsEndpointMock, mTimeProviderMock);
+        mBackgroundExecutorTd = new ExecutorTd();
+        mUiExecutorTd = new ExecutorTd();
+        mQuestionsSearchIndex = new QuestionsSearchIndex(100);
+        mConnectivityMonitor = new ConnectivityMonitor();
+        mSyncQueue = new SyncQueue<>();
+        mMetrics = new Metrics(new TimeProvider());
+        SUT = new FetchQuestionDetailsUseCase(mFetchQuestionDetailsEndpointMock, mTimeProviderMock, mQuestionsDiskCacheMock,
+                mQuestionsSearchIndex, mConnectivityMonitor, mSyncQueue, mMetrics, mBackgroundExecutorTd, mUiExecutorTd);
 
         SUT.registerListener(mListener1);
         SUT.registerListener(mListener2);
     }
 
+    @Test
+    public void fetchQuestionDetailsAndNotify_success_storedOnBackgroundExecutorAndListenersNotifiedOnUiExecutor() throws Exception {
+        // Arrange
+        success();
+        mBackgroundExecutorTd.mPaused = true;
+        mUiExecutorTd.mPaused = true;
+        // Act
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        // Assert
+        verify(mQuestionsDiskCacheMock, never()).putQuestionDetails(any(QuestionDetails.class));
+        mBackgroundExecutorTd.runPending();
+        verify(mQuestionsDiskCacheMock).putQuestionDetails(QUESTION_DETAILS_1);
+        mListener1.assertSuccessfulCalls(0);
+        mUiExecutorTd.runPending();
+        mListener1.assertSuccessfulCalls(1);
+    }
+
     @Test
     public void fetchQuestionDetailsAndNotify_success_listenersNotifiedWithCorrectData() throws Exception {
         // Arrange
@@ -94,14 +138,26 @@ public class FetchQuestionDetailsUseCaseSolutionTest {
         assertThat(mEndpointCallsCount, is(1));
     }
 
+    @Test
+    public void fetchQuestionDetailsAndNotify_secondTimeImmediatelyAfterSuccess_cacheMissAndHitCounted() throws Exception {
+        // Arrange
+        success();
+        // Act
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        // Assert
+        assertThat(mMetrics.counter(FetchQuestionDetailsUseCase.CACHE_MISSES_COUNTER).getValue(), is(1L));
+        assertThat(mMetrics.counter(FetchQuestionDetailsUseCase.CACHE_HITS_COUNTER).getValue(), is(1L));
+    }
+
     @Test
     public void fetchQuestionDetailsAndNotify_secondTimeRightBeforeTimeoutAfterSuccess_listenersNotifiedWithDataFromCache() throws Exception {
         // Arrange
         success();
-        when(mTimeProviderMock.getCurrentTimestamp()).thenReturn(0l);
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(0l);
         // Act
         SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
-        when(mTimeProviderMock.getCurrentTimestamp()).thenReturn(CACHE_TIMEOUT - 1);
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(CACHE_TIMEOUT - 1);
         SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
         // Assert
         mListener1.assertSuccessfulCalls(2);
@@ -115,10 +171,10 @@ public class FetchQuestionDetailsUseCaseSolutionTest {
     public void fetchQuestionDetailsAndNotify_secondTimeRightAfterTimeoutAfterSuccess_listenersNotifiedWithDataFromEndpoint() throws Exception {
         // Arrange
         success();
-        when(mTimeProviderMock.getCurrentTimestamp()).thenReturn(0l);
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(0l);
         // Act
         SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
-        when(mTimeProviderMock.getCurrentTimestamp()).thenReturn(CACHE_TIMEOUT);
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(CACHE_TIMEOUT);
         SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
         // Assert
         mListener1.assertSuccessfulCalls(2);
@@ -147,12 +203,12 @@ public class FetchQuestionDetailsUseCaseSolutionTest {
     public void fetchQuestionDetailsAndNotify_afterTwoDifferentQuestionsAtDifferentTimesFirstQuestionRightBeforeTimeout_listenersNotifiedWithDataFromCache() throws Exception {
         // Arrange
         success();
-        when(mTimeProviderMock.getCurrentTimestamp()).thenReturn(0l);
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(0l);
         // Act
         SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
-        when(mTimeProviderMock.getCurrentTimestamp()).thenReturn(CACHE_TIMEOUT / 2);
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(CACHE_TIMEOUT / 2);
         SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_2);
-        when(mTimeProviderMock.getCurrentTimestamp()).thenReturn(CACHE_TIMEOUT - 1);
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(CACHE_TIMEOUT - 1);
         SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
         // Assert
         mListener1.assertSuccessfulCalls(3);
@@ -166,12 +222,12 @@ public class FetchQuestionDetailsUseCaseSolutionTest {
     public void fetchQuestionDetailsAndNotify_afterTwoDifferentQuestionsAtDifferentTimesSecondQuestionRightBeforeTimeout_listenersNotifiedWithDataFromCache() throws Exception {
         // Arrange
         success();
-        when(mTimeProviderMock.getCurrentTimestamp()).thenReturn(0l);
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(0l);
         // Act
         SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
-        when(mTimeProviderMock.getCurrentTimestamp()).thenReturn(CACHE_TIMEOUT / 2);
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(CACHE_TIMEOUT / 2);
         SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_2);
-        when(mTimeProviderMock.getCurrentTimestamp()).thenReturn(CACHE_TIMEOUT + (CACHE_TIMEOUT / 2) - 1);
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(CACHE_TIMEOUT + (CACHE_TIMEOUT / 2) - 1);
         SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_2);
         // Assert
         mListener1.assertSuccessfulCalls(3);
@@ -181,11 +237,471 @@ public class FetchQuestionDetailsUseCaseSolutionTest {
         assertThat(mEndpointCallsCount, is(2));
     }
 
+    @Test
+    public void fetchQuestionDetailsAndNotify_secondTimeWhileFirstRequestInFlight_singleEndpointCall() throws Exception {
+        // Arrange
+        pending();
+        // Act
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        // Assert
+        assertThat(mEndpointCallsCount, is(1));
+        assertThat(SUT.getCoalescedRequestsCount(), is(1L));
+    }
+
+    @Test
+    public void fetchQuestionDetailsAndNotify_secondTimeWhileFirstRequestInFlight_listenersNotifiedOnceWithSharedResult() throws Exception {
+        // Arrange
+        pending();
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        // Act
+        completePendingRequests(QUESTION_DETAILS_1);
+        // Assert
+        mListener1.assertSuccessfulCalls(1);
+        assertThat(mListener1.getLastData(), is(QUESTION_DETAILS_1));
+        mListener2.assertSuccessfulCalls(1);
+        assertThat(mListener2.getLastData(), is(QUESTION_DETAILS_1));
+    }
+
+    @Test
+    public void fetchQuestionDetailsAndNotify_differentIdWhileFirstRequestInFlight_requestNotCoalesced() throws Exception {
+        // Arrange
+        pending();
+        // Act
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_2);
+        // Assert
+        assertThat(mEndpointCallsCount, is(2));
+        assertThat(SUT.getCoalescedRequestsCount(), is(0L));
+    }
+
+    @Test
+    public void fetchQuestionDetailsAndNotify_afterInFlightRequestFailed_newEndpointCall() throws Exception {
+        // Arrange
+        failure();
+        // Act
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        // Assert
+        assertThat(mEndpointCallsCount, is(2));
+        assertThat(SUT.getCoalescedRequestsCount(), is(0L));
+    }
+
+    @Test
+    public void fetchQuestionDetailsAndNotify_success_questionDetailsStoredOnDisk() throws Exception {
+        // Arrange
+        success();
+        // Act
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        // Assert
+        verify(mQuestionsDiskCacheMock).putQuestionDetails(QUESTION_DETAILS_1);
+    }
+
+    @Test
+    public void fetchQuestionDetailsAndNotify_success_stagesTimed() throws Exception {
+        // Arrange
+        success();
+        // Act
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        // Assert
+        assertThat(mMetrics.timer(FetchQuestionDetailsUseCase.DISK_READ_TIMER).getCount(), is(1L));
+        assertThat(mMetrics.timer(FetchQuestionDetailsUseCase.MAPPING_TIMER).getCount(), is(1L));
+        assertThat(mMetrics.timer(FetchQuestionDetailsUseCase.DISK_WRITE_TIMER).getCount(), is(1L));
+        assertThat(mMetrics.timer(FetchQuestionDetailsUseCase.INDEXING_TIMER).getCount(), is(1L));
+        assertThat(mMetrics.timer(FetchQuestionDetailsUseCase.NOTIFICATION_TIMER).getCount(), is(1L));
+    }
+
+    @Test
+    public void fetchQuestionDetailsAndNotify_storedOnDisk_listenersNotifiedWithDataFromDiskBeforeEndpointResponds() throws Exception {
+        // Arrange
+        QuestionDetails storedQuestionDetails = new QuestionDetails(QUESTION_ID_1, "stored title", "stored body");
+        when(mQuestionsDiskCacheMock.getQuestionDetails(QUESTION_ID_1)).thenReturn(storedQuestionDetails);
+        pending();
+        // Act
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        // Assert
+        mListener1.assertSuccessfulCalls(1);
+        assertThat(mListener1.getLastData(), is(storedQuestionDetails));
+        assertThat(mEndpointCallsCount, is(1));
+    }
+
+    @Test
+    public void fetchQuestionDetailsAndNotify_storedOnDiskAndSecondTimeWhileFirstRequestInFlight_diskReadAndServedOnce() throws Exception {
+        // Arrange
+        QuestionDetails storedQuestionDetails = new QuestionDetails(QUESTION_ID_1, "stored title", "stored body");
+        when(mQuestionsDiskCacheMock.getQuestionDetails(QUESTION_ID_1)).thenReturn(storedQuestionDetails);
+        pending();
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        // Act
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        // Assert
+        mListener1.assertSuccessfulCalls(1);
+        mListener2.assertSuccessfulCalls(1);
+        verify(mQuestionsDiskCacheMock, times(1)).getQuestionDetails(QUESTION_ID_1);
+    }
+
+    @Test
+    public void fetchQuestionDetailsAndNotify_storedOnDiskAndEndpointResponds_listenersNotifiedWithDataFromEndpoint() throws Exception {
+        // Arrange
+        QuestionDetails storedQuestionDetails = new QuestionDetails(QUESTION_ID_1, "stored title", "stored body");
+        when(mQuestionsDiskCacheMock.getQuestionDetails(QUESTION_ID_1)).thenReturn(storedQuestionDetails);
+        success();
+        // Act
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        // Assert
+        mListener1.assertSuccessfulCalls(2);
+        assertThat(mListener1.getLastData(), is(QUESTION_DETAILS_1));
+    }
+
+    @Test
+    public void fetchQuestionDetailsAndNotify_storedOnDisk_readOnBackgroundExecutorAndListenersNotifiedOnUiExecutor() throws Exception {
+        // Arrange
+        QuestionDetails storedQuestionDetails = new QuestionDetails(QUESTION_ID_1, "stored title", "stored body");
+        when(mQuestionsDiskCacheMock.getQuestionDetails(QUESTION_ID_1)).thenReturn(storedQuestionDetails);
+        pending();
+        mBackgroundExecutorTd.mPaused = true;
+        mUiExecutorTd.mPaused = true;
+        // Act
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        // Assert
+        verify(mQuestionsDiskCacheMock, never()).getQuestionDetails(any(String.class));
+        mBackgroundExecutorTd.runPending();
+        verify(mQuestionsDiskCacheMock).getQuestionDetails(QUESTION_ID_1);
+        mListener1.assertSuccessfulCalls(0);
+        mUiExecutorTd.runPending();
+        mListener1.assertSuccessfulCalls(1);
+        assertThat(mListener1.getLastData(), is(storedQuestionDetails));
+    }
+
+    @Test
+    public void fetchQuestionDetailsAndNotify_storedOnDiskAndFailureWhileOfflineBeforeDiskRead_failureNotNotified() throws Exception {
+        // Arrange
+        QuestionDetails storedQuestionDetails = new QuestionDetails(QUESTION_ID_1, "stored title", "stored body");
+        when(mQuestionsDiskCacheMock.getQuestionDetails(QUESTION_ID_1)).thenReturn(storedQuestionDetails);
+        pending();
+        mBackgroundExecutorTd.mPaused = true;
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        mConnectivityMonitor.setConnected(false);
+        // Act
+        failPendingRequests();
+        mBackgroundExecutorTd.runPending();
+        // Assert
+        mListener1.assertSuccessfulCalls(1);
+        assertThat(mListener1.getLastData(), is(storedQuestionDetails));
+        assertThat(mSyncQueue.poll(SyncQueue.Priority.USER_VISIBLE), is(QUESTION_ID_1));
+    }
+
+    @Test
+    public void prefetchQuestionDetails_fetchRequestedAfterPrefetchedDetailsReceived_storedDetailsNotServedAfterPrefetchedDetails() throws Exception {
+        // Arrange
+        QuestionDetails storedQuestionDetails = new QuestionDetails(QUESTION_ID_1, "stored title", "stored body");
+        when(mQuestionsDiskCacheMock.getQuestionDetails(QUESTION_ID_1)).thenReturn(storedQuestionDetails);
+        prefetchPending();
+        mBackgroundExecutorTd.mPaused = true;
+        SUT.prefetchQuestionDetails(QUESTION_ID_1, mPrefetchListenerMock);
+        completePendingRequests(QUESTION_DETAILS_1);
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        // Act
+        mBackgroundExecutorTd.runPending();
+        // Assert
+        mListener1.assertSuccessfulCalls(1);
+        assertThat(mListener1.getLastData(), is(QUESTION_DETAILS_1));
+    }
+
+    @Test
+    public void prefetchQuestionDetails_success_listenersNotNotifiedAndPrefetchListenerNotified() throws Exception {
+        // Arrange
+        prefetchSuccess();
+        // Act
+        SUT.prefetchQuestionDetails(QUESTION_ID_1, mPrefetchListenerMock);
+        // Assert
+        mListener1.assertSuccessfulCalls(0);
+        verify(mPrefetchListenerMock).onQuestionDetailsPrefetched(QUESTION_ID_1);
+    }
+
+    @Test
+    public void prefetchQuestionDetails_success_subsequentFetchServedFromCache() throws Exception {
+        // Arrange
+        prefetchSuccess();
+        SUT.prefetchQuestionDetails(QUESTION_ID_1, mPrefetchListenerMock);
+        // Act
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        // Assert
+        mListener1.assertSuccessfulCalls(1);
+        assertThat(mListener1.getLastData(), is(QUESTION_DETAILS_1));
+        assertThat(mEndpointCallsCount, is(1));
+    }
+
+    @Test
+    public void prefetchQuestionDetails_endpointCalledWithPrefetchPriority() throws Exception {
+        // Arrange
+        prefetchSuccess();
+        // Act
+        SUT.prefetchQuestionDetails(QUESTION_ID_1, mPrefetchListenerMock);
+        // Assert
+        verify(mFetchQuestionDetailsEndpointMock).prefetchQuestionDetails(
+                eq(QUESTION_ID_1), any(FetchQuestionDetailsEndpoint.Listener.class));
+        verify(mFetchQuestionDetailsEndpointMock, never()).fetchQuestionDetails(
+                any(String.class), any(FetchQuestionDetailsEndpoint.Listener.class));
+    }
+
+    @Test
+    public void prefetchQuestionDetails_alreadyCached_endpointNotCalled() throws Exception {
+        // Arrange
+        success();
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        // Act
+        SUT.prefetchQuestionDetails(QUESTION_ID_1, mPrefetchListenerMock);
+        // Assert
+        assertThat(mEndpointCallsCount, is(1));
+        verify(mPrefetchListenerMock).onQuestionDetailsPrefetched(QUESTION_ID_1);
+    }
+
+    @Test
+    public void prefetchQuestionDetails_fetchRequestedWhilePrefetchInFlight_listenersNotifiedWithPrefetchedData() throws Exception {
+        // Arrange
+        prefetchPending();
+        SUT.prefetchQuestionDetails(QUESTION_ID_1, mPrefetchListenerMock);
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        // Act
+        completePendingRequests(QUESTION_DETAILS_1);
+        // Assert
+        mListener1.assertSuccessfulCalls(1);
+        assertThat(mListener1.getLastData(), is(QUESTION_DETAILS_1));
+        assertThat(mEndpointCallsCount, is(1));
+    }
+
+    @Test
+    public void prefetchQuestionDetails_failure_listenersNotNotifiedAndPrefetchListenerNotifiedOfFailure() throws Exception {
+        // Arrange
+        prefetchFailure();
+        // Act
+        SUT.prefetchQuestionDetails(QUESTION_ID_1, mPrefetchListenerMock);
+        // Assert
+        mListener1.assertSuccessfulCalls(0);
+        verify(mPrefetchListenerMock).onQuestionDetailsPrefetchFailed(QUESTION_ID_1);
+    }
+
+    @Test
+    public void fetchQuestionDetailsAndNotify_lastListenerUnregisteredWhileInFlight_callCancelled() throws Exception {
+        // Arrange
+        pending();
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        SUT.unregisterListener(mListener1);
+        // Act
+        SUT.unregisterListener(mListener2);
+        // Assert
+        verify(mCancellableMock).cancel();
+    }
+
+    @Test
+    public void fetchQuestionDetailsAndNotify_notLastListenerUnregisteredWhileInFlight_callNotCancelled() throws Exception {
+        // Arrange
+        pending();
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        // Act
+        SUT.unregisterListener(mListener1);
+        // Assert
+        verify(mCancellableMock, never()).cancel();
+    }
+
+    @Test
+    public void fetchQuestionDetailsAndNotify_calledAfterCancellation_newEndpointCall() throws Exception {
+        // Arrange
+        pending();
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        SUT.unregisterListener(mListener1);
+        SUT.unregisterListener(mListener2);
+        SUT.registerListener(mListener1);
+        // Act
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        // Assert
+        assertThat(mEndpointCallsCount, is(2));
+    }
+
+    @Test
+    public void fetchQuestionDetailsAndNotify_cancelledRequestFailsAfterNewRequestStarted_failureDroppedAndNewRequestStillInFlight() throws Exception {
+        // Arrange
+        pending();
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        SUT.unregisterListener(mListener1);
+        SUT.unregisterListener(mListener2);
+        SUT.registerListener(mListener1);
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        // Act
+        mPendingEndpointListeners.remove(0).onQuestionDetailsFetchFailed();
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        // Assert
+        mListener1.assertSuccessfulCalls(0);
+        assertThat(mEndpointCallsCount, is(2));
+        completePendingRequests(QUESTION_DETAILS_1);
+        mListener1.assertSuccessfulCalls(1);
+    }
+
+    @Test
+    public void prefetchQuestionDetails_lastListenerUnregisteredWhilePrefetchInFlight_prefetchNotCancelled() throws Exception {
+        // Arrange
+        prefetchPending();
+        SUT.prefetchQuestionDetails(QUESTION_ID_1, mPrefetchListenerMock);
+        SUT.unregisterListener(mListener1);
+        SUT.unregisterListener(mListener2);
+        // Act
+        completePendingRequests(QUESTION_DETAILS_1);
+        // Assert
+        verify(mCancellableMock, never()).cancel();
+        verify(mPrefetchListenerMock).onQuestionDetailsPrefetched(QUESTION_ID_1);
+    }
+
+    @Test
+    public void fetchQuestionDetailsAndNotify_success_bodyIndexed() throws Exception {
+        // Arrange
+        success();
+        // Act
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        // Assert
+        List<Question> results = mQuestionsSearchIndex.search("body1", 10);
+        assertThat(results.size(), is(1));
+        assertThat(results.get(0).getId(), is(QUESTION_ID_1));
+    }
+
+    @Test
+    public void fetchQuestionDetailsAndNotify_offlineAndStoredOnDisk_listenersNotifiedWithDataFromDiskOnlyAndSyncQueued() throws Exception {
+        // Arrange
+        QuestionDetails storedQuestionDetails = new QuestionDetails(QUESTION_ID_1, "stored title", "stored body");
+        when(mQuestionsDiskCacheMock.getQuestionDetails(QUESTION_ID_1)).thenReturn(storedQuestionDetails);
+        mConnectivityMonitor.setConnected(false);
+        // Act
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        // Assert
+        assertThat(mEndpointCallsCount, is(0));
+        mListener1.assertSuccessfulCalls(1);
+        assertThat(mListener1.getLastData(), is(storedQuestionDetails));
+        assertThat(mSyncQueue.poll(SyncQueue.Priority.USER_VISIBLE), is(QUESTION_ID_1));
+    }
+
+    @Test
+    public void fetchQuestionDetailsAndNotify_offlineAndNothingStored_listenersNotifiedOfFailureAndSyncQueued() throws Exception {
+        // Arrange
+        mConnectivityMonitor.setConnected(false);
+        // Act
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        // Assert
+        assertThat(mEndpointCallsCount, is(0));
+        mListener1.assertOneFailingCall();
+        assertThat(mSyncQueue.poll(SyncQueue.Priority.USER_VISIBLE), is(QUESTION_ID_1));
+    }
+
+    @Test
+    public void fetchQuestionDetailsAndNotify_connectivityLostWhileInFlightAndStoredOnDisk_failureNotNotifiedAndSyncQueued() throws Exception {
+        // Arrange
+        QuestionDetails storedQuestionDetails = new QuestionDetails(QUESTION_ID_1, "stored title", "stored body");
+        when(mQuestionsDiskCacheMock.getQuestionDetails(QUESTION_ID_1)).thenReturn(storedQuestionDetails);
+        pending();
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        // Act
+        mConnectivityMonitor.setConnected(false);
+        failPendingRequests();
+        // Assert
+        mListener1.assertSuccessfulCalls(1);
+        assertThat(mSyncQueue.poll(SyncQueue.Priority.USER_VISIBLE), is(QUESTION_ID_1));
+    }
+
+    @Test
+    public void fetchQuestionDetailsAndNotify_failureWhileOnline_syncNotQueued() throws Exception {
+        // Arrange
+        failure();
+        // Act
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        // Assert
+        assertThat(mSyncQueue.size(), is(0));
+    }
+
+    @Test
+    public void prefetchQuestionDetails_offline_endpointNotCalledAndBackgroundSyncQueued() throws Exception {
+        // Arrange
+        mConnectivityMonitor.setConnected(false);
+        // Act
+        SUT.prefetchQuestionDetails(QUESTION_ID_1, mPrefetchListenerMock);
+        // Assert
+        assertThat(mEndpointCallsCount, is(0));
+        verify(mPrefetchListenerMock).onQuestionDetailsPrefetchFailed(QUESTION_ID_1);
+        assertThat(mSyncQueue.poll(SyncQueue.Priority.BACKGROUND), is(QUESTION_ID_1));
+    }
+
+    @Test
+    public void prefetchQuestionDetails_fetchRequestedAndConnectivityLostWhilePrefetchInFlight_userVisibleSyncQueued() throws Exception {
+        // Arrange
+        prefetchPending();
+        SUT.prefetchQuestionDetails(QUESTION_ID_1, mPrefetchListenerMock);
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        // Act
+        mConnectivityMonitor.setConnected(false);
+        failPendingRequests();
+        // Assert
+        mListener1.assertOneFailingCall();
+        assertThat(mSyncQueue.poll(SyncQueue.Priority.USER_VISIBLE), is(QUESTION_ID_1));
+    }
+
+    @Test
+    public void attachToCachedQuestionDetails_detailsCached_attachmentReturnedForEqualDetails() throws Exception {
+        // Arrange
+        success();
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        Object attachment = new Object();
+        // Act
+        SUT.attachToCachedQuestionDetails(QUESTION_DETAILS_1, attachment);
+        // Assert
+        assertThat(SUT.getAttachment(QuestionDetailsTestData.getQuestionDetails1()), is(attachment));
+    }
+
+    @Test
+    public void attachToCachedQuestionDetails_detailsNotCached_nothingAttached() throws Exception {
+        // Arrange
+        // Act
+        SUT.attachToCachedQuestionDetails(QUESTION_DETAILS_1, new Object());
+        // Assert
+        assertThat(SUT.getAttachment(QUESTION_DETAILS_1), is(nullValue()));
+    }
+
+    @Test
+    public void getAttachment_differentDetailsWithSameId_nullReturned() throws Exception {
+        // Arrange
+        success();
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        SUT.attachToCachedQuestionDetails(QUESTION_DETAILS_1, new Object());
+        // Act
+        Object result = SUT.getAttachment(new QuestionDetails(QUESTION_ID_1, "changed title", "body"));
+        // Assert
+        assertThat(result, is(nullValue()));
+    }
+
+    @Test
+    public void getAttachment_cachedDetailsExpired_nullReturned() throws Exception {
+        // Arrange
+        success();
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(0l);
+        SUT.fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        SUT.attachToCachedQuestionDetails(QUESTION_DETAILS_1, new Object());
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(CACHE_TIMEOUT);
+        // Act
+        Object result = SUT.getAttachment(QUESTION_DETAILS_1);
+        // Assert
+        assertThat(result, is(nullValue()));
+    }
 
     // region helper methods -----------------------------------------------------------------------
 
     private void success() {
-        doAnswer(new Answer() {
+        stubFetch(successAnswer());
+    }
+
+    private void prefetchSuccess() {
+        stubPrefetch(successAnswer());
+    }
+
+    private Answer successAnswer() {
+        return new Answer() {
             @Override
             public Object answer(InvocationOnMock invocation) throws Throwable {
                 mEndpointCallsCount++;
@@ -206,14 +722,19 @@ public class FetchQuestionDetailsUseCaseSolutionTest {
                 listener.onQuestionDetailsFetched(response);
                 return null;
             }
-        }).when(mFetchQuestionDetailsEndpointMock).fetchQuestionDetails(
-                any(String.class),
-                any(FetchQuestionDetailsEndpoint.Listener.class)
-        );
+        };
     }
 
     private void failure() {
-        doAnswer(new Answer() {
+        stubFetch(failureAnswer());
+    }
+
+    private void prefetchFailure() {
+        stubPrefetch(failureAnswer());
+    }
+
+    private Answer failureAnswer() {
+        return new Answer() {
             @Override
             public Object answer(InvocationOnMock invocation) throws Throwable {
                 mEndpointCallsCount++;
@@ -225,12 +746,59 @@ public class FetchQuestionDetailsUseCaseSolutionTest {
                 listener.onQuestionDetailsFetchFailed();
                 return null;
             }
-        }).when(mFetchQuestionDetailsEndpointMock).fetchQuestionDetails(
+        };
+    }
+
+    private void pending() {
+        stubFetch(pendingAnswer());
+    }
+
+    private void prefetchPending() {
+        stubPrefetch(pendingAnswer());
+    }
+
+    private Answer pendingAnswer() {
+        return new Answer() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                mEndpointCallsCount++;
+
+                Object[] args = invocation.getArguments();
+                mPendingEndpointListeners.add((FetchQuestionDetailsEndpoint.Listener) args[1]);
+                return mCancellableMock;
+            }
+        };
+    }
+
+    private void stubFetch(Answer answer) {
+        doAnswer(answer).when(mFetchQuestionDetailsEndpointMock).fetchQuestionDetails(
                 any(String.class),
                 any(FetchQuestionDetailsEndpoint.Listener.class)
         );
     }
 
+    private void stubPrefetch(Answer answer) {
+        doAnswer(answer).when(mFetchQuestionDetailsEndpointMock).prefetchQuestionDetails(
+                any(String.class),
+                any(FetchQuestionDetailsEndpoint.Listener.class)
+        );
+    }
+
+    private void completePendingRequests(QuestionDetails questionDetails) {
+        for (FetchQuestionDetailsEndpoint.Listener listener : mPendingEndpointListeners) {
+            listener.onQuestionDetailsFetched(new QuestionSchema(
+                    questionDetails.getTitle(), questionDetails.getId(), questionDetails.getBody()));
+        }
+        mPendingEndpointListeners.clear();
+    }
+
+    private void failPendingRequests() {
+        for (FetchQuestionDetailsEndpoint.Listener listener : mPendingEndpointListeners) {
+            listener.onQuestionDetailsFetchFailed();
+        }
+        mPendingEndpointListeners.clear();
+    }
+
     // endregion helper methods --------------------------------------------------------------------
 
     // region helper classes -----------------------------------------------------------------------
@@ -267,6 +835,29 @@ public class FetchQuestionDetailsUseCaseSolutionTest {
             return mData;
         }
     }
+
+    private static class ExecutorTd implements Executor {
+
+        private final List<Runnable> mPending = new LinkedList<>();
+        private boolean mPaused;
+
+        @Override
+        public void execute(Runnable runnable) {
+            if (mPaused) {
+                mPending.add(runnable);
+            } else {
+                runnable.run();
+            }
+        }
+
+        public void runPending() {
+            mPaused = false;
+            for (Runnable runnable : mPending) {
+                runnable.run();
+            }
+            mPending.clear();
+        }
+    }
     
     // endregion helper classes --------------------------------------------------------------------
 
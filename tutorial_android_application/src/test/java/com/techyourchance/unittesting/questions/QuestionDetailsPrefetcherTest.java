@@ -0,0 +1,200 @@
+package com.techyourchance.unittesting.questions;
+
+import com.techyourchance.unittesting.common.instrumentation.Metrics;
+import com.techyourchance.unittesting.common.time.TimeProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class QuestionDetailsPrefetcherTest {
+
+    // region constants ----------------------------------------------------------------------------
+    private static final int MAX_PREFETCHED_QUESTIONS = 4;
+    private static final int MAX_CONCURRENT_BATCHES = 2;
+    // endregion constants -------------------------------------------------------------------------
+
+    // region helper fields ------------------------------------------------------------------------
+    private UseCaseTd mUseCaseTd;
+    // endregion helper fields ---------------------------------------------------------------------
+
+    QuestionDetailsPrefetcher SUT;
+
+    @Before
+    public void setup() throws Exception {
+        mUseCaseTd = new UseCaseTd();
+        SUT = new QuestionDetailsPrefetcher(mUseCaseTd,
+                new QuestionDetailsPrefetchPolicy(MAX_PREFETCHED_QUESTIONS, MAX_CONCURRENT_BATCHES));
+    }
+
+    @Test
+    public void prefetch_severalQuestions_allRequestedTogetherAsSingleBatch() throws Exception {
+        // Arrange
+        // Act
+        SUT.prefetch(questions(3));
+        // Assert
+        assertThat(mUseCaseTd.mRequestedIds, is(Arrays.asList("0", "1", "2")));
+        assertThat(SUT.getInFlightBatchesCount(), is(1));
+        assertThat(SUT.getQueuedPrefetchesCount(), is(0));
+    }
+
+    @Test
+    public void prefetch_moreBatchesThanConcurrencyLimit_lastBatchQueued() throws Exception {
+        // Arrange
+        // Act
+        SUT.prefetch(questions(1));
+        SUT.prefetch(questions(2));
+        SUT.prefetch(questions(4));
+        // Assert
+        assertThat(mUseCaseTd.mRequestedIds, is(Arrays.asList("0", "1")));
+        assertThat(SUT.getInFlightBatchesCount(), is(2));
+        assertThat(SUT.getQueuedPrefetchesCount(), is(2));
+    }
+
+    @Test
+    public void prefetch_batchCompleted_queuedPrefetchesStartedTogether() throws Exception {
+        // Arrange
+        SUT.prefetch(questions(1));
+        SUT.prefetch(questions(2));
+        SUT.prefetch(questions(4));
+        // Act
+        mUseCaseTd.complete("0");
+        // Assert
+        assertThat(mUseCaseTd.mRequestedIds, is(Arrays.asList("0", "1", "2", "3")));
+        assertThat(SUT.getInFlightBatchesCount(), is(2));
+    }
+
+    @Test
+    public void prefetch_batchPartiallyCompleted_queuedPrefetchesNotStarted() throws Exception {
+        // Arrange
+        SUT.prefetch(questions(2));
+        SUT.prefetch(questions(3));
+        SUT.prefetch(questions(4));
+        // Act
+        mUseCaseTd.complete("0");
+        // Assert
+        assertThat(mUseCaseTd.mRequestedIds, is(Arrays.asList("0", "1", "2")));
+        assertThat(SUT.getQueuedPrefetchesCount(), is(1));
+    }
+
+    @Test
+    public void prefetch_prefetchOfBatchFailed_batchCompletedAndQueuedPrefetchesStarted() throws Exception {
+        // Arrange
+        SUT.prefetch(questions(1));
+        SUT.prefetch(questions(2));
+        SUT.prefetch(questions(3));
+        // Act
+        mUseCaseTd.fail("1");
+        // Assert
+        assertThat(mUseCaseTd.mRequestedIds, is(Arrays.asList("0", "1", "2")));
+    }
+
+    @Test
+    public void prefetch_prefetchesCompletedSynchronously_noBatchInFlight() throws Exception {
+        // Arrange
+        mUseCaseTd.mCompleteImmediately = true;
+        // Act
+        SUT.prefetch(questions(3));
+        // Assert
+        assertThat(mUseCaseTd.mRequestedIds, is(Arrays.asList("0", "1", "2")));
+        assertThat(SUT.getInFlightBatchesCount(), is(0));
+        assertThat(SUT.getInFlightPrefetchesCount(), is(0));
+    }
+
+    @Test
+    public void prefetch_moreQuestionsThanMaxPrefetched_onlyTopQuestionsPrefetched() throws Exception {
+        // Arrange
+        SUT.prefetch(questions(10));
+        // Act
+        completeAll();
+        // Assert
+        assertThat(mUseCaseTd.mRequestedIds, is(Arrays.asList("0", "1", "2", "3")));
+    }
+
+    @Test
+    public void cancel_queuedPrefetchesNotStarted() throws Exception {
+        // Arrange
+        SUT.prefetch(questions(1));
+        SUT.prefetch(questions(2));
+        SUT.prefetch(questions(3));
+        // Act
+        SUT.cancel();
+        completeAll();
+        // Assert
+        assertThat(mUseCaseTd.mRequestedIds, is(Arrays.asList("0", "1")));
+        assertThat(SUT.getInFlightPrefetchesCount(), is(0));
+        assertThat(SUT.getInFlightBatchesCount(), is(0));
+    }
+
+    @Test
+    public void prefetch_calledAgain_questionsInFlightNotRequestedTwice() throws Exception {
+        // Arrange
+        SUT.prefetch(questions(2));
+        // Act
+        SUT.prefetch(questions(3));
+        completeAll();
+        // Assert
+        assertThat(mUseCaseTd.mRequestedIds, is(Arrays.asList("0", "1", "2")));
+    }
+
+    // region helper methods -----------------------------------------------------------------------
+
+    private List<Question> questions(int count) {
+        List<Question> questions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            questions.add(new Question(String.valueOf(i), "title" + i));
+        }
+        return questions;
+    }
+
+    private void completeAll() {
+        while (!mUseCaseTd.mPendingIds.isEmpty()) {
+            mUseCaseTd.complete(mUseCaseTd.mPendingIds.get(0));
+        }
+    }
+
+    // endregion helper methods --------------------------------------------------------------------
+
+    // region helper classes -----------------------------------------------------------------------
+    private static class UseCaseTd extends FetchQuestionDetailsUseCase {
+
+        private final List<String> mRequestedIds = new LinkedList<>();
+        private final List<String> mPendingIds = new LinkedList<>();
+        private PrefetchListener mPrefetchListener;
+        private boolean mCompleteImmediately;
+
+        public UseCaseTd() {
+            super(null, null, null, null, null, null, new Metrics(new TimeProvider()), null, null);
+        }
+
+        @Override
+        public void prefetchQuestionDetails(String questionId, PrefetchListener prefetchListener) {
+            mRequestedIds.add(questionId);
+            mPrefetchListener = prefetchListener;
+            if (mCompleteImmediately) {
+                prefetchListener.onQuestionDetailsPrefetched(questionId);
+            } else {
+                mPendingIds.add(questionId);
+            }
+        }
+
+        public void complete(String questionId) {
+            mPendingIds.remove(questionId);
+            mPrefetchListener.onQuestionDetailsPrefetched(questionId);
+        }
+
+        public void fail(String questionId) {
+            mPendingIds.remove(questionId);
+            mPrefetchListener.onQuestionDetailsPrefetchFailed(questionId);
+        }
+    }
+    // endregion helper classes --------------------------------------------------------------------
+
+}
@@ -0,0 +1,159 @@
+package com.techyourchance.unittesting.questions;
+
+import com.techyourchance.unittesting.testdata.QuestionDetailsTestData;
+import com.techyourchance.unittesting.testdata.QuestionsTestData;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class QuestionsDiskCacheTest {
+
+    // region constants ----------------------------------------------------------------------------
+    private static final int MAX_QUESTION_DETAILS_COUNT = 2;
+    private static final List<Question> QUESTIONS = QuestionsTestData.getQuestions();
+    private static final QuestionDetails QUESTION_DETAILS = QuestionDetailsTestData.getQuestionDetails1();
+    // endregion constants -------------------------------------------------------------------------
+
+    // region helper fields ------------------------------------------------------------------------
+    @Rule public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+    private File mDirectory;
+    // endregion helper fields ---------------------------------------------------------------------
+
+    QuestionsDiskCache SUT;
+
+    @Before
+    public void setup() throws Exception {
+        mDirectory = mTemporaryFolder.newFolder();
+        SUT = new QuestionsDiskCache(mDirectory, MAX_QUESTION_DETAILS_COUNT);
+    }
+
+    @Test
+    public void getLastActiveQuestions_nothingStored_nullReturned() throws Exception {
+        // Arrange
+        // Act
+        List<Question> result = SUT.getLastActiveQuestions();
+        // Assert
+        assertThat(result, is(nullValue()));
+    }
+
+    @Test
+    public void getLastActiveQuestions_afterPutAndReopen_questionsReturned() throws Exception {
+        // Arrange
+        SUT.putLastActiveQuestions(QUESTIONS);
+        SUT.close();
+        SUT = new QuestionsDiskCache(mDirectory, MAX_QUESTION_DETAILS_COUNT);
+        // Act
+        List<Question> result = SUT.getLastActiveQuestions();
+        // Assert
+        assertThat(result, is(QUESTIONS));
+    }
+
+    @Test
+    public void getQuestionDetails_afterPutAndReopen_questionDetailsReturned() throws Exception {
+        // Arrange
+        SUT.putQuestionDetails(QUESTION_DETAILS);
+        SUT.close();
+        SUT = new QuestionsDiskCache(mDirectory, MAX_QUESTION_DETAILS_COUNT);
+        // Act
+        QuestionDetails result = SUT.getQuestionDetails(QUESTION_DETAILS.getId());
+        // Assert
+        assertThat(result, is(QUESTION_DETAILS));
+    }
+
+    @Test
+    public void getQuestionDetails_bodyLongerThan64KB_questionDetailsReturned() throws Exception {
+        // Arrange
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            body.append("<p>\u00fc</p>");
+        }
+        QuestionDetails questionDetails = new QuestionDetails("id", "title", body.toString());
+        SUT.putQuestionDetails(questionDetails);
+        // Act
+        QuestionDetails result = SUT.getQuestionDetails("id");
+        // Assert
+        assertThat(result, is(questionDetails));
+    }
+
+    @Test
+    public void getQuestionDetails_unknownId_nullReturned() throws Exception {
+        // Arrange
+        SUT.putQuestionDetails(QUESTION_DETAILS);
+        // Act
+        QuestionDetails result = SUT.getQuestionDetails("unknown");
+        // Assert
+        assertThat(result, is(nullValue()));
+    }
+
+    @Test
+    public void getQuestionDetails_directoryUnavailable_nullReturned() throws Exception {
+        // Arrange
+        File file = mTemporaryFolder.newFile();
+        SUT = new QuestionsDiskCache(file, MAX_QUESTION_DETAILS_COUNT);
+        SUT.putQuestionDetails(QUESTION_DETAILS);
+        // Act
+        QuestionDetails result = SUT.getQuestionDetails(QUESTION_DETAILS.getId());
+        // Assert
+        assertThat(result, is(nullValue()));
+    }
+
+    @Test
+    public void putQuestionDetails_overMaxCount_leastRecentlyUsedDetailsRemoved() throws Exception {
+        // Arrange
+        SUT.putQuestionDetails(questionDetails("1"));
+        SUT.putQuestionDetails(questionDetails("2"));
+        SUT.getQuestionDetails("1");
+        // Act
+        SUT.putQuestionDetails(questionDetails("3"));
+        // Assert
+        assertThat(SUT.getQuestionDetails("2"), is(nullValue()));
+        assertThat(SUT.getQuestionDetails("1"), is(questionDetails("1")));
+        assertThat(SUT.getQuestionDetails("3"), is(questionDetails("3")));
+    }
+
+    @Test
+    public void putQuestionDetails_overMaxCountAfterReopen_earliestStoredDetailsRemoved() throws Exception {
+        // Arrange
+        SUT.putQuestionDetails(questionDetails("1"));
+        SUT.putQuestionDetails(questionDetails("2"));
+        SUT.putQuestionDetails(questionDetails("1"));
+        SUT.close();
+        SUT = new QuestionsDiskCache(mDirectory, MAX_QUESTION_DETAILS_COUNT);
+        // Act
+        SUT.putQuestionDetails(questionDetails("3"));
+        // Assert
+        assertThat(SUT.getQuestionDetails("2"), is(nullValue()));
+        assertThat(SUT.getQuestionDetails("1"), is(questionDetails("1")));
+        assertThat(SUT.getQuestionDetails("3"), is(questionDetails("3")));
+    }
+
+    @Test
+    public void putQuestionDetails_overMaxCount_lastActiveQuestionsRetained() throws Exception {
+        // Arrange
+        SUT.putLastActiveQuestions(QUESTIONS);
+        // Act
+        SUT.putQuestionDetails(questionDetails("1"));
+        SUT.putQuestionDetails(questionDetails("2"));
+        SUT.putQuestionDetails(questionDetails("3"));
+        // Assert
+        assertThat(SUT.getLastActiveQuestions(), is(QUESTIONS));
+    }
+
+    // region helper methods -----------------------------------------------------------------------
+
+    private QuestionDetails questionDetails(String id) {
+        return new QuestionDetails(id, "title" + id, "body" + id);
+    }
+
+    // endregion helper methods --------------------------------------------------------------------
+
+}
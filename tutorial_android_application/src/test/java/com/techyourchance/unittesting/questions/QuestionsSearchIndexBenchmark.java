@@ -0,0 +1,95 @@
+package com.techyourchance.unittesting.questions;
+
+import com.techyourchance.unittesting.benchmarks.Benchmark;
+
+import java.util.Random;
+
+/**
+ * Measures the latency of {@link QuestionsSearchIndex} queries over 50k questions with titles and
+ * bodies built from a synthetic vocabulary (a few very common words and a long tail of rare ones,
+ * like in real questions). The target is well under 1 ms per query, so that the index can be queried
+ * on every keystroke. Not a unit test - run the main method manually.
+ */
+public class QuestionsSearchIndexBenchmark {
+
+    private static final int QUESTIONS_COUNT = 50000;
+    private static final int VOCABULARY_SIZE = 20000;
+    private static final int TITLE_WORDS = 8;
+    private static final int BODY_WORDS = 60;
+    private static final int MAX_RESULTS = 20;
+    private static final int QUERIES_COUNT = 10000;
+    private static final int WARMUP_ITERATIONS = 5;
+
+    public static void main(String[] args) throws Exception {
+        Random random = new Random(42);
+        String[] vocabulary = new String[VOCABULARY_SIZE];
+        for (int i = 0; i < VOCABULARY_SIZE; i++) {
+            vocabulary[i] = randomWord(random);
+        }
+
+        QuestionsSearchIndex index = new QuestionsSearchIndex(QUESTIONS_COUNT);
+        long startNano = System.nanoTime();
+        for (int i = 0; i < QUESTIONS_COUNT; i++) {
+            index.indexQuestionDetails(
+                    String.valueOf(i),
+                    randomText(random, vocabulary, TITLE_WORDS),
+                    "<p>" + randomText(random, vocabulary, BODY_WORDS) + "</p>",
+                    1500000000 + random.nextInt(100000000)
+            );
+        }
+        System.out.println(String.format("indexing: %d questions in %d ms",
+                index.size(), (System.nanoTime() - startNano) / 1000000));
+
+        String[] tokenQueries = new String[QUERIES_COUNT];
+        String[] twoTokenQueries = new String[QUERIES_COUNT];
+        String[] prefixQueries = new String[QUERIES_COUNT];
+        for (int i = 0; i < QUERIES_COUNT; i++) {
+            tokenQueries[i] = randomWord(random, vocabulary) + " ";
+            twoTokenQueries[i] = randomWord(random, vocabulary) + " " + randomWord(random, vocabulary) + " ";
+            String word = randomWord(random, vocabulary);
+            prefixQueries[i] = word.substring(0, Math.min(2, word.length()));
+        }
+
+        report("single token", index, tokenQueries);
+        report("two tokens", index, twoTokenQueries);
+        report("two letters prefix", index, prefixQueries);
+    }
+
+    private static void report(String name, final QuestionsSearchIndex index, final String[] queries) throws Exception {
+        Benchmark.Result result = Benchmark.measure(new Benchmark.Operation() {
+            @Override
+            public long run(int iteration) {
+                return index.search(queries[iteration % queries.length], MAX_RESULTS).size();
+            }
+        }, WARMUP_ITERATIONS * queries.length, queries.length);
+
+        double microsPerQuery = result.getAverageMicros();
+        System.out.println(String.format("%-20s %8.1f us/query (%s 1 ms, %d results)",
+                name, microsPerQuery, microsPerQuery < 1000 ? "under" : "OVER", result.getChecksum()));
+    }
+
+    private static String randomText(Random random, String[] vocabulary, int wordsCount) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < wordsCount; i++) {
+            text.append(randomWord(random, vocabulary)).append(' ');
+        }
+        return text.toString();
+    }
+
+    /**
+     * @return a word of the vocabulary; words at the beginning of the vocabulary are much more common
+     */
+    private static String randomWord(Random random, String[] vocabulary) {
+        double skewed = Math.pow(random.nextDouble(), 3);
+        return vocabulary[(int) (skewed * vocabulary.length)];
+    }
+
+    private static String randomWord(Random random) {
+        int length = 3 + random.nextInt(8);
+        StringBuilder word = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + random.nextInt(26)));
+        }
+        return word.toString();
+    }
+}
@@ -0,0 +1,212 @@
+package com.techyourchance.unittesting.questions;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class QuestionsSearchIndexTest {
+
+    // region constants ----------------------------------------------------------------------------
+    private static final String ID_1 = "1";
+    private static final String ID_2 = "2";
+    private static final String ID_3 = "3";
+    private static final int MAX_SIZE = 3;
+    // endregion constants -------------------------------------------------------------------------
+
+    QuestionsSearchIndex SUT;
+
+    @Before
+    public void setup() throws Exception {
+        SUT = new QuestionsSearchIndex(MAX_SIZE);
+    }
+
+    @Test
+    public void search_wholeToken_matchingQuestionsReturned() throws Exception {
+        // Arrange
+        SUT.indexQuestion(ID_1, "How to use RecyclerView", 100);
+        SUT.indexQuestion(ID_2, "Gradle build fails", 100);
+        // Act
+        List<Question> result = SUT.search("gradle ", 10);
+        // Assert
+        assertThat(getIds(result), is(ids(ID_2)));
+    }
+
+    @Test
+    public void search_lastTokenIsPrefix_questionsWithTokensStartingWithPrefixReturned() throws Exception {
+        // Arrange
+        SUT.indexQuestion(ID_1, "How to use RecyclerView", 300);
+        SUT.indexQuestion(ID_2, "Recycle bitmaps", 200);
+        SUT.indexQuestion(ID_3, "Gradle build fails", 100);
+        // Act
+        List<Question> result = SUT.search("recyc", 10);
+        // Assert
+        assertThat(getIds(result), is(ids(ID_1, ID_2)));
+    }
+
+    @Test
+    public void search_queryEndsWithSeparator_lastTokenNotPrefix() throws Exception {
+        // Arrange
+        SUT.indexQuestion(ID_1, "How to use RecyclerView", 100);
+        // Act
+        List<Question> result = SUT.search("recycler ", 10);
+        // Assert
+        assertThat(result.size(), is(0));
+    }
+
+    @Test
+    public void search_severalTokens_onlyQuestionsContainingAllTokensReturned() throws Exception {
+        // Arrange
+        SUT.indexQuestion(ID_1, "Gradle build fails on Windows", 100);
+        SUT.indexQuestion(ID_2, "Gradle sync is slow", 100);
+        SUT.indexQuestion(ID_3, "Build variants explained", 100);
+        // Act
+        List<Question> result = SUT.search("gradle bui", 10);
+        // Assert
+        assertThat(getIds(result), is(ids(ID_1)));
+    }
+
+    @Test
+    public void search_unknownToken_emptyResult() throws Exception {
+        // Arrange
+        SUT.indexQuestion(ID_1, "Gradle build fails", 100);
+        // Act
+        List<Question> result = SUT.search("kotlin gradle", 10);
+        // Assert
+        assertThat(result.size(), is(0));
+    }
+
+    @Test
+    public void search_differentCase_matched() throws Exception {
+        // Arrange
+        SUT.indexQuestion(ID_1, "gradle build fails", 100);
+        // Act
+        List<Question> result = SUT.search("GRADLE", 10);
+        // Assert
+        assertThat(getIds(result), is(ids(ID_1)));
+    }
+
+    @Test
+    public void search_severalMatches_mostRecentlyActiveFirst() throws Exception {
+        // Arrange
+        SUT.indexQuestion(ID_1, "Gradle question", 200);
+        SUT.indexQuestion(ID_2, "Gradle question", 300);
+        SUT.indexQuestion(ID_3, "Gradle question", 100);
+        // Act
+        List<Question> result = SUT.search("gradle", 10);
+        // Assert
+        assertThat(getIds(result), is(ids(ID_2, ID_1, ID_3)));
+    }
+
+    @Test
+    public void search_moreMatchesThanMaxResults_mostRecentlyActiveReturned() throws Exception {
+        // Arrange
+        SUT.indexQuestion(ID_1, "Gradle question", 200);
+        SUT.indexQuestion(ID_2, "Gradle question", 300);
+        SUT.indexQuestion(ID_3, "Gradle question", 100);
+        // Act
+        List<Question> result = SUT.search("gradle", 2);
+        // Assert
+        assertThat(getIds(result), is(ids(ID_2, ID_1)));
+    }
+
+    @Test
+    public void search_questionDetailsIndexed_bodyTextMatchedButNotMarkup() throws Exception {
+        // Arrange
+        SUT.indexQuestionDetails(ID_1, "Crash on start", "<p>NullPointerException in <code>onCreate</code></p>", 100);
+        // Act
+        List<Question> bodyResult = SUT.search("nullpointerexception", 10);
+        List<Question> markupResult = SUT.search("code", 10);
+        // Assert
+        assertThat(getIds(bodyResult), is(ids(ID_1)));
+        assertThat(markupResult.size(), is(0));
+    }
+
+    @Test
+    public void indexQuestion_questionReindexedWithNewTitle_oldTokensNotMatched() throws Exception {
+        // Arrange
+        SUT.indexQuestion(ID_1, "Gradle build fails", 100);
+        // Act
+        SUT.indexQuestion(ID_1, "Kotlin build fails", 200);
+        // Assert
+        assertThat(SUT.search("gradle", 10).size(), is(0));
+        assertThat(SUT.search("kotlin", 10).get(0).getTitle(), is("Kotlin build fails"));
+        assertThat(SUT.size(), is(1));
+    }
+
+    @Test
+    public void indexQuestion_detailsIndexedBefore_bodyStillMatched() throws Exception {
+        // Arrange
+        SUT.indexQuestionDetails(ID_1, "Crash on start", "<p>NullPointerException</p>", 100);
+        // Act
+        SUT.indexQuestion(ID_1, "Crash on start", 200);
+        // Assert
+        assertThat(getIds(SUT.search("nullpointerexception", 10)), is(ids(ID_1)));
+    }
+
+    @Test
+    public void indexQuestion_activityUnknown_rankingNotDemoted() throws Exception {
+        // Arrange
+        SUT.indexQuestion(ID_1, "Gradle question", 300);
+        SUT.indexQuestion(ID_2, "Gradle question", 200);
+        // Act
+        SUT.indexQuestion(ID_1, "Gradle question", QuestionsSearchIndex.LAST_ACTIVITY_UNKNOWN);
+        // Assert
+        assertThat(getIds(SUT.search("gradle", 10)), is(ids(ID_1, ID_2)));
+    }
+
+    @Test
+    public void indexQuestion_full_leastRecentlyIndexedQuestionEvicted() throws Exception {
+        // Arrange
+        SUT.indexQuestion(ID_1, "Gradle one", 100);
+        SUT.indexQuestion(ID_2, "Gradle two", 100);
+        SUT.indexQuestion(ID_3, "Gradle three", 100);
+        SUT.indexQuestion(ID_1, "Gradle one", 100);
+        // Act
+        SUT.indexQuestion("4", "Gradle four", 100);
+        // Assert
+        assertThat(SUT.size(), is(MAX_SIZE));
+        assertThat(getIds(SUT.search("gradle", 10)), is(ids("4", ID_1, ID_3)));
+        assertThat(SUT.search("two", 10).size(), is(0));
+    }
+
+    @Test
+    public void indexQuestion_evictedQuestionIndexedAgain_questionFound() throws Exception {
+        // Arrange
+        SUT.indexQuestion(ID_1, "Gradle one", 100);
+        SUT.indexQuestion(ID_2, "Gradle two", 100);
+        SUT.indexQuestion(ID_3, "Gradle three", 100);
+        SUT.indexQuestion("4", "Gradle four", 100);
+        // Act
+        SUT.indexQuestion(ID_1, "Gradle one", 100);
+        // Assert
+        assertThat(SUT.size(), is(MAX_SIZE));
+        assertThat(getIds(SUT.search("gradle", 10)), is(ids(ID_1, "4", ID_3)));
+        assertThat(getIds(SUT.search("one", 10)), is(ids(ID_1)));
+    }
+
+    // region helper methods -----------------------------------------------------------------------
+
+    private static List<String> getIds(List<Question> questions) {
+        List<String> ids = new ArrayList<>();
+        for (Question question : questions) {
+            ids.add(question.getId());
+        }
+        return ids;
+    }
+
+    private static List<String> ids(String... ids) {
+        List<String> result = new ArrayList<>();
+        for (String id : ids) {
+            result.add(id);
+        }
+        return result;
+    }
+
+    // endregion helper methods --------------------------------------------------------------------
+
+}
@@ -0,0 +1,144 @@
+package com.techyourchance.unittesting.questions;
+
+import com.techyourchance.unittesting.common.connectivity.ConnectivityMonitor;
+import com.techyourchance.unittesting.common.sync.SyncQueue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class QuestionsSyncWorkerTest {
+
+    // region constants ----------------------------------------------------------------------------
+    private static final String QUESTION_ID_1 = "1";
+    private static final String QUESTION_ID_2 = "2";
+    private static final String QUESTION_ID_3 = "3";
+    // endregion constants -------------------------------------------------------------------------
+
+    // region helper fields ------------------------------------------------------------------------
+    @Mock FetchLastActiveQuestionsUseCase mFetchLastActiveQuestionsUseCaseMock;
+    @Mock FetchQuestionDetailsUseCase mFetchQuestionDetailsUseCaseMock;
+    private SyncQueue<String> mSyncQueue;
+    private ConnectivityMonitor mConnectivityMonitor;
+    // endregion helper fields ---------------------------------------------------------------------
+
+    QuestionsSyncWorker SUT;
+
+    @Before
+    public void setup() throws Exception {
+        mSyncQueue = new SyncQueue<>();
+        mConnectivityMonitor = new ConnectivityMonitor();
+        mConnectivityMonitor.setConnected(false);
+        SUT = new QuestionsSyncWorker(mSyncQueue, mConnectivityMonitor,
+                mFetchLastActiveQuestionsUseCaseMock, mFetchQuestionDetailsUseCaseMock);
+        SUT.start();
+    }
+
+    @Test
+    public void offline_queuedSyncsNotStarted() throws Exception {
+        // Arrange
+        // Act
+        mSyncQueue.add(FetchLastActiveQuestionsUseCase.SYNC_KEY, SyncQueue.Priority.USER_VISIBLE);
+        mSyncQueue.add(QUESTION_ID_1, SyncQueue.Priority.BACKGROUND);
+        // Assert
+        verify(mFetchLastActiveQuestionsUseCaseMock, never()).fetchLastActiveQuestionsAndNotify();
+        verify(mFetchQuestionDetailsUseCaseMock, never()).prefetchQuestionDetails(
+                anyString(), any(FetchQuestionDetailsUseCase.PrefetchListener.class));
+    }
+
+    @Test
+    public void connectivityRestored_userVisibleSyncsFetchedAndNotified() throws Exception {
+        // Arrange
+        mSyncQueue.add(FetchLastActiveQuestionsUseCase.SYNC_KEY, SyncQueue.Priority.USER_VISIBLE);
+        mSyncQueue.add(QUESTION_ID_1, SyncQueue.Priority.USER_VISIBLE);
+        // Act
+        mConnectivityMonitor.setConnected(true);
+        // Assert
+        verify(mFetchLastActiveQuestionsUseCaseMock).fetchLastActiveQuestionsAndNotify();
+        verify(mFetchQuestionDetailsUseCaseMock).fetchQuestionDetailsAndNotify(QUESTION_ID_1);
+        assertThat(mSyncQueue.size(), is(0));
+    }
+
+    @Test
+    public void connectivityRestored_userVisibleSyncsStartedBeforeBackgroundSyncs() throws Exception {
+        // Arrange
+        mSyncQueue.add(QUESTION_ID_1, SyncQueue.Priority.BACKGROUND);
+        mSyncQueue.add(QUESTION_ID_2, SyncQueue.Priority.USER_VISIBLE);
+        // Act
+        mConnectivityMonitor.setConnected(true);
+        // Assert
+        InOrder inOrder = inOrder(mFetchQuestionDetailsUseCaseMock);
+        inOrder.verify(mFetchQuestionDetailsUseCaseMock).fetchQuestionDetailsAndNotify(QUESTION_ID_2);
+        inOrder.verify(mFetchQuestionDetailsUseCaseMock).prefetchQuestionDetails(QUESTION_ID_1, SUT);
+    }
+
+    @Test
+    public void connectivityRestored_backgroundSyncsLimitedToMaxConcurrent() throws Exception {
+        // Arrange
+        queueBackgroundSyncs(QuestionsSyncWorker.MAX_CONCURRENT_BACKGROUND_SYNCS + 1);
+        // Act
+        mConnectivityMonitor.setConnected(true);
+        // Assert
+        assertThat(SUT.getInFlightBackgroundSyncsCount(), is(QuestionsSyncWorker.MAX_CONCURRENT_BACKGROUND_SYNCS));
+        assertThat(mSyncQueue.size(), is(1));
+    }
+
+    @Test
+    public void backgroundSyncCompleted_nextBackgroundSyncStarted() throws Exception {
+        // Arrange
+        queueBackgroundSyncs(QuestionsSyncWorker.MAX_CONCURRENT_BACKGROUND_SYNCS + 1);
+        mConnectivityMonitor.setConnected(true);
+        // Act
+        SUT.onQuestionDetailsPrefetched("0");
+        // Assert
+        verify(mFetchQuestionDetailsUseCaseMock).prefetchQuestionDetails(
+                String.valueOf(QuestionsSyncWorker.MAX_CONCURRENT_BACKGROUND_SYNCS), SUT);
+        assertThat(mSyncQueue.size(), is(0));
+    }
+
+    @Test
+    public void backgroundSyncFailedAfterConnectivityLost_nextBackgroundSyncNotStarted() throws Exception {
+        // Arrange
+        queueBackgroundSyncs(QuestionsSyncWorker.MAX_CONCURRENT_BACKGROUND_SYNCS + 1);
+        mConnectivityMonitor.setConnected(true);
+        // Act
+        mConnectivityMonitor.setConnected(false);
+        SUT.onQuestionDetailsPrefetchFailed("0");
+        // Assert
+        assertThat(mSyncQueue.size(), is(1));
+    }
+
+    @Test
+    public void stopped_connectivityRestored_queuedSyncsNotStarted() throws Exception {
+        // Arrange
+        mSyncQueue.add(QUESTION_ID_3, SyncQueue.Priority.USER_VISIBLE);
+        SUT.stop();
+        // Act
+        mConnectivityMonitor.setConnected(true);
+        // Assert
+        verify(mFetchQuestionDetailsUseCaseMock, never()).fetchQuestionDetailsAndNotify(anyString());
+    }
+
+    // region helper methods -----------------------------------------------------------------------
+
+    private void queueBackgroundSyncs(int count) {
+        for (int i = 0; i < count; i++) {
+            mSyncQueue.add(String.valueOf(i), SyncQueue.Priority.BACKGROUND);
+        }
+    }
+
+    // endregion helper methods --------------------------------------------------------------------
+
+}
@@ -0,0 +1,130 @@
+package com.techyourchance.unittesting.questions;
+
+import com.techyourchance.unittesting.common.instrumentation.Metrics;
+import com.techyourchance.unittesting.common.time.TimeProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SearchQuestionsUseCaseTest {
+
+    // region constants ----------------------------------------------------------------------------
+    private static final Question QUESTION_1 = new Question("1", "Gradle build fails");
+    private static final Question QUESTION_2 = new Question("2", "How to use RecyclerView");
+    // endregion constants -------------------------------------------------------------------------
+
+    // region helper fields ------------------------------------------------------------------------
+    @Mock SearchQuestionsUseCase.Listener mListener1;
+    @Mock SearchQuestionsUseCase.Listener mListener2;
+    private QuestionsSearchIndex mQuestionsSearchIndex;
+    private ExecutorTd mBackgroundExecutorTd;
+    private ExecutorTd mUiExecutorTd;
+    private Metrics mMetrics;
+    // endregion helper fields ---------------------------------------------------------------------
+
+    SearchQuestionsUseCase SUT;
+
+    @Before
+    public void setup() throws Exception {
+        mQuestionsSearchIndex = new QuestionsSearchIndex(100);
+        mQuestionsSearchIndex.indexQuestion(QUESTION_1.getId(), QUESTION_1.getTitle(), 200);
+        mQuestionsSearchIndex.indexQuestion(QUESTION_2.getId(), QUESTION_2.getTitle(), 100);
+        mBackgroundExecutorTd = new ExecutorTd();
+        mUiExecutorTd = new ExecutorTd();
+        mMetrics = new Metrics(new TimeProvider());
+        SUT = new SearchQuestionsUseCase(mQuestionsSearchIndex, mMetrics, mBackgroundExecutorTd, mUiExecutorTd);
+        SUT.registerListener(mListener1);
+        SUT.registerListener(mListener2);
+    }
+
+    @Test
+    public void searchQuestionsAndNotify_listenersNotifiedWithMatchingQuestions() throws Exception {
+        // Arrange
+        // Act
+        SUT.searchQuestionsAndNotify("gradle");
+        // Assert
+        verify(mListener1).onQuestionsFound("gradle", Collections.singletonList(QUESTION_1));
+        verify(mListener2).onQuestionsFound("gradle", Collections.singletonList(QUESTION_1));
+    }
+
+    @Test
+    public void searchQuestionsAndNotify_noMatches_listenersNotifiedWithEmptyList() throws Exception {
+        // Arrange
+        // Act
+        SUT.searchQuestionsAndNotify("kotlin");
+        // Assert
+        verify(mListener1).onQuestionsFound("kotlin", Collections.<Question>emptyList());
+    }
+
+    @Test
+    public void searchQuestionsAndNotify_searchedOnBackgroundExecutorAndListenersNotifiedOnUiExecutor() throws Exception {
+        // Arrange
+        mBackgroundExecutorTd.mPaused = true;
+        mUiExecutorTd.mPaused = true;
+        // Act
+        SUT.searchQuestionsAndNotify("gradle");
+        // Assert
+        assertThat(mMetrics.timer(SearchQuestionsUseCase.SEARCH_TIMER).getCount(), is(0L));
+        mBackgroundExecutorTd.runPending();
+        assertThat(mMetrics.timer(SearchQuestionsUseCase.SEARCH_TIMER).getCount(), is(1L));
+        verify(mListener1, never()).onQuestionsFound(anyString(), any(List.class));
+        mUiExecutorTd.runPending();
+        verify(mListener1).onQuestionsFound("gradle", Collections.singletonList(QUESTION_1));
+    }
+
+    @Test
+    public void searchQuestionsAndNotify_newQueryBeforePreviousCompleted_onlyLatestResultsNotified() throws Exception {
+        // Arrange
+        mUiExecutorTd.mPaused = true;
+        SUT.searchQuestionsAndNotify("gra");
+        SUT.searchQuestionsAndNotify("recycler");
+        // Act
+        mUiExecutorTd.runPending();
+        // Assert
+        verify(mListener1, never()).onQuestionsFound(eq("gra"), any(List.class));
+        verify(mListener1).onQuestionsFound("recycler", Collections.singletonList(QUESTION_2));
+    }
+
+    // region helper classes -----------------------------------------------------------------------
+    private static class ExecutorTd implements Executor {
+
+        private final List<Runnable> mPending = new LinkedList<>();
+        private boolean mPaused;
+
+        @Override
+        public void execute(Runnable runnable) {
+            if (mPaused) {
+                mPending.add(runnable);
+            } else {
+                runnable.run();
+            }
+        }
+
+        public void runPending() {
+            mPaused = false;
+            for (Runnable runnable : mPending) {
+                runnable.run();
+            }
+            mPending.clear();
+        }
+    }
+    // endregion helper classes --------------------------------------------------------------------
+
+}
@@ -1,5 +1,9 @@
 package com.techyourchance.unittesting.screens.questiondetails;
 
+import com.techyourchance.unittesting.common.html.StyledText;
+import com.techyourchance.unittesting.common.html.StyledTextConverter;
+import com.techyourchance.unittesting.common.instrumentation.Metrics;
+import com.techyourchance.unittesting.common.time.TimeProvider;
 import com.techyourchance.unittesting.questions.FetchQuestionDetailsUseCase;
 import com.techyourchance.unittesting.questions.QuestionDetails;
 import com.techyourchance.unittesting.screens.common.screensnavigator.ScreensNavigator;
@@ -9,14 +13,24 @@ import com.techyourchance.unittesting.testdata.QuestionDetailsTestData;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -25,6 +39,7 @@ public class QuestionDetailsControllerSolutionTest {
     // region constants ----------------------------------------------------------------------------
     private static final QuestionDetails QUESTION_DETAILS = QuestionDetailsTestData.getQuestionDetails1();
     private static final String QUESTION_ID = QUESTION_DETAILS.getId();
+    private static final String LONG_BODY = longBody();
     // endregion constants -------------------------------------------------------------------------
 
     // region helper fields ------------------------------------------------------------------------
@@ -32,6 +47,12 @@ public class QuestionDetailsControllerSolutionTest {
     @Mock ScreensNavigator mScreensNavigatorMock;
     @Mock ToastsHelper mToastsHelperMock;
     @Mock QuestionDetailsViewMvc mQuestionDetailsViewMvcMock;
+    private StyledTextConverterTd mStyledTextConverterTd;
+    private ExecutorTd mBackgroundExecutorTd;
+    private Metrics mMetrics;
+    private QuestionDetailsRenderer mQuestionDetailsRenderer;
+
+    @Captor ArgumentCaptor<RenderedQuestionDetails> mRenderedQuestionDetailsCaptor;
     // endregion helper fields ---------------------------------------------------------------------
 
     QuestionDetailsController SUT;
@@ -39,7 +60,13 @@ public class QuestionDetailsControllerSolutionTest {
     @Before
     public void setup() throws Exception {
         mUseCaseTd = new UseCaseTd();
-        SUT = new QuestionDetailsController(mUseCaseTd, mScreensNavigatorMock, mToastsHelperMock);
+        mStyledTextConverterTd = new StyledTextConverterTd();
+        mBackgroundExecutorTd = new ExecutorTd();
+        mMetrics = new Metrics(new TimeProvider());
+        mQuestionDetailsRenderer = new QuestionDetailsRenderer(
+                mStyledTextConverterTd, mUseCaseTd, mBackgroundExecutorTd, new ExecutorTd(), mMetrics);
+        SUT = new QuestionDetailsController(
+                mUseCaseTd, mScreensNavigatorMock, mToastsHelperMock, mQuestionDetailsRenderer, mMetrics);
         SUT.bindView(mQuestionDetailsViewMvcMock);
         SUT.bindQuestionId(QUESTION_ID);
     }
@@ -72,7 +99,80 @@ public class QuestionDetailsControllerSolutionTest {
         // Act
         SUT.onStart();
         // Assert
-        verify(mQuestionDetailsViewMvcMock).bindQuestion(QUESTION_DETAILS);
+        verify(mQuestionDetailsViewMvcMock).bindQuestion(mRenderedQuestionDetailsCaptor.capture());
+        RenderedQuestionDetails renderedQuestionDetails = mRenderedQuestionDetailsCaptor.getValue();
+        assertThat(renderedQuestionDetails.getQuestionDetails(), is(QUESTION_DETAILS));
+        assertThat(renderedQuestionDetails.getTitle().toString(), is("rendered " + QUESTION_DETAILS.getTitle()));
+        assertThat(renderedQuestionDetails.getBody().toString(), is("rendered " + QUESTION_DETAILS.getBody()));
+    }
+
+    @Test
+    public void onStart_success_htmlRenderedOffMainThreadBeforeBinding() throws Exception {
+        // Arrange
+        success();
+        mBackgroundExecutorTd.mPaused = true;
+        // Act
+        SUT.onStart();
+        // Assert
+        verify(mQuestionDetailsViewMvcMock, never()).bindQuestion(any(RenderedQuestionDetails.class));
+        mBackgroundExecutorTd.runPending();
+        verify(mQuestionDetailsViewMvcMock).bindQuestion(any(RenderedQuestionDetails.class));
+    }
+
+    @Test
+    public void onStart_secondTimeWithSameQuestionDetails_boundWithoutRendering() throws Exception {
+        // Arrange
+        success();
+        SUT.onStart();
+        SUT.onStop();
+        mBackgroundExecutorTd.mPaused = true;
+        // Act
+        SUT.onStart();
+        // Assert
+        assertThat(mStyledTextConverterTd.mConvertCount, is(2));
+        assertThat(mBackgroundExecutorTd.mPending.size(), is(0));
+        assertThat(mMetrics.timer(QuestionDetailsController.BIND_TIMER).getCount(), is(2L));
+    }
+
+    @Test
+    public void onStart_successWithLongBody_beginningOfBodyBoundBeforeWholeBody() throws Exception {
+        // Arrange
+        mUseCaseTd.mQuestionDetails = new QuestionDetails(QUESTION_ID, "title", LONG_BODY);
+        // Act
+        SUT.onStart();
+        // Assert
+        verify(mQuestionDetailsViewMvcMock, times(2)).bindQuestion(mRenderedQuestionDetailsCaptor.capture());
+        List<RenderedQuestionDetails> bound = mRenderedQuestionDetailsCaptor.getAllValues();
+        assertThat(bound.get(0).isComplete(), is(false));
+        assertThat(bound.get(0).getBody().length() < bound.get(1).getBody().length(), is(true));
+        assertThat(bound.get(1).isComplete(), is(true));
+        assertThat(mMetrics.timer(QuestionDetailsRenderer.FIRST_SCREEN_RENDER_TIMER).getCount(), is(1L));
+    }
+
+    @Test
+    public void onStart_secondTimeWithSameLongBody_onlyWholeBodyBound() throws Exception {
+        // Arrange
+        mUseCaseTd.mQuestionDetails = new QuestionDetails(QUESTION_ID, "title", LONG_BODY);
+        SUT.onStart();
+        SUT.onStop();
+        // Act
+        SUT.onStart();
+        // Assert
+        verify(mQuestionDetailsViewMvcMock, times(3)).bindQuestion(mRenderedQuestionDetailsCaptor.capture());
+        assertThat(mRenderedQuestionDetailsCaptor.getValue().isComplete(), is(true));
+    }
+
+    @Test
+    public void onStop_renderingCompletesAfterwards_questionDetailsNotBound() throws Exception {
+        // Arrange
+        success();
+        mBackgroundExecutorTd.mPaused = true;
+        SUT.onStart();
+        // Act
+        SUT.onStop();
+        mBackgroundExecutorTd.runPending();
+        // Assert
+        verify(mQuestionDetailsViewMvcMock, never()).bindQuestion(any(RenderedQuestionDetails.class));
     }
 
     @Test
@@ -133,16 +233,60 @@ public class QuestionDetailsControllerSolutionTest {
         mUseCaseTd.mFailure = true;
     }
 
+    private static String longBody() {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            body.append("<p>paragraph ").append(i).append(" of a question which doesn't fit on a single screen</p>");
+        }
+        return body.toString();
+    }
+
     // endregion helper methods --------------------------------------------------------------------
 
     // region helper classes -----------------------------------------------------------------------
 
+    private static class StyledTextConverterTd implements StyledTextConverter {
+
+        private int mConvertCount;
+
+        @Override
+        public CharSequence convert(StyledText styledText) {
+            mConvertCount++;
+            return "rendered " + styledText.getText();
+        }
+    }
+
+    private static class ExecutorTd implements Executor {
+
+        private final List<Runnable> mPending = new LinkedList<>();
+        private boolean mPaused;
+
+        @Override
+        public void execute(Runnable runnable) {
+            if (mPaused) {
+                mPending.add(runnable);
+            } else {
+                runnable.run();
+            }
+        }
+
+        public void runPending() {
+            mPaused = false;
+            for (Runnable runnable : mPending) {
+                runnable.run();
+            }
+            mPending.clear();
+        }
+    }
+
     private static class UseCaseTd extends FetchQuestionDetailsUseCase {
 
         private boolean mFailure;
+        private QuestionDetails mQuestionDetails = QUESTION_DETAILS;
+        private final Map<QuestionDetails, Object> mAttachments = new HashMap<>();
 
         public UseCaseTd() {
-            super(null, null);
+            super(null, null, null, null, null, null, new Metrics(new TimeProvider()), null, null);
         }
 
         @Override
@@ -154,11 +298,21 @@ public class QuestionDetailsControllerSolutionTest {
                 if (mFailure) {
                     listener.onQuestionDetailsFetchFailed();
                 } else {
-                    listener.onQuestionDetailsFetched(QUESTION_DETAILS);
+                    listener.onQuestionDetailsFetched(mQuestionDetails);
                 }
             }
         }
 
+        @Override
+        public void attachToCachedQuestionDetails(QuestionDetails questionDetails, Object attachment) {
+            mAttachments.put(questionDetails, attachment);
+        }
+
+        @Override
+        public Object getAttachment(QuestionDetails questionDetails) {
+            return mAttachments.get(questionDetails);
+        }
+
         public void verifyListenerRegistered(QuestionDetailsController candidate) {
             for (Listener listener : getListeners()) {
                 if (listener == candidate) {
@@ -0,0 +1,64 @@
+package com.techyourchance.unittesting.screens.questionslist;
+
+import com.techyourchance.unittesting.questions.Question;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class QuestionItemCallbackTest {
+
+    QuestionItemCallback SUT;
+
+    @Before
+    public void setup() throws Exception {
+        SUT = new QuestionItemCallback();
+    }
+
+    @Test
+    public void areContentsTheSame_sameTitles_trueReturned() throws Exception {
+        // Arrange
+        // Act
+        boolean result = SUT.areContentsTheSame(new Question("1", "title"), new Question("1", "title"));
+        // Assert
+        assertThat(result, is(true));
+    }
+
+    @Test
+    public void areContentsTheSame_differentTitles_falseReturned() throws Exception {
+        // Arrange
+        // Act
+        boolean result = SUT.areContentsTheSame(new Question("1", "title1"), new Question("1", "title2"));
+        // Assert
+        assertThat(result, is(false));
+    }
+
+    @Test
+    public void areContentsTheSame_oldTitleNull_falseReturned() throws Exception {
+        // Arrange
+        // Act
+        boolean result = SUT.areContentsTheSame(new Question("1", null), new Question("1", "title"));
+        // Assert
+        assertThat(result, is(false));
+    }
+
+    @Test
+    public void areContentsTheSame_newTitleNull_falseReturned() throws Exception {
+        // Arrange
+        // Act
+        boolean result = SUT.areContentsTheSame(new Question("1", "title"), new Question("1", null));
+        // Assert
+        assertThat(result, is(false));
+    }
+
+    @Test
+    public void areContentsTheSame_bothTitlesNull_trueReturned() throws Exception {
+        // Arrange
+        // Act
+        boolean result = SUT.areContentsTheSame(new Question("1", null), new Question("1", null));
+        // Assert
+        assertThat(result, is(true));
+    }
+}
@@ -1,8 +1,11 @@
 package com.techyourchance.unittesting.screens.questionslist;
 
+import com.techyourchance.unittesting.common.cache.StaleWhileRevalidatePolicy;
+import com.techyourchance.unittesting.common.instrumentation.Metrics;
 import com.techyourchance.unittesting.common.time.TimeProvider;
 import com.techyourchance.unittesting.questions.FetchLastActiveQuestionsUseCase;
 import com.techyourchance.unittesting.questions.Question;
+import com.techyourchance.unittesting.questions.QuestionDetailsPrefetcher;
 import com.techyourchance.unittesting.screens.common.screensnavigator.ScreensNavigator;
 import com.techyourchance.unittesting.screens.common.toastshelper.ToastsHelper;
 import com.techyourchance.unittesting.testdata.QuestionsTestData;
@@ -13,6 +16,7 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -30,6 +34,8 @@ public class QuestionsListControllerTest {
     // region constants ----------------------------------------------------------------------------
     private static final List<Question> QUESTIONS = QuestionsTestData.getQuestions();
     private static final Question QUESTION = QuestionsTestData.getQuestion();
+    private static final long FRESH_WINDOW_MS = 1000;
+    private static final long STALE_WINDOW_MS = 2000;
     // endregion constants -------------------------------------------------------------------------
 
     // region helper fields ------------------------------------------------------------------------
@@ -38,14 +44,16 @@ public class QuestionsListControllerTest {
     @Mock ToastsHelper mToastsHelper;
     @Mock QuestionsListViewMvc mQuestionsListViewMvc;
     @Mock TimeProvider mTimeProviderMock;
+    @Mock QuestionDetailsPrefetcher mQuestionDetailsPrefetcherMock;
     // endregion helper fields ---------------------------------------------------------------------
 
     QuestionsListController SUT;
 
     @Before
     public void setup() throws Exception {
-        mUseCaseTd = new UseCaseTd();
-        SUT = new QuestionsListController(mUseCaseTd, mScreensNavigator, mToastsHelper, mTimeProviderMock);
+        mUseCaseTd = new UseCaseTd(mTimeProviderMock);
+        SUT = new QuestionsListController(mUseCaseTd, mScreensNavigator, mToastsHelper, mTimeProviderMock,
+                mQuestionDetailsPrefetcherMock);
         SUT.bindView(mQuestionsListViewMvc);
     }
 
@@ -154,11 +162,11 @@ public class QuestionsListControllerTest {
     public void onStart_secondTimeAfterCachingTimeout_questionsBoundToViewFromUseCase() throws Exception {
         // Arrange
         emptyQuestionsListOnFirstCall();
-        when(mTimeProviderMock.getCurrentTimestamp()).thenReturn(0l);
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(0l);
         // Act
         SUT.onStart();
         SUT.onStop();
-        when(mTimeProviderMock.getCurrentTimestamp()).thenReturn(10000l);
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(10000l);
         SUT.onStart();
         // Assert
         verify(mQuestionsListViewMvc).bindQuestions(QUESTIONS);
@@ -167,17 +175,201 @@ public class QuestionsListControllerTest {
     @Test
     public void onStart_secondTimeRightBeforeCachingTimeout_questionsBoundToViewFromCache() throws Exception {
         // Arrange
-        when(mTimeProviderMock.getCurrentTimestamp()).thenReturn(0l);
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(0l);
         // Act
         SUT.onStart();
         SUT.onStop();
-        when(mTimeProviderMock.getCurrentTimestamp()).thenReturn(9999l);
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(9999l);
         SUT.onStart();
         // Assert
         verify(mQuestionsListViewMvc, times(2)).bindQuestions(QUESTIONS);
         assertThat(mUseCaseTd.getCallCount(), is(1));
     }
 
+    @Test
+    public void onStart_secondTimeAfterCachingTimeout_staleQuestionsBoundWithoutProgressIndication() throws Exception {
+        // Arrange
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(0l);
+        SUT.onStart();
+        SUT.onStop();
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(10000l);
+        unresponsiveUseCase();
+        // Act
+        SUT.onStart();
+        // Assert
+        verify(mQuestionsListViewMvc, times(2)).bindQuestions(QUESTIONS);
+        verify(mQuestionsListViewMvc, times(1)).showProgressIndication();
+        assertThat(mUseCaseTd.getCallCount(), is(2));
+    }
+
+    @Test
+    public void onStart_secondTimeAfterCachingTimeoutAndSameQuestionsFetched_questionsNotBoundAgain() throws Exception {
+        // Arrange
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(0l);
+        SUT.onStart();
+        SUT.onStop();
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(10000l);
+        // Act
+        SUT.onStart();
+        // Assert
+        verify(mQuestionsListViewMvc, times(2)).bindQuestions(QUESTIONS);
+        assertThat(mUseCaseTd.getCallCount(), is(2));
+    }
+
+    @Test
+    public void onStart_secondTimeAfterCachingTimeoutAndRefreshFailed_errorToastNotShown() throws Exception {
+        // Arrange
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(0l);
+        SUT.onStart();
+        SUT.onStop();
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(10000l);
+        failure();
+        // Act
+        SUT.onStart();
+        // Assert
+        verify(mToastsHelper, never()).showUseCaseError();
+    }
+
+    @Test
+    public void onStart_secondTimeAfterStaleWindow_progressIndicationShownAndQuestionsNotBoundFromCache() throws Exception {
+        // Arrange
+        SUT = new QuestionsListController(mUseCaseTd, mScreensNavigator, mToastsHelper, mTimeProviderMock, mQuestionDetailsPrefetcherMock,
+                new StaleWhileRevalidatePolicy(FRESH_WINDOW_MS, STALE_WINDOW_MS));
+        SUT.bindView(mQuestionsListViewMvc);
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(0l);
+        SUT.onStart();
+        SUT.onStop();
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(FRESH_WINDOW_MS + STALE_WINDOW_MS);
+        unresponsiveUseCase();
+        // Act
+        SUT.onStart();
+        // Assert
+        verify(mQuestionsListViewMvc, times(2)).showProgressIndication();
+        verify(mQuestionsListViewMvc, times(1)).bindQuestions(QUESTIONS);
+    }
+
+    @Test
+    public void onStart_secondTimeWithinCustomFreshWindow_questionsBoundToViewFromCache() throws Exception {
+        // Arrange
+        SUT = new QuestionsListController(mUseCaseTd, mScreensNavigator, mToastsHelper, mTimeProviderMock, mQuestionDetailsPrefetcherMock,
+                new StaleWhileRevalidatePolicy(FRESH_WINDOW_MS, STALE_WINDOW_MS));
+        SUT.bindView(mQuestionsListViewMvc);
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(0l);
+        SUT.onStart();
+        SUT.onStop();
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(FRESH_WINDOW_MS - 1);
+        // Act
+        SUT.onStart();
+        // Assert
+        verify(mQuestionsListViewMvc, times(2)).bindQuestions(QUESTIONS);
+        assertThat(mUseCaseTd.getCallCount(), is(1));
+    }
+
+    @Test
+    public void onStart_secondTimeWithinFreshWindowAfterQuestionsFromDisk_questionsBoundAndRefreshed() throws Exception {
+        // Arrange
+        mUseCaseTd.mFetchTimestamp = FetchLastActiveQuestionsUseCase.FETCH_TIMESTAMP_UNKNOWN;
+        SUT.onStart();
+        SUT.onStop();
+        unresponsiveUseCase();
+        // Act
+        SUT.onStart();
+        // Assert
+        verify(mQuestionsListViewMvc, times(2)).bindQuestions(QUESTIONS);
+        verify(mQuestionsListViewMvc, times(1)).showProgressIndication();
+        assertThat(mUseCaseTd.getCallCount(), is(2));
+    }
+
+    @Test
+    public void onStart_secondTimeWithinFreshWindowOfDeliveryButNotOfFetch_questionsRefreshed() throws Exception {
+        // Arrange
+        mUseCaseTd.mFetchTimestamp = 0l;
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(5000l);
+        SUT.onStart();
+        SUT.onStop();
+        when(mTimeProviderMock.getMonotonicTimestamp()).thenReturn(10000l);
+        unresponsiveUseCase();
+        // Act
+        SUT.onStart();
+        // Assert
+        verify(mQuestionsListViewMvc, times(2)).bindQuestions(QUESTIONS);
+        assertThat(mUseCaseTd.getCallCount(), is(2));
+    }
+
+    @Test
+    public void onQuestionsListScrolled_nearEndOfFirstPage_secondPageFetched() throws Exception {
+        // Arrange
+        SUT.onStart();
+        // Act
+        SUT.onQuestionsListScrolled(0, QUESTIONS.size() - 1);
+        // Assert
+        assertThat(mUseCaseTd.getRequestedPages(), is(Arrays.asList(2)));
+    }
+
+    @Test
+    public void onQuestionsListScrolled_beforeFirstPageFetched_noPageFetched() throws Exception {
+        // Arrange
+        unresponsiveUseCase();
+        SUT.onStart();
+        // Act
+        SUT.onQuestionsListScrolled(0, 0);
+        // Assert
+        assertThat(mUseCaseTd.getRequestedPages().isEmpty(), is(true));
+    }
+
+    @Test
+    public void onLastActiveQuestionsPageFetched_nextPage_questionsAppendedAndBoundToView() throws Exception {
+        // Arrange
+        SUT.onStart();
+        List<Question> secondPage = new LinkedList<>();
+        secondPage.add(new Question("id3", "title3"));
+        List<Question> expectedQuestions = new LinkedList<>(QUESTIONS);
+        expectedQuestions.addAll(secondPage);
+        // Act
+        SUT.onLastActiveQuestionsPageFetched(2, secondPage, true);
+        // Assert
+        verify(mQuestionsListViewMvc).bindQuestions(expectedQuestions);
+    }
+
+    @Test
+    public void onLastActiveQuestionsPageFetched_notAdjacentPage_questionsNotBoundToView() throws Exception {
+        // Arrange
+        SUT.onStart();
+        // Act
+        SUT.onLastActiveQuestionsPageFetched(3, QUESTIONS, true);
+        // Assert
+        verify(mQuestionsListViewMvc, times(1)).bindQuestions(any(List.class));
+    }
+
+    @Test
+    public void onStart_successfulResponse_topQuestionsPrefetched() throws Exception {
+        // Arrange
+        success();
+        // Act
+        SUT.onStart();
+        // Assert
+        verify(mQuestionDetailsPrefetcherMock).prefetch(QUESTIONS);
+    }
+
+    @Test
+    public void onQuestionsListScrolled_visibleQuestionsPrefetched() throws Exception {
+        // Arrange
+        SUT.onStart();
+        // Act
+        SUT.onQuestionsListScrolled(1, 1);
+        // Assert
+        verify(mQuestionDetailsPrefetcherMock).prefetch(QUESTIONS.subList(1, 2));
+    }
+
+    @Test
+    public void onStop_prefetchesCancelled() throws Exception {
+        // Arrange
+        SUT.onStart();
+        // Act
+        SUT.onStop();
+        // Assert
+        verify(mQuestionDetailsPrefetcherMock).cancel();
+    }
 
     // region helper methods -----------------------------------------------------------------------
 
@@ -193,6 +385,10 @@ public class QuestionsListControllerTest {
         mUseCaseTd.mEmptyListOnFirstCall = true;
     }
 
+    private void unresponsiveUseCase() {
+        mUseCaseTd.mUnresponsive = true;
+    }
+
     // endregion helper methods --------------------------------------------------------------------
 
     // region helper classes -----------------------------------------------------------------------
@@ -200,15 +396,32 @@ public class QuestionsListControllerTest {
 
         public boolean mEmptyListOnFirstCall;
         private boolean mFailure;
+        private boolean mUnresponsive;
         private int mCallCount;
+        private final List<Integer> mRequestedPages = new LinkedList<>();
+        private final TimeProvider mTimeProvider;
+        // null if the questions are fetched at the time of notification
+        private Long mFetchTimestamp;
+        private long mNotifiedQuestionsFetchTimestamp;
+
+        public UseCaseTd(TimeProvider timeProvider) {
+            super(null, null, null, null, null, null, new Metrics(new TimeProvider()), null, null);
+            mTimeProvider = timeProvider;
+        }
 
-        public UseCaseTd() {
-            super(null);
+        @Override
+        public long getNotifiedQuestionsFetchTimestamp() {
+            return mNotifiedQuestionsFetchTimestamp;
         }
 
         @Override
         public void fetchLastActiveQuestionsAndNotify() {
             mCallCount++;
+            if (mUnresponsive) {
+                return;
+            }
+            mNotifiedQuestionsFetchTimestamp =
+                    mFetchTimestamp != null ? mFetchTimestamp : mTimeProvider.getMonotonicTimestamp();
             for (FetchLastActiveQuestionsUseCase.Listener listener : getListeners()) {
                 if (mFailure) {
                     listener.onLastActiveQuestionsFetchFailed();
@@ -222,6 +435,11 @@ public class QuestionsListControllerTest {
             }
         }
 
+        @Override
+        public void fetchLastActiveQuestionsPageAndNotify(int page) {
+            mRequestedPages.add(page);
+        }
+
         public void verifyListenerRegistered(QuestionsListController candidate) {
             for (FetchLastActiveQuestionsUseCase.Listener listener : getListeners()) {
                 if (listener == candidate) {
@@ -242,6 +460,10 @@ public class QuestionsListControllerTest {
         public int getCallCount() {
             return mCallCount;
         }
+
+        public List<Integer> getRequestedPages() {
+            return mRequestedPages;
+        }
     }
     // endregion helper classes --------------------------------------------------------------------
 
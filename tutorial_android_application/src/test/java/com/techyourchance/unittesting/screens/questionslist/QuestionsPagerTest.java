@@ -0,0 +1,216 @@
+package com.techyourchance.unittesting.screens.questionslist;
+
+import com.techyourchance.unittesting.questions.Question;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class QuestionsPagerTest {
+
+    // region constants ----------------------------------------------------------------------------
+    private static final int MAX_RESIDENT_PAGES = 3;
+    private static final int PREFETCH_DISTANCE = 2;
+    private static final int PAGE_SIZE = 5;
+    // endregion constants -------------------------------------------------------------------------
+
+    QuestionsPager SUT;
+
+    @Before
+    public void setup() throws Exception {
+        SUT = new QuestionsPager(MAX_RESIDENT_PAGES, PREFETCH_DISTANCE);
+    }
+
+    @Test
+    public void getPageToFetch_noPagesLoaded_noPageReturned() throws Exception {
+        // Arrange
+        // Act
+        int result = SUT.getPageToFetch(0, 0);
+        // Assert
+        assertThat(result, is(QuestionsPager.NO_PAGE));
+    }
+
+    @Test
+    public void getPageToFetch_firstPageLoadedAndNearItsEnd_secondPageReturned() throws Exception {
+        // Arrange
+        SUT.setFirstPage(page(1));
+        // Act
+        int result = SUT.getPageToFetch(0, PAGE_SIZE - 1 - PREFETCH_DISTANCE);
+        // Assert
+        assertThat(result, is(2));
+    }
+
+    @Test
+    public void getPageToFetch_firstPageLoadedAndFarFromItsEnd_noPageReturned() throws Exception {
+        // Arrange
+        SUT.setFirstPage(page(1));
+        // Act
+        int result = SUT.getPageToFetch(0, PAGE_SIZE - 2 - PREFETCH_DISTANCE);
+        // Assert
+        assertThat(result, is(QuestionsPager.NO_PAGE));
+    }
+
+    @Test
+    public void getPageToFetch_emptyFirstPage_noPageReturned() throws Exception {
+        // Arrange
+        SUT.setFirstPage(new LinkedList<Question>());
+        // Act
+        int result = SUT.getPageToFetch(0, 0);
+        // Assert
+        assertThat(result, is(QuestionsPager.NO_PAGE));
+    }
+
+    @Test
+    public void getPageToFetch_lastPageLoaded_noPageReturned() throws Exception {
+        // Arrange
+        SUT.setFirstPage(page(1));
+        SUT.addPage(2, page(2), false);
+        // Act
+        int result = SUT.getPageToFetch(0, 2 * PAGE_SIZE - 1);
+        // Assert
+        assertThat(result, is(QuestionsPager.NO_PAGE));
+    }
+
+    @Test
+    public void addPage_nextPage_questionsAppended() throws Exception {
+        // Arrange
+        SUT.setFirstPage(page(1));
+        // Act
+        boolean result = SUT.addPage(2, page(2), true);
+        // Assert
+        assertThat(result, is(true));
+        assertThat(SUT.getQuestions(), is(pages(1, 2)));
+    }
+
+    @Test
+    public void addPage_notAdjacentPage_ignored() throws Exception {
+        // Arrange
+        SUT.setFirstPage(page(1));
+        // Act
+        boolean result = SUT.addPage(3, page(3), true);
+        // Assert
+        assertThat(result, is(false));
+        assertThat(SUT.getQuestions(), is(page(1)));
+    }
+
+    @Test
+    public void addPage_moreThanMaxResidentPages_firstPageDropped() throws Exception {
+        // Arrange
+        SUT.setFirstPage(page(1));
+        SUT.addPage(2, page(2), true);
+        SUT.addPage(3, page(3), true);
+        // Act
+        SUT.addPage(4, page(4), true);
+        // Assert
+        assertThat(SUT.getQuestions(), is(pages(2, 4)));
+        assertThat(SUT.getFirstResidentPage(), is(2));
+        assertThat(SUT.getLastResidentPage(), is(4));
+    }
+
+    @Test
+    public void getPageToFetch_firstPageDroppedAndNearWindowStart_droppedPageReturned() throws Exception {
+        // Arrange
+        SUT.setFirstPage(page(1));
+        SUT.addPage(2, page(2), true);
+        SUT.addPage(3, page(3), true);
+        SUT.addPage(4, page(4), true);
+        // Act
+        int result = SUT.getPageToFetch(PREFETCH_DISTANCE, PREFETCH_DISTANCE + PAGE_SIZE);
+        // Assert
+        assertThat(result, is(1));
+    }
+
+    @Test
+    public void addPage_previousPageBeyondMaxResidentPages_lastPageDroppedAndMoreAvailable() throws Exception {
+        // Arrange
+        SUT.setFirstPage(page(1));
+        SUT.addPage(2, page(2), true);
+        SUT.addPage(3, page(3), true);
+        SUT.addPage(4, page(4), false);
+        // Act
+        SUT.addPage(1, page(1), true);
+        // Assert
+        assertThat(SUT.getQuestions(), is(pages(1, 3)));
+        assertThat(SUT.hasMore(), is(true));
+    }
+
+    @Test
+    public void setFirstPage_firstPageNotResident_windowNotChanged() throws Exception {
+        // Arrange
+        SUT.setFirstPage(page(1));
+        SUT.addPage(2, page(2), true);
+        SUT.addPage(3, page(3), true);
+        SUT.addPage(4, page(4), true);
+        // Act
+        boolean result = SUT.setFirstPage(page(1));
+        // Assert
+        assertThat(result, is(false));
+        assertThat(SUT.getQuestions(), is(pages(2, 4)));
+    }
+
+    @Test
+    public void getQuestions_questionMovedBetweenPages_listedOnce() throws Exception {
+        // Arrange
+        List<Question> secondPage = page(2);
+        secondPage.set(0, page(1).get(0));
+        SUT.setFirstPage(page(1));
+        SUT.addPage(2, secondPage, true);
+        // Act
+        List<Question> result = SUT.getQuestions();
+        // Assert
+        assertThat(result.size(), is(2 * PAGE_SIZE - 1));
+    }
+
+    @Test
+    public void getQuestions_windowNotChanged_sameListReturned() throws Exception {
+        // Arrange
+        SUT.setFirstPage(page(1));
+        SUT.addPage(2, page(2), true);
+        List<Question> questions = SUT.getQuestions();
+        // Act
+        List<Question> result = SUT.getQuestions();
+        // Assert
+        assertThat(result, is(sameInstance(questions)));
+    }
+
+    @Test
+    public void getQuestions_pageAddedAfterQuestionsReturned_returnedQuestionsNotChanged() throws Exception {
+        // Arrange
+        SUT.setFirstPage(page(1));
+        List<Question> questions = SUT.getQuestions();
+        // Act
+        SUT.addPage(2, page(2), true);
+        // Assert
+        assertThat(questions, is(page(1)));
+        assertThat(SUT.getQuestions(), is(pages(1, 2)));
+    }
+
+    // region helper methods -----------------------------------------------------------------------
+
+    private static List<Question> page(int page) {
+        List<Question> questions = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            String id = "id" + page + "-" + i;
+            questions.add(new Question(id, "title " + id));
+        }
+        return questions;
+    }
+
+    private static List<Question> pages(int firstPage, int lastPage) {
+        List<Question> questions = new ArrayList<>();
+        for (int page = firstPage; page <= lastPage; page++) {
+            questions.addAll(page(page));
+        }
+        return questions;
+    }
+
+    // endregion helper methods --------------------------------------------------------------------
+
+}